@@ -222,7 +222,10 @@ def _strip_gwt_incompatible(ctx, name, java_srcs, mnemonic):
         executable = ctx.executable._j2cl_stripper,
         arguments = [args],
         env = dict(LANG = "en_US.UTF-8"),
-        execution_requirements = {"supports-workers": "1"},
+        execution_requirements = {
+            "supports-workers": "1",
+            "supports-multiplex-workers": "1",
+        },
         mnemonic = mnemonic,
     )
 
@@ -264,7 +267,10 @@ def _j2cl_transpile(
         executable = ctx.executable._j2cl_transpiler,
         arguments = [args],
         env = dict(LANG = "en_US.UTF-8"),
-        execution_requirements = {"supports-workers": "1"},
+        execution_requirements = {
+            "supports-workers": "1",
+            "supports-multiplex-workers": "1",
+        },
         mnemonic = "J2cl",
     )
 
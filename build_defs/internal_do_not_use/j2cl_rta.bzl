@@ -70,7 +70,10 @@ def _j2cl_rta_impl(ctx):
         arguments = jvm_args + [rta_args],
         progress_message = "Running J2CL rapid type analysis",
         executable = ctx.executable._rta_runner,
-        execution_requirements = {"supports-workers": "1"},
+        execution_requirements = {
+            "supports-workers": "1",
+            "supports-multiplex-workers": "1",
+        },
         mnemonic = "J2clRta",
     )
 
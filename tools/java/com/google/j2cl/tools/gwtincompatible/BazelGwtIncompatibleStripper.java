@@ -35,9 +35,24 @@ final class BazelGwtIncompatibleStripper extends BazelWorker {
       usage = "The directory or zip file into which to place the output.")
   Path outputPath;
 
+  @Option(
+      name = "-experimentalstrippedcontentcachesize",
+      metaVar = "<megachars>",
+      usage =
+          "Maximum length of the stripped content kept across requests, in millions of characters;"
+              + " 0 disables the cache.",
+      hidden = true)
+  long experimentalStrippedContentCacheSize =
+      StrippedContentCache.DEFAULT_MAX_CACHED_CHARS / (1024 * 1024);
+
   @Override
   protected void run(Problems problems) {
-    GwtIncompatibleStripper.strip(files, outputPath, problems);
+    // The worker serves many requests, most of which include files that were stripped before.
+    StrippedContentCache cache =
+        experimentalStrippedContentCacheSize > 0
+            ? StrippedContentCache.getInstance(experimentalStrippedContentCacheSize * 1024 * 1024)
+            : null;
+    GwtIncompatibleStripper.strip(files, outputPath, cache, problems);
   }
 
   public static void main(String[] workerArgs) throws Exception {
@@ -17,8 +17,11 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Range;
 import com.google.common.io.MoreFiles;
+import com.google.j2cl.common.ConcurrentTasks;
 import com.google.j2cl.common.OutputUtils;
 import com.google.j2cl.common.OutputUtils.Output;
 import com.google.j2cl.common.Problems;
@@ -32,6 +35,7 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTNode;
@@ -45,31 +49,57 @@ import org.eclipse.jdt.core.dom.ImportDeclaration;
  */
 public final class GwtIncompatibleStripper {
 
-  static void strip(List<String> files, Path outputPath, Problems problems) {
+  /**
+   * Strips all the provided files into the output path.
+   *
+   * @param cache holds the stripped content of files processed before, or null to strip every
+   *     file.
+   */
+  static void strip(
+      List<String> files,
+      Path outputPath,
+      @Nullable StrippedContentCache cache,
+      Problems problems) {
     try (Output out = OutputUtils.initOutput(outputPath, problems)) {
       List<FileInfo> allPaths =
           SourceUtils.getAllSources(files, problems)
               .filter(f -> f.targetPath().endsWith(".java"))
               .collect(toImmutableList());
-      preprocessFiles(allPaths, out, problems);
+      preprocessFiles(allPaths, out, cache, problems);
     }
   }
 
   /** Preprocess all provided files and put them to provided output path. */
-  private static void preprocessFiles(List<FileInfo> fileInfos, Output output, Problems problems) {
-    for (FileInfo fileInfo : fileInfos) {
-      String processedFileContent;
-      try {
-        String fileContent = MoreFiles.asCharSource(Paths.get(fileInfo.sourcePath()), UTF_8).read();
-        processedFileContent = strip(fileContent);
-      } catch (IOException e) {
-        problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
-        return;
-      }
+  private static void preprocessFiles(
+      List<FileInfo> fileInfos,
+      Output output,
+      @Nullable StrippedContentCache cache,
+      Problems problems) {
+    // Files are stripped independently of each other, so they are processed in parallel.
+    ConcurrentTasks.forEach(
+        fileInfos,
+        fileInfo -> {
+          String processedFileContent;
+          try {
+            String fileContent =
+                MoreFiles.asCharSource(Paths.get(fileInfo.sourcePath()), UTF_8).read();
+            processedFileContent = strip(fileContent, cache);
+          } catch (IOException e) {
+            problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
+            return;
+          }
+
+          // Write the processed file to output
+          output.write(fileInfo.originalPath(), processedFileContent);
+        });
+  }
 
-      // Write the processed file to output
-      output.write(fileInfo.originalPath(), processedFileContent);
+  private static String strip(String fileContent, @Nullable StrippedContentCache cache) {
+    // Files without textual references to GwtIncompatible are cheaper to check than to look up.
+    if (cache == null || !fileContent.contains("GwtIncompatible")) {
+      return strip(fileContent);
     }
+    return cache.computeIfAbsent(fileContent, GwtIncompatibleStripper::strip);
   }
 
   public static String strip(String fileContent) {
@@ -78,6 +108,47 @@ public final class GwtIncompatibleStripper {
       return fileContent;
     }
 
+    // Most files can be stripped by looking at their tokens, the rest need to be parsed.
+    List<Range<Integer>> rangesToStrip = GwtIncompatibleTokenScanner.findRangesToStrip(fileContent);
+    if (rangesToStrip == null) {
+      rangesToStrip = findRangesToStripByParsing(fileContent);
+    }
+    if (rangesToStrip.isEmpty()) {
+      // Nothing was changed.
+      return fileContent;
+    }
+
+    // Wrap all the not needed code inside comments in the original source
+    // (so we can preserve line numbers and have accurate source maps).
+    // Precondition: Ranges must not overlap and they must be sorted by position.
+    StringBuilder newFileContent = new StringBuilder();
+    int currentPosition = 0;
+    for (Range<Integer> rangeToStrip : rangesToStrip) {
+      int startPosition = rangeToStrip.lowerEndpoint();
+      int endPosition = rangeToStrip.upperEndpoint();
+      checkState(
+          currentPosition <= startPosition,
+          "Unexpected node position: %s, must be >= %s",
+          startPosition,
+          currentPosition);
+
+      newFileContent.append(fileContent, currentPosition, startPosition);
+
+      StringBuilder strippedCodeBuilder = new StringBuilder();
+      for (char c : fileContent.substring(startPosition, endPosition).toCharArray()) {
+        strippedCodeBuilder.append(Character.isWhitespace(c) ? c : ' ');
+      }
+      newFileContent.append(strippedCodeBuilder);
+      currentPosition = endPosition;
+    }
+    newFileContent.append(fileContent, currentPosition, fileContent.length());
+
+    return newFileContent.toString();
+  }
+
+  /** Returns the ranges of the code to comment out, as found on the AST of the file. */
+  @VisibleForTesting
+  static List<Range<Integer>> findRangesToStripByParsing(String fileContent) {
     Map<String, String> compilerOptions = new HashMap<>();
     compilerOptions.put(JavaCore.COMPILER_SOURCE, JavaCore.VERSION_9);
     compilerOptions.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JavaCore.VERSION_9);
@@ -105,39 +176,11 @@ public final class GwtIncompatibleStripper {
     compilationUnit.accept(unusedImportsNodeCollector);
     List<ImportDeclaration> unusedImportsNodes = unusedImportsNodeCollector.getUnusedImports();
 
-    // Wrap all the not needed nodes inside comments in the original source
-    // (so we can preserve line numbers and have accurate source maps).
     List<ASTNode> nodesToWrap = Lists.newArrayList(unusedImportsNodes);
     nodesToWrap.addAll(gwtIncompatibleNodes);
-    if (nodesToWrap.isEmpty()) {
-      // Nothing was changed.
-      return fileContent;
-    }
-
-    // Precondition: Node ranges must not overlap and they must be sorted by position.
-    StringBuilder newFileContent = new StringBuilder();
-    int currentPosition = 0;
-    for (ASTNode nodeToWrap : nodesToWrap) {
-      int startPosition = nodeToWrap.getStartPosition();
-      int endPosition = startPosition + nodeToWrap.getLength();
-      checkState(
-          currentPosition <= startPosition,
-          "Unexpected node position: %s, must be >= %s",
-          startPosition,
-          currentPosition);
-
-      newFileContent.append(fileContent, currentPosition, startPosition);
-
-      StringBuilder strippedCodeBuilder = new StringBuilder();
-      for (char c : fileContent.substring(startPosition, endPosition).toCharArray()) {
-        strippedCodeBuilder.append(Character.isWhitespace(c) ? c : ' ');
-      }
-      newFileContent.append(strippedCodeBuilder);
-      currentPosition = endPosition;
-    }
-    newFileContent.append(fileContent, currentPosition, fileContent.length());
-
-    return newFileContent.toString();
+    return nodesToWrap.stream()
+        .map(n -> Range.closedOpen(n.getStartPosition(), n.getStartPosition() + n.getLength()))
+        .collect(toImmutableList());
   }
 
   private GwtIncompatibleStripper() {}
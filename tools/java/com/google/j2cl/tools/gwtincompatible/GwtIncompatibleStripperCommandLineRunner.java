@@ -42,7 +42,7 @@ public final class GwtIncompatibleStripperCommandLineRunner extends CommandLineT
   @Override
   protected void run(Problems problems) {
     checkSourceFiles(problems, files, ".java", ".srcjar", ".jar");
-    GwtIncompatibleStripper.strip(files, outputPath, problems);
+    GwtIncompatibleStripper.strip(files, outputPath, /* cache= */ null, problems);
   }
 
   public static int run(String[] args) {
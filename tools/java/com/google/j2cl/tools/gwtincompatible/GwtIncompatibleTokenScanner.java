@@ -0,0 +1,743 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.gwtincompatible;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Range;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+/**
+ * Finds the code that {@link GwtIncompatibleStripper} comments out by looking at the tokens of a
+ * file, without parsing it.
+ *
+ * <p>The scanner understands the structure of type bodies, which is where {@code GwtIncompatible}
+ * is used in practice, and skips over the bodies of methods and initializers. Files where it finds
+ * a {@code GwtIncompatible} annotation that it can not account for, like one on a local class or
+ * on a parameter, or syntax it does not expect, are left to the full parse.
+ *
+ * <p>The results match the ones of the parser: the same declarations are stripped, their ranges
+ * include their javadoc, and imports are considered used under the same rules as {@link
+ * UnusedImportsNodeCollector}.
+ */
+final class GwtIncompatibleTokenScanner {
+
+  /**
+   * Returns the ranges of the code to comment out, sorted and not overlapping, or null if the file
+   * needs to be parsed.
+   */
+  @Nullable
+  static List<Range<Integer>> findRangesToStrip(String fileContent) {
+    try {
+      return new GwtIncompatibleTokenScanner(fileContent).findRangesToStrip();
+    } catch (UnsupportedSyntaxException e) {
+      return null;
+    }
+  }
+
+  /** Thrown when the file uses syntax that the scanner does not handle. */
+  private static class UnsupportedSyntaxException extends RuntimeException {
+    UnsupportedSyntaxException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private enum TokenKind {
+    IDENTIFIER,
+    KEYWORD,
+    LITERAL,
+    SYMBOL,
+    END_OF_FILE
+  }
+
+  private static final class Token {
+    private final TokenKind kind;
+    private final String text;
+    private final int start;
+    private final int end;
+    /** Start of the last javadoc between the previous token and this one, or -1. */
+    private final int javadocStart;
+
+    Token(TokenKind kind, String text, int start, int end, int javadocStart) {
+      this.kind = kind;
+      this.text = text;
+      this.start = start;
+      this.end = end;
+      this.javadocStart = javadocStart;
+    }
+
+    boolean is(String text) {
+      return (kind == TokenKind.SYMBOL || kind == TokenKind.KEYWORD) && this.text.equals(text);
+    }
+  }
+
+  /** The kinds of bodies whose members are scanned. */
+  private enum BodyKind {
+    COMPILATION_UNIT,
+    CLASS,
+    ANNOTATION_TYPE
+  }
+
+  private static final ImmutableSet<String> KEYWORDS =
+      ImmutableSet.of(
+          "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class",
+          "const", "continue", "default", "do", "double", "else", "enum", "extends", "final",
+          "finally", "float", "for", "goto", "if", "implements", "import", "instanceof", "int",
+          "interface", "long", "native", "new", "package", "private", "protected", "public",
+          "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+          "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false",
+          "null");
+
+  private static final ImmutableSet<String> MODIFIERS =
+      ImmutableSet.of(
+          "public", "protected", "private", "static", "abstract", "final", "native",
+          "synchronized", "transient", "volatile", "strictfp", "default");
+
+  private static final String GWT_INCOMPATIBLE = "GwtIncompatible";
+
+  private final List<Token> tokens;
+  private int position = 0;
+
+  private final List<Range<Integer>> importRanges = new ArrayList<>();
+  /** The simple names imported by each import, or null for the ones that are on demand. */
+  private final List<String> importedNames = new ArrayList<>();
+
+  private final List<Range<Integer>> strippedRanges = new ArrayList<>();
+  /** Positions of the GwtIncompatible annotations that were seen on declarations. */
+  private final Set<Integer> handledAnnotationPositions = new HashSet<>();
+
+  private GwtIncompatibleTokenScanner(String fileContent) {
+    this.tokens = tokenize(fileContent);
+  }
+
+  private List<Range<Integer>> findRangesToStrip() {
+    scanCompilationUnit();
+    checkAllAnnotationsHandled();
+
+    Set<String> referencedNames = collectReferencedNames();
+    ImmutableList.Builder<Range<Integer>> rangesToStrip = ImmutableList.builder();
+    for (int i = 0; i < importRanges.size(); i++) {
+      String importedName = importedNames.get(i);
+      // Assume .* imports are always needed.
+      if (importedName != null && !referencedNames.contains(importedName)) {
+        rangesToStrip.add(importRanges.get(i));
+      }
+    }
+    return rangesToStrip.addAll(strippedRanges).build();
+  }
+
+  private void scanCompilationUnit() {
+    int firstToken = position;
+    List<Integer> gwtIncompatibleAnnotations = scanModifiers();
+    if (peek().is("package")) {
+      handledAnnotationPositions.addAll(gwtIncompatibleAnnotations);
+      skipPast(";");
+    } else {
+      position = firstToken;
+    }
+
+    while (peek().is("import")) {
+      scanImport();
+    }
+
+    while (peek().kind != TokenKind.END_OF_FILE) {
+      if (peek().is(";")) {
+        position++;
+        continue;
+      }
+      scanMember(BodyKind.COMPILATION_UNIT);
+    }
+  }
+
+  private void scanImport() {
+    Token importToken = next();
+    if (peek().is("static")) {
+      position++;
+    }
+    String importedName = expect(TokenKind.IDENTIFIER).text;
+    while (peek().is(".")) {
+      position++;
+      if (peek().is("*")) {
+        position++;
+        importedName = null;
+        break;
+      }
+      importedName = expect(TokenKind.IDENTIFIER).text;
+    }
+    Token semicolon = expectSymbol(";");
+    importRanges.add(Range.closedOpen(importToken.start, semicolon.end));
+    importedNames.add(importedName);
+  }
+
+  /** Scans a member of a body, or a type declaration in the compilation unit. */
+  private void scanMember(BodyKind bodyKind) {
+    int firstToken = position;
+    List<Integer> gwtIncompatibleAnnotations = scanModifiers();
+    boolean isGwtIncompatible = !gwtIncompatibleAnnotations.isEmpty();
+    handledAnnotationPositions.addAll(gwtIncompatibleAnnotations);
+
+    Token token = peek();
+    if (token.is("class") || token.is("interface")) {
+      position++;
+      expect(TokenKind.IDENTIFIER);
+      skipTypeHeader();
+      if (isGwtIncompatible) {
+        skipBalanced("{", "}");
+        strip(firstToken);
+      } else {
+        scanBody(BodyKind.CLASS);
+      }
+      return;
+    }
+
+    // Enum and annotation type declarations are never stripped, but their members are.
+    if (token.is("enum")) {
+      position++;
+      expect(TokenKind.IDENTIFIER);
+      skipTypeHeader();
+      scanEnumBody();
+      return;
+    }
+    if (token.is("@") && peek(1).is("interface")) {
+      position += 2;
+      expect(TokenKind.IDENTIFIER);
+      skipTypeHeader();
+      scanBody(BodyKind.ANNOTATION_TYPE);
+      return;
+    }
+
+    if (bodyKind == BodyKind.COMPILATION_UNIT || isGwtIncompatible && token.is("{")) {
+      throw new UnsupportedSyntaxException();
+    }
+
+    if (token.is("{")) {
+      // An initializer.
+      skipBalanced("{", "}");
+      return;
+    }
+
+    // A field, method or constructor.
+    boolean isMethod = scanFieldOrMethod();
+    // Members of annotation types that look like methods are not stripped.
+    if (isGwtIncompatible && !(isMethod && bodyKind == BodyKind.ANNOTATION_TYPE)) {
+      strip(firstToken);
+    }
+  }
+
+  /**
+   * Skips over a field or method declaration, after its modifiers, and returns whether it was a
+   * method.
+   */
+  private boolean scanFieldOrMethod() {
+    while (true) {
+      Token token = peek();
+      if (token.is("<")) {
+        skipTypeArguments();
+      } else if (token.is("@")) {
+        skipAnnotation();
+      } else if (token.is("(")) {
+        skipBalanced("(", ")");
+        skipMethodRest();
+        return true;
+      } else if (token.is("=") || token.is(";") || token.is(",")) {
+        skipPast(";");
+        return false;
+      } else if (token.kind == TokenKind.IDENTIFIER
+          || token.kind == TokenKind.KEYWORD && !isTypeDeclarationKeyword(token)
+          || token.is(".")
+          || token.is("[")
+          || token.is("]")
+          || token.is("?")) {
+        position++;
+      } else {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  /** Skips the part of a method after its parameters, up to its body or the final semicolon. */
+  private void skipMethodRest() {
+    while (true) {
+      Token token = peek();
+      if (token.is(";")) {
+        position++;
+        return;
+      } else if (token.is("{")) {
+        // Either the body, or an array in the default value of an annotation type member.
+        boolean isDefaultValue = position > 0 && tokens.get(position - 1).is("default");
+        skipBalanced("{", "}");
+        if (!isDefaultValue) {
+          return;
+        }
+      } else if (token.is("(")) {
+        skipBalanced("(", ")");
+      } else if (token.kind == TokenKind.END_OF_FILE || token.is("}")) {
+        throw new UnsupportedSyntaxException();
+      } else {
+        position++;
+      }
+    }
+  }
+
+  private void scanBody(BodyKind bodyKind) {
+    expectSymbol("{");
+    scanMembers(bodyKind);
+  }
+
+  /** Scans the members of a body up to, and including, its closing brace. */
+  private void scanMembers(BodyKind bodyKind) {
+    while (!peek().is("}")) {
+      if (peek().is(";")) {
+        position++;
+        continue;
+      }
+      scanMember(bodyKind);
+    }
+    position++;
+  }
+
+  private void scanEnumBody() {
+    expectSymbol("{");
+    while (true) {
+      Token token = peek();
+      if (token.is("}")) {
+        position++;
+        return;
+      }
+      if (token.is(";")) {
+        position++;
+        scanMembers(BodyKind.CLASS);
+        return;
+      }
+      if (token.is(",")) {
+        position++;
+        continue;
+      }
+
+      int firstToken = position;
+      List<Integer> gwtIncompatibleAnnotations = scanModifiers();
+      handledAnnotationPositions.addAll(gwtIncompatibleAnnotations);
+      boolean isGwtIncompatible = !gwtIncompatibleAnnotations.isEmpty();
+      expect(TokenKind.IDENTIFIER);
+      if (peek().is("(")) {
+        skipBalanced("(", ")");
+      }
+      if (peek().is("{")) {
+        if (isGwtIncompatible) {
+          skipBalanced("{", "}");
+        } else {
+          scanBody(BodyKind.CLASS);
+        }
+      }
+      if (isGwtIncompatible) {
+        strip(firstToken);
+      }
+      if (!peek().is(",") && !peek().is(";") && !peek().is("}")) {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  /**
+   * Scans the annotations and modifier keywords at the current position and returns the positions
+   * of the GwtIncompatible annotations among them.
+   */
+  private List<Integer> scanModifiers() {
+    List<Integer> gwtIncompatibleAnnotations = new ArrayList<>();
+    while (true) {
+      Token token = peek();
+      if (token.is("@") && !peek(1).is("interface")) {
+        int annotationPosition = position;
+        if (skipAnnotation().equals(GWT_INCOMPATIBLE)) {
+          gwtIncompatibleAnnotations.add(annotationPosition);
+        }
+      } else if (token.kind == TokenKind.KEYWORD && MODIFIERS.contains(token.text)) {
+        position++;
+      } else {
+        return gwtIncompatibleAnnotations;
+      }
+    }
+  }
+
+  /** Skips the annotation at the current position and returns its simple name. */
+  private String skipAnnotation() {
+    expectSymbol("@");
+    String name = expect(TokenKind.IDENTIFIER).text;
+    while (peek().is(".")) {
+      position++;
+      name = expect(TokenKind.IDENTIFIER).text;
+    }
+    if (peek().is("(")) {
+      skipBalanced("(", ")");
+    }
+    return name;
+  }
+
+  /** Skips the type parameters, superclass and interfaces of a type, up to its body. */
+  private void skipTypeHeader() {
+    while (!peek().is("{")) {
+      if (peek().is("@")) {
+        // Type annotations are never stripped, see checkAllAnnotationsHandled.
+        skipAnnotation();
+        continue;
+      }
+      Token token = next();
+      if (token.kind == TokenKind.END_OF_FILE
+          || token.is("(")
+          || token.is(";")
+          || isTypeDeclarationKeyword(token)) {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  private void skipTypeArguments() {
+    int depth = 0;
+    do {
+      if (peek().is("@")) {
+        skipAnnotation();
+        continue;
+      }
+      Token token = next();
+      if (token.is("<")) {
+        depth++;
+      } else if (token.is(">")) {
+        depth--;
+      } else if (token.kind == TokenKind.END_OF_FILE
+          || token.is("(")
+          || token.is("{")
+          || token.is(";")) {
+        throw new UnsupportedSyntaxException();
+      }
+    } while (depth > 0);
+  }
+
+  /** Skips past the next {@code symbol} that is not nested in parentheses, brackets or braces. */
+  private void skipPast(String symbol) {
+    while (!peek().is(symbol)) {
+      Token token = peek();
+      if (token.is("(")) {
+        skipBalanced("(", ")");
+      } else if (token.is("[")) {
+        skipBalanced("[", "]");
+      } else if (token.is("{")) {
+        skipBalanced("{", "}");
+      } else if (token.kind == TokenKind.END_OF_FILE
+          || token.is(")")
+          || token.is("]")
+          || token.is("}")) {
+        throw new UnsupportedSyntaxException();
+      } else {
+        position++;
+      }
+    }
+    position++;
+  }
+
+  /** Skips a group that starts at the current position, including any groups nested in it. */
+  private void skipBalanced(String open, String close) {
+    expectSymbol(open);
+    int depth = 1;
+    while (depth > 0) {
+      Token token = next();
+      if (token.kind == TokenKind.END_OF_FILE) {
+        throw new UnsupportedSyntaxException();
+      } else if (token.is(open)) {
+        depth++;
+      } else if (token.is(close)) {
+        depth--;
+      }
+    }
+  }
+
+  /** Records the declaration that starts at {@code firstToken} and ends before the current one. */
+  private void strip(int firstToken) {
+    Token first = tokens.get(firstToken);
+    int start = first.javadocStart != -1 ? first.javadocStart : first.start;
+    strippedRanges.add(Range.closedOpen(start, tokens.get(position - 1).end));
+  }
+
+  /** Makes sure that the GwtIncompatible annotations that are not stripped are understood. */
+  private void checkAllAnnotationsHandled() {
+    for (int i = 0; i < tokens.size() - 1; i++) {
+      if (!tokens.get(i).is("@") || handledAnnotationPositions.contains(i)) {
+        continue;
+      }
+      int nameEnd = i + 1;
+      while (tokens.get(nameEnd + 1).is(".")
+          && tokens.get(nameEnd + 2).kind == TokenKind.IDENTIFIER) {
+        nameEnd += 2;
+      }
+      if (tokens.get(nameEnd).text.equals(GWT_INCOMPATIBLE) && !isStripped(tokens.get(i))) {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  /**
+   * Returns the simple names that are referenced outside of imports and stripped code, following
+   * the rules of {@link UnusedImportsNodeCollector}: only the first component of a qualified name
+   * counts, unless the rest are accessed on an expression or invoked as a method.
+   */
+  private Set<String> collectReferencedNames() {
+    // Imports come before any declaration, so these ranges are sorted.
+    List<Range<Integer>> excludedRanges = new ArrayList<>(importRanges);
+    excludedRanges.addAll(strippedRanges);
+    int nextExcludedRange = 0;
+
+    Set<String> referencedNames = new HashSet<>();
+    Token previous = null;
+    // Whether the current chain of dotted identifiers is a qualified name.
+    boolean inQualifiedName = false;
+    // Whether the current qualified name is the type of an annotation or an instance creation.
+    boolean isTypeName = false;
+    for (int i = 0; i < tokens.size() - 1; i++) {
+      Token token = tokens.get(i);
+      while (nextExcludedRange < excludedRanges.size()
+          && excludedRanges.get(nextExcludedRange).upperEndpoint() <= token.start) {
+        nextExcludedRange++;
+      }
+      if (nextExcludedRange < excludedRanges.size()
+          && excludedRanges.get(nextExcludedRange).lowerEndpoint() <= token.start) {
+        previous = null;
+        inQualifiedName = false;
+        continue;
+      }
+
+      if (token.kind != TokenKind.IDENTIFIER) {
+        if (!token.is(".")) {
+          inQualifiedName = false;
+        }
+        previous = token;
+        continue;
+      }
+
+      boolean followsDot = previous != null && previous.is(".");
+      if (followsDot && inQualifiedName) {
+        if (!isTypeName && tokens.get(i + 1).is("(")) {
+          // The name of a method invoked on a qualified name.
+          referencedNames.add(token.text);
+        }
+      } else {
+        referencedNames.add(token.text);
+        inQualifiedName = !followsDot;
+        isTypeName = previous != null && (previous.is("new") || previous.is("@"));
+      }
+      previous = token;
+    }
+    return referencedNames;
+  }
+
+  private boolean isStripped(Token token) {
+    return strippedRanges.stream().anyMatch(r -> r.contains(token.start));
+  }
+
+  private static boolean isTypeDeclarationKeyword(Token token) {
+    return token.is("class") || token.is("interface") || token.is("enum");
+  }
+
+  private Token peek() {
+    return peek(0);
+  }
+
+  private Token peek(int offset) {
+    return tokens.get(Math.min(position + offset, tokens.size() - 1));
+  }
+
+  private Token next() {
+    Token token = peek();
+    if (token.kind != TokenKind.END_OF_FILE) {
+      position++;
+    }
+    return token;
+  }
+
+  private Token expect(TokenKind kind) {
+    Token token = next();
+    if (token.kind != kind) {
+      throw new UnsupportedSyntaxException();
+    }
+    return token;
+  }
+
+  private Token expectSymbol(String symbol) {
+    Token token = next();
+    if (!token.is(symbol)) {
+      throw new UnsupportedSyntaxException();
+    }
+    return token;
+  }
+
+  /** Splits the file into tokens, dropping whitespace and comments. */
+  private static List<Token> tokenize(String content) {
+    checkUnicodeEscapes(content);
+
+    List<Token> tokens = new ArrayList<>();
+    int javadocStart = -1;
+    int length = content.length();
+    int i = 0;
+    while (i < length) {
+      char c = content.charAt(i);
+      int start = i;
+      TokenKind kind;
+      String text = "";
+      if (c == ' ' || c == '\t' || c == '\f' || c == '\n' || c == '\r') {
+        i++;
+        continue;
+      } else if (content.startsWith("//", i)) {
+        while (i < length && content.charAt(i) != '\n' && content.charAt(i) != '\r') {
+          i++;
+        }
+        continue;
+      } else if (content.startsWith("/*", i)) {
+        int commentEnd = content.indexOf("*/", i + 2);
+        if (commentEnd == -1) {
+          throw new UnsupportedSyntaxException();
+        }
+        // Note that "/**/" is an empty comment rather than a javadoc.
+        if (content.startsWith("/**", i) && commentEnd != i + 2) {
+          javadocStart = i;
+        }
+        i = commentEnd + 2;
+        continue;
+      } else if (c < 0x80
+          ? isAsciiIdentifierPart(c) && !isDigit(c)
+          : Character.isJavaIdentifierStart(content.codePointAt(i))) {
+        i = skipIdentifier(content, i);
+        text = content.substring(start, i);
+        if (text.equals("_")) {
+          throw new UnsupportedSyntaxException();
+        }
+        kind = KEYWORDS.contains(text) ? TokenKind.KEYWORD : TokenKind.IDENTIFIER;
+      } else if (isDigit(c) || c == '.' && i + 1 < length && isDigit(content.charAt(i + 1))) {
+        i = skipNumber(content, i);
+        kind = TokenKind.LITERAL;
+      } else if (c == '"' || c == '\'') {
+        if (content.startsWith("\"\"\"", i)) {
+          // Text blocks are not supported by the parser either.
+          throw new UnsupportedSyntaxException();
+        }
+        i = skipQuoted(content, i);
+        kind = TokenKind.LITERAL;
+      } else if (content.startsWith("->", i)
+          || content.startsWith("::", i)
+          || content.startsWith("...", i)) {
+        i += content.startsWith("...", i) ? 3 : 2;
+        text = content.substring(start, i);
+        kind = TokenKind.SYMBOL;
+      } else if ("(){}[];,.@=<>?:!~+-*/&|^%".indexOf(c) != -1) {
+        // Operators are split into single characters, which is enough to find the structure.
+        i++;
+        text = content.substring(start, i);
+        kind = TokenKind.SYMBOL;
+      } else {
+        throw new UnsupportedSyntaxException();
+      }
+      tokens.add(new Token(kind, text, start, i, javadocStart));
+      javadocStart = -1;
+    }
+    tokens.add(new Token(TokenKind.END_OF_FILE, "", length, length, -1));
+    return tokens;
+  }
+
+  /**
+   * Rejects unicode escapes of ASCII characters, which could change the tokens of the file. Other
+   * escapes can only appear in literals, comments and identifiers.
+   */
+  private static void checkUnicodeEscapes(String content) {
+    for (int i = content.indexOf("\\u"); i != -1; i = content.indexOf("\\u", i + 2)) {
+      int digits = i + 2;
+      while (digits < content.length() && content.charAt(digits) == 'u') {
+        digits++;
+      }
+      if (digits + 4 > content.length()) {
+        throw new UnsupportedSyntaxException();
+      }
+      int value;
+      try {
+        value = Integer.parseInt(content.substring(digits, digits + 4), 16);
+      } catch (NumberFormatException e) {
+        throw new UnsupportedSyntaxException();
+      }
+      if (value < 0x80) {
+        throw new UnsupportedSyntaxException();
+      }
+    }
+  }
+
+  private static int skipIdentifier(String content, int i) {
+    while (i < content.length()) {
+      char c = content.charAt(i);
+      if (c < 0x80) {
+        if (!isAsciiIdentifierPart(c)) {
+          break;
+        }
+        i++;
+      } else {
+        int codePoint = content.codePointAt(i);
+        if (!Character.isJavaIdentifierPart(codePoint)) {
+          break;
+        }
+        i += Character.charCount(codePoint);
+      }
+    }
+    return i;
+  }
+
+  private static int skipNumber(String content, int i) {
+    int start = i;
+    boolean isHex = content.startsWith("0x", i) || content.startsWith("0X", i);
+    while (i < content.length()) {
+      char c = content.charAt(i);
+      char previous = i > start ? content.charAt(i - 1) : 0;
+      boolean isExponentSign =
+          (c == '+' || c == '-')
+              && (isHex ? previous == 'p' || previous == 'P' : previous == 'e' || previous == 'E');
+      if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && !isExponentSign) {
+        break;
+      }
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipQuoted(String content, int i) {
+    char quote = content.charAt(i++);
+    while (i < content.length()) {
+      char c = content.charAt(i++);
+      if (c == quote) {
+        return i;
+      } else if (c == '\\') {
+        i++;
+      } else if (c == '\n' || c == '\r') {
+        break;
+      }
+    }
+    throw new UnsupportedSyntaxException();
+  }
+
+  private static boolean isAsciiIdentifierPart(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || isDigit(c) || c == '_' || c == '$';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.gwtincompatible;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Remembers the stripped content of the files processed by a persistent worker, keyed by a digest
+ * of their original content.
+ *
+ * <p>Most of the files of an action have not changed since the last action that processed them, so
+ * their stripped content can be written right away instead of stripping them again. The cache is
+ * bounded by the total length of the content it holds and evicts the least recently used entries
+ * first.
+ */
+final class StrippedContentCache {
+  static final long DEFAULT_MAX_CACHED_CHARS = 64L * 1024 * 1024;
+
+  private static final StrippedContentCache instance =
+      new StrippedContentCache(DEFAULT_MAX_CACHED_CHARS);
+
+  /**
+   * Returns the cache shared by all the requests served by this process, bounded to {@code
+   * maxCachedChars}.
+   */
+  static StrippedContentCache getInstance(long maxCachedChars) {
+    instance.setMaxCachedChars(maxCachedChars);
+    return instance;
+  }
+
+  private final Map<HashCode, String> strippedContentByDigest =
+      new LinkedHashMap<>(16, 0.75f, /* accessOrder= */ true);
+
+  private long maxCachedChars;
+  private long cachedChars = 0;
+
+  @VisibleForTesting
+  StrippedContentCache(long maxCachedChars) {
+    this.maxCachedChars = maxCachedChars;
+  }
+
+  /**
+   * Returns the stripped version of {@code fileContent}, which is computed by {@code stripper} only
+   * if it is not already cached.
+   */
+  String computeIfAbsent(String fileContent, UnaryOperator<String> stripper) {
+    HashCode digest = Hashing.sha256().hashString(fileContent, UTF_8);
+    synchronized (this) {
+      String strippedContent = strippedContentByDigest.get(digest);
+      if (strippedContent != null) {
+        return strippedContent;
+      }
+    }
+
+    // Strip outside of the lock so that files are still processed in parallel.
+    String strippedContent = stripper.apply(fileContent);
+    put(digest, strippedContent);
+    return strippedContent;
+  }
+
+  private synchronized void put(HashCode digest, String strippedContent) {
+    if (strippedContent.length() > maxCachedChars) {
+      return;
+    }
+    String previousContent = strippedContentByDigest.put(digest, strippedContent);
+    if (previousContent != null) {
+      cachedChars -= previousContent.length();
+    }
+    cachedChars += strippedContent.length();
+    evict();
+  }
+
+  private synchronized void setMaxCachedChars(long maxCachedChars) {
+    this.maxCachedChars = maxCachedChars;
+    evict();
+  }
+
+  /** Removes the least recently used entries until the cache fits in its bound. */
+  private void evict() {
+    Iterator<String> iterator = strippedContentByDigest.values().iterator();
+    while (cachedChars > maxCachedChars) {
+      cachedChars -= iterator.next().length();
+      iterator.remove();
+    }
+  }
+
+  @VisibleForTesting
+  synchronized long getCachedChars() {
+    return cachedChars;
+  }
+}
@@ -15,10 +15,9 @@
  */
 package com.google.j2cl.tools.rta;
 
-import static com.google.common.collect.ImmutableList.toImmutableList;
-
 import com.google.common.io.CharSink;
 import com.google.common.io.Files;
+import com.google.j2cl.common.ConcurrentTasks;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.bazel.BazelWorker;
@@ -67,8 +66,7 @@ final class BazelJ2clRta extends BazelWorker {
 
   @Override
   protected void run(Problems problems) {
-    List<LibraryInfo> libraryInfos =
-        inputs.parallelStream().map(libraryInfoCache::get).collect(toImmutableList());
+    List<LibraryInfo> libraryInfos = ConcurrentTasks.map(inputs, libraryInfoCache::get);
 
     RtaResult rtaResult = RapidTypeAnalyser.analyse(libraryInfos, keepJsTypeInterfaces);
 
@@ -151,6 +151,56 @@ public class GwtIncompatibleStripperTest {
     assertEquals(after, GwtIncompatibleStripper.strip(before));
   }
 
+  @Test
+  public void testProcessEnumConstant() {
+    String before =
+        Joiner.on("\n")
+            .join(
+                "public enum Foo {",
+                "  A,",
+                "  /** Only on the JVM. */",
+                "  @GwtIncompatible",
+                "  B,",
+                "  C",
+                "}");
+    String after =
+        Joiner.on("\n")
+            .join(
+                "public enum Foo {",
+                "  A,",
+                Strings.repeat(" ", "  /** Only on the JVM. */".length()),
+                Strings.repeat(" ", "  @GwtIncompatible".length()),
+                Strings.repeat(" ", "  B".length()) + ",",
+                "  C",
+                "}");
+    assertEquals(after, GwtIncompatibleStripper.strip(before));
+  }
+
+  @Test
+  public void testProcessAnonymousClassMethod() {
+    String before =
+        Joiner.on("\n")
+            .join(
+                "import a.b.C;",
+                "public class Foo {",
+                "  Object o = new Object() {",
+                "    @GwtIncompatible",
+                "    C m() {}",
+                "  };",
+                "}");
+    String after =
+        Joiner.on("\n")
+            .join(
+                Strings.repeat(" ", "import a.b.C;".length()),
+                "public class Foo {",
+                "  Object o = new Object() {",
+                Strings.repeat(" ", "    @GwtIncompatible".length()),
+                Strings.repeat(" ", "    C m() {}".length()),
+                "  };",
+                "}");
+    assertEquals(after, GwtIncompatibleStripper.strip(before));
+  }
+
   @Test
   public void testNestedComment() {
     String before =
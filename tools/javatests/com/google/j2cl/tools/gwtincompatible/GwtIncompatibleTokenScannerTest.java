@@ -0,0 +1,271 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.gwtincompatible;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Range;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests that {@link GwtIncompatibleTokenScanner} either gives up or finds the same ranges as the
+ * parser.
+ */
+@RunWith(JUnit4.class)
+public class GwtIncompatibleTokenScannerTest {
+
+  /** The inputs of {@code GwtIncompatibleStripperTest}. */
+  private static final ImmutableList<String> STRIPPER_TEST_INPUTS =
+      ImmutableList.of(
+          "public class Foo {String a = \"@GwtIncompatible\");}",
+          lines(
+              "import a.b.X;",
+              "@GwtIncompatible",
+              "public class Foo {",
+              "  public X m() {return null;}",
+              "}"),
+          lines(
+              "import a.b.C;",
+              "import a.b.D;",
+              "public class Foo {",
+              "  public C m() {}",
+              "  @Nullable",
+              "  @GwtIncompatible",
+              "  public D n() {}",
+              "}"),
+          lines(
+              "public class Foo {",
+              "  public String a;",
+              "  @GwtIncompatible",
+              "  public String b;",
+              "  public String c;",
+              "}"),
+          lines(
+              "public class Foo {",
+              "  @GwtIncompatible",
+              "  public void m();",
+              "  public String c;",
+              "  @GwtIncompatible",
+              "  public void n();",
+              "  public void o();",
+              "  @GwtIncompatible",
+              "  private static class X {",
+              "    void q() {}",
+              "    @GwtIncompatible",
+              "    void r() {}",
+              "  }",
+              "  String s;",
+              "}"),
+          lines(
+              "public enum Foo {",
+              "  A,",
+              "  /** Only on the JVM. */",
+              "  @GwtIncompatible",
+              "  B,",
+              "  C",
+              "}"),
+          lines(
+              "import a.b.C;",
+              "public class Foo {",
+              "  Object o = new Object() {",
+              "    @GwtIncompatible",
+              "    C m() {}",
+              "  };",
+              "}"),
+          lines(
+              "public class Foo {",
+              "  public void m() {}",
+              "  @GwtIncompatible",
+              "  public void n() {foo(x /* the value of x */);}",
+              "}"),
+          lines(
+              "public class Foo {",
+              "  public A m() {}",
+              "  @GwtIncompatible",
+              "  \tpublic B n() {}",
+              "}"),
+          lines(
+              "public class Foo {",
+              "  public A m() {}",
+              "  @GwtIncompatible",
+              "  //மெ.பை.",
+              "  public B n() {}",
+              "}"));
+
+  @Test
+  public void testStripperTestInputs() {
+    for (String input : STRIPPER_TEST_INPUTS) {
+      assertSameRangesAsParser(input);
+      for (String variant : annotateEachLine(input)) {
+        assertSameRangesAsParser(variant);
+      }
+    }
+  }
+
+  @Test
+  public void testMembersOfEveryKind() {
+    String input =
+        lines(
+            "package a.b;",
+            "import static a.b.C.constant;",
+            "import a.b.D;",
+            "import a.b.E;",
+            "import a.b.*;",
+            "/** The class. */",
+            "public class Foo<T extends D & Comparable<T>> extends E implements Runnable {",
+            "  private static final long L = 0x1p-3f > 1e+2 ? 1_000L : constant;",
+            "  int[] array = {1, 2}, other[];",
+            "  static { D.init(); }",
+            "  { new E() {}; }",
+            "  /** The constructor. */",
+            "  Foo() { this(null); }",
+            "  <U> Foo(U u) throws Exception {}",
+            "  public @interface Annotation {",
+            "    String[] value() default {\"a\", \"b\"};",
+            "    @GwtIncompatible int number() default 1;",
+            "  }",
+            "  enum Kind {",
+            "    A(1) { void m() {} },",
+            "    B(2);",
+            "    Kind(int i) {}",
+            "    void m() {}",
+            "  }",
+            "  interface I { default void m() { Runnable r = () -> {}; } }",
+            "  @Override public void run() { java.util.List<?> l = java.util.List.of(D.class); }",
+            "}");
+    assertNotNull(GwtIncompatibleTokenScanner.findRangesToStrip(input));
+    assertSameRangesAsParser(input);
+    for (String variant : annotateEachLine(input)) {
+      assertSameRangesAsParser(variant);
+    }
+  }
+
+  @Test
+  public void testAnnotationsInCommentsAndLiterals() {
+    assertSameRangesAsParser(
+        lines(
+            "import a.b.C;",
+            "import a.b.D;",
+            "public class Foo {",
+            "  // @GwtIncompatible",
+            "  C c;",
+            "  /* @GwtIncompatible */ D d;",
+            "  /** @GwtIncompatible */",
+            "  String s = \"@GwtIncompatible \\\" @GwtIncompatible\";",
+            "  char q = '\"', a = '@', e = '\\'';",
+            "  @GwtIncompatible",
+            "  C m() { return \"}\"; }",
+            "}"));
+  }
+
+  @Test
+  public void testTextBlocks() {
+    String input =
+        lines(
+            "public class Foo {",
+            "  String s = \"\"\"",
+            "      }",
+            "      @GwtIncompatible void m() {}",
+            "      \"\"\";",
+            "  @GwtIncompatible",
+            "  void n() {}",
+            "}");
+    assertNull(GwtIncompatibleTokenScanner.findRangesToStrip(input));
+  }
+
+  @Test
+  public void testUnicodeEscapes() {
+    // Escapes of non ASCII characters can only appear in literals, comments and identifiers.
+    assertSameRangesAsParser(
+        lines(
+            "public class Foo {",
+            "  String s = \"\\u00e9\";",
+            "  int caf\\u00e9;",
+            "  @GwtIncompatible",
+            "  void m() {}",
+            "}"));
+    // Escapes of ASCII characters can change the tokens of the file.
+    String escapedNewLineInComment =
+        lines(
+            "public class Foo {",
+            "  // \\u000a @GwtIncompatible",
+            "  void m() {}",
+            "}");
+    assertNull(GwtIncompatibleTokenScanner.findRangesToStrip(escapedNewLineInComment));
+    String escapedAnnotation =
+        lines(
+            "public class Foo {",
+            "  \\u0040GwtIncompatible",
+            "  void m() {}",
+            "}");
+    assertNull(GwtIncompatibleTokenScanner.findRangesToStrip(escapedAnnotation));
+  }
+
+  @Test
+  public void testUnsupportedSyntax() {
+    assertNull(GwtIncompatibleTokenScanner.findRangesToStrip("1 @GwtIncompatible"));
+    assertNull(GwtIncompatibleTokenScanner.findRangesToStrip(".5 @GwtIncompatible"));
+    assertNull(
+        GwtIncompatibleTokenScanner.findRangesToStrip(
+            lines(
+                "public class Foo {",
+                "  void m() { @GwtIncompatible class Local {} }",
+                "}")));
+    assertNull(
+        GwtIncompatibleTokenScanner.findRangesToStrip(
+            "public class Foo { void m(@GwtIncompatible int i) {} }"));
+    assertNull(
+        GwtIncompatibleTokenScanner.findRangesToStrip("@GwtIncompatible public class Foo {"));
+  }
+
+  /** Checks the ranges found by the scanner, if it does not give up, against the parser. */
+  private static void assertSameRangesAsParser(String input) {
+    List<Range<Integer>> scannedRanges = GwtIncompatibleTokenScanner.findRangesToStrip(input);
+    if (scannedRanges != null) {
+      assertEquals(
+          input, GwtIncompatibleStripper.findRangesToStripByParsing(input), scannedRanges);
+    }
+  }
+
+  /** Returns copies of the input with a GwtIncompatible annotation at the start of each line. */
+  private static List<String> annotateEachLine(String input) {
+    List<String> variants = new ArrayList<>();
+    String[] lines = input.split("\n", -1);
+    for (int i = 0; i < lines.length; i++) {
+      String[] annotatedLines = lines.clone();
+      String line = lines[i];
+      String indentation = line.replaceAll("^(\\s*).*", "$1");
+      annotatedLines[i] =
+          indentation
+              + (i % 2 == 0 ? "@GwtIncompatible " : "@com.google.GwtIncompatible(\"x\") ")
+              + line.trim();
+      variants.add(String.join("\n", annotatedLines));
+    }
+    return variants;
+  }
+
+  private static String lines(String... lines) {
+    return Joiner.on("\n").join(lines);
+  }
+}
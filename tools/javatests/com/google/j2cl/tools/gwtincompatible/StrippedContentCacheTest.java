@@ -0,0 +1,146 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.gwtincompatible;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.base.Ascii;
+import com.google.common.base.Strings;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public class StrippedContentCacheTest {
+
+  /** Strips by upper casing, counting how many times it is called. */
+  private static class CountingStripper implements UnaryOperator<String> {
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Override
+    public String apply(String content) {
+      calls.incrementAndGet();
+      return Ascii.toUpperCase(content);
+    }
+
+    int getCalls() {
+      return calls.get();
+    }
+  }
+
+  @Test
+  public void testComputeIfAbsent_hit() {
+    StrippedContentCache cache = new StrippedContentCache(100);
+    CountingStripper stripper = new CountingStripper();
+
+    assertEquals("AB", cache.computeIfAbsent("ab", stripper));
+    assertEquals("AB", cache.computeIfAbsent("ab", stripper));
+    assertEquals("CD", cache.computeIfAbsent("cd", stripper));
+
+    assertEquals(2, stripper.getCalls());
+    assertEquals(4, cache.getCachedChars());
+  }
+
+  @Test
+  public void testComputeIfAbsent_evictsLeastRecentlyUsed() {
+    StrippedContentCache cache = new StrippedContentCache(10);
+    CountingStripper stripper = new CountingStripper();
+
+    cache.computeIfAbsent("aaaa", stripper);
+    cache.computeIfAbsent("bbbb", stripper);
+    // Makes "aaaa" the most recently used entry.
+    cache.computeIfAbsent("aaaa", stripper);
+    cache.computeIfAbsent("cccc", stripper);
+    assertEquals(3, stripper.getCalls());
+    assertEquals(8, cache.getCachedChars());
+
+    // "bbbb" was evicted to make room for "cccc", the others are still cached.
+    cache.computeIfAbsent("aaaa", stripper);
+    cache.computeIfAbsent("cccc", stripper);
+    assertEquals(3, stripper.getCalls());
+    cache.computeIfAbsent("bbbb", stripper);
+    assertEquals(4, stripper.getCalls());
+  }
+
+  @Test
+  public void testComputeIfAbsent_contentLargerThanTheCacheIsNotCached() {
+    StrippedContentCache cache = new StrippedContentCache(10);
+    CountingStripper stripper = new CountingStripper();
+
+    cache.computeIfAbsent("aaaa", stripper);
+    assertEquals(Strings.repeat("B", 11), cache.computeIfAbsent(Strings.repeat("b", 11), stripper));
+    assertEquals(4, cache.getCachedChars());
+    cache.computeIfAbsent("aaaa", stripper);
+    assertEquals(2, stripper.getCalls());
+  }
+
+  @Test
+  public void testGetInstance_appliesTheNewBound() {
+    StrippedContentCache cache = StrippedContentCache.getInstance(100);
+    CountingStripper stripper = new CountingStripper();
+    cache.computeIfAbsent("aaaa", stripper);
+    cache.computeIfAbsent("bbbb", stripper);
+
+    assertEquals(cache, StrippedContentCache.getInstance(4));
+    assertEquals(4, cache.getCachedChars());
+    cache.computeIfAbsent("bbbb", stripper);
+    assertEquals(2, stripper.getCalls());
+
+    StrippedContentCache.getInstance(StrippedContentCache.DEFAULT_MAX_CACHED_CHARS);
+  }
+
+  @Test
+  public void testComputeIfAbsent_concurrentAccess() throws Exception {
+    int maxCachedChars = 1000;
+    StrippedContentCache cache = new StrippedContentCache(maxCachedChars);
+    CountingStripper stripper = new CountingStripper();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        int seed = thread;
+        futures.add(
+            executor.submit(
+                () -> {
+                  for (int i = 0; i < 2000; i++) {
+                    String content = "content" + ((i * 31 + seed) % 300);
+                    assertEquals(
+                        Ascii.toUpperCase(content), cache.computeIfAbsent(content, stripper));
+                  }
+                }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    long cachedChars = cache.getCachedChars();
+    assertTrue(cachedChars > 0 && cachedChars <= maxCachedChars);
+    // The 300 contents do not fit, but many of the 16000 lookups are hits.
+    assertTrue(stripper.getCalls() < 8 * 2000);
+  }
+}
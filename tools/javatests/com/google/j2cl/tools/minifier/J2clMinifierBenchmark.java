@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.minifier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+
+import com.google.j2cl.benchmarks.Corpus;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks the minification of the JavaScript that J2CL generates for a corpus. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class J2clMinifierBenchmark {
+
+  @Param({Corpus.SYNTHETIC, Corpus.JRE})
+  public String corpusName;
+
+  private final Map<String, String> contentByPath = new LinkedHashMap<>();
+
+  @Setup(Level.Trial)
+  public void transpile() throws IOException {
+    Path outputDirectory = Corpus.load(corpusName).transpileToClosure(Frontend.JDT);
+    List<Path> javaScriptFiles;
+    try (Stream<Path> files = Files.walk(outputDirectory)) {
+      javaScriptFiles = files.filter(p -> p.toString().endsWith(".js")).sorted().collect(toList());
+    }
+    for (Path file : javaScriptFiles) {
+      contentByPath.put(file.toString(), new String(Files.readAllBytes(file), UTF_8));
+    }
+  }
+
+  @Benchmark
+  public void minify(Blackhole blackhole) {
+    J2clMinifier minifier = new J2clMinifier();
+    contentByPath.forEach((path, content) -> blackhole.consume(minifier.minify(path, content)));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.tools.rta;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.benchmarks.Corpus;
+import com.google.j2cl.transpiler.backend.libraryinfo.LibraryInfo;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks rapid type analysis over the library info that J2CL generates for a corpus. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RapidTypeAnalyserBenchmark {
+
+  @Param({Corpus.SYNTHETIC, Corpus.JRE})
+  public String corpusName;
+
+  private ImmutableList<LibraryInfo> libraryInfos;
+
+  @Setup(Level.Trial)
+  public void transpile() throws IOException {
+    try (InputStream libraryInfo =
+        Files.newInputStream(
+            Corpus.load(corpusName)
+                .transpileToClosure(Frontend.JDT)
+                .resolve("library_info"))) {
+      libraryInfos = ImmutableList.of(LibraryInfo.parseFrom(libraryInfo));
+    }
+  }
+
+  @Benchmark
+  public RtaResult analyse() {
+    return RapidTypeAnalyser.analyse(libraryInfos, /* keepJsTypeInterfaces= */ false);
+  }
+}
@@ -64,6 +64,8 @@ public abstract class CommandLineTool {
       run(problems);
     } catch (Problems.Exit e) {
       // Program aborted due to errors recorded in problems.
+    } finally {
+      SourceUtils.deleteExtractedSources();
     }
     return problems;
   }
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs independent tasks concurrently on threads started by the calling thread.
+ *
+ * <p>Parallel streams run on the common fork join pool, whose threads are shared by everything in
+ * the process and keep the inheritable thread local state of whichever thread happened to start
+ * them. In a persistent worker that is the output of some earlier request (see {@code
+ * BazelWorker}), so the tasks of concurrent requests need threads of their own instead.
+ */
+public final class ConcurrentTasks {
+
+  /**
+   * Applies {@code function}, which may not return null, to all the {@code inputs} concurrently and
+   * returns the results in the order of the inputs.
+   */
+  public static <T, R> ImmutableList<R> map(
+      Collection<T> inputs, Function<? super T, ? extends R> function) {
+    if (inputs.size() <= 1) {
+      return inputs.stream().map(function).collect(ImmutableList.toImmutableList());
+    }
+    // The threads are started lazily by submit(), i.e. by the calling thread.
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            Math.min(inputs.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      List<Future<? extends R>> results = new ArrayList<>();
+      for (T input : inputs) {
+        results.add(executorService.submit(() -> function.apply(input)));
+      }
+      ImmutableList.Builder<R> builder = ImmutableList.builder();
+      for (Future<? extends R> result : results) {
+        builder.add(getResult(result));
+      }
+      return builder.build();
+    } finally {
+      // Tasks that did not start yet are not needed if one of them failed.
+      executorService.shutdownNow();
+    }
+  }
+
+  /** Runs {@code action} on all the {@code inputs} concurrently. */
+  public static <T> void forEach(Collection<T> inputs, Consumer<? super T> action) {
+    map(
+        inputs,
+        input -> {
+          action.accept(input);
+          return Boolean.TRUE;
+        });
+  }
+
+  private static <R> R getResult(Future<R> result) {
+    try {
+      return Uninterruptibles.getUninterruptibly(result);
+    } catch (ExecutionException e) {
+      // Rethrow the exception of the task, e.g. a Problems.Exit.
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new AssertionError(e.getCause());
+    }
+  }
+
+  private ConcurrentTasks() {}
+}
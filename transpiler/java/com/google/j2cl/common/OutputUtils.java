@@ -18,18 +18,15 @@ package com.google.j2cl.common;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
-import com.google.common.collect.ImmutableMap;
 import com.google.j2cl.common.Problems.FatalError;
 import java.io.IOException;
-import java.net.URI;
-import java.nio.file.FileSystem;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributeView;
 import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -42,21 +39,46 @@ public class OutputUtils {
     private final ExecutorService fileService = Executors.newSingleThreadExecutor();
     private final Problems problems;
     private final Path root;
+    private final boolean writeIfChanged;
+    // Only updated by the file service.
+    private int writtenFileCount = 0;
+    private int skippedFileCount = 0;
 
     private Output(Problems problems, Path root) {
+      this(problems, root, /* writeIfChanged= */ false);
+    }
+
+    private Output(Problems problems, Path root, boolean writeIfChanged) {
       this.problems = problems;
       this.root = root;
+      this.writeIfChanged = writeIfChanged;
     }
 
     public void write(String path, String content) {
       Path outputPath = root.resolve(path);
-      fileService.execute(() -> OutputUtils.writeToFile(outputPath, content, problems));
+      fileService.execute(
+          () -> {
+            if (writeIfChanged && hasContent(outputPath, getFileContent(content))) {
+              skippedFileCount++;
+              return;
+            }
+            OutputUtils.writeToFile(outputPath, content, problems);
+            writtenFileCount++;
+          });
     }
 
     public void copyFile(String fromAbsolute, String to) {
       Path fromPath = Paths.get(fromAbsolute);
       Path toPath = root.resolve(to);
-      fileService.execute(() -> OutputUtils.copyFile(fromPath, toPath, problems));
+      fileService.execute(
+          () -> {
+            if (writeIfChanged && hasSameContent(fromPath, toPath)) {
+              skippedFileCount++;
+              return;
+            }
+            OutputUtils.copyFile(fromPath, toPath, problems);
+            writtenFileCount++;
+          });
     }
 
     @Override
@@ -68,57 +90,141 @@ public class OutputUtils {
         // Preserve interrupt status
         Thread.currentThread().interrupt();
       }
+      if (writeIfChanged) {
+        problems.info(
+            "Wrote %d file(s), skipped %d unchanged file(s).", writtenFileCount, skippedFileCount);
+      }
     }
   }
 
   public static Output initOutput(Path output, Problems problems) {
+    return initOutput(output, problems, /* writeIfChanged= */ false);
+  }
+
+  /**
+   * Returns the output that writes into {@code output}, which is either a directory or a zip file.
+   *
+   * @param writeIfChanged makes directory outputs leave alone the files whose content would not
+   *     change, so that they keep their modification time and do not invalidate the tools that
+   *     watch them. The number of files written and skipped is reported when the output is closed.
+   *     Zip outputs are always written whole.
+   */
+  public static Output initOutput(Path output, Problems problems, boolean writeIfChanged) {
     return output.toString().endsWith(".zip") || output.toString().endsWith(".jar")
         ? getZipOutput(output, problems)
-        : getDirOutput(output, problems);
+        : getDirOutput(output, problems, writeIfChanged);
   }
 
-  private static Output getDirOutput(Path output, Problems problems) {
+  private static Output getDirOutput(Path output, Problems problems, boolean writeIfChanged) {
     if (Files.isRegularFile(output)) {
       problems.fatal(FatalError.OUTPUT_LOCATION, output);
     }
 
-    return new Output(problems, output);
+    return new Output(problems, output, writeIfChanged);
   }
 
   private static Output getZipOutput(Path output, Problems problems) {
-    FileSystem newFileSystem = initZipOutput(output, problems);
-
-    return new Output(problems, newFileSystem.getPath("/")) {
-
-      @Override
-      public void close() {
-        super.close();
-        try {
-          newFileSystem.close();
-        } catch (IOException e) {
-          problems.fatal(FatalError.CANNOT_CLOSE_ZIP, e.getMessage());
-        }
-      }
-    };
-  }
-
-  private static FileSystem initZipOutput(Path output, Problems problems) {
     if (Files.isDirectory(output)) {
       problems.fatal(FatalError.OUTPUT_LOCATION, output);
     }
 
-    // Ensures that we will not fail if the zip already exists.
-    output.toFile().delete();
-
     try {
-      return FileSystems.newFileSystem(
-          URI.create("jar:" + output.toAbsolutePath().toUri()), ImmutableMap.of("create", "true"));
+      return new ZipOutput(problems, output, new ParallelZipWriter(output));
     } catch (IOException e) {
       problems.fatal(FatalError.CANNOT_CREATE_ZIP, output, e.getMessage());
       return null;
     }
   }
 
+  /**
+   * An output that streams into a zip file.
+   *
+   * <p>Files are compressed in parallel and the zip file is written when the output is closed, with
+   * its entries in a deterministic order.
+   */
+  private static class ZipOutput extends Output {
+    private final ExecutorService compressionService =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final Problems problems;
+    private final ParallelZipWriter zipWriter;
+
+    private ZipOutput(Problems problems, Path output, ParallelZipWriter zipWriter) {
+      super(problems, output);
+      this.problems = problems;
+      this.zipWriter = zipWriter;
+    }
+
+    @Override
+    public void write(String path, String content) {
+      compressionService.execute(
+          () -> {
+            try {
+              zipWriter.addEntry(path, getFileContent(content));
+            } catch (IOException e) {
+              problems.fatal(FatalError.CANNOT_WRITE_FILE, e.toString());
+            }
+          });
+    }
+
+    @Override
+    public void copyFile(String fromAbsolute, String to) {
+      compressionService.execute(
+          () -> {
+            try {
+              zipWriter.addFileEntry(to, Paths.get(fromAbsolute));
+            } catch (IOException e) {
+              problems.fatal(FatalError.CANNOT_COPY_FILE, e.toString());
+            }
+          });
+    }
+
+    @Override
+    public void close() {
+      super.close();
+      try {
+        compressionService.shutdown();
+        compressionService.awaitTermination(Long.MAX_VALUE, SECONDS);
+      } catch (InterruptedException ie) {
+        // Preserve interrupt status
+        Thread.currentThread().interrupt();
+      }
+      try {
+        zipWriter.close();
+      } catch (IOException e) {
+        problems.fatal(FatalError.CANNOT_CLOSE_ZIP, e.getMessage());
+      }
+    }
+  }
+
+  /** Returns the bytes written for {@code content}, which is written as a single line. */
+  private static byte[] getFileContent(String content) {
+    return (content + System.lineSeparator()).getBytes(UTF_8);
+  }
+
+  /** Returns whether {@code path} is a file with exactly {@code content}. */
+  private static boolean hasContent(Path path, byte[] content) {
+    try {
+      return Files.isRegularFile(path)
+          && Files.size(path) == content.length
+          && Arrays.equals(Files.readAllBytes(path), content);
+    } catch (IOException e) {
+      // Just write the file again.
+      return false;
+    }
+  }
+
+  /** Returns whether {@code to} is a file with the same content as {@code from}. */
+  private static boolean hasSameContent(Path from, Path to) {
+    try {
+      return Files.isRegularFile(to)
+          && Files.size(to) == Files.size(from)
+          && hasContent(to, Files.readAllBytes(from));
+    } catch (IOException e) {
+      // Just copy the file again.
+      return false;
+    }
+  }
+
   private static void writeToFile(Path outputPath, String content, Problems problems) {
     try {
       createDirectories(outputPath.getParent());
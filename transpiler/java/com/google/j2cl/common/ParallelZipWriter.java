@@ -0,0 +1,311 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a zip file whose entries can be added and compressed concurrently.
+ *
+ * <p>The compressed data of each entry is appended to a temporary file as soon as it is ready, so
+ * that the archive is never held in memory. When the writer is closed the entries are copied into
+ * the zip file sorted by name, together with the directories that contain them. Since entries also
+ * have a fixed timestamp, the same set of entries always results in the same bytes.
+ */
+final class ParallelZipWriter implements Closeable {
+  /** The DOS encoding of 2010-01-01 00:00:00, which is the timestamp of all the entries. */
+  private static final int DOS_DATE = ((2010 - 1980) << 9) | (1 << 5) | 1;
+
+  private static final int DOS_TIME = 0;
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+
+  private static final short STORED = 0;
+  private static final short DEFLATED = 8;
+  /** Marks the names of the entries as encoded in UTF-8. */
+  private static final short UTF8_FLAG = 0x800;
+
+  /** The MS-DOS attribute of directories. */
+  private static final int DIRECTORY_ATTRIBUTE = 0x10;
+
+  private static final short VERSION = 20;
+  private static final short ZIP64_VERSION = 45;
+  private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+  private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+  /** The data of an entry, as stored in the temporary file. */
+  private static final class Entry {
+    private final String name;
+    private final byte[] nameBytes;
+    private final short method;
+    private final int crc;
+    private final int compressedSize;
+    private final int size;
+    private final long temporaryFileOffset;
+    private long localHeaderOffset;
+
+    Entry(
+        String name,
+        short method,
+        int crc,
+        int compressedSize,
+        int size,
+        long temporaryFileOffset) {
+      this.name = name;
+      this.nameBytes = name.getBytes(UTF_8);
+      this.method = method;
+      this.crc = crc;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.temporaryFileOffset = temporaryFileOffset;
+    }
+  }
+
+  private final Path output;
+  private final FileChannel temporaryFile;
+  private final Map<String, Entry> entryByName = new TreeMap<>();
+
+  ParallelZipWriter(Path output) throws IOException {
+    this.output = output;
+    Path absoluteOutput = output.toAbsolutePath();
+    this.temporaryFile =
+        FileChannel.open(
+            Files.createTempFile(
+                absoluteOutput.getParent(), absoluteOutput.getFileName().toString(), ".tmp"),
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.DELETE_ON_CLOSE);
+  }
+
+  /**
+   * Compresses {@code content} on the calling thread and adds it to the zip file as {@code name}.
+   * Entries that are added more than once keep the last content.
+   */
+  void addEntry(String name, byte[] content) throws IOException {
+    addEntry(name, ByteBuffer.wrap(content));
+  }
+
+  /**
+   * Adds the contents of {@code file} to the zip file as {@code name}, like {@link #addEntry}.
+   *
+   * <p>The file is memory mapped rather than read into the heap, so files that are not worth
+   * compressing are copied from the mapping straight into the temporary file.
+   */
+  void addFileEntry(String name, Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      addEntry(name, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  private void addEntry(String name, ByteBuffer content) throws IOException {
+    int size = content.remaining();
+    CRC32 crc = new CRC32();
+    crc.update(content.duplicate());
+    ByteBuffer data = ByteBuffer.wrap(deflate(content.duplicate()));
+    short method = DEFLATED;
+    if (data.remaining() >= size) {
+      // Not worth compressing.
+      data = content.duplicate();
+      method = STORED;
+    }
+    int compressedSize = data.remaining();
+
+    synchronized (this) {
+      long offset = temporaryFile.size();
+      writeFully(temporaryFile, data, offset);
+      entryByName.put(
+          name, new Entry(name, method, (int) crc.getValue(), compressedSize, size, offset));
+    }
+  }
+
+  /** Writes the zip file with all the entries that were added. */
+  @Override
+  public synchronized void close() throws IOException {
+    try (FileChannel out =
+        FileChannel.open(
+            output,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      List<Entry> entries = new ArrayList<>(entryByName.values());
+      entries.addAll(getDirectoryEntries());
+      entries.sort(comparing(e -> e.name));
+
+      for (Entry entry : entries) {
+        entry.localHeaderOffset = out.position();
+        ByteBuffer header = newBuffer(30 + entry.nameBytes.length);
+        header
+            .putInt(LOCAL_HEADER_SIGNATURE)
+            .putShort(VERSION)
+            .putShort(UTF8_FLAG)
+            .putShort(entry.method)
+            .putShort((short) DOS_TIME)
+            .putShort((short) DOS_DATE)
+            .putInt(entry.crc)
+            .putInt(entry.compressedSize)
+            .putInt(entry.size)
+            .putShort((short) entry.nameBytes.length)
+            .putShort((short) 0)
+            .put(entry.nameBytes);
+        write(out, header);
+        long position = entry.temporaryFileOffset;
+        long end = position + entry.compressedSize;
+        while (position < end) {
+          position += temporaryFile.transferTo(position, end - position, out);
+        }
+      }
+
+      long centralDirectoryOffset = out.position();
+      for (Entry entry : entries) {
+        boolean needsZip64 = entry.localHeaderOffset >= ZIP64_MAGIC;
+        ByteBuffer header = newBuffer(46 + entry.nameBytes.length + (needsZip64 ? 12 : 0));
+        header
+            .putInt(CENTRAL_HEADER_SIGNATURE)
+            .putShort(needsZip64 ? ZIP64_VERSION : VERSION)
+            .putShort(needsZip64 ? ZIP64_VERSION : VERSION)
+            .putShort(UTF8_FLAG)
+            .putShort(entry.method)
+            .putShort((short) DOS_TIME)
+            .putShort((short) DOS_DATE)
+            .putInt(entry.crc)
+            .putInt(entry.compressedSize)
+            .putInt(entry.size)
+            .putShort((short) entry.nameBytes.length)
+            .putShort((short) (needsZip64 ? 12 : 0))
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putShort((short) 0)
+            .putInt(entry.name.endsWith("/") ? DIRECTORY_ATTRIBUTE : 0)
+            .putInt((int) (needsZip64 ? ZIP64_MAGIC : entry.localHeaderOffset))
+            .put(entry.nameBytes);
+        if (needsZip64) {
+          header.putShort((short) 1).putShort((short) 8).putLong(entry.localHeaderOffset);
+        }
+        write(out, header);
+      }
+      long centralDirectoryEnd = out.position();
+      long centralDirectorySize = centralDirectoryEnd - centralDirectoryOffset;
+
+      boolean needsZip64 =
+          entries.size() >= ZIP64_MAGIC_COUNT
+              || centralDirectoryOffset >= ZIP64_MAGIC
+              || centralDirectorySize >= ZIP64_MAGIC;
+      if (needsZip64) {
+        ByteBuffer zip64End = newBuffer(56 + 20);
+        zip64End
+            .putInt(ZIP64_END_SIGNATURE)
+            .putLong(44)
+            .putShort(ZIP64_VERSION)
+            .putShort(ZIP64_VERSION)
+            .putInt(0)
+            .putInt(0)
+            .putLong(entries.size())
+            .putLong(entries.size())
+            .putLong(centralDirectorySize)
+            .putLong(centralDirectoryOffset)
+            .putInt(ZIP64_LOCATOR_SIGNATURE)
+            .putInt(0)
+            .putLong(centralDirectoryEnd)
+            .putInt(1);
+        write(out, zip64End);
+      }
+
+      short entryCount = (short) (needsZip64 ? ZIP64_MAGIC_COUNT : entries.size());
+      ByteBuffer end = newBuffer(22);
+      end.putInt(END_SIGNATURE)
+          .putShort((short) 0)
+          .putShort((short) 0)
+          .putShort(entryCount)
+          .putShort(entryCount)
+          .putInt((int) (needsZip64 ? ZIP64_MAGIC : centralDirectorySize))
+          .putInt((int) (needsZip64 ? ZIP64_MAGIC : centralDirectoryOffset))
+          .putShort((short) 0);
+      write(out, end);
+    } finally {
+      temporaryFile.close();
+    }
+  }
+
+  /** Returns the entries for the directories that contain the files, which are not explicit. */
+  private List<Entry> getDirectoryEntries() {
+    Map<String, Entry> directoryByName = new TreeMap<>();
+    for (String name : entryByName.keySet()) {
+      for (int i = name.indexOf('/'); i != -1; i = name.indexOf('/', i + 1)) {
+        String directory = name.substring(0, i + 1);
+        if (!entryByName.containsKey(directory)) {
+          directoryByName.computeIfAbsent(
+              directory, d -> new Entry(d, STORED, 0, 0, 0, 0));
+        }
+      }
+    }
+    return new ArrayList<>(directoryByName.values());
+  }
+
+  private static byte[] deflate(ByteBuffer content) {
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, /* nowrap= */ true);
+    try {
+      deflater.setInput(content);
+      deflater.finish();
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.remaining() / 2 + 64);
+      byte[] buffer = new byte[8192];
+      while (!deflater.finished()) {
+        compressed.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return compressed.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static ByteBuffer newBuffer(int size) {
+    return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
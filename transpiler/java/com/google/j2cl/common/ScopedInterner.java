@@ -0,0 +1,56 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An interner whose canonical instances are shared by all the threads in the same {@link
+ * ScopedThreadLocal.Scope}.
+ *
+ * <p>The canonical instances live as long as the scope does, which is the duration of a single
+ * transpilation. Looking up an instance that is already interned does not take any lock, so
+ * interning stays cheap when several threads create descriptors concurrently.
+ */
+// TODO(rlubble): This class should extend com.google.common.collect.Interner<T> but that class
+// is marked @GwtIncompatible.
+public final class ScopedInterner<T> {
+  private final ScopedThreadLocal<ConcurrentMap<T, T>> canonicalInstances =
+      ScopedThreadLocal.withInitial(ConcurrentHashMap::new);
+
+  public T intern(T t) {
+    ConcurrentMap<T, T> instances = canonicalInstances.get();
+    T canonical = instances.get(t);
+    if (canonical != null) {
+      return canonical;
+    }
+    canonical = instances.putIfAbsent(t, t);
+    return canonical != null ? canonical : t;
+  }
+
+  /** Returns the number of distinct instances interned in the current scope. */
+  public int size() {
+    return canonicalInstances.get().size();
+  }
+
+  /** Returns a view of the instances interned in the current scope. */
+  public Collection<T> getInstances() {
+    return Collections.unmodifiableCollection(canonicalInstances.get().keySet());
+  }
+}
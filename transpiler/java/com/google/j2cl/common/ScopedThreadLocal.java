@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A thread local variable whose values live in a {@link Scope} that can be shared by several
+ * threads.
+ *
+ * <p>By default every thread has its own scope, which gives the same isolation as {@link
+ * ThreadLocal}. Worker threads that take part in the same transpilation adopt the scope of the
+ * thread that started it so that they all observe the same state.
+ */
+public class ScopedThreadLocal<T> {
+
+  /** The set of values of all scoped thread locals as seen by the threads that share it. */
+  public static final class Scope {
+    private final Map<ScopedThreadLocal<?>, Object> valueByThreadLocal = new ConcurrentHashMap<>();
+
+    private Scope() {}
+  }
+
+  private static final ThreadLocal<Scope> currentScope = ThreadLocal.withInitial(Scope::new);
+
+  /** Returns the scope used by the current thread. */
+  public static Scope getCurrentScope() {
+    return currentScope.get();
+  }
+
+  /** Returns a new scope that holds no values. */
+  public static Scope newScope() {
+    return new Scope();
+  }
+
+  /** Makes the current thread use the values in {@code scope}. */
+  public static void setCurrentScope(Scope scope) {
+    currentScope.set(checkNotNull(scope));
+  }
+
+  public static <T> ScopedThreadLocal<T> withInitial(Supplier<? extends T> initialValueSupplier) {
+    return new ScopedThreadLocal<>(initialValueSupplier);
+  }
+
+  private final Supplier<? extends T> initialValueSupplier;
+
+  public ScopedThreadLocal() {
+    this(() -> null);
+  }
+
+  private ScopedThreadLocal(Supplier<? extends T> initialValueSupplier) {
+    this.initialValueSupplier = initialValueSupplier;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get() {
+    Map<ScopedThreadLocal<?>, Object> valueByThreadLocal = currentScope.get().valueByThreadLocal;
+    Object value = valueByThreadLocal.get(this);
+    if (value != null) {
+      return (T) value;
+    }
+
+    // Note that computeIfAbsent is not used since initializers might read other scoped values,
+    // which is not allowed while the map is being updated.
+    T initialValue = initialValueSupplier.get();
+    if (initialValue == null) {
+      return null;
+    }
+    value = valueByThreadLocal.putIfAbsent(this, initialValue);
+    return value != null ? (T) value : initialValue;
+  }
+
+  public void set(T value) {
+    if (value == null) {
+      remove();
+      return;
+    }
+    currentScope.get().valueByThreadLocal.put(this, value);
+  }
+
+  public void remove() {
+    currentScope.get().valueByThreadLocal.remove(this);
+  }
+}
@@ -17,17 +17,22 @@ package com.google.j2cl.common;
 
 import static com.google.common.base.Preconditions.checkState;
 
-import com.google.auto.value.AutoValue;
-import com.google.auto.value.extension.memoized.Memoized;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 import java.io.File;
+import java.util.Objects;
 import javax.annotation.Nullable;
 
 /**
  * Describes the location of a node in the original source in the form of a range
  * (line,column)-(line,column); where both line and column are zero-based.
+ *
+ * <p>Source positions are created for most nodes of the AST and for every mapping emitted in the
+ * outputs, so they are kept packed: the line and column of each end of the range share a long, and
+ * the paths are shared by all the positions in the same file. The {@link FilePosition}s are views
+ * created on demand.
  */
-@AutoValue
-public abstract class SourcePosition implements Comparable<SourcePosition> {
+public final class SourcePosition implements Comparable<SourcePosition> {
 
   public static final SourcePosition NONE =
       newBuilder()
@@ -35,15 +40,118 @@ public abstract class SourcePosition implements Comparable<SourcePosition> {
           .setEndFilePosition(FilePosition.NONE)
           .build();
 
-  public abstract FilePosition getStartFilePosition();
+  /** The file a source position refers to, shared by all the positions in that file. */
+  private static final class SourceFile {
+    private static final SourceFile UNKNOWN = new SourceFile(null, null);
+    private static final Interner<SourceFile> interner = Interners.newWeakInterner();
+
+    static SourceFile of(@Nullable String filePath, @Nullable String packageRelativePath) {
+      if (filePath == null && packageRelativePath == null) {
+        return UNKNOWN;
+      }
+      return interner.intern(new SourceFile(filePath, packageRelativePath));
+    }
+
+    @Nullable private final String filePath;
+    @Nullable private final String packageRelativePath;
+    @Nullable private String fileName;
+
+    private SourceFile(@Nullable String filePath, @Nullable String packageRelativePath) {
+      this.filePath = filePath;
+      this.packageRelativePath = packageRelativePath;
+    }
+
+    @Nullable
+    String getFileName() {
+      // Benign race, all the threads compute the same value.
+      if (fileName == null && filePath != null) {
+        fileName = new File(filePath).getName();
+      }
+      return fileName;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof SourceFile)) {
+        return false;
+      }
+      SourceFile that = (SourceFile) other;
+      return Objects.equals(filePath, that.filePath)
+          && Objects.equals(packageRelativePath, that.packageRelativePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, packageRelativePath);
+    }
+  }
+
+  // The line in the upper half and the column in the lower half.
+  private final long start;
+  private final long end;
+  private final int startByteOffset;
+  private final int endByteOffset;
+  private final SourceFile file;
+  @Nullable private final String name;
+
+  private SourcePosition(
+      long start,
+      int startByteOffset,
+      long end,
+      int endByteOffset,
+      SourceFile file,
+      @Nullable String name) {
+    this.start = start;
+    this.startByteOffset = startByteOffset;
+    this.end = end;
+    this.endByteOffset = endByteOffset;
+    this.file = file;
+    this.name = name;
+  }
+
+  public FilePosition getStartFilePosition() {
+    return toFilePosition(start, startByteOffset);
+  }
+
+  public FilePosition getEndFilePosition() {
+    return toFilePosition(end, endByteOffset);
+  }
+
+  public int getStartLine() {
+    return getLine(start);
+  }
+
+  public int getStartColumn() {
+    return getColumn(start);
+  }
 
-  public abstract FilePosition getEndFilePosition();
+  public int getEndLine() {
+    return getLine(end);
+  }
 
-  public abstract @Nullable String getFilePath();
+  public int getEndColumn() {
+    return getColumn(end);
+  }
 
-  public abstract @Nullable String getName();
+  @Nullable
+  public String getFilePath() {
+    return file.filePath;
+  }
 
-  public abstract @Nullable String getPackageRelativePath();
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
+  @Nullable
+  public String getPackageRelativePath() {
+    return file.packageRelativePath;
+  }
+
+  @Nullable
+  public String getFileName() {
+    return file.getFileName();
+  }
 
   @Override
   public int compareTo(SourcePosition o) {
@@ -53,44 +161,151 @@ public abstract class SourcePosition implements Comparable<SourcePosition> {
         return pathComparisonResult;
       }
     }
-    return getStartFilePosition().compareTo(o.getStartFilePosition());
+    return comparePositions(start, o.start);
   }
 
-  @Memoized
-  @Nullable
-  public String getFileName() {
-    String filePath = getFilePath();
-    return filePath == null ? filePath : new File(filePath).getName();
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof SourcePosition)) {
+      return false;
+    }
+    SourcePosition that = (SourcePosition) other;
+    return start == that.start
+        && end == that.end
+        && startByteOffset == that.startByteOffset
+        && endByteOffset == that.endByteOffset
+        && file.equals(that.file)
+        && Objects.equals(name, that.name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(start, end, startByteOffset, endByteOffset, file, name);
   }
 
-  abstract Builder toBuilder();
+  @Override
+  public String toString() {
+    return "SourcePosition{"
+        + "startFilePosition="
+        + getStartFilePosition()
+        + ", endFilePosition="
+        + getEndFilePosition()
+        + ", filePath="
+        + getFilePath()
+        + ", name="
+        + name
+        + ", packageRelativePath="
+        + getPackageRelativePath()
+        + "}";
+  }
+
+  private static long pack(int line, int column) {
+    return ((long) line << 32) | (column & 0xFFFFFFFFL);
+  }
+
+  private static int getLine(long position) {
+    return (int) (position >> 32);
+  }
+
+  private static int getColumn(long position) {
+    return (int) position;
+  }
+
+  private static int comparePositions(long position, long otherPosition) {
+    if (getLine(position) != getLine(otherPosition)) {
+      return getLine(position) - getLine(otherPosition);
+    }
+    return getColumn(position) - getColumn(otherPosition);
+  }
+
+  private static FilePosition toFilePosition(long position, int byteOffset) {
+    return FilePosition.newBuilder()
+        .setLine(getLine(position))
+        .setColumn(getColumn(position))
+        .setByteOffset(byteOffset)
+        .build();
+  }
+
+  Builder toBuilder() {
+    Builder builder =
+        new Builder()
+            .setStartPosition(getLine(start), getColumn(start), startByteOffset)
+            .setEndPosition(getLine(end), getColumn(end), endByteOffset);
+    builder.filePath = file.filePath;
+    builder.packageRelativePath = file.packageRelativePath;
+    builder.name = name;
+    return builder;
+  }
 
   public static Builder newBuilder() {
-    return new AutoValue_SourcePosition.Builder();
+    return new Builder();
   }
 
   /** A Builder for SourcePosition. */
-  @AutoValue.Builder
-  public abstract static class Builder {
+  public static final class Builder {
+    private boolean hasStart;
+    private long start;
+    private int startByteOffset;
+    private boolean hasEnd;
+    private long end;
+    private int endByteOffset;
+    private String filePath;
+    private String packageRelativePath;
+    private String name;
 
-    public abstract Builder setStartFilePosition(FilePosition filePosition);
+    private Builder() {}
 
-    public abstract Builder setEndFilePosition(FilePosition filePosition);
+    public Builder setStartFilePosition(FilePosition filePosition) {
+      return setStartPosition(
+          filePosition.getLine(), filePosition.getColumn(), filePosition.getByteOffset());
+    }
 
-    public abstract Builder setFilePath(String filePath);
+    public Builder setEndFilePosition(FilePosition filePosition) {
+      return setEndPosition(
+          filePosition.getLine(), filePosition.getColumn(), filePosition.getByteOffset());
+    }
+
+    /** Sets the start of the range without creating a {@link FilePosition}. */
+    public Builder setStartPosition(int line, int column, int byteOffset) {
+      this.start = pack(line, column);
+      this.startByteOffset = byteOffset;
+      this.hasStart = true;
+      return this;
+    }
+
+    /** Sets the end of the range without creating a {@link FilePosition}. */
+    public Builder setEndPosition(int line, int column, int byteOffset) {
+      this.end = pack(line, column);
+      this.endByteOffset = byteOffset;
+      this.hasEnd = true;
+      return this;
+    }
 
-    public abstract Builder setPackageRelativePath(String packageRelativePath);
+    public Builder setFilePath(String filePath) {
+      this.filePath = filePath;
+      return this;
+    }
 
-    public abstract Builder setName(String name);
+    public Builder setPackageRelativePath(String packageRelativePath) {
+      this.packageRelativePath = packageRelativePath;
+      return this;
+    }
 
-    abstract SourcePosition autoBuild();
+    public Builder setName(String name) {
+      this.name = name;
+      return this;
+    }
 
     public SourcePosition build() {
-      SourcePosition sourcePosition = autoBuild();
-      checkState(
-          sourcePosition.getStartFilePosition().compareTo(sourcePosition.getEndFilePosition())
-              <= 0);
-      return sourcePosition;
+      checkState(hasStart && hasEnd, "Missing start or end position.");
+      checkState(comparePositions(start, end) <= 0);
+      return new SourcePosition(
+          start,
+          startByteOffset,
+          end,
+          endByteOffset,
+          SourceFile.of(filePath, packageRelativePath),
+          name);
     }
 
     public static Builder from(SourcePosition sourcePosition) {
@@ -16,13 +16,18 @@
 package com.google.j2cl.common;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
 import com.google.j2cl.common.Problems.FatalError;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
@@ -67,20 +72,33 @@ public class SourceUtils {
 
   private static final String TEMP_ROOT = "j2cl_sources";
 
-  /** Returns all individual sources where source jars extracted and flattened. */
+  /** The temp dirs where source jars were extracted, to be deleted once they are not needed. */
+  private static final ScopedThreadLocal<List<Path>> tempDirs =
+      ScopedThreadLocal.withInitial(ArrayList::new);
+
+  /**
+   * Returns all individual sources where source jars extracted and flattened.
+   *
+   * <p>The extracted files are kept until {@link #deleteExtractedSources} is called.
+   */
   public static Stream<FileInfo> getAllSources(List<String> sources, Problems problems) {
     // Make sure to extract all of the Jars into a single temp dir so that when later sorting
     // sourceFilePaths there is no instability introduced by differences in randomly generated
-    // temp dir prefixes.
-    Path sourcesDir;
-    try {
-      Path tempDir = Files.createTempDirectory(null);
-      // Make sure we create a root so getJavaPath is still reasonable in case of no Java root.
-      sourcesDir = Files.createDirectory(tempDir.resolve(TEMP_ROOT));
-    } catch (IOException e) {
-      problems.fatal(FatalError.CANNOT_CREATE_TEMP_DIR, e.getMessage());
-      return null;
-    }
+    // temp dir prefixes. The directory is only created if there are jars to extract.
+    Supplier<Path> sourcesDir =
+        Suppliers.memoize(
+            () -> {
+              try {
+                Path tempDir = Files.createTempDirectory(null);
+                tempDirs.get().add(tempDir);
+                // Make sure we create a root so getJavaPath is still reasonable in case of no Java
+                // root.
+                return Files.createDirectory(tempDir.resolve(TEMP_ROOT));
+              } catch (IOException e) {
+                problems.fatal(FatalError.CANNOT_CREATE_TEMP_DIR, e.getMessage());
+                return null;
+              }
+            });
 
     // Sort source file paths so that our input is always in a stable order. If this is not done
     // and you can't trust the input to have been provided already in a stable order then the result
@@ -90,7 +108,7 @@ public class SourceUtils {
         .flatMap(
             f ->
                 f.endsWith("jar") || f.endsWith("zip")
-                    ? extractZip(f, sourcesDir, problems).stream()
+                    ? extractZip(f, sourcesDir.get(), problems).stream()
                     : Stream.of(FileInfo.create(f, f, getJavaPath(f))))
         .sorted()
         .distinct();
@@ -99,19 +117,32 @@ public class SourceUtils {
   private static ImmutableList<FileInfo> extractZip(
       String zipPath, Path sourcesDir, Problems problems) {
     try {
-      ZipFiles.unzipFile(new File(zipPath), sourcesDir.toFile());
-      try (Stream<Path> stream = Files.walk(sourcesDir)) {
-        return stream
-            .filter(Files::isRegularFile)
-            .map(p -> FileInfo.create(p.toString(), sourcesDir.relativize(p).toString()))
-            .collect(ImmutableList.toImmutableList());
-      }
+      return ZipFiles.unzipFile(new File(zipPath), sourcesDir.toFile()).stream()
+          .map(sourcesDir::resolve)
+          .map(p -> FileInfo.create(p.toString(), sourcesDir.relativize(p).toString()))
+          .collect(ImmutableList.toImmutableList());
     } catch (IOException e) {
       problems.fatal(FatalError.CANNOT_EXTRACT_ZIP, zipPath);
       return null;
     }
   }
 
+  /**
+   * Deletes the files extracted by the calls to {@link #getAllSources} in the current scope.
+   *
+   * <p>Long running processes, like persistent workers, would otherwise accumulate them.
+   */
+  public static void deleteExtractedSources() {
+    for (Path tempDir : tempDirs.get()) {
+      try {
+        MoreFiles.deleteRecursively(tempDir, RecursiveDeleteOption.ALLOW_INSECURE);
+      } catch (IOException e) {
+        // The directory is in the temp dir, failing to delete it is not an error.
+      }
+    }
+    tempDirs.remove();
+  }
+
   /**
    * Returns the relative path from java source root.
    *
@@ -18,14 +18,19 @@ package com.google.j2cl.common;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.common.collect.FluentIterable;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -55,35 +60,51 @@ final class ZipFiles {
     }
   }
 
-  public static void unzipFile(File zipFile, File targetDirectory) throws IOException {
+  /**
+   * Extracts the files in {@code zipFile} into {@code targetDirectory} and returns their paths
+   * relative to it, in the order of the entries in the zip file.
+   *
+   * <p>Entries are decompressed concurrently.
+   */
+  public static ImmutableList<String> unzipFile(File zipFile, File targetDirectory)
+      throws IOException {
     checkNotNull(zipFile);
     checkNotNull(targetDirectory);
     checkArgument(
         targetDirectory.isDirectory(),
         "%s is not a valid directory",
         targetDirectory.getAbsolutePath());
-    final ZipFile zipFileObj = new ZipFile(zipFile);
-    try {
-      for (ZipEntry entry : entries(zipFileObj)) {
+    try (ZipFile zipFileObj = new ZipFile(zipFile)) {
+      ImmutableList<ZipEntry> fileEntries =
+          entries(zipFileObj).filter(entry -> !entry.isDirectory()).toList();
+      for (ZipEntry entry : fileEntries) {
         checkName(entry.getName());
-        File targetFile = new File(targetDirectory, entry.getName());
-        if (entry.isDirectory()) {
-          if (!targetFile.isDirectory() && !targetFile.mkdirs()) {
-            throw new IOException("Failed to create directory: " + targetFile.getAbsolutePath());
-          }
-        } else {
-          File parentFile = targetFile.getParentFile();
-          if (!parentFile.isDirectory()) {
-            if (!parentFile.mkdirs()) {
-              throw new IOException("Failed to create directory: " + parentFile.getAbsolutePath());
-            }
-          }
-          // Write the file to the destination.
-          asByteSource(zipFileObj, entry).copyTo(Files.asByteSink(targetFile));
+      }
+      // Directories are created upfront, so that entries can be extracted in any order.
+      ImmutableSet<File> directories =
+          fileEntries.stream()
+              .map(entry -> new File(targetDirectory, entry.getName()).getParentFile())
+              .collect(toImmutableSet());
+      for (File directory : directories) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+          throw new IOException("Failed to create directory: " + directory.getAbsolutePath());
         }
       }
-    } finally {
-      zipFileObj.close();
+      // ZipFile supports reading several entries concurrently.
+      ConcurrentTasks.forEach(
+          fileEntries,
+          entry -> {
+            try {
+              // Write the file to the destination.
+              asByteSource(zipFileObj, entry)
+                  .copyTo(Files.asByteSink(new File(targetDirectory, entry.getName())));
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+      return fileEntries.stream().map(ZipEntry::getName).collect(toImmutableList());
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
     }
   }
 
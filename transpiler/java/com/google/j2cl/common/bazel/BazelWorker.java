@@ -15,20 +15,34 @@
  */
 package com.google.j2cl.common.bazel;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.Files;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.devtools.build.lib.worker.WorkerProtocol.Input;
 import com.google.devtools.build.lib.worker.WorkerProtocol.WorkRequest;
 import com.google.devtools.build.lib.worker.WorkerProtocol.WorkResponse;
 import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.ScopedThreadLocal;
+import com.google.j2cl.common.SourceUtils;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
@@ -41,13 +55,19 @@ import org.kohsuke.args4j.CmdLineParser;
  */
 public abstract class BazelWorker {
 
+  /**
+   * Digests of the contents of the inputs of the request, keyed by path. Only known when running as
+   * a persistent worker.
+   */
+  protected ImmutableMap<String, String> inputDigests = ImmutableMap.of();
+
   protected abstract void run(Problems problems);
 
   /**
    * Process the request described by the arguments. Note that you must output errors and warnings
    * via {@link Problems} to avoid interrupting the worker protocol which occurs over stdout.
    */
-  private int processRequest(List<String> args) {
+  private int processRequest(List<String> args, PrintStream output) {
     CmdLineParser parser = new CmdLineParser(this);
     Problems problems = new Problems();
 
@@ -55,7 +75,7 @@ public abstract class BazelWorker {
       parser.parseArgument(args);
     } catch (CmdLineException e) {
       problems.error("%s", e.getMessage());
-      return problems.reportAndGetExitCode(System.err);
+      return problems.reportAndGetExitCode(output);
     }
 
     try {
@@ -64,16 +84,18 @@ public abstract class BazelWorker {
       // Program aborted due to errors recorded in problems.
     } catch (Throwable e) {
       // Program crash.
-      e.printStackTrace(System.err);
+      e.printStackTrace(output);
       return 1;
+    } finally {
+      SourceUtils.deleteExtractedSources();
     }
-    return problems.reportAndGetExitCode(System.err);
+    return problems.reportAndGetExitCode(output);
   }
 
   public static final void start(String[] args, Supplier<BazelWorker> workerSupplier)
       throws Exception {
     if (args.length == 1 && args[0].equals("--persistent_worker")) {
-      runPersistentWorker(workerSupplier);
+      runPersistentWorker(workerSupplier, System.in, System.out);
     } else {
       runStandaloneWorker(workerSupplier, expandFlagFile(args));
     }
@@ -82,35 +104,137 @@ public abstract class BazelWorker {
   private static void runStandaloneWorker(Supplier<BazelWorker> workerSupplier, List<String> args)
       throws IOException {
     // This is a single invocation of builder that exits after it processed the request.
-    int exitCode = workerSupplier.get().processRequest(args);
+    int exitCode = workerSupplier.get().processRequest(args, System.err);
     System.exit(exitCode);
   }
 
-  private static void runPersistentWorker(Supplier<BazelWorker> workerSupplier) throws IOException {
-    PrintStream realStdOut = System.out;
+  /**
+   * Serves the requests read from {@code requests} until it ends, writing the responses to {@code
+   * responses}.
+   *
+   * <p>Multiplex requests run concurrently with each other. Each one gets its own worker instance
+   * and its own {@link ScopedThreadLocal} scope, so the tools only need to make thread safe the
+   * state they deliberately keep across requests (e.g. the caches of classpaths, of stripped
+   * contents or of library infos), which is already shared by the concurrent tasks of a single
+   * request.
+   *
+   * <p>The output of a thread goes to the request that started it. Hence the work of a request has
+   * to run on threads started by the request itself, see {@link
+   * com.google.j2cl.common.ConcurrentTasks}, and never on the common fork join pool: its threads
+   * are shared by all the requests and would keep writing to the output of whichever request
+   * started them.
+   */
+  @VisibleForTesting
+  static void runPersistentWorker(
+      Supplier<BazelWorker> workerSupplier, InputStream requests, PrintStream responses)
+      throws IOException, InterruptedException {
+    PrintStream realStdOut = responses;
+    PrintStream realStdErr = System.err;
+    PrintStream originalStdOut = System.out;
+
+    // Ensure we capture stdout/sterr for potential debug/error messages. Requests might be
+    // processed concurrently, so the output of each thread goes to the buffer of the request it is
+    // working on, which is inherited by any thread it starts.
+    InheritableThreadLocal<OutputStream> requestOutput =
+        new InheritableThreadLocal<OutputStream>() {
+          @Override
+          protected OutputStream initialValue() {
+            return realStdErr;
+          }
+        };
+    PrintStream ps =
+        new PrintStream(
+            new OutputStream() {
+              @Override
+              public void write(int b) throws IOException {
+                requestOutput.get().write(b);
+              }
 
-    // Ensure we capture stdout/sterr for potential debug/error messages.
-    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-    PrintStream ps = new PrintStream(buffer, true);
+              @Override
+              public void write(byte[] b, int off, int len) throws IOException {
+                requestOutput.get().write(b, off, len);
+              }
+
+              @Override
+              public void flush() throws IOException {
+                requestOutput.get().flush();
+              }
+            },
+            true);
     System.setOut(ps);
     System.setErr(ps);
 
+    // Multiplex requests are processed concurrently by a bounded number of threads; further
+    // requests wait for a thread to become available.
+    ExecutorService requestExecutor =
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(),
+            new ThreadFactoryBuilder().setNameFormat("j2cl-worker-request-%d").build());
     while (true) {
-      WorkRequest request = WorkRequest.parseDelimitedFrom(System.in);
+      WorkRequest request = WorkRequest.parseDelimitedFrom(requests);
 
       if (request == null) {
         break;
       }
 
-      int exitCode = workerSupplier.get().processRequest(request.getArgumentsList());
-      WorkResponse.newBuilder()
-          .setOutput(buffer.toString())
-          .setExitCode(exitCode)
-          .build()
-          .writeDelimitedTo(realStdOut);
-      realStdOut.flush();
-      buffer.reset();
+      Runnable processRequest =
+          () -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            PrintStream output = new PrintStream(buffer, true);
+            requestOutput.set(buffer);
+            // Pooled threads start each request with fresh state rather than observing the scoped
+            // thread local state left behind by previous requests.
+            ScopedThreadLocal.setCurrentScope(ScopedThreadLocal.newScope());
+            int exitCode;
+            try {
+              BazelWorker worker = workerSupplier.get();
+              worker.inputDigests = getInputDigests(request);
+              exitCode = worker.processRequest(request.getArgumentsList(), output);
+            } catch (Throwable e) {
+              // A response is always sent, otherwise the build would wait for it forever.
+              e.printStackTrace(output);
+              exitCode = 1;
+            } finally {
+              requestOutput.set(realStdErr);
+            }
+            WorkResponse response =
+                WorkResponse.newBuilder()
+                    .setOutput(buffer.toString())
+                    .setExitCode(exitCode)
+                    .setRequestId(request.getRequestId())
+                    .build();
+            // Responses are written whole, and in the order the requests complete.
+            synchronized (realStdOut) {
+              try {
+                response.writeDelimitedTo(realStdOut);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+              realStdOut.flush();
+            }
+          };
+
+      if (request.getRequestId() == 0) {
+        // Singleplex request, which must be processed alone.
+        processRequest.run();
+      } else {
+        requestExecutor.execute(processRequest);
+      }
     }
+
+    requestExecutor.shutdown();
+    requestExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    System.setOut(originalStdOut);
+    System.setErr(realStdErr);
+  }
+
+  private static ImmutableMap<String, String> getInputDigests(WorkRequest request) {
+    return request.getInputsList().stream()
+        .collect(
+            toImmutableMap(
+                Input::getPath,
+                input -> BaseEncoding.base16().lowerCase().encode(input.getDigest().toByteArray()),
+                (first, second) -> first));
   }
 
   /**
@@ -17,6 +17,7 @@ package com.google.j2cl.common.visitor.generator;
 
 import static com.google.auto.common.MoreElements.isAnnotationPresent;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 
 import com.google.auto.common.MoreElements;
 import com.google.auto.common.MoreTypes;
@@ -43,7 +44,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Processor;
@@ -51,6 +54,7 @@ import javax.annotation.processing.RoundEnvironment;
 import javax.annotation.processing.SupportedSourceVersion;
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.VariableElement;
@@ -98,12 +102,16 @@ public class J2clAstProcessor extends AbstractProcessor {
                 .filter(input -> isAnnotationPresent(input, Visitable.class))
                 .map(this::extractVisitableClass)
                 .collect(toImmutableList());
+        assignKinds(classes);
+        assignContextKinds(classes);
 
         writeGeneralClass(ABSTRACT_VISITOR_TEMPLATE_FILE, "AbstractVisitor", packageName, classes);
         writeGeneralClass(
             ABSTRACT_REWRITER_TEMPLATE_FILE, "AbstractRewriter", packageName, classes);
         writeGeneralClass(
             PROCESSOR_PRIVATE_CLASS_TEMPLATE_FILE, "ProcessorPrivate", packageName, classes);
+        writeGeneralClass(
+            COMPOSITE_VISITOR_TEMPLATE_FILE, "CompositeVisitor", packageName, classes);
       }
 
       // This means that the previous round didn't generate any new sources, so we can't have found
@@ -212,6 +220,22 @@ public class J2clAstProcessor extends AbstractProcessor {
     String topClassName;
     List<Field> fields;
     boolean isContext;
+    boolean isAbstract;
+    // The index of the kind of the class, only assigned to concrete classes.
+    int kindIndex = -1;
+    // The bit that represents the kind of the class in the summaries of the kinds of the nodes in a
+    // subtree.
+    long kind;
+    // The union of the kinds of the class and all its subclasses.
+    long kindMask;
+    // The names of the context classes among the class and its superclasses.
+    List<String> contextClassNames;
+    // The context classes among the class and its superclasses, only assigned when all the classes
+    // in the package are known.
+    List<VisitableClass> contextClasses;
+    // The bit that represents the class in the kinds of the contexts, only assigned to context
+    // classes.
+    int contextKind;
 
     @Override
     public int hashCode() {
@@ -252,6 +276,99 @@ public class J2clAstProcessor extends AbstractProcessor {
     public String getTopClassName() {
       return topClassName;
     }
+
+    public boolean hasContext() {
+      return !contextClassNames.isEmpty();
+    }
+
+    public List<VisitableClass> getContextClasses() {
+      return contextClasses;
+    }
+
+    public String getContextKindLiteral() {
+      return toHexLiteral(contextKind);
+    }
+
+    public String getContextKindsLiteral() {
+      return toHexLiteral(
+          contextClasses.stream().mapToInt(c -> c.contextKind).reduce(0, (a, b) -> a | b));
+    }
+
+    public boolean isAbstract() {
+      return isAbstract;
+    }
+
+    public int getKindIndex() {
+      return kindIndex;
+    }
+
+    public String getKindLiteral() {
+      return toHexLiteral(kind);
+    }
+
+    public String getKindMaskLiteral() {
+      return toHexLiteral(kindMask);
+    }
+
+    private static String toHexLiteral(long value) {
+      return "0x" + Long.toHexString(value) + "L";
+    }
+
+    private static String toHexLiteral(int value) {
+      return "0x" + Integer.toHexString(value);
+    }
+  }
+
+  /**
+   * Assigns a kind to each concrete class, and to each class the union of the kinds of its concrete
+   * subclasses.
+   */
+  private static void assignKinds(List<VisitableClass> classes) {
+    Map<String, VisitableClass> classesBySimpleName =
+        classes.stream().collect(toImmutableMap(c -> c.simpleName, Function.identity()));
+    int kindIndex = 0;
+    for (VisitableClass visitableClass : classes) {
+      if (visitableClass.isAbstract) {
+        continue;
+      }
+      visitableClass.kindIndex = kindIndex;
+      // Kinds share bits when there are more than 64 of them, which only makes the summaries less
+      // precise.
+      visitableClass.kind = 1L << (kindIndex++ % Long.SIZE);
+      for (VisitableClass clazz = visitableClass;
+          clazz != null;
+          clazz = clazz.isTop() ? null : classesBySimpleName.get(clazz.superclassName)) {
+        clazz.kindMask |= visitableClass.kind;
+      }
+    }
+  }
+
+  /**
+   * Assigns a distinct bit to each context class, and to each class the context classes among
+   * itself and its superclasses.
+   */
+  private void assignContextKinds(List<VisitableClass> classes) {
+    Map<String, VisitableClass> classesBySimpleName =
+        classes.stream().collect(toImmutableMap(c -> c.simpleName, Function.identity()));
+    int contextKindIndex = 0;
+    for (VisitableClass visitableClass : classes) {
+      if (!visitableClass.isContext) {
+        continue;
+      }
+      if (contextKindIndex == Integer.SIZE) {
+        reportError(
+            "More than " + Integer.SIZE + " @Context classes in " + visitableClass.packageName);
+        return;
+      }
+      visitableClass.contextKind = 1 << contextKindIndex++;
+    }
+    for (VisitableClass visitableClass : classes) {
+      visitableClass.contextClasses =
+          visitableClass.contextClassNames.stream()
+              .filter(classesBySimpleName::containsKey)
+              .map(classesBySimpleName::get)
+              .collect(toImmutableList());
+    }
   }
 
   private VelocityContext createVelocityContextForVisitorHelper(VisitableClass visitableClass) {
@@ -278,6 +395,9 @@ public class J2clAstProcessor extends AbstractProcessor {
   private static final String ABSTRACT_REWRITER_TEMPLATE_FILE =
       "com/google/j2cl/common/visitor/generator/AbstractRewriterClass.vm";
 
+  private static final String COMPOSITE_VISITOR_TEMPLATE_FILE =
+      "com/google/j2cl/common/visitor/generator/CompositeVisitorClass.vm";
+
   private static final String PROCESSOR_PRIVATE_CLASS_TEMPLATE_FILE =
       "com/google/j2cl/common/visitor/generator/ProcessorPrivateClass.vm";
 
@@ -331,15 +451,24 @@ public class J2clAstProcessor extends AbstractProcessor {
     visitableClass.packageName = MoreElements.getPackage(typeElement).getQualifiedName().toString();
     visitableClass.fields = allFieldsNames;
     visitableClass.isContext = isAnnotationPresent(typeElement, Context.class);
+    visitableClass.isAbstract = typeElement.getModifiers().contains(Modifier.ABSTRACT);
     if (getSingleVisitableSuper(typeElement) != null) {
       visitableClass.superclassName =
           MoreTypes.asElement(getSingleVisitableSuper(typeElement)).getSimpleName().toString();
     }
+    ImmutableList.Builder<String> contextClassNames = ImmutableList.builder();
     TypeElement topElement = typeElement;
     TypeMirror visitableSuper;
-    while ((visitableSuper = getSingleVisitableSuper(topElement)) != null) {
+    while (true) {
+      if (isAnnotationPresent(topElement, Context.class)) {
+        contextClassNames.add(topElement.getSimpleName().toString());
+      }
+      if ((visitableSuper = getSingleVisitableSuper(topElement)) == null) {
+        break;
+      }
       topElement = MoreElements.asType(MoreTypes.asElement(visitableSuper));
     }
+    visitableClass.contextClassNames = contextClassNames.build();
     visitableClass.topClassName = topElement.getSimpleName().toString();
     return visitableClass;
   }
@@ -27,9 +27,12 @@ import com.google.j2cl.common.SourceUtils;
 import com.google.j2cl.common.SourceUtils.FileInfo;
 import com.google.j2cl.common.bazel.BazelWorker;
 import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
 import com.google.j2cl.transpiler.frontend.Frontend;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
 import java.io.File;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -87,6 +90,70 @@ final class BazelJ2clBuilder extends BazelWorker {
       hidden = true)
   protected boolean experimentalOptimizeAutovalue = false;
 
+  @Option(
+      name = "-experimentalparallelpasses",
+      usage =
+          "Runs normalization passes on several compilation units concurrently. Not production"
+              + " ready.",
+      hidden = true)
+  protected boolean experimentalParallelPasses = false;
+
+  @Option(
+      name = "-experimentalshardedparsing",
+      usage =
+          "Parses and resolves the sources in shards concurrently, with the JDT frontend. Not"
+              + " production ready.",
+      hidden = true)
+  protected boolean experimentalShardedParsing = false;
+
+  @Option(
+      name = "-experimentalstreamoutputs",
+      usage =
+          "Generates the outputs of each compilation unit as soon as it is normalized, for the"
+              + " backends that support it. Not production ready.",
+      hidden = true)
+  protected boolean experimentalStreamOutputs = false;
+
+  @Option(
+      name = "-experimentalprofile",
+      usage =
+          "Writes the time, allocations and AST size of each stage and pass as a Chrome trace"
+              + " next to the output.",
+      hidden = true)
+  protected boolean experimentalProfile = false;
+
+  @Option(
+      name = "-experimentalheapreport",
+      usage =
+          "Writes the number and estimated size of the AST nodes and descriptors after each stage"
+              + " as JSON next to the output.",
+      hidden = true)
+  protected boolean experimentalHeapReport = false;
+
+  @Option(
+      name = "-experimentaloutputcache",
+      metaVar = "<path>",
+      usage =
+          "Directory where the outputs of each compilation unit are cached across builds. Not"
+              + " production ready.",
+      hidden = true)
+  protected Path experimentalOutputCache;
+
+  @Option(
+      name = "-experimentaloutputcachesize",
+      metaVar = "<megabytes>",
+      usage = "Maximum size of the output cache; the least recently used entries are removed.",
+      hidden = true)
+  protected long experimentalOutputCacheSize = 1024;
+
+  @Option(
+      name = "-experimentalclasspathcache",
+      usage =
+          "Keeps the classpath open and indexed across the requests served by a persistent worker."
+              + " Not production ready.",
+      hidden = true)
+  protected boolean experimentalClasspathCache = false;
+
   /** Temporary flag to select the frontend during the transition to javac. */
   private static final Frontend FRONTEND =
       Frontend.valueOf(Ascii.toUpperCase(System.getProperty("j2cl.frontend", "jdt")));
@@ -109,14 +176,29 @@ final class BazelJ2clBuilder extends BazelWorker {
   @Option(name = "-experimentalWasmRemoveAssertStatement", hidden = true)
   protected boolean wasmRemoveAssertStatement = false;
 
+  @Option(
+      name = "-experimentalAdditionalBackendOutput",
+      handler = MapOptionHandler.class,
+      metaVar = "(CLOSURE | WASM | KOTLIN)=<path>",
+      usage =
+          "Also transpiles the sources with another backend into the given output, sharing the"
+              + " frontend. Wasm cannot be combined with the other backends. Not production"
+              + " ready.",
+      hidden = true)
+  Map<String, String> additionalBackendOutputs = new HashMap<>();
+
   @Override
   protected void run(Problems problems) {
+    List<Output> additionalOutputs = new ArrayList<>();
     try (Output out = OutputUtils.initOutput(this.output, problems)) {
-      J2clTranspiler.transpile(createOptions(out, problems), problems);
+      J2clTranspiler.transpile(createOptions(out, additionalOutputs, problems), problems);
+    } finally {
+      additionalOutputs.forEach(Output::close);
     }
   }
 
-  private J2clTranspilerOptions createOptions(Output output, Problems problems) {
+  private J2clTranspilerOptions createOptions(
+      Output output, List<Output> additionalOutputs, Problems problems) {
 
     if (this.readableSourceMaps && this.generateKytheIndexingMetadata) {
       problems.warning(
@@ -142,26 +224,96 @@ final class BazelJ2clBuilder extends BazelWorker {
             .collect(toImmutableList());
 
     // Directly put all supplied js sources into the zip file.
-    allSources.stream()
-        .filter(p -> p.sourcePath().endsWith(".js") && !p.sourcePath().endsWith("native.js"))
-        .forEach(f -> output.copyFile(f.sourcePath(), f.targetPath()));
-
-    return J2clTranspilerOptions.newBuilder()
-        .setSources(allJavaSources)
-        .setNativeSources(allNativeSources)
-        .setClasspaths(getPathEntries(this.classPath))
-        .setOutput(output)
-        .setLibraryInfoOutput(this.libraryInfoOutput)
-        .setEmitReadableLibraryInfo(readableLibraryInfo)
-        .setEmitReadableSourceMap(this.readableSourceMaps)
-        .setGenerateKytheIndexingMetadata(this.generateKytheIndexingMetadata)
-        .setExperimentalOptimizeAutovalue(this.experimentalOptimizeAutovalue)
-        .setFrontend(FRONTEND)
-        .setBackend(this.backend)
-        .setWasmEntryPoints(ImmutableSet.copyOf(wasmEntryPoints))
-        .setDefinesForWasm(ImmutableMap.copyOf(definesForWasm))
-        .setWasmRemoveAssertStatement(wasmRemoveAssertStatement)
-        .build();
+    List<FileInfo> allJsSources =
+        allSources.stream()
+            .filter(p -> p.sourcePath().endsWith(".js") && !p.sourcePath().endsWith("native.js"))
+            .collect(toImmutableList());
+    allJsSources.forEach(f -> output.copyFile(f.sourcePath(), f.targetPath()));
+
+    J2clTranspilerOptions options =
+        J2clTranspilerOptions.newBuilder()
+            .setSources(allJavaSources)
+            .setNativeSources(allNativeSources)
+            .setClasspaths(getPathEntries(this.classPath))
+            .setClasspathDigests(this.inputDigests)
+            .setClasspathCache(
+                this.experimentalClasspathCache ? ClasspathCache.getInstance() : null)
+            .setOutput(output)
+            .setLibraryInfoOutput(this.libraryInfoOutput)
+            .setEmitReadableLibraryInfo(readableLibraryInfo)
+            .setEmitReadableSourceMap(this.readableSourceMaps)
+            .setGenerateKytheIndexingMetadata(this.generateKytheIndexingMetadata)
+            .setExperimentalOptimizeAutovalue(this.experimentalOptimizeAutovalue)
+            .setExperimentalParallelPasses(this.experimentalParallelPasses)
+            .setExperimentalShardedParsing(this.experimentalShardedParsing)
+            .setExperimentalStreamOutputs(this.experimentalStreamOutputs)
+            .setProfileOutput(getProfileOutput(this.output))
+            .setHeapFootprintReportOutput(getHeapFootprintReportOutput(this.output))
+            .setOutputCache(createOutputCache())
+            .setFrontend(FRONTEND)
+            .setBackend(this.backend)
+            .setWasmEntryPoints(ImmutableSet.copyOf(wasmEntryPoints))
+            .setDefinesForWasm(ImmutableMap.copyOf(definesForWasm))
+            .setWasmRemoveAssertStatement(wasmRemoveAssertStatement)
+            .build();
+
+    List<J2clTranspilerOptions> additionalBackendOptions = new ArrayList<>();
+    for (Map.Entry<String, String> entry : additionalBackendOutputs.entrySet()) {
+      Backend additionalBackend;
+      try {
+        additionalBackend = Backend.valueOf(Ascii.toUpperCase(entry.getKey()));
+      } catch (IllegalArgumentException e) {
+        problems.error("Unknown backend '%s'.", entry.getKey());
+        continue;
+      }
+      if (!additionalBackend.canShareFrontendWith(this.backend)) {
+        problems.error(
+            "Backend '%s' cannot share the frontend with backend '%s'.",
+            additionalBackend, this.backend);
+        continue;
+      }
+      Path additionalOutputPath = Paths.get(entry.getValue());
+      Output additionalOutput = OutputUtils.initOutput(additionalOutputPath, problems);
+      additionalOutputs.add(additionalOutput);
+      allJsSources.forEach(f -> additionalOutput.copyFile(f.sourcePath(), f.targetPath()));
+      additionalBackendOptions.add(
+          options.toBuilder()
+              .setBackend(additionalBackend)
+              .setOutput(additionalOutput)
+              // The library info describes the primary output only.
+              .setLibraryInfoOutput(null)
+              .setEmitReadableLibraryInfo(false)
+              .setOutputCache(null)
+              .setProfileOutput(getProfileOutput(additionalOutputPath))
+              .setHeapFootprintReportOutput(getHeapFootprintReportOutput(additionalOutputPath))
+              .build());
+    }
+    problems.abortIfHasErrors();
+
+    return options.toBuilder().setAdditionalBackendOptions(additionalBackendOptions).build();
+  }
+
+  private Path getProfileOutput(Path output) {
+    return this.experimentalProfile
+        ? output.resolveSibling(output.getFileName() + ".trace.json")
+        : null;
+  }
+
+  private Path getHeapFootprintReportOutput(Path output) {
+    return this.experimentalHeapReport
+        ? output.resolveSibling(output.getFileName() + ".heap.json")
+        : null;
+  }
+
+  private OutputCache createOutputCache() {
+    if (experimentalOutputCache == null
+        || backend != Backend.CLOSURE
+        || experimentalOptimizeAutovalue) {
+      // Caching is only supported when the outputs of each compilation unit can be generated
+      // independently.
+      return null;
+    }
+    return new OutputCache(experimentalOutputCache, experimentalOutputCacheSize * 1024 * 1024);
   }
 
   private static List<String> getPathEntries(String path) {
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.gson.Gson;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourcePosition;
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.DeclaredTypeDescriptor;
+import com.google.j2cl.transpiler.ast.FieldDescriptor;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.ast.MethodDescriptor;
+import com.google.j2cl.transpiler.ast.Node;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reports the number of live AST nodes and interned descriptors after each stage of a
+ * transpilation, together with an estimate of the bytes they retain, as JSON.
+ *
+ * <p>The estimate of each instance is its shallow size plus the shallow sizes of the collections,
+ * arrays and source positions it references directly; nodes and descriptors referenced by it are
+ * accounted for separately. Sizes assume a 64-bit JVM with compressed pointers, so they are meant
+ * to find the worst offenders rather than to match a heap dump exactly.
+ */
+@SuppressWarnings("unused") // Fields are accessed through reflection by GSON.
+final class HeapFootprintReport {
+
+  /** The instances of a class and the bytes they retain. */
+  private static class Footprint {
+    private long count;
+    private long estimatedBytes;
+  }
+
+  /** The footprint of the transpilation after a stage. */
+  private static class StageFootprint {
+    private final String stage;
+    /** The heap in use after a full collection. */
+    private final long usedHeapBytes;
+
+    private final Map<String, Footprint> nodes;
+    private final Map<String, Footprint> descriptors;
+
+    private StageFootprint(
+        String stage,
+        long usedHeapBytes,
+        Map<String, Footprint> nodes,
+        Map<String, Footprint> descriptors) {
+      this.stage = stage;
+      this.usedHeapBytes = usedHeapBytes;
+      this.nodes = nodes;
+      this.descriptors = descriptors;
+    }
+  }
+
+  private static final int OBJECT_HEADER_BYTES = 12;
+  private static final int ARRAY_HEADER_BYTES = 16;
+  private static final int REFERENCE_BYTES = 4;
+  private static final int OBJECT_ALIGNMENT = 8;
+  // The shallow size of a map entry, e.g. a HashMap.Node.
+  private static final int MAP_ENTRY_BYTES = 32;
+
+  private static final ClassValue<Long> shallowSizeByClass =
+      new ClassValue<Long>() {
+        @Override
+        protected Long computeValue(Class<?> type) {
+          return computeShallowSize(type);
+        }
+      };
+
+  private static final ClassValue<List<Field>> referenceFieldsByClass =
+      new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+          return computeReferenceFields(type);
+        }
+      };
+
+  private final List<StageFootprint> stages = new ArrayList<>();
+
+  /** Records the footprint of {@code library} and of the interned descriptors after a stage. */
+  void record(String stage, Library library) {
+    Map<String, Footprint> nodes = new HashMap<>();
+    library.accept(
+        new AbstractVisitor() {
+          @Override
+          public boolean enterNode(Node node) {
+            add(nodes, node);
+            return true;
+          }
+        });
+
+    Map<String, Footprint> descriptors = new HashMap<>();
+    addAll(descriptors, "DeclaredTypeDescriptor", DeclaredTypeDescriptor.getInternedInstances());
+    addAll(descriptors, "MethodDescriptor", MethodDescriptor.getInternedInstances());
+    addAll(descriptors, "FieldDescriptor", FieldDescriptor.getInternedInstances());
+
+    stages.add(
+        new StageFootprint(
+            stage,
+            getUsedHeapBytes(),
+            sortByEstimatedBytes(nodes),
+            sortByEstimatedBytes(descriptors)));
+  }
+
+  /** Writes the report to {@code path}. */
+  void write(Path path, Problems problems) {
+    OutputUtils.writeToFile(path, new Gson().toJson(this).getBytes(UTF_8), problems);
+  }
+
+  private static void add(Map<String, Footprint> footprintByClassName, Object instance) {
+    Footprint footprint =
+        footprintByClassName.computeIfAbsent(
+            instance.getClass().getSimpleName(), k -> new Footprint());
+    footprint.count++;
+    footprint.estimatedBytes += estimateRetainedBytes(instance);
+  }
+
+  private static void addAll(
+      Map<String, Footprint> footprintByClassName, String className, Collection<?> instances) {
+    Footprint footprint = footprintByClassName.computeIfAbsent(className, k -> new Footprint());
+    for (Object instance : instances) {
+      footprint.count++;
+      footprint.estimatedBytes += estimateRetainedBytes(instance);
+    }
+  }
+
+  private static Map<String, Footprint> sortByEstimatedBytes(
+      Map<String, Footprint> footprintByClassName) {
+    Map<String, Footprint> sorted = new LinkedHashMap<>();
+    footprintByClassName.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong(
+                    (Map.Entry<String, Footprint> e) -> e.getValue().estimatedBytes)
+                .reversed())
+        .forEach(e -> sorted.put(e.getKey(), e.getValue()));
+    return sorted;
+  }
+
+  private static long getUsedHeapBytes() {
+    // Collect the garbage so that only live objects are accounted for.
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static long estimateRetainedBytes(Object instance) {
+    long bytes = shallowSizeByClass.get(instance.getClass());
+    for (Field field : referenceFieldsByClass.get(instance.getClass())) {
+      Object value;
+      try {
+        value = field.get(instance);
+      } catch (IllegalAccessException e) {
+        continue;
+      }
+      bytes += estimateOwnedBytes(value);
+    }
+    return bytes;
+  }
+
+  /** Returns the bytes of {@code value} that are attributed to the instance that references it. */
+  private static long estimateOwnedBytes(Object value) {
+    if (value instanceof Collection) {
+      // The backing array of the collection.
+      return shallowSizeByClass.get(value.getClass())
+          + align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * ((Collection<?>) value).size());
+    }
+    if (value instanceof Map) {
+      return shallowSizeByClass.get(value.getClass())
+          + (long) MAP_ENTRY_BYTES * ((Map<?, ?>) value).size();
+    }
+    if (value instanceof Object[]) {
+      return align(ARRAY_HEADER_BYTES + (long) REFERENCE_BYTES * ((Object[]) value).length);
+    }
+    if (value instanceof SourcePosition) {
+      return shallowSizeByClass.get(value.getClass());
+    }
+    return 0;
+  }
+
+  private static long computeShallowSize(Class<?> type) {
+    long bytes = OBJECT_HEADER_BYTES;
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      for (Field field : clazz.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          bytes += getFieldBytes(field.getType());
+        }
+      }
+    }
+    return align(bytes);
+  }
+
+  private static List<Field> computeReferenceFields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> clazz = type; clazz != null; clazz = clazz.getSuperclass()) {
+      if (clazz.getName().startsWith("java.")) {
+        // The internals of the JDK classes are not accessible.
+        break;
+      }
+      for (Field field : clazz.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+          try {
+            field.setAccessible(true);
+          } catch (RuntimeException e) {
+            continue;
+          }
+          fields.add(field);
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static int getFieldBytes(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    }
+    if (type == int.class || type == float.class) {
+      return 4;
+    }
+    if (type == short.class || type == char.class) {
+      return 2;
+    }
+    if (type == byte.class || type == boolean.class) {
+      return 1;
+    }
+    return REFERENCE_BYTES;
+  }
+
+  private static long align(long bytes) {
+    return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+  }
+}
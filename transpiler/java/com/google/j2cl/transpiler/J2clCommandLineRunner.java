@@ -24,6 +24,7 @@ import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.SourceUtils;
 import com.google.j2cl.transpiler.backend.Backend;
 import com.google.j2cl.transpiler.frontend.Frontend;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -77,13 +78,52 @@ public final class J2clCommandLineRunner extends CommandLineTool {
       hidden = true)
   Frontend frontEnd = Frontend.JDT;
 
+  @Option(
+      name = "-experimentalwriteifchanged",
+      usage =
+          "Leaves alone the files in the output directory whose content did not change, so that"
+              + " they keep their modification time across runs. Not production ready.",
+      hidden = true)
+  boolean experimentalWriteIfChanged = false;
+
+  @Option(
+      name = "-experimentalparallelpasses",
+      usage =
+          "Runs normalization passes on several compilation units concurrently. Not production"
+              + " ready.",
+      hidden = true)
+  boolean experimentalParallelPasses = false;
+
+  @Option(
+      name = "-experimentalshardedparsing",
+      usage =
+          "Parses and resolves the sources in shards concurrently, with the JDT frontend. Not"
+              + " production ready.",
+      hidden = true)
+  boolean experimentalShardedParsing = false;
+
+  @Option(
+      name = "-experimentalparsingshardsize",
+      usage = "The minimum number of files per shard with -experimentalshardedparsing.",
+      hidden = true)
+  int experimentalParsingShardSize = 0;
+
+  @Option(
+      name = "-experimentalclasspathcache",
+      usage =
+          "Keeps the classpath open and the frontend state warm across the transpilations that run"
+              + " in this process. Not production ready.",
+      hidden = true)
+  boolean experimentalClasspathCache = false;
+
   private J2clCommandLineRunner() {
     super("j2cl");
   }
 
   @Override
   protected void run(Problems problems) {
-    try (Output out = OutputUtils.initOutput(this.output, problems)) {
+    try (Output out =
+        OutputUtils.initOutput(this.output, problems, this.experimentalWriteIfChanged)) {
       J2clTranspiler.transpile(createOptions(out, problems), problems);
     }
   }
@@ -107,10 +147,14 @@ public final class J2clCommandLineRunner extends CommandLineTool {
                 .filter(p -> p.sourcePath().endsWith(".native.js"))
                 .collect(ImmutableList.toImmutableList()))
         .setClasspaths(getPathEntries(this.classPath))
+        .setClasspathCache(this.experimentalClasspathCache ? ClasspathCache.getInstance() : null)
         .setOutput(output)
         .setEmitReadableSourceMap(this.readableSourceMaps)
         .setEmitReadableLibraryInfo(false)
         .setGenerateKytheIndexingMetadata(this.generateKytheIndexingMetadata)
+        .setExperimentalParallelPasses(this.experimentalParallelPasses)
+        .setExperimentalShardedParsing(this.experimentalShardedParsing)
+        .setExperimentalParsingShardSize(this.experimentalParsingShardSize)
         .setFrontend(this.frontEnd)
         .setBackend(Backend.CLOSURE)
         .build();
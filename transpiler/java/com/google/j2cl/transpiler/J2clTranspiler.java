@@ -13,35 +13,69 @@
  */
 package com.google.j2cl.transpiler;
 
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.ScopedThreadLocal;
 import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Library;
 import com.google.j2cl.transpiler.ast.MemberDescriptor;
 import com.google.j2cl.transpiler.ast.MethodDescriptor;
 import com.google.j2cl.transpiler.ast.TypeDeclaration;
 import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
+import com.google.j2cl.transpiler.backend.common.StreamingOutputGenerator;
 import com.google.j2cl.transpiler.passes.JsInteropRestrictionsChecker;
 import com.google.j2cl.transpiler.passes.LibraryNormalizationPass;
 import com.google.j2cl.transpiler.passes.NormalizationPass;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 /** Translation tool for generating JavaScript source files from Java sources. */
 class J2clTranspiler {
 
   /** Runs the entire J2CL pipeline. */
   static void transpile(J2clTranspilerOptions options, Problems problems) {
-    // Compiler has no static state, but rather uses thread local variables.
-    // Because of this, we invoke the compiler on a different thread each time.
+    // Compiler has no static state, but rather uses (scoped) thread local variables.
+    // Because of this, we invoke the compiler on a different thread each time, which starts with a
+    // fresh scope that holds the interned descriptors for the duration of the transpilation.
     ExecutorService executorService = Executors.newSingleThreadExecutor();
     Future<?> result =
-        executorService.submit(() -> new J2clTranspiler(options, problems).transpileImpl());
+        executorService.submit(
+            () -> {
+              try {
+                transpileImpl(
+                    ImmutableList.<J2clTranspilerOptions>builder()
+                        .add(options)
+                        .addAll(options.getAdditionalBackendOptions())
+                        .build(),
+                    problems);
+              } finally {
+                if (options.getClasspathCache() != null) {
+                  // Make the classpath resources set up by this transpilation available to the
+                  // next ones.
+                  options.getClasspathCache().releaseResources();
+                }
+              }
+            });
     // Shutdown the executor service since it will only run a single transpilation. If not shutdown
     // it prevents the JVM from ending the process (see Executors.newFixedThreadPool()). This is not
     // normally observed since the transpiler in normal circumstances ends with System.exit() which
@@ -49,6 +83,55 @@ class J2clTranspiler {
     // out of main() and the process lingers due the live threads from these executors.
     executorService.shutdown();
 
+    getResult(result);
+  }
+
+  /**
+   * Transpiles the sources with all the backends in {@code optionsByBackend}, running the frontend
+   * only once.
+   *
+   * <p>The backends need to share the frontend (see {@link Backend#canShareFrontendWith}). Each
+   * backend normalizes its own copy of the library and all of them run concurrently.
+   */
+  private static void transpileImpl(
+      List<J2clTranspilerOptions> optionsByBackend, Problems problems) {
+    ImmutableList<J2clTranspiler> transpilers =
+        optionsByBackend.stream()
+            .map(backendOptions -> new J2clTranspiler(backendOptions, problems))
+            .collect(toImmutableList());
+    J2clTranspiler frontendTranspiler = transpilers.get(0);
+    Library library = frontendTranspiler.buildLibrary();
+    if (transpilers.size() == 1) {
+      frontendTranspiler.generateOutputs(library);
+      return;
+    }
+
+    // The copies are made upfront since the original library is normalized by the last backend.
+    List<Library> libraries = new ArrayList<>();
+    frontendTranspiler.profile(
+        "stage",
+        "cloneLibrary",
+        () -> {
+          for (int i = 1; i < transpilers.size(); i++) {
+            libraries.add(library.clone());
+          }
+        });
+    libraries.add(library);
+
+    ExecutorService backendExecutor = createBackendExecutor(transpilers.size());
+    List<Future<?>> results = new ArrayList<>();
+    for (int i = 0; i < transpilers.size(); i++) {
+      J2clTranspiler transpiler = transpilers.get(i);
+      Library backendLibrary = libraries.get(i);
+      results.add(backendExecutor.submit(() -> transpiler.generateOutputs(backendLibrary)));
+    }
+    backendExecutor.shutdown();
+    for (Future<?> result : results) {
+      getResult(result);
+    }
+  }
+
+  private static void getResult(Future<?> result) {
     try {
       Uninterruptibles.getUninterruptibly(result);
     } catch (ExecutionException e) {
@@ -60,13 +143,23 @@ class J2clTranspiler {
 
   private final J2clTranspilerOptions options;
   private final Problems problems;
+  /** Runs normalization passes on compilation units concurrently, if enabled. */
+  @Nullable private ForkJoinPool passExecutor;
+  /** Records the cost of each stage and pass, if enabled. */
+  @Nullable private final TranspilerProfiler profiler;
+  /** Records the heap footprint of the AST and descriptors after each stage, if enabled. */
+  @Nullable private final HeapFootprintReport heapFootprintReport;
 
   private J2clTranspiler(J2clTranspilerOptions options, Problems problems) {
     this.options = options;
     this.problems = problems;
+    this.profiler = options.getProfileOutput() != null ? new TranspilerProfiler() : null;
+    this.heapFootprintReport =
+        options.getHeapFootprintReportOutput() != null ? new HeapFootprintReport() : null;
   }
 
-  private void transpileImpl() {
+  /** Runs the frontend and the stages that do not depend on the output of the backend. */
+  private Library buildLibrary() {
     if (options.getBackend() == Backend.WASM) {
       // TODO(b/178738483): Remove hack that makes mangling backend dependent.
       MemberDescriptor.setWasmManglingPatterns();
@@ -75,13 +168,168 @@ class J2clTranspiler {
       // TODO(b/178738483): Remove hack that makes it possible to ignore DoNotAutobox in WASM.
       MethodDescriptor.ParameterDescriptor.setIgnoreDoNotAutoboxAnnotations();
     }
-    Library library = options.getFrontend().getLibrary(options, problems);
+    Library library =
+        profile("stage", "frontend", () -> options.getFrontend().getLibrary(options, problems));
+    if (profiler != null) {
+      profiler.setLibrary(library);
+    }
+    recordHeapFootprint("frontend", library);
+    if (!library.isEmpty()) {
+      withPassExecutor(
+          () -> {
+            profile("stage", "desugarLibrary", () -> desugarLibrary(library));
+            recordAstSize();
+            recordHeapFootprint("desugarLibrary", library);
+            profile("stage", "checkLibrary", () -> checkLibrary(library));
+          });
+    }
+    return library;
+  }
+
+  /** Normalizes {@code library} for the backend and generates the outputs. */
+  private void generateOutputs(Library library) {
+    if (profiler != null) {
+      profiler.setLibrary(library);
+    }
+    StreamingOutputGenerator outputGenerator =
+        options.getExperimentalStreamOutputs()
+            ? options.getBackend().createStreamingOutputGenerator(options, problems)
+            : null;
     if (!library.isEmpty()) {
-      desugarLibrary(library);
-      checkLibrary(library);
-      normalizeLibrary(library);
+      withPassExecutor(
+          () -> {
+            Library uncachedLibrary = loadOutputCache(library);
+            if (outputGenerator != null) {
+              profile(
+                  "stage",
+                  "normalizeLibraryAndGenerateOutputs",
+                  () ->
+                      normalizeLibraryAndGenerateOutputs(
+                          library, uncachedLibrary, outputGenerator));
+              recordAstSize();
+              recordHeapFootprint("normalizeLibraryAndGenerateOutputs", library);
+            } else {
+              profile("stage", "normalizeLibrary", () -> normalizeLibrary(uncachedLibrary));
+              recordAstSize();
+              recordHeapFootprint("normalizeLibrary", library);
+            }
+          });
+    }
+    if (outputGenerator != null) {
+      profile("stage", "generateOutputs", outputGenerator::finish);
+    } else {
+      profile(
+          "stage",
+          "generateOutputs",
+          () -> options.getBackend().generateOutputs(options, library, problems));
+    }
+    if (profiler != null) {
+      profiler.writeTrace(options.getProfileOutput(), problems);
+    }
+    if (heapFootprintReport != null) {
+      recordHeapFootprint("generateOutputs", library);
+      heapFootprintReport.write(options.getHeapFootprintReportOutput(), problems);
+    }
+  }
+
+  private void recordAstSize() {
+    if (profiler != null) {
+      profiler.recordAstSize();
+    }
+  }
+
+  private void recordHeapFootprint(String stage, Library library) {
+    if (heapFootprintReport != null) {
+      heapFootprintReport.record(stage, library);
+    }
+  }
+
+  /** Runs {@code action} with the executor for running passes in parallel, if enabled. */
+  private void withPassExecutor(Runnable action) {
+    if (options.getExperimentalParallelPasses()) {
+      passExecutor = createPassExecutor();
+    }
+    try {
+      action.run();
+    } finally {
+      if (passExecutor != null) {
+        passExecutor.shutdown();
+        passExecutor = null;
+      }
     }
-    options.getBackend().generateOutputs(options, library, problems);
+  }
+
+  /**
+   * Loads the cached outputs for the units in {@code library}, if caching is enabled, and returns
+   * the library of the units that still need to be transpiled.
+   */
+  private Library loadOutputCache(Library library) {
+    OutputCache outputCache = options.getOutputCache();
+    if (outputCache == null) {
+      return library;
+    }
+    outputCache.load(
+        library,
+        options.getNativeSources(),
+        // The options that affect the contents of the outputs.
+        String.join(
+            ",",
+            options.getFrontend().name(),
+            options.getBackend().name(),
+            String.valueOf(options.getLibraryInfoOutput() != null),
+            String.valueOf(options.getEmitReadableLibraryInfo()),
+            String.valueOf(options.getEmitReadableSourceMap()),
+            String.valueOf(options.getGenerateKytheIndexingMetadata())));
+    return Library.newBuilder()
+        .setCompilationUnits(new ArrayList<>(outputCache.getUncachedCompilationUnits(library)))
+        .build();
+  }
+
+  private <T> T profile(String category, String name, Supplier<T> action) {
+    return profiler == null ? action.get() : profiler.profile(category, name, action);
+  }
+
+  private void profile(String category, String name, Runnable action) {
+    if (profiler == null) {
+      action.run();
+      return;
+    }
+    profiler.profile(category, name, action);
+  }
+
+  /**
+   * Creates the executor for running passes in parallel.
+   *
+   * <p>The state of the transpiler is kept in scoped thread locals, hence the worker threads adopt
+   * the scope of the transpiler thread to see the same type descriptors and interned instances.
+   */
+  private static ForkJoinPool createPassExecutor() {
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+    return new ForkJoinPool(
+        Runtime.getRuntime().availableProcessors(),
+        pool ->
+            new ForkJoinWorkerThread(pool) {
+              @Override
+              protected void onStart() {
+                super.onStart();
+                ScopedThreadLocal.setCurrentScope(scope);
+              }
+            },
+        /* handler= */ null,
+        /* asyncMode= */ false);
+  }
+
+  /** Creates the executor for running the backends concurrently, in the scope of the frontend. */
+  private static ExecutorService createBackendExecutor(int numberOfBackends) {
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+    return Executors.newFixedThreadPool(
+        numberOfBackends,
+        runnable ->
+            new Thread(
+                () -> {
+                  ScopedThreadLocal.setCurrentScope(scope);
+                  runnable.run();
+                }));
   }
 
   private void desugarLibrary(Library library) {
@@ -98,17 +346,110 @@ class J2clTranspiler {
     runPasses(library, options.getBackend().getPassFactories(options));
   }
 
-  private static void runPasses(
-      Library library, ImmutableList<Supplier<NormalizationPass>> passFactories) {
+  /**
+   * Normalizes the library and hands each compilation unit to {@code outputGenerator} as soon as it
+   * is normalized, releasing its AST right after.
+   *
+   * <p>The passes that the backend declares as needing the whole library run on all units first, as
+   * usual. The remaining passes run unit by unit, all of them on one unit before the next one, in
+   * library order so that outputs are generated in the same order as when not streaming. Units
+   * whose outputs are cached are not normalized, but are still handed to the generator in order.
+   *
+   * <p>When passes run in parallel, the units are normalized ahead of the generator but at most as
+   * many at a time as there are threads, so that the normalized units waiting for their outputs do
+   * not pile up in memory.
+   */
+  private void normalizeLibraryAndGenerateOutputs(
+      Library library, Library uncachedLibrary, StreamingOutputGenerator outputGenerator) {
+    runPasses(uncachedLibrary, options.getBackend().getLibraryPassFactories(options));
+    ImmutableList<Supplier<NormalizationPass>> unitPassFactories =
+        options.getBackend().getCompilationUnitPassFactories(options);
+
+    Set<CompilationUnit> uncachedCompilationUnits = Sets.newIdentityHashSet();
+    uncachedCompilationUnits.addAll(uncachedLibrary.getCompilationUnits());
+    Iterator<CompilationUnit> compilationUnitsToSubmit =
+        uncachedLibrary.getCompilationUnits().iterator();
+    // The normalizations of the units submitted to the pass executor, in library order.
+    Deque<Future<?>> normalizations = new ArrayDeque<>();
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      if (uncachedCompilationUnits.contains(compilationUnit)) {
+        if (passExecutor == null) {
+          runUnitPasses(compilationUnit, unitPassFactories);
+        } else {
+          while (normalizations.size() < passExecutor.getParallelism()
+              && compilationUnitsToSubmit.hasNext()) {
+            CompilationUnit compilationUnitToSubmit = compilationUnitsToSubmit.next();
+            normalizations.add(
+                passExecutor.submit(
+                    () -> runUnitPasses(compilationUnitToSubmit, unitPassFactories)));
+          }
+          // The uncached units are in library order, hence this is the normalization of the
+          // current unit.
+          getResult(normalizations.remove());
+        }
+      }
+      outputGenerator.generateOutputs(compilationUnit);
+      // Only the outline of the unit is needed from here on.
+      compilationUnit.getTypes().clear();
+    }
+  }
+
+  /**
+   * Runs the passes on a single compilation unit.
+   *
+   * <p>Each pass is profiled separately for each unit, possibly on a pass executor thread.
+   */
+  private void runUnitPasses(
+      CompilationUnit compilationUnit, List<Supplier<NormalizationPass>> passFactories) {
     for (Supplier<NormalizationPass> passFactory : passFactories) {
       NormalizationPass pass = passFactory.get();
-      if (pass instanceof LibraryNormalizationPass) {
-        ((LibraryNormalizationPass) pass).execute(library);
-        continue;
-      }
-      for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
-        passFactory.get().execute(compilationUnit);
-      }
+      checkState(!(pass instanceof LibraryNormalizationPass));
+      profile("pass", pass.getClass().getSimpleName(), () -> pass.execute(compilationUnit));
+    }
+  }
+
+  private void runPasses(Library library, List<Supplier<NormalizationPass>> passFactories) {
+    for (Supplier<NormalizationPass> passFactory : passFactories) {
+      NormalizationPass pass = passFactory.get();
+      profile("pass", pass.getClass().getSimpleName(), () -> runPass(library, pass, passFactory));
+    }
+  }
+
+  private void runPass(
+      Library library, NormalizationPass pass, Supplier<NormalizationPass> passFactory) {
+    if (pass instanceof LibraryNormalizationPass) {
+      ((LibraryNormalizationPass) pass).execute(library);
+      return;
+    }
+    if (passExecutor != null) {
+      runPassInParallel(library, passFactory);
+      return;
+    }
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      passFactory.get().execute(compilationUnit);
+    }
+  }
+
+  /**
+   * Runs a pass on all the compilation units concurrently.
+   *
+   * <p>Each compilation unit gets its own instance of the pass, exactly as in the serial case, and
+   * all of them complete before the next pass starts; so the output does not depend on the order
+   * in which the compilation units are processed.
+   */
+  private void runPassInParallel(Library library, Supplier<NormalizationPass> passFactory) {
+    List<Callable<Void>> tasks =
+        library.getCompilationUnits().stream()
+            .map(
+                compilationUnit ->
+                    (Callable<Void>)
+                        () -> {
+                          passFactory.get().execute(compilationUnit);
+                          return null;
+                        })
+            .collect(toImmutableList());
+    for (Future<Void> result : passExecutor.invokeAll(tasks)) {
+      getResult(result);
     }
   }
 }
@@ -18,16 +18,20 @@ package com.google.j2cl.transpiler;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.j2cl.common.OutputUtils.Output;
 import com.google.j2cl.common.SourceUtils.FileInfo;
 import com.google.j2cl.transpiler.backend.Backend;
 import com.google.j2cl.transpiler.backend.BackendOptions;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
 import com.google.j2cl.transpiler.frontend.Frontend;
 import com.google.j2cl.transpiler.frontend.FrontendOptions;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 /** Configuration for the transpiler. */
@@ -38,9 +42,40 @@ public abstract class J2clTranspilerOptions implements FrontendOptions, BackendO
 
   public abstract Backend getBackend();
 
+  /** Whether normalization passes run concurrently on the compilation units of the library. */
+  public abstract boolean getExperimentalParallelPasses();
+
+  /**
+   * Whether the outputs of each compilation unit are generated as soon as it is normalized, rather
+   * than after the whole library is.
+   */
+  public abstract boolean getExperimentalStreamOutputs();
+
+  /** Where to write the Chrome trace of the transpilation, if it is to be profiled. */
+  @Nullable
+  public abstract Path getProfileOutput();
+
+  /** Where to write the heap footprint of the AST and descriptors after each stage, if at all. */
+  @Nullable
+  public abstract Path getHeapFootprintReportOutput();
+
+  /**
+   * The options of other backends that transpile the same sources in the same invocation, sharing
+   * the frontend of this one when possible.
+   */
+  public abstract ImmutableList<J2clTranspilerOptions> getAdditionalBackendOptions();
+
+  public abstract Builder toBuilder();
+
   public static Builder newBuilder() {
     return new AutoValue_J2clTranspilerOptions.Builder()
+        .setAdditionalBackendOptions(ImmutableList.of())
+        .setClasspathDigests(ImmutableMap.of())
         .setExperimentalOptimizeAutovalue(false)
+        .setExperimentalParallelPasses(false)
+        .setExperimentalShardedParsing(false)
+        .setExperimentalParsingShardSize(0)
+        .setExperimentalStreamOutputs(false)
         .setWasmRemoveAssertStatement(false);
   }
 
@@ -54,6 +89,10 @@ public abstract class J2clTranspilerOptions implements FrontendOptions, BackendO
 
     public abstract Builder setClasspaths(List<String> entries);
 
+    public abstract Builder setClasspathDigests(Map<String, String> digestByPath);
+
+    public abstract Builder setClasspathCache(@Nullable ClasspathCache classpathCache);
+
     public abstract Builder setOutput(Output output);
 
     public abstract Builder setLibraryInfoOutput(@Nullable Path path);
@@ -66,6 +105,22 @@ public abstract class J2clTranspilerOptions implements FrontendOptions, BackendO
 
     public abstract Builder setExperimentalOptimizeAutovalue(boolean b);
 
+    public abstract Builder setExperimentalParallelPasses(boolean b);
+
+    public abstract Builder setExperimentalShardedParsing(boolean b);
+
+    public abstract Builder setExperimentalParsingShardSize(int n);
+
+    public abstract Builder setExperimentalStreamOutputs(boolean b);
+
+    public abstract Builder setProfileOutput(@Nullable Path path);
+
+    public abstract Builder setHeapFootprintReportOutput(@Nullable Path path);
+
+    public abstract Builder setAdditionalBackendOptions(List<J2clTranspilerOptions> options);
+
+    public abstract Builder setOutputCache(@Nullable OutputCache outputCache);
+
     public abstract Builder setFrontend(Frontend frontend);
 
     public abstract Builder setBackend(Backend backend);
@@ -83,6 +138,20 @@ public abstract class J2clTranspilerOptions implements FrontendOptions, BackendO
       checkState(
           !options.getEmitReadableSourceMap() || !options.getGenerateKytheIndexingMetadata());
       checkState(!options.getEmitReadableLibraryInfo() || options.getLibraryInfoOutput() != null);
+      // The outputs of a compilation unit can only be cached if they do not depend on the
+      // implementation of other units, which is not the case when optimizing AutoValue classes.
+      checkState(
+          options.getOutputCache() == null
+              || (options.getBackend() == Backend.CLOSURE
+                  && !options.getExperimentalOptimizeAutovalue()));
+      for (J2clTranspilerOptions additionalBackendOptions : options.getAdditionalBackendOptions()) {
+        checkState(additionalBackendOptions.getAdditionalBackendOptions().isEmpty());
+        checkState(additionalBackendOptions.getSources().equals(options.getSources()));
+        checkState(additionalBackendOptions.getClasspaths().equals(options.getClasspaths()));
+        checkState(additionalBackendOptions.getFrontend() == options.getFrontend());
+        checkState(
+            additionalBackendOptions.getBackend().canShareFrontendWith(options.getBackend()));
+      }
       return options;
     }
   }
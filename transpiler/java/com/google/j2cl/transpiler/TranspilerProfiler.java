@@ -0,0 +1,183 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.ast.Node;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * Records the wall time and the allocations of the stages and passes of a transpilation, together
+ * with the size of the AST between stages, in the Chrome trace event format.
+ *
+ * <p>The resulting file can be loaded in chrome://tracing or https://ui.perfetto.dev.
+ *
+ * <p>Allocations are those of the thread that records the event; when passes run in parallel over
+ * the whole library, the allocations made by the pass executor threads are not accounted for.
+ *
+ * <p>Counting the nodes of the AST requires a full traversal, hence it is only done at the stage
+ * boundaries, outside of any recorded event, so that it does not inflate the recorded costs.
+ */
+@SuppressWarnings("unused") // Fields are accessed through reflection by GSON.
+final class TranspilerProfiler {
+
+  /** A trace event as described by the Chrome trace event format. */
+  private static class TraceEvent {
+    private final String name;
+    private final String cat;
+    private final String ph;
+    /** Timestamp in microseconds. */
+    private final long ts;
+    /** Duration in microseconds, only for complete events. */
+    @Nullable private final Long dur;
+
+    private final long pid = 1;
+    private final long tid;
+    private final Map<String, Long> args;
+
+    private TraceEvent(
+        String name,
+        String cat,
+        String ph,
+        long ts,
+        @Nullable Long dur,
+        long tid,
+        Map<String, Long> args) {
+      this.name = name;
+      this.cat = cat;
+      this.ph = ph;
+      this.ts = ts;
+      this.dur = dur;
+      this.tid = tid;
+      this.args = args;
+    }
+  }
+
+  // Passes might be profiled concurrently from the pass executor threads.
+  private final List<TraceEvent> traceEvents = Collections.synchronizedList(new ArrayList<>());
+  private final String displayTimeUnit = "ms";
+
+  private final transient ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+  private final transient long startNanos = System.nanoTime();
+  @Nullable private transient Library library;
+
+  /** Sets the library whose size is reported by {@link #recordAstSize}. */
+  void setLibrary(Library library) {
+    this.library = library;
+    recordAstSize();
+  }
+
+  /** Runs {@code action} recording it as an event. */
+  void profile(String category, String name, Runnable action) {
+    profile(
+        category,
+        name,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  /** Runs {@code action} recording it as an event. */
+  <T> T profile(String category, String name, Supplier<T> action) {
+    long start = System.nanoTime();
+    long allocatedBytesAtStart = getAllocatedBytes();
+    try {
+      return action.get();
+    } finally {
+      long end = System.nanoTime();
+      long allocatedBytes = getAllocatedBytes() - allocatedBytesAtStart;
+      traceEvents.add(
+          new TraceEvent(
+              name,
+              category,
+              "X",
+              toMicros(start),
+              (end - start) / 1000,
+              Thread.currentThread().getId(),
+              allocatedBytesAtStart < 0
+                  ? ImmutableMap.of()
+                  : ImmutableMap.of("allocatedBytes", allocatedBytes)));
+    }
+  }
+
+  /** Writes the trace to {@code path}. */
+  void writeTrace(Path path, Problems problems) {
+    OutputUtils.writeToFile(path, new Gson().toJson(this).getBytes(UTF_8), problems);
+  }
+
+  /** Records the current size of the library; must not be called from within an event. */
+  void recordAstSize() {
+    if (library == null) {
+      return;
+    }
+    traceEvents.add(
+        new TraceEvent(
+            "AST size",
+            "ast",
+            "C",
+            toMicros(System.nanoTime()),
+            null,
+            Thread.currentThread().getId(),
+            ImmutableMap.of("nodes", countNodes(library))));
+  }
+
+  private long toMicros(long nanos) {
+    return (nanos - startNanos) / 1000;
+  }
+
+  /** Returns the bytes allocated so far by the current thread, or -1 if it is not supported. */
+  private long getAllocatedBytes() {
+    if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+      return -1;
+    }
+    com.sun.management.ThreadMXBean sunThreadMXBean =
+        (com.sun.management.ThreadMXBean) threadMXBean;
+    if (!sunThreadMXBean.isThreadAllocatedMemorySupported()
+        || !sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+      return -1;
+    }
+    return sunThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  private static long countNodes(Library library) {
+    long[] count = {0};
+    library.accept(
+        new AbstractVisitor() {
+          @Override
+          public boolean enterNode(Node node) {
+            count[0]++;
+            return true;
+          }
+        });
+    return count[0];
+  }
+}
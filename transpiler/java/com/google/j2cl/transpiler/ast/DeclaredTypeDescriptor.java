@@ -30,7 +30,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MoreCollectors;
 import com.google.common.collect.Streams;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
 import com.google.j2cl.transpiler.ast.FieldDescriptor.FieldOrigin;
 import com.google.j2cl.transpiler.ast.MethodDescriptor.MethodOrigin;
 import java.util.Collection;
@@ -1038,6 +1038,11 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
             : "");
   }
 
+  /** Returns the descriptors interned in the current scope. */
+  public static Collection<DeclaredTypeDescriptor> getInternedInstances() {
+    return Builder.interner.getInstances();
+  }
+
   abstract Builder toBuilder();
 
   public static Builder newBuilder() {
@@ -1119,8 +1124,8 @@ public abstract class DeclaredTypeDescriptor extends TypeDescriptor
 
     public abstract Builder setTypeDeclaration(TypeDeclaration typeDeclaration);
 
-    private static final ThreadLocalInterner<DeclaredTypeDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<DeclaredTypeDescriptor> interner =
+        new ScopedInterner<>();
 
     abstract TypeDeclaration getTypeDeclaration();
 
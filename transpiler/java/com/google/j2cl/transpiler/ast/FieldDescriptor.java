@@ -19,7 +19,8 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
@@ -176,6 +177,11 @@ public abstract class FieldDescriptor extends MemberDescriptor {
         .build();
   }
 
+  /** Returns the descriptors interned in the current scope. */
+  public static Collection<FieldDescriptor> getInternedInstances() {
+    return Builder.interner.getInstances();
+  }
+
   abstract Builder toBuilder();
 
   public static Builder newBuilder() {
@@ -255,7 +261,7 @@ public abstract class FieldDescriptor extends MemberDescriptor {
       return fieldDescriptor.toBuilder();
     }
 
-    private static final ThreadLocalInterner<FieldDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<FieldDescriptor> interner =
+        new ScopedInterner<>();
   }
 }
@@ -21,7 +21,7 @@ import static java.util.stream.Collectors.joining;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableList;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -189,8 +189,8 @@ public abstract class IntersectionTypeDescriptor extends TypeDescriptor {
 
     abstract IntersectionTypeDescriptor autoBuild();
 
-    private static final ThreadLocalInterner<IntersectionTypeDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<IntersectionTypeDescriptor> interner =
+        new ScopedInterner<>();
 
     public IntersectionTypeDescriptor build() {
       IntersectionTypeDescriptor typeDescriptor = autoBuild();
@@ -19,7 +19,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 import com.google.j2cl.common.visitor.Processor;
 import com.google.j2cl.common.visitor.Visitable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Stream;
 
 /** Class representing a library, which is the collection of compilation units compiled together. */
@@ -43,9 +46,110 @@ public class Library extends Node {
     return compilationUnits.isEmpty();
   }
 
+  /**
+   * Returns a deep copy of the library, which can be normalized independently of this one.
+   *
+   * <p>Descriptors are immutable and hence shared by both copies, all the nodes are copied.
+   */
   @Override
   public Library clone() {
-    throw new UnsupportedOperationException();
+    List<CompilationUnit> clonedCompilationUnits = new ArrayList<>();
+    for (CompilationUnit compilationUnit : compilationUnits) {
+      clonedCompilationUnits.add(clone(compilationUnit));
+    }
+    return new Library(clonedCompilationUnits);
+  }
+
+  private static CompilationUnit clone(CompilationUnit compilationUnit) {
+    CompilationUnit clonedCompilationUnit =
+        new CompilationUnit(compilationUnit.getFilePath(), compilationUnit.getPackageName());
+    for (Type type : compilationUnit.getTypes()) {
+      clonedCompilationUnit.addType(clone(type));
+    }
+    return replaceVariables(clonedCompilationUnit);
+  }
+
+  private static Type clone(Type type) {
+    Type clonedType =
+        new Type(type.getSourcePosition(), type.getVisibility(), type.getDeclaration());
+    clonedType.setStatic(type.isStatic());
+    clonedType.setAbstract(type.isAbstract());
+    clonedType.setSuperTypeDescriptor(type.getSuperTypeDescriptor());
+    for (Member member : type.getMembers()) {
+      clonedType.addMember(clone(member));
+    }
+    for (Statement loadTimeStatement : type.getLoadTimeStatements()) {
+      clonedType.addLoadTimeStatement(loadTimeStatement.clone());
+    }
+    return clonedType;
+  }
+
+  private static Member clone(Member member) {
+    if (member.isMethod()) {
+      Method method = (Method) member;
+      return Method.newBuilder()
+          .setMethodDescriptor(method.getDescriptor())
+          .setParameters(method.getParameters())
+          .addStatements(AstUtils.clone(method.getBody().getStatements()))
+          .setJsDocDescription(method.getJsDocDescription())
+          .setSourcePosition(method.getSourcePosition())
+          .setBodySourcePosition(method.getBody().getSourcePosition())
+          .build();
+    }
+    if (member.isField()) {
+      Field field = (Field) member;
+      return Field.Builder.from(field)
+          .setInitializer(AstUtils.clone(field.getInitializer()))
+          .build();
+    }
+    InitializerBlock initializerBlock = (InitializerBlock) member;
+    return InitializerBlock.Builder.from(initializerBlock)
+        .setBlock(initializerBlock.getBlock().clone())
+        .build();
+  }
+
+  /**
+   * Replaces the variables declared in {@code compilationUnit} by copies.
+   *
+   * <p>Cloning statements does not clone the variables they declare, since the references to them
+   * would otherwise be out of sync, so the copied AST still shares them with the original one.
+   */
+  private static CompilationUnit replaceVariables(CompilationUnit compilationUnit) {
+    Map<Variable, Variable> clonedVariableByVariable = new HashMap<>();
+    compilationUnit.accept(
+        new AbstractVisitor() {
+          @Override
+          public void exitVariable(Variable variable) {
+            clonedVariableByVariable.put(variable, variable.clone());
+          }
+        });
+
+    return (CompilationUnit)
+        compilationUnit.accept(
+            new AbstractRewriter() {
+              @Override
+              public Variable rewriteVariable(Variable variable) {
+                return clonedVariableByVariable.getOrDefault(variable, variable);
+              }
+
+              @Override
+              public VariableReference rewriteVariableReference(
+                  VariableReference variableReference) {
+                Variable clonedVariable =
+                    clonedVariableByVariable.get(variableReference.getTarget());
+                return clonedVariable != null
+                    ? clonedVariable.createReference()
+                    : variableReference;
+              }
+
+              @Override
+              public Field rewriteField(Field field) {
+                Variable clonedVariable = clonedVariableByVariable.get(field.getCapturedVariable());
+                return clonedVariable != null
+                    ? Field.Builder.from(field).setCapturedVariable(clonedVariable).build()
+                    : field;
+              }
+            });
   }
 
   @Override
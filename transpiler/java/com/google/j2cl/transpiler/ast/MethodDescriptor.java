@@ -25,7 +25,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Streams;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
+import com.google.j2cl.common.ScopedThreadLocal;
 import com.google.j2cl.transpiler.ast.FieldDescriptor.FieldOrigin;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -50,8 +51,8 @@ public abstract class MethodDescriptor extends MemberDescriptor {
 
     // TODO(b/182341814): This is a temporary hack to be able to disable DoNotAutobox annotations
     //   on wasm
-    private static final ThreadLocal<Boolean> ignoreDoNotAutoboxAnnotations =
-        ThreadLocal.withInitial(() -> false);
+    private static final ScopedThreadLocal<Boolean> ignoreDoNotAutoboxAnnotations =
+        ScopedThreadLocal.withInitial(() -> false);
 
     public static void setIgnoreDoNotAutoboxAnnotations() {
       ignoreDoNotAutoboxAnnotations.set(true);
@@ -79,8 +80,8 @@ public abstract class MethodDescriptor extends MemberDescriptor {
           .setDoNotAutobox(false);
     }
 
-    private static final ThreadLocalInterner<ParameterDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<ParameterDescriptor> interner =
+        new ScopedInterner<>();
 
     /** A Builder for ParameterDescriptor. */
     @AutoValue.Builder
@@ -658,6 +659,11 @@ public abstract class MethodDescriptor extends MemberDescriptor {
         + getEnclosingTypeDescriptor().getTypeDeclaration().getPackageName();
   }
 
+  /** Returns the descriptors interned in the current scope. */
+  public static Collection<MethodDescriptor> getInternedInstances() {
+    return Builder.interner.getInstances();
+  }
+
   abstract Builder toBuilder();
 
   public static Builder newBuilder() {
@@ -1137,7 +1143,7 @@ public abstract class MethodDescriptor extends MemberDescriptor {
       return methodDescriptor.toBuilder();
     }
 
-    private static final ThreadLocalInterner<MethodDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<MethodDescriptor> interner =
+        new ScopedInterner<>();
   }
 }
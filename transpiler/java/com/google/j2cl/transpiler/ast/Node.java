@@ -23,6 +23,11 @@ import com.google.j2cl.common.visitor.Visitable;
  */
 @Visitable
 public abstract class Node {
+  // The kinds of the nodes in the subtree rooted at this node, as computed by the generated visitors
+  // in the scope identified by subtreeKindsScope.
+  long subtreeKinds;
+  Object subtreeKindsScope;
+
   public Node accept(Processor processor) {
     return Visitor_Node.visit(processor, this);
   }
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.j2cl.common.ScopedThreadLocal;
 import com.google.j2cl.transpiler.ast.TypeDescriptors.BootstrapType;
 import java.util.Arrays;
 import java.util.List;
@@ -321,9 +322,9 @@ public class RuntimeMethods {
         BootstrapType.NATIVE_UTIL.getDescriptor(), methodName, arguments);
   }
 
-  private static final ThreadLocal<Map<TypeDescriptor, Map<String, MethodInfo>>>
+  private static final ScopedThreadLocal<Map<TypeDescriptor, Map<String, MethodInfo>>>
       runtimeMethodInfoByMethodNameByType =
-          ThreadLocal.withInitial(
+          ScopedThreadLocal.withInitial(
               () ->
                   ImmutableMap.<TypeDescriptor, Map<String, MethodInfo>>builder()
                       .put(
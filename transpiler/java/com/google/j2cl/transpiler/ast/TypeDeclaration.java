@@ -26,7 +26,8 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Streams;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
+import com.google.j2cl.common.ScopedThreadLocal;
 import com.google.j2cl.transpiler.ast.TypeDescriptors.BootstrapType;
 import java.util.Collection;
 import java.util.LinkedHashSet;
@@ -45,7 +46,9 @@ import javax.annotation.Nullable;
  * are created live in several creation functions in JdtUtils and TypeDeclarations.
  *
  * <p>A couple of properties are lazily calculated via the DescriptorFactory and interface, since
- * eagerly calculating them would lead to infinite loops of Descriptor creation.
+ * eagerly calculating them would lead to infinite loops of Descriptor creation. The customized
+ * JavaScript namespace is also computed on demand, since finding it for a type that comes from the
+ * classpath requires looking up its package-info and most classpath types are never emitted.
  *
  * <p>Since these are all declaration-site references, when there are type variables they are always
  * thought of as type parameters.
@@ -415,7 +418,10 @@ public abstract class TypeDeclaration
   }
 
   @Nullable
-  abstract String getCustomizedJsNamespace();
+  @Memoized
+  String getCustomizedJsNamespace() {
+    return getCustomizedJsNamespaceFactory().get(this);
+  }
 
   @Memoized
   public TypeDeclaration getMetadataTypeDeclaration() {
@@ -667,6 +673,8 @@ public abstract class TypeDeclaration
   @Nullable
   abstract DescriptorFactory<ImmutableList<FieldDescriptor>> getDeclaredFieldDescriptorsFactory();
 
+  abstract DescriptorFactory<String> getCustomizedJsNamespaceFactory();
+
   abstract Builder toBuilder();
 
   public static Builder newBuilder() {
@@ -707,6 +715,7 @@ public abstract class TypeDeclaration
         .setDeclaredMethodDescriptorsFactory(() -> ImmutableList.of())
         .setDeclaredFieldDescriptorsFactory(() -> ImmutableList.of())
         .setInterfaceTypeDescriptorsFactory(() -> ImmutableList.of())
+        .setCustomizedJsNamespaceFactory(() -> null)
         .setUnparameterizedTypeDescriptorFactory(unparameterizedFactory)
         .setSuperTypeDescriptorFactory(() -> null);
   }
@@ -717,8 +726,8 @@ public abstract class TypeDeclaration
 
   // TODO(b/181615162): This is a temporary hack to be able to reuse bridging logic in Closure
   // and WASM.
-  private static final ThreadLocal<Boolean> ignoreJsEnumAnnotations =
-      ThreadLocal.withInitial(() -> false);
+  private static final ScopedThreadLocal<Boolean> ignoreJsEnumAnnotations =
+      ScopedThreadLocal.withInitial(() -> false);
 
   public static void setIgnoreJsEnumAnnotations() {
     ignoreJsEnumAnnotations.set(true);
@@ -774,7 +783,17 @@ public abstract class TypeDeclaration
 
     public abstract Builder setSimpleJsName(String simpleJsName);
 
-    public abstract Builder setCustomizedJsNamespace(String jsNamespace);
+    public Builder setCustomizedJsNamespace(String jsNamespace) {
+      return setCustomizedJsNamespaceFactory(typeDeclaration -> jsNamespace);
+    }
+
+    public abstract Builder setCustomizedJsNamespaceFactory(
+        DescriptorFactory<String> customizedJsNamespaceFactory);
+
+    public Builder setCustomizedJsNamespaceFactory(Supplier<String> customizedJsNamespaceFactory) {
+      return setCustomizedJsNamespaceFactory(
+          typeDeclaration -> customizedJsNamespaceFactory.get());
+    }
 
     public abstract Builder setInterfaceTypeDescriptorsFactory(
         DescriptorFactory<ImmutableList<DeclaredTypeDescriptor>> interfaceTypeDescriptorsFactory);
@@ -831,8 +850,8 @@ public abstract class TypeDeclaration
 
     abstract Optional<JsEnumInfo> getJsEnumInfo();
 
-    private static final ThreadLocalInterner<TypeDeclaration> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<TypeDeclaration> interner =
+        new ScopedInterner<>();
 
     abstract TypeDeclaration autoBuild();
 
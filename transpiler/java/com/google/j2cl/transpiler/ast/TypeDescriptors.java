@@ -23,6 +23,7 @@ import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.j2cl.common.ScopedThreadLocal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -97,7 +98,8 @@ public class TypeDescriptors {
   private final BiMap<PrimitiveTypeDescriptor, DeclaredTypeDescriptor> boxedTypeByPrimitiveType =
       HashBiMap.create();
 
-  private static final ThreadLocal<TypeDescriptors> typeDescriptors = new ThreadLocal<>();
+  private static final ScopedThreadLocal<TypeDescriptors> typeDescriptors =
+      new ScopedThreadLocal<>();
 
   private static void set(TypeDescriptors typeDescriptors) {
     checkState(
@@ -18,7 +18,7 @@ package com.google.j2cl.transpiler.ast;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableSet;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -186,7 +186,7 @@ public abstract class TypeVariable extends TypeDescriptor implements HasName {
 
     public abstract Builder setWildcardOrCapture(boolean isWildcardOrCapture);
 
-    private static final ThreadLocalInterner<TypeVariable> interner = new ThreadLocalInterner<>();
+    private static final ScopedInterner<TypeVariable> interner = new ScopedInterner<>();
 
     abstract TypeVariable autoBuild();
 
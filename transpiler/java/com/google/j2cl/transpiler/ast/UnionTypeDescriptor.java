@@ -20,7 +20,7 @@ import static java.util.stream.Collectors.joining;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.memoized.Memoized;
 import com.google.common.collect.ImmutableList;
-import com.google.j2cl.common.ThreadLocalInterner;
+import com.google.j2cl.common.ScopedInterner;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -175,8 +175,8 @@ public abstract class UnionTypeDescriptor extends TypeDescriptor {
 
     abstract UnionTypeDescriptor autoBuild();
 
-    private static final ThreadLocalInterner<UnionTypeDescriptor> interner =
-        new ThreadLocalInterner<>();
+    private static final ScopedInterner<UnionTypeDescriptor> interner =
+        new ScopedInterner<>();
 
     public UnionTypeDescriptor build() {
       return interner.intern(autoBuild());
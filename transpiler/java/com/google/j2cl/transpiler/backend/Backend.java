@@ -19,6 +19,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.transpiler.ast.Library;
 import com.google.j2cl.transpiler.backend.closure.OutputGeneratorStage;
+import com.google.j2cl.transpiler.backend.common.StreamingOutputGenerator;
 import com.google.j2cl.transpiler.backend.kotlin.KotlinGeneratorStage;
 import com.google.j2cl.transpiler.backend.wasm.WasmModuleGenerator;
 import com.google.j2cl.transpiler.passes.AddExplicitConstructorReturnValues;
@@ -33,6 +34,7 @@ import com.google.j2cl.transpiler.passes.ExpandCompoundAssignments;
 import com.google.j2cl.transpiler.passes.ExtractNonIdempotentExpressions;
 import com.google.j2cl.transpiler.passes.FilloutMissingSourceMapInformation;
 import com.google.j2cl.transpiler.passes.FixSuperCallQualifiers;
+import com.google.j2cl.transpiler.passes.FusedNormalizationPass;
 import com.google.j2cl.transpiler.passes.ImplementArraysAsClasses;
 import com.google.j2cl.transpiler.passes.ImplementAssertStatements;
 import com.google.j2cl.transpiler.passes.ImplementClassMetadataViaConstructors;
@@ -113,21 +115,33 @@ import com.google.j2cl.transpiler.passes.VerifyParamAndArgCounts;
 import com.google.j2cl.transpiler.passes.VerifyReferenceScoping;
 import com.google.j2cl.transpiler.passes.VerifySingleAstReference;
 import java.util.function.Supplier;
+import javax.annotation.Nullable;
 
 /** Drives the backend to generate outputs. */
 public enum Backend {
   CLOSURE {
     @Override
     public void generateOutputs(BackendOptions options, Library library, Problems problems) {
-      new OutputGeneratorStage(
-              options.getNativeSources(),
-              options.getOutput(),
-              options.getLibraryInfoOutput(),
-              options.getEmitReadableLibraryInfo(),
-              options.getEmitReadableSourceMap(),
-              options.getGenerateKytheIndexingMetadata(),
-              problems)
-          .generateOutputs(library);
+      createOutputGeneratorStage(options, problems).generateOutputs(library);
+    }
+
+    @Override
+    public StreamingOutputGenerator createStreamingOutputGenerator(
+        BackendOptions options, Problems problems) {
+      return createOutputGeneratorStage(options, problems);
+    }
+
+    private OutputGeneratorStage createOutputGeneratorStage(
+        BackendOptions options, Problems problems) {
+      return new OutputGeneratorStage(
+          options.getNativeSources(),
+          options.getOutput(),
+          options.getLibraryInfoOutput(),
+          options.getEmitReadableLibraryInfo(),
+          options.getEmitReadableSourceMap(),
+          options.getGenerateKytheIndexingMetadata(),
+          options.getOutputCache(),
+          problems);
     }
 
     @Override
@@ -138,15 +152,31 @@ public enum Backend {
 
     @Override
     public ImmutableList<Supplier<NormalizationPass>> getPassFactories(BackendOptions options) {
+      return ImmutableList.<Supplier<NormalizationPass>>builder()
+          .addAll(getLibraryPassFactories(options))
+          .addAll(getCompilationUnitPassFactories(options))
+          .build();
+    }
+
+    @Override
+    public ImmutableList<Supplier<NormalizationPass>> getLibraryPassFactories(
+        BackendOptions options) {
       // TODO(b/117155139): Review the ordering of passes.
       return ImmutableList.of(
           // Pre-verifications
-          VerifySingleAstReference::new,
-          VerifyParamAndArgCounts::new,
-          VerifyReferenceScoping::new,
+          FusedNormalizationPass.fuse(
+              VerifySingleAstReference::new,
+              VerifyParamAndArgCounts::new,
+              VerifyReferenceScoping::new),
 
           // Class structure normalizations.
-          () -> new OptimizeAutoValue(options.getExperimentalOptimizeAutovalue()),
+          () -> new OptimizeAutoValue(options.getExperimentalOptimizeAutovalue()));
+    }
+
+    @Override
+    public ImmutableList<Supplier<NormalizationPass>> getCompilationUnitPassFactories(
+        BackendOptions options) {
+      return ImmutableList.of(
           ImplementLambdaExpressionsViaJsFunctionAdaptor::new,
           OptimizeAnonymousInnerClassesToFunctionExpressions::new,
           NormalizeFunctionExpressions::new,
@@ -182,10 +212,11 @@ public enum Backend {
           ExpandCompoundAssignments::new,
           InsertErasureTypeSafetyCasts::new,
           // Runs before unboxing conversion.
-          InsertStringConversions::new,
-          InsertNarrowingReferenceConversions::new,
-          InsertUnboxingConversions::new,
-          InsertBoxingConversions::new,
+          FusedNormalizationPass.fuseRewriters(
+              InsertStringConversions::new,
+              InsertNarrowingReferenceConversions::new,
+              InsertUnboxingConversions::new,
+              InsertBoxingConversions::new),
           InsertNarrowingPrimitiveConversions::new,
           InsertWideningPrimitiveConversions::new,
           NormalizeLongs::new,
@@ -246,10 +277,11 @@ public enum Backend {
           FilloutMissingSourceMapInformation::new,
 
           // Post-verifications
-          VerifySingleAstReference::new,
-          VerifyParamAndArgCounts::new,
-          VerifyReferenceScoping::new,
-          VerifyNormalizedUnits::new);
+          FusedNormalizationPass.fuse(
+              VerifySingleAstReference::new,
+              VerifyParamAndArgCounts::new,
+              VerifyReferenceScoping::new,
+              VerifyNormalizedUnits::new));
     }
   },
   WASM {
@@ -269,9 +301,10 @@ public enum Backend {
     public ImmutableList<Supplier<NormalizationPass>> getPassFactories(BackendOptions options) {
       return ImmutableList.of(
           // Pre-verifications
-          VerifySingleAstReference::new,
-          VerifyParamAndArgCounts::new,
-          VerifyReferenceScoping::new,
+          FusedNormalizationPass.fuse(
+              VerifySingleAstReference::new,
+              VerifyParamAndArgCounts::new,
+              VerifyReferenceScoping::new),
           ImplementLambdaExpressionsViaImplementorClasses::new,
 
           // Default constructors and explicit super calls should be synthesized first.
@@ -298,9 +331,10 @@ public enum Backend {
           RewriteReferenceEqualityOperations::new,
           RewriteUnaryExpressions::new,
           ImplementStringConcatenation::new,
-          InsertNarrowingReferenceConversions::new,
-          () -> new InsertUnboxingConversions(/* areBooleanAndDoubleBoxed */ true),
-          () -> new InsertBoxingConversions(/* areBooleanAndDoubleBoxed */ true),
+          FusedNormalizationPass.fuseRewriters(
+              InsertNarrowingReferenceConversions::new,
+              () -> new InsertUnboxingConversions(/* areBooleanAndDoubleBoxed */ true),
+              () -> new InsertBoxingConversions(/* areBooleanAndDoubleBoxed */ true)),
           () -> new InsertNarrowingPrimitiveConversions(/* treatFloatAsDouble */ false),
           () -> new InsertWideningPrimitiveConversions(/* needFloatOrDoubleWidening */ true),
           ImplementDivisionOperations::new,
@@ -336,10 +370,11 @@ public enum Backend {
           AddExplicitConstructorReturnValues::new,
 
           // Post-verifications
-          VerifySingleAstReference::new,
-          VerifyParamAndArgCounts::new,
-          VerifyReferenceScoping::new,
-          () -> new VerifyNormalizedUnits(/* verifyForWasm= **/ true));
+          FusedNormalizationPass.fuse(
+              VerifySingleAstReference::new,
+              VerifyParamAndArgCounts::new,
+              VerifyReferenceScoping::new,
+              () -> new VerifyNormalizedUnits(/* verifyForWasm= **/ true)));
     }
   },
   KOTLIN {
@@ -348,6 +383,12 @@ public enum Backend {
       new KotlinGeneratorStage(options.getOutput(), problems).generateOutputs(library);
     }
 
+    @Override
+    public StreamingOutputGenerator createStreamingOutputGenerator(
+        BackendOptions options, Problems problems) {
+      return new KotlinGeneratorStage(options.getOutput(), problems);
+    }
+
     @Override
     public ImmutableList<Supplier<NormalizationPass>> getDesugaringPassFactories() {
       return ImmutableList.of(
@@ -358,14 +399,64 @@ public enum Backend {
     public ImmutableList<Supplier<NormalizationPass>> getPassFactories(BackendOptions options) {
       return ImmutableList.of(
           // Pre-verifications
-          VerifySingleAstReference::new, VerifyParamAndArgCounts::new, VerifyReferenceScoping::new);
+          FusedNormalizationPass.fuse(
+              VerifySingleAstReference::new,
+              VerifyParamAndArgCounts::new,
+              VerifyReferenceScoping::new));
     }
   };
 
+  /**
+   * Returns whether the library built by the frontend for this backend can also be normalized by
+   * {@code other}, i.e. whether both make the frontend create the same descriptors and desugar the
+   * library in the same way.
+   *
+   * <p>Wasm configures the descriptors differently and desugars the library differently than the
+   * other backends, so it can only share the frontend with itself.
+   *
+   * <p>TODO(b/178738483): Share the frontend with Wasm once descriptors no longer depend on the
+   * backend.
+   */
+  public boolean canShareFrontendWith(Backend other) {
+    return (this == WASM) == (other == WASM);
+  }
+
   public abstract ImmutableList<Supplier<NormalizationPass>> getDesugaringPassFactories();
 
   public abstract ImmutableList<Supplier<NormalizationPass>> getPassFactories(
       BackendOptions options);
 
+  /**
+   * Returns the leading passes of {@link #getPassFactories} that need to see the whole library.
+   *
+   * <p>Backends that support streaming outputs run the remaining passes, as returned by {@link
+   * #getCompilationUnitPassFactories}, on one compilation unit at a time. By default none of the
+   * passes needs the whole library; backends with passes that do, and that stream their outputs,
+   * need to override both methods.
+   */
+  public ImmutableList<Supplier<NormalizationPass>> getLibraryPassFactories(
+      BackendOptions options) {
+    return ImmutableList.of();
+  }
+
+  /**
+   * Returns the passes of {@link #getPassFactories} that follow the {@link
+   * #getLibraryPassFactories library passes}, which normalize each compilation unit on its own.
+   */
+  public ImmutableList<Supplier<NormalizationPass>> getCompilationUnitPassFactories(
+      BackendOptions options) {
+    return getPassFactories(options);
+  }
+
   public abstract void generateOutputs(BackendOptions options, Library library, Problems problems);
+
+  /**
+   * Returns a generator that receives the compilation units one at a time, or null if the backend
+   * needs the whole library at once to generate its outputs.
+   */
+  @Nullable
+  public StreamingOutputGenerator createStreamingOutputGenerator(
+      BackendOptions options, Problems problems) {
+    return null;
+  }
 }
@@ -20,6 +20,7 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.j2cl.common.OutputUtils.Output;
 import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
 import java.nio.file.Path;
 import javax.annotation.Nullable;
 
@@ -48,4 +49,7 @@ public interface BackendOptions {
   boolean getEmitReadableSourceMap();
 
   boolean getGenerateKytheIndexingMetadata();
+
+  @Nullable
+  OutputCache getOutputCache();
 }
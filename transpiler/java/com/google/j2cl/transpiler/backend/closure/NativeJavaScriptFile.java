@@ -15,12 +15,15 @@
  */
 package com.google.j2cl.transpiler.backend.closure;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.io.MoreFiles;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.SourceUtils.FileInfo;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,17 +32,32 @@ import java.util.Map;
 /**
  * NativeJavaScriptFile contains information about native javascript files that is used to output
  * native code during the javascript generation stage.
+ *
+ * <p>The content of the file is only read when the code is generated, the file is otherwise copied
+ * to the output as is.
  */
 public class NativeJavaScriptFile {
-  private String relativePath;
-  private String content;
+  private final String relativePath;
+  private final String sourcePath;
+  private final Supplier<String> content;
   private boolean used = false;
 
   public static final String NATIVE_EXTENSION = ".native.js";
 
-  public NativeJavaScriptFile(String relativePath, String content) {
+  private NativeJavaScriptFile(String relativePath, String sourcePath, Problems problems) {
     this.relativePath = relativePath;
-    this.content = content;
+    this.sourcePath = sourcePath;
+    this.content =
+        Suppliers.memoize(
+            () -> {
+              try {
+                return MoreFiles.asCharSource(Paths.get(sourcePath), StandardCharsets.UTF_8)
+                    .read();
+              } catch (IOException e) {
+                problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
+                return null;
+              }
+            });
   }
 
   /** Returns the path for the native file relative to the root. */
@@ -53,8 +71,13 @@ public class NativeJavaScriptFile {
     return relativePath.substring(0, relativePath.lastIndexOf(NATIVE_EXTENSION));
   }
 
+  /** Returns the path of the file this native file was read from. */
+  public String getSourcePath() {
+    return sourcePath;
+  }
+
   public String getContent() {
-    return content;
+    return content.get();
   }
 
   @Override
@@ -82,14 +105,12 @@ public class NativeJavaScriptFile {
   public static Map<String, NativeJavaScriptFile> getMap(List<FileInfo> files, Problems problems) {
     Map<String, NativeJavaScriptFile> loadedFilesByPath = new LinkedHashMap<>();
     for (FileInfo file : files) {
-      try {
-        String content =
-            MoreFiles.asCharSource(Paths.get(file.sourcePath()), StandardCharsets.UTF_8).read();
-        NativeJavaScriptFile nativeFile = new NativeJavaScriptFile(file.targetPath(), content);
-        loadedFilesByPath.put(nativeFile.getRelativePathWithoutExtension(), nativeFile);
-      } catch (IOException e) {
-        problems.fatal(FatalError.CANNOT_OPEN_FILE, e.toString());
+      if (!Files.isReadable(Paths.get(file.sourcePath()))) {
+        problems.fatal(FatalError.CANNOT_OPEN_FILE, file.sourcePath());
       }
+      NativeJavaScriptFile nativeFile =
+          new NativeJavaScriptFile(file.targetPath(), file.sourcePath(), problems);
+      loadedFilesByPath.put(nativeFile.getRelativePathWithoutExtension(), nativeFile);
     }
     return loadedFilesByPath;
   }
@@ -26,25 +26,37 @@ import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Library;
 import com.google.j2cl.transpiler.ast.Type;
 import com.google.j2cl.transpiler.ast.TypeDeclaration;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
+import com.google.j2cl.transpiler.backend.common.StreamingOutputGenerator;
 import com.google.j2cl.transpiler.backend.libraryinfo.LibraryInfoBuilder;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javax.annotation.Nullable;
 
 /**
  * The OutputGeneratorStage contains all necessary information for generating the JavaScript output
  * and source map files for the transpiler. It is responsible for pulling in native sources and then
  * generating header, implementation and sourcemap files for each Java Type.
  */
-public class OutputGeneratorStage {
-  private final List<FileInfo> nativeJavaScriptFiles;
+public class OutputGeneratorStage implements StreamingOutputGenerator {
   private final Problems problems;
   private final Output output;
   private final Path libraryInfoOutputPath;
   private final boolean shouldGenerateReadableSourceMaps;
   private final boolean shouldGenerateReadableLibraryInfo;
   private final boolean generateKytheIndexingMetadata;
+  @Nullable private final OutputCache outputCache;
+
+  // The map must be ordered because it will be iterated over later and if it was not ordered then
+  // our output would be unstable. Actually this one can't actually destabilize output but since
+  // it's being safely iterated over now it's best to guard against it being unsafely iterated
+  // over in the future.
+  private final Map<String, NativeJavaScriptFile> nativeFilesByPath;
+  private final LibraryInfoBuilder libraryInfoBuilder = new LibraryInfoBuilder();
+  private final Map<CompilationUnit, OutputCache.Entry> newCacheEntries = new LinkedHashMap<>();
 
   public OutputGeneratorStage(
       List<FileInfo> nativeJavaScriptFiles,
@@ -53,121 +65,142 @@ public class OutputGeneratorStage {
       boolean shouldGenerateReadableLibraryInfo,
       boolean shouldGenerateReadableSourceMaps,
       boolean generateKytheIndexingMetadata,
+      @Nullable OutputCache outputCache,
       Problems problems) {
-    this.nativeJavaScriptFiles = nativeJavaScriptFiles;
     this.output = output;
     this.libraryInfoOutputPath = libraryInfoOutputPath;
     this.shouldGenerateReadableLibraryInfo = shouldGenerateReadableLibraryInfo;
     this.shouldGenerateReadableSourceMaps = shouldGenerateReadableSourceMaps;
     this.generateKytheIndexingMetadata = generateKytheIndexingMetadata;
+    this.outputCache = outputCache;
     this.problems = problems;
+    this.nativeFilesByPath = NativeJavaScriptFile.getMap(nativeJavaScriptFiles, problems);
   }
 
   public void generateOutputs(Library library) {
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      generateOutputs(compilationUnit);
+    }
+    finish();
+  }
 
-    // The map must be ordered because it will be iterated over later and if it was not ordered then
-    // our output would be unstable. Actually this one can't actually destabilize output but since
-    // it's being safely iterated over now it's best to guard against it being unsafely iterated
-    // over in the future.
-    Map<String, NativeJavaScriptFile> nativeFilesByPath =
-        NativeJavaScriptFile.getMap(nativeJavaScriptFiles, problems);
-    LibraryInfoBuilder libraryInfoBuilder = new LibraryInfoBuilder();
+  @Override
+  public void generateOutputs(CompilationUnit compilationUnit) {
+    OutputCache.Entry cachedEntry = outputCache != null ? outputCache.get(compilationUnit) : null;
+    if (cachedEntry != null) {
+      replayCachedOutputs(compilationUnit, cachedEntry);
+      return;
+    }
 
-    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
-      for (Type type : compilationUnit.getTypes()) {
-        List<Import> imports = ImportGatherer.gatherImports(type);
-        JavaScriptImplGenerator jsImplGenerator =
-            new JavaScriptImplGenerator(problems, type, imports);
-
-        String typeRelativePath = getPackageRelativePath(type.getDeclaration());
-
-        NativeJavaScriptFile matchingNativeFile =
-            getMatchingNativeFile(nativeFilesByPath, compilationUnit, type);
-
-        if (matchingNativeFile != null) {
-          jsImplGenerator.setNativeSource(matchingNativeFile);
-          matchingNativeFile.setUsed();
-
-          // Native JsTypes are mere references to external JavaScript types, adding native code
-          // through native.js files does not make sense. Non-native JsEnums on the other hand are
-          // emitted by J2CL but are not JavaScript classes, "native.js" files are not allowed in
-          // this case to avoid surprises.
-          TypeDeclaration typeDeclaration = type.getUnderlyingTypeDeclaration();
-          if (typeDeclaration.isNative() || typeDeclaration.isJsEnum()) {
-            problems.error(
-                "%s '%s' does not support having a '.native.js' file.",
-                typeDeclaration.isJsEnum() ? "JsEnum" : "Native JsType",
-                typeDeclaration.getReadableDescription());
-            continue;
-          }
-
-        } else if (type.containsNonJsNativeMethods()) {
+    // When caching, the outputs of each unit are recorded separately so that they can be
+    // replayed in later transpilations.
+    OutputCache.Entry cacheEntry = null;
+    LibraryInfoBuilder unitLibraryInfoBuilder = libraryInfoBuilder;
+    if (outputCache != null) {
+      cacheEntry = new OutputCache.Entry();
+      newCacheEntries.put(compilationUnit, cacheEntry);
+      unitLibraryInfoBuilder = new LibraryInfoBuilder();
+    }
+
+    for (Type type : compilationUnit.getTypes()) {
+      List<Import> imports = ImportGatherer.gatherImports(type);
+      JavaScriptImplGenerator jsImplGenerator =
+          new JavaScriptImplGenerator(problems, type, imports);
+
+      String typeRelativePath = getPackageRelativePath(type.getDeclaration());
+
+      NativeJavaScriptFile matchingNativeFile =
+          getMatchingNativeFile(nativeFilesByPath, compilationUnit, type);
+
+      if (matchingNativeFile != null) {
+        jsImplGenerator.setNativeSource(matchingNativeFile);
+        matchingNativeFile.setUsed();
+
+        // Native JsTypes are mere references to external JavaScript types, adding native code
+        // through native.js files does not make sense. Non-native JsEnums on the other hand are
+        // emitted by J2CL but are not JavaScript classes, "native.js" files are not allowed in
+        // this case to avoid surprises.
+        TypeDeclaration typeDeclaration = type.getUnderlyingTypeDeclaration();
+        if (typeDeclaration.isNative() || typeDeclaration.isJsEnum()) {
           problems.error(
-              "Cannot find matching native file '%s'.",
-              typeRelativePath + NativeJavaScriptFile.NATIVE_EXTENSION);
+              "%s '%s' does not support having a '.native.js' file.",
+              typeDeclaration.isJsEnum() ? "JsEnum" : "Native JsType",
+              typeDeclaration.getReadableDescription());
           continue;
         }
 
-        String javaScriptImplementationSource = jsImplGenerator.renderOutput();
+      } else if (type.containsNonJsNativeMethods()) {
+        problems.error(
+            "Cannot find matching native file '%s'.",
+            typeRelativePath + NativeJavaScriptFile.NATIVE_EXTENSION);
+        continue;
+      }
 
-        JavaScriptHeaderGenerator jsHeaderGenerator =
-            new JavaScriptHeaderGenerator(problems, type, imports);
-        String javaScriptHeaderSource = jsHeaderGenerator.renderOutput();
+      String javaScriptImplementationSource = jsImplGenerator.renderOutput();
 
-        if (generateKytheIndexingMetadata) {
-          // Inline metadata so that Kythe can create edges between these files and the Java source
-          // file.
-          javaScriptHeaderSource +=
-              renderKytheIndexingMetadata(jsHeaderGenerator.getSourceMappings());
-          javaScriptImplementationSource +=
-              renderKytheIndexingMetadata(jsImplGenerator.getSourceMappings());
-        } else {
-          String sourceMap = renderSourceMap(type, jsImplGenerator.getSourceMappings());
-
-          if (sourceMap != null) {
-            javaScriptImplementationSource +=
-                String.format(
-                    "%n//# sourceMappingURL=%s",
-                    type.getDeclaration().getSimpleBinaryName() + SOURCE_MAP_SUFFIX);
-            output.write(typeRelativePath + SOURCE_MAP_SUFFIX, sourceMap);
-          }
-        }
+      JavaScriptHeaderGenerator jsHeaderGenerator =
+          new JavaScriptHeaderGenerator(problems, type, imports);
+      String javaScriptHeaderSource = jsHeaderGenerator.renderOutput();
+
+      if (generateKytheIndexingMetadata) {
+        // Inline metadata so that Kythe can create edges between these files and the Java source
+        // file.
+        javaScriptHeaderSource +=
+            renderKytheIndexingMetadata(jsHeaderGenerator.getSourceMappings());
+        javaScriptImplementationSource +=
+            renderKytheIndexingMetadata(jsImplGenerator.getSourceMappings());
+      } else {
+        String sourceMap = renderSourceMap(type, jsImplGenerator.getSourceMappings());
 
-        if (shouldGenerateReadableSourceMaps) {
-          outputReadableSourceMap(
-              compilationUnit,
-              type,
-              javaScriptImplementationSource,
-              jsImplGenerator.getSourceMappings(),
-              matchingNativeFile);
+        if (sourceMap != null) {
+          javaScriptImplementationSource +=
+              String.format(
+                  "%n//# sourceMappingURL=%s",
+                  type.getDeclaration().getSimpleBinaryName() + SOURCE_MAP_SUFFIX);
+          write(cacheEntry, typeRelativePath + SOURCE_MAP_SUFFIX, sourceMap);
         }
+      }
 
-        String implRelativePath = typeRelativePath + jsImplGenerator.getSuffix();
-        output.write(implRelativePath, javaScriptImplementationSource);
+      if (shouldGenerateReadableSourceMaps) {
+        outputReadableSourceMap(
+            cacheEntry,
+            compilationUnit,
+            type,
+            javaScriptImplementationSource,
+            jsImplGenerator.getSourceMappings(),
+            matchingNativeFile);
+      }
 
-        String headerRelativePath = typeRelativePath + jsHeaderGenerator.getSuffix();
-        output.write(headerRelativePath, javaScriptHeaderSource);
+      String implRelativePath = typeRelativePath + jsImplGenerator.getSuffix();
+      write(cacheEntry, implRelativePath, javaScriptImplementationSource);
 
-        if (libraryInfoOutputPath != null || shouldGenerateReadableLibraryInfo) {
-          libraryInfoBuilder.addType(
-              type,
-              headerRelativePath,
-              implRelativePath,
-              jsImplGenerator.getOutputSourceInfoByMember());
-        }
+      String headerRelativePath = typeRelativePath + jsHeaderGenerator.getSuffix();
+      write(cacheEntry, headerRelativePath, javaScriptHeaderSource);
 
-        if (matchingNativeFile != null) {
-          // Copy native js file to output.
-          output.write(matchingNativeFile.getRelativeFilePath(), matchingNativeFile.getContent());
-        }
+      if (libraryInfoOutputPath != null || shouldGenerateReadableLibraryInfo) {
+        unitLibraryInfoBuilder.addType(
+            type,
+            headerRelativePath,
+            implRelativePath,
+            jsImplGenerator.getOutputSourceInfoByMember());
       }
 
-      if (!generateKytheIndexingMetadata) {
-        // Copy java sources to output.
-        output.copyFile(compilationUnit.getFilePath(), compilationUnit.getPackageRelativePath());
+      if (matchingNativeFile != null) {
+        copyNativeFile(matchingNativeFile);
       }
     }
 
+    if (cacheEntry != null) {
+      byte[] unitLibraryInfo = unitLibraryInfoBuilder.toByteArray();
+      cacheEntry.setLibraryInfo(unitLibraryInfo);
+      libraryInfoBuilder.addLibraryInfo(unitLibraryInfo);
+    }
+
+    copyJavaSource(compilationUnit);
+  }
+
+  @Override
+  public void finish() {
     if (shouldGenerateReadableLibraryInfo) {
       output.write("library_info_debug.json", libraryInfoBuilder.toJson(problems));
     }
@@ -182,6 +215,48 @@ public class OutputGeneratorStage {
         problems.error("Unused native file '%s'.", file);
       }
     }
+
+    // Only successful outputs are cached.
+    if (outputCache != null && !problems.hasErrors()) {
+      newCacheEntries.forEach(outputCache::put);
+    }
+  }
+
+  private void replayCachedOutputs(CompilationUnit compilationUnit, OutputCache.Entry cachedEntry) {
+    cachedEntry.getContentByRelativePath().forEach(output::write);
+
+    for (Type type : compilationUnit.getTypes()) {
+      NativeJavaScriptFile matchingNativeFile =
+          getMatchingNativeFile(nativeFilesByPath, compilationUnit, type);
+      if (matchingNativeFile != null) {
+        matchingNativeFile.setUsed();
+        copyNativeFile(matchingNativeFile);
+      }
+    }
+
+    libraryInfoBuilder.addLibraryInfo(cachedEntry.getLibraryInfo());
+
+    copyJavaSource(compilationUnit);
+  }
+
+  private void copyNativeFile(NativeJavaScriptFile nativeFile) {
+    // Copy native js file to output, as is.
+    output.copyFile(nativeFile.getSourcePath(), nativeFile.getRelativeFilePath());
+  }
+
+  private void copyJavaSource(CompilationUnit compilationUnit) {
+    if (!generateKytheIndexingMetadata) {
+      // Copy java sources to output.
+      output.copyFile(compilationUnit.getFilePath(), compilationUnit.getPackageRelativePath());
+    }
+  }
+
+  /** Writes a file to the output, recording it in {@code cacheEntry} if caching. */
+  private void write(@Nullable OutputCache.Entry cacheEntry, String relativePath, String content) {
+    output.write(relativePath, content);
+    if (cacheEntry != null) {
+      cacheEntry.addFile(relativePath, content);
+    }
   }
 
   private static final String SOURCE_MAP_SUFFIX = ".js.map";
@@ -226,6 +301,7 @@ public class OutputGeneratorStage {
   }
 
   private void outputReadableSourceMap(
+      @Nullable OutputCache.Entry cacheEntry,
       CompilationUnit j2clUnit,
       Type type,
       String javaScriptImplementationFileContents,
@@ -241,7 +317,7 @@ public class OutputGeneratorStage {
     if (!readableOutput.isEmpty()) {
       String readableSourceMapRelativePath =
           getPackageRelativePath(type.getDeclaration()) + READABLE_MAPPINGS_SUFFIX;
-      output.write(readableSourceMapRelativePath, readableOutput);
+      write(cacheEntry, readableSourceMapRelativePath, readableOutput);
     }
   }
 
@@ -100,11 +100,11 @@ public class ReadableSourceMapGenerator {
 
   private static String extract(
       SourcePosition sourcePosition, List<String> lines, boolean condense) {
-    int startLine = sourcePosition.getStartFilePosition().getLine();
-    int endLine = sourcePosition.getEndFilePosition().getLine();
+    int startLine = sourcePosition.getStartLine();
+    int endLine = sourcePosition.getEndLine();
     String fragment = lines.get(startLine);
-    int endColumn = sourcePosition.getEndFilePosition().getColumn();
-    int startColumn = sourcePosition.getStartFilePosition().getColumn();
+    int endColumn = sourcePosition.getEndColumn();
+    int startColumn = sourcePosition.getStartColumn();
     if (endLine != startLine || endColumn == -1) {
       StringBuilder content =
           new StringBuilder(trimTrailingWhitespace(fragment.substring(startColumn)));
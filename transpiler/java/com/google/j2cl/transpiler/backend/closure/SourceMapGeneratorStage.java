@@ -49,23 +49,16 @@ public class SourceMapGeneratorStage {
       sourceMapGenerator.addMapping(
           javaSourcePosition.getFileName(),
           javaSourcePosition.getName(),
-          toFilePosition(javaSourcePosition.getStartFilePosition()),
-          toFilePosition(javaScriptSourcePosition.getStartFilePosition()),
-          toFilePosition(javaScriptSourcePosition.getEndFilePosition()));
+          new FilePosition(
+              javaSourcePosition.getStartLine(), javaSourcePosition.getStartColumn()),
+          new FilePosition(
+              javaScriptSourcePosition.getStartLine(), javaScriptSourcePosition.getStartColumn()),
+          new FilePosition(
+              javaScriptSourcePosition.getEndLine(), javaScriptSourcePosition.getEndColumn()));
     }
     StringBuilder sb = new StringBuilder();
     String typeName = type.getDeclaration().getSimpleBinaryName();
     sourceMapGenerator.appendTo(sb, typeName + JavaScriptImplGenerator.FILE_SUFFIX);
     return sb.toString();
   }
-
-  /**
-   * Converts a j2cl File Position to a JsCompiler sourcemap File Position.
-   *
-   * @param j2clFilePosition
-   * @return JsCompiler sourcemap File Position
-   */
-  private static FilePosition toFilePosition(com.google.j2cl.common.FilePosition j2clFilePosition) {
-    return new FilePosition(j2clFilePosition.getLine(), j2clFilePosition.getColumn());
-  }
 }
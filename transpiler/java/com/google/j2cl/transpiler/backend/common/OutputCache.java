@@ -0,0 +1,544 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.backend.common;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.ArrayTypeDescriptor;
+import com.google.j2cl.transpiler.ast.CastExpression;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.ast.DeclaredTypeDescriptor;
+import com.google.j2cl.transpiler.ast.Expression;
+import com.google.j2cl.transpiler.ast.FieldAccess;
+import com.google.j2cl.transpiler.ast.FieldDescriptor;
+import com.google.j2cl.transpiler.ast.InstanceOfExpression;
+import com.google.j2cl.transpiler.ast.IntersectionTypeDescriptor;
+import com.google.j2cl.transpiler.ast.Invocation;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.ast.Literal;
+import com.google.j2cl.transpiler.ast.Member;
+import com.google.j2cl.transpiler.ast.MemberDescriptor;
+import com.google.j2cl.transpiler.ast.MethodDescriptor;
+import com.google.j2cl.transpiler.ast.Type;
+import com.google.j2cl.transpiler.ast.TypeDeclaration;
+import com.google.j2cl.transpiler.ast.TypeDescriptor;
+import com.google.j2cl.transpiler.ast.TypeLiteral;
+import com.google.j2cl.transpiler.ast.TypeVariable;
+import com.google.j2cl.transpiler.ast.UnionTypeDescriptor;
+import com.google.j2cl.transpiler.ast.Variable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+
+/**
+ * An on disk cache of the outputs of each compilation unit.
+ *
+ * <p>The outputs of a compilation unit are determined by its source, the declarations it can see
+ * and the configuration of the transpiler. Hence the cache key of a unit is a digest of its source
+ * and of the constants inlined into it, together with a digest of the native sources and of the
+ * signatures of all the types that the library declares or references, including their supertypes
+ * and the members they declare. Editing the body of a method only invalidates the unit that
+ * contains it, while changing a declaration, in the library or in the classpath, invalidates the
+ * whole library. The classpath itself is not read; only the parts of it that the library references
+ * are digested, from their descriptors.
+ *
+ * <p>The cache is kept under a maximum size by removing the entries that were least recently used,
+ * which is tracked by the modification time of the entry files, whenever the cache is loaded.
+ *
+ * <p>Failing to read or write the cache is not an error, it just results in a cache miss.
+ */
+public final class OutputCache {
+
+  /** The outputs of a compilation unit. */
+  public static final class Entry {
+    private final Map<String, String> contentByRelativePath = new LinkedHashMap<>();
+    private byte[] libraryInfo = new byte[0];
+
+    /** Records a file written for the compilation unit. */
+    public void addFile(String relativePath, String content) {
+      contentByRelativePath.put(relativePath, content);
+    }
+
+    /** Returns the files written for the compilation unit, in the order they were written. */
+    public Map<String, String> getContentByRelativePath() {
+      return contentByRelativePath;
+    }
+
+    public void setLibraryInfo(byte[] libraryInfo) {
+      this.libraryInfo = libraryInfo;
+    }
+
+    /** Returns the library info of the types in the compilation unit. */
+    public byte[] getLibraryInfo() {
+      return libraryInfo;
+    }
+  }
+
+  /** Bump when the format of the entries or the outputs of the transpiler change. */
+  private static final int VERSION = 3;
+
+  private static final String ENTRY_EXTENSION = ".entry";
+
+  private final Path directory;
+  private final long maxSizeBytes;
+  private final Map<CompilationUnit, String> keyByCompilationUnit = new HashMap<>();
+  private final Map<CompilationUnit, Entry> entryByCompilationUnit = new HashMap<>();
+
+  public OutputCache(Path directory, long maxSizeBytes) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+  }
+
+  /**
+   * Computes the keys of the units in {@code library} and loads the entries that are already in
+   * the cache.
+   *
+   * <p>Needs to be called before the library is normalized, since the keys are computed from the
+   * declarations as written in the sources.
+   *
+   * @param configuration describes the options that affect the outputs of the transpiler.
+   */
+  public void load(Library library, List<FileInfo> nativeSources, String configuration) {
+    DeclarationDigest declarationDigest = new DeclarationDigest();
+    Map<CompilationUnit, String> inlinedConstantsDigestByCompilationUnit = new HashMap<>();
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      inlinedConstantsDigestByCompilationUnit.put(
+          compilationUnit, declarationDigest.addCompilationUnit(compilationUnit));
+    }
+    String libraryDigest =
+        computeLibraryDigest(declarationDigest.getSignatures(), nativeSources, configuration);
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      String key =
+          computeKey(
+              compilationUnit,
+              libraryDigest,
+              inlinedConstantsDigestByCompilationUnit.get(compilationUnit));
+      if (key == null) {
+        continue;
+      }
+      keyByCompilationUnit.put(compilationUnit, key);
+      Entry entry = readEntry(directory.resolve(key + ENTRY_EXTENSION));
+      if (entry != null) {
+        entryByCompilationUnit.put(compilationUnit, entry);
+      }
+    }
+    evictLeastRecentlyUsedEntries();
+  }
+
+  /** Returns the cached outputs of {@code compilationUnit}, or {@code null} if there are none. */
+  @Nullable
+  public Entry get(CompilationUnit compilationUnit) {
+    return entryByCompilationUnit.get(compilationUnit);
+  }
+
+  /** Returns the units in {@code library} that need to be transpiled since they are not cached. */
+  public ImmutableList<CompilationUnit> getUncachedCompilationUnits(Library library) {
+    return library.getCompilationUnits().stream()
+        .filter(c -> !entryByCompilationUnit.containsKey(c))
+        .collect(toImmutableList());
+  }
+
+  /** Stores the outputs of {@code compilationUnit}. */
+  public void put(CompilationUnit compilationUnit, Entry entry) {
+    String key = keyByCompilationUnit.get(compilationUnit);
+    if (key == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(directory);
+      // Write to a temporary file first so that concurrent readers never observe partial entries.
+      Path temporaryFile = Files.createTempFile(directory, key, ".tmp");
+      Files.write(temporaryFile, serialize(entry));
+      Files.move(
+          temporaryFile,
+          directory.resolve(key + ENTRY_EXTENSION),
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // The entry is just not cached.
+    }
+  }
+
+  /**
+   * Removes the least recently used entries until the cache fits in its maximum size.
+   *
+   * <p>Entries are marked as used by updating their modification time when they are read.
+   */
+  private void evictLeastRecentlyUsedEntries() {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    Map<Path, BasicFileAttributes> attributesByEntry = new HashMap<>();
+    try (DirectoryStream<Path> entries =
+        Files.newDirectoryStream(directory, "*" + ENTRY_EXTENSION)) {
+      for (Path entry : entries) {
+        attributesByEntry.put(entry, Files.readAttributes(entry, BasicFileAttributes.class));
+      }
+    } catch (IOException e) {
+      // Try again the next time the cache is loaded.
+      return;
+    }
+    long size = attributesByEntry.values().stream().mapToLong(BasicFileAttributes::size).sum();
+    List<Path> entriesByLastUse =
+        attributesByEntry.keySet().stream()
+            .sorted(comparing(entry -> attributesByEntry.get(entry).lastModifiedTime()))
+            .collect(toImmutableList());
+    for (Path entry : entriesByLastUse) {
+      if (size <= maxSizeBytes) {
+        break;
+      }
+      try {
+        Files.deleteIfExists(entry);
+      } catch (IOException e) {
+        // Might have been removed concurrently by another transpilation.
+      }
+      size -= attributesByEntry.get(entry).size();
+    }
+  }
+
+  private static String computeLibraryDigest(
+      Set<String> declarationSignatures, List<FileInfo> nativeSources, String configuration) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(VERSION).putString(configuration, UTF_8);
+    for (FileInfo nativeSource : nativeSources) {
+      hasher.putString(nativeSource.originalPath(), UTF_8);
+      try {
+        hasher.putBytes(Files.readAllBytes(Paths.get(nativeSource.sourcePath())));
+      } catch (IOException e) {
+        // Unreadable entries make the digest depend on their path only.
+        hasher.putBoolean(false);
+      }
+    }
+    for (String signature : declarationSignatures) {
+      hasher.putString(signature, UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Collects the signatures of the types that compilation units declare or reference, and the
+   * constants inlined into each of them.
+   *
+   * <p>A signature covers everything the backend reads from a descriptor. The supertypes and the
+   * declared members of the types are included since the backend inspects the hierarchy of the
+   * types it references, e.g. to decide which bridges and overrides are needed.
+   */
+  private static final class DeclarationDigest {
+    private final Set<String> signatures = new TreeSet<>();
+    private final Set<String> seenTypeDescriptorIds = new HashSet<>();
+    private final Set<TypeDeclaration> seenTypeDeclarations = new HashSet<>();
+
+    /** Returns the signatures collected so far, in a stable order. */
+    Set<String> getSignatures() {
+      return signatures;
+    }
+
+    /**
+     * Adds the types declared or referenced by {@code compilationUnit} and returns a digest of the
+     * constants inlined into it.
+     */
+    String addCompilationUnit(CompilationUnit compilationUnit) {
+      Hasher inlinedConstants = Hashing.sha256().newHasher();
+      compilationUnit.accept(
+          new AbstractVisitor() {
+            @Override
+            public void exitType(Type type) {
+              addTypeDeclaration(type.getDeclaration());
+            }
+
+            @Override
+            public void exitMember(Member member) {
+              // Includes the members synthesized by desugaring, which are not declared in the
+              // descriptor of the type.
+              addMemberDescriptor(member.getDescriptor());
+            }
+
+            @Override
+            public void exitVariable(Variable variable) {
+              addTypeDescriptor(variable.getTypeDescriptor());
+            }
+
+            @Override
+            public void exitExpression(Expression expression) {
+              addTypeDescriptor(expression.getTypeDescriptor());
+            }
+
+            @Override
+            public void exitCastExpression(CastExpression castExpression) {
+              addTypeDescriptor(castExpression.getCastTypeDescriptor());
+            }
+
+            @Override
+            public void exitInstanceOfExpression(InstanceOfExpression instanceOfExpression) {
+              addTypeDescriptor(instanceOfExpression.getTestTypeDescriptor());
+            }
+
+            @Override
+            public void exitTypeLiteral(TypeLiteral typeLiteral) {
+              addTypeDescriptor(typeLiteral.getReferencedTypeDescriptor());
+            }
+
+            @Override
+            public void exitInvocation(Invocation invocation) {
+              addMemberReference(invocation.getTarget());
+            }
+
+            @Override
+            public void exitFieldAccess(FieldAccess fieldAccess) {
+              addMemberReference(fieldAccess.getTarget());
+            }
+
+            @Override
+            public void exitLiteral(Literal literal) {
+              // The frontends inline the values of constants, which might come from other units or
+              // from the classpath, as literals.
+              inlinedConstants.putString(literal.getSourceText(), UTF_8);
+            }
+          });
+      return inlinedConstants.hash().toString();
+    }
+
+    private void addMemberReference(MemberDescriptor memberDescriptor) {
+      addMemberDescriptor(memberDescriptor);
+      addMemberDescriptor(memberDescriptor.getDeclarationDescriptor());
+      addTypeDescriptor(memberDescriptor.getEnclosingTypeDescriptor());
+    }
+
+    private void addTypeDescriptor(@Nullable TypeDescriptor typeDescriptor) {
+      if (typeDescriptor == null || !seenTypeDescriptorIds.add(typeDescriptor.getUniqueId())) {
+        return;
+      }
+      if (typeDescriptor instanceof DeclaredTypeDescriptor) {
+        DeclaredTypeDescriptor declaredTypeDescriptor = (DeclaredTypeDescriptor) typeDescriptor;
+        addTypeDeclaration(declaredTypeDescriptor.getTypeDeclaration());
+        declaredTypeDescriptor.getTypeArgumentDescriptors().forEach(this::addTypeDescriptor);
+      } else if (typeDescriptor instanceof ArrayTypeDescriptor) {
+        addTypeDescriptor(((ArrayTypeDescriptor) typeDescriptor).getComponentTypeDescriptor());
+      } else if (typeDescriptor instanceof TypeVariable) {
+        addTypeDescriptor(((TypeVariable) typeDescriptor).getBoundTypeDescriptor());
+      } else if (typeDescriptor instanceof IntersectionTypeDescriptor) {
+        ((IntersectionTypeDescriptor) typeDescriptor)
+            .getIntersectionTypeDescriptors()
+            .forEach(this::addTypeDescriptor);
+      } else if (typeDescriptor instanceof UnionTypeDescriptor) {
+        ((UnionTypeDescriptor) typeDescriptor)
+            .getUnionTypeDescriptors()
+            .forEach(this::addTypeDescriptor);
+      }
+    }
+
+    private void addTypeDeclaration(@Nullable TypeDeclaration typeDeclaration) {
+      if (typeDeclaration == null || !seenTypeDeclarations.add(typeDeclaration)) {
+        return;
+      }
+      signatures.add(
+          String.join(
+              "|",
+              "type",
+              typeDeclaration.getUniqueId(),
+              typeDeclaration.getKind().name(),
+              typeDeclaration.getVisibility().name(),
+              typeDeclaration.getQualifiedJsName(),
+              String.valueOf(typeDeclaration.getJsEnumInfo()),
+              getTypeParametersSignature(typeDeclaration.getTypeParameterDescriptors()),
+              getUniqueId(typeDeclaration.getSuperTypeDescriptor()),
+              typeDeclaration.getInterfaceTypeDescriptors().stream()
+                  .map(TypeDescriptor::getUniqueId)
+                  .collect(joining(",")),
+              getFlags(
+                  typeDeclaration.isAbstract(),
+                  typeDeclaration.isFinal(),
+                  typeDeclaration.isFunctionalInterface(),
+                  typeDeclaration.isAnnotatedWithFunctionalInterface(),
+                  typeDeclaration.isAnnotatedWithAutoValue(),
+                  typeDeclaration.isAnnotatedWithAutoValueBuilder(),
+                  typeDeclaration.isJsFunctionInterface(),
+                  typeDeclaration.isJsType(),
+                  typeDeclaration.isLocal(),
+                  typeDeclaration.isAnonymous(),
+                  typeDeclaration.isNative(),
+                  typeDeclaration.isDeprecated(),
+                  typeDeclaration.isCapturingEnclosingInstance())));
+
+      addTypeDeclaration(typeDeclaration.getEnclosingTypeDeclaration());
+      addTypeDeclaration(typeDeclaration.getOverlaidTypeDeclaration());
+      addTypeDescriptor(typeDeclaration.getSuperTypeDescriptor());
+      typeDeclaration.getInterfaceTypeDescriptors().forEach(this::addTypeDescriptor);
+      typeDeclaration.getTypeParameterDescriptors().forEach(this::addTypeDescriptor);
+      typeDeclaration.getDeclaredMethodDescriptors().forEach(this::addMemberDescriptor);
+      typeDeclaration.getDeclaredFieldDescriptors().forEach(this::addMemberDescriptor);
+    }
+
+    private void addMemberDescriptor(MemberDescriptor memberDescriptor) {
+      String commonSignature =
+          String.join(
+              "|",
+              memberDescriptor.getEnclosingTypeDescriptor().getTypeDeclaration().getUniqueId(),
+              memberDescriptor.getBinaryName(),
+              memberDescriptor.getMangledName(),
+              memberDescriptor.getJsInfo().toString(),
+              memberDescriptor.getVisibility().name(),
+              String.valueOf(memberDescriptor.getOrigin()),
+              getFlags(
+                  memberDescriptor.isStatic(),
+                  memberDescriptor.isFinal(),
+                  memberDescriptor.isNative(),
+                  memberDescriptor.isSynthetic(),
+                  memberDescriptor.isDeprecated(),
+                  memberDescriptor.isJsFunction()));
+      if (memberDescriptor instanceof MethodDescriptor) {
+        MethodDescriptor methodDescriptor = (MethodDescriptor) memberDescriptor;
+        signatures.add(
+            String.join(
+                "|",
+                "method",
+                commonSignature,
+                getTypeParametersSignature(methodDescriptor.getTypeParameterTypeDescriptors()),
+                methodDescriptor.getParameterDescriptors().stream()
+                    .map(
+                        p ->
+                            p.getTypeDescriptor().getUniqueId()
+                                + getFlags(p.isVarargs(), p.isJsOptional(), p.isDoNotAutobox()))
+                    .collect(joining(",")),
+                methodDescriptor.getReturnTypeDescriptor().getUniqueId(),
+                String.valueOf(methodDescriptor.getWasmInfo()),
+                getFlags(
+                    methodDescriptor.isAbstract(),
+                    methodDescriptor.isConstructor(),
+                    methodDescriptor.isDefaultMethod(),
+                    methodDescriptor.isUncheckedCast(),
+                    methodDescriptor.isEnumSyntheticMethod())));
+      } else {
+        FieldDescriptor fieldDescriptor = (FieldDescriptor) memberDescriptor;
+        signatures.add(
+            String.join(
+                "|",
+                "field",
+                commonSignature,
+                fieldDescriptor.getTypeDescriptor().getUniqueId(),
+                getFlags(
+                    fieldDescriptor.isCompileTimeConstant(), fieldDescriptor.isEnumConstant())));
+      }
+    }
+
+    private static String getTypeParametersSignature(List<TypeVariable> typeParameters) {
+      return typeParameters.stream()
+          .map(t -> t.getUniqueId() + " extends " + getUniqueId(t.getBoundTypeDescriptor()))
+          .collect(joining(","));
+    }
+
+    private static String getUniqueId(@Nullable TypeDescriptor typeDescriptor) {
+      return typeDescriptor == null ? "" : typeDescriptor.getUniqueId();
+    }
+
+    private static String getFlags(boolean... flags) {
+      StringBuilder sb = new StringBuilder();
+      for (boolean flag : flags) {
+        sb.append(flag ? '1' : '0');
+      }
+      return sb.toString();
+    }
+  }
+
+  @Nullable
+  private static String computeKey(
+      CompilationUnit compilationUnit, String libraryDigest, String inlinedConstantsDigest) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    // The path of the file is not part of the key since sources extracted from source jars are in a
+    // different temporary directory on every build.
+    hasher
+        .putString(libraryDigest, UTF_8)
+        .putString(inlinedConstantsDigest, UTF_8)
+        .putString(compilationUnit.getPackageRelativePath(), UTF_8);
+    try {
+      hasher.putBytes(Files.readAllBytes(Paths.get(compilationUnit.getFilePath())));
+    } catch (IOException e) {
+      return null;
+    }
+    return hasher.hash().toString();
+  }
+
+  private static byte[] serialize(Entry entry) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(VERSION);
+      out.writeInt(entry.contentByRelativePath.size());
+      for (Map.Entry<String, String> file : entry.contentByRelativePath.entrySet()) {
+        out.writeUTF(file.getKey());
+        byte[] content = file.getValue().getBytes(UTF_8);
+        out.writeInt(content.length);
+        out.write(content);
+      }
+      out.writeInt(entry.libraryInfo.length);
+      out.write(entry.libraryInfo);
+    }
+    return bytes.toByteArray();
+  }
+
+  @Nullable
+  private static Entry readEntry(Path path) {
+    if (!Files.exists(path)) {
+      return null;
+    }
+    try (DataInputStream in =
+        new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)))) {
+      if (in.readInt() != VERSION) {
+        return null;
+      }
+      Entry entry = new Entry();
+      int fileCount = in.readInt();
+      for (int i = 0; i < fileCount; i++) {
+        String relativePath = in.readUTF();
+        byte[] content = new byte[in.readInt()];
+        in.readFully(content);
+        entry.addFile(relativePath, new String(content, UTF_8));
+      }
+      byte[] libraryInfo = new byte[in.readInt()];
+      in.readFully(libraryInfo);
+      entry.setLibraryInfo(libraryInfo);
+      // Marks the entry as recently used so that it is not evicted.
+      Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+      return entry;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+}
@@ -21,7 +21,6 @@ import static com.google.common.base.Preconditions.checkState;
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableMap;
-import com.google.j2cl.common.FilePosition;
 import com.google.j2cl.common.SourcePosition;
 import com.google.j2cl.transpiler.ast.MemberDescriptor;
 import java.util.HashMap;
@@ -80,15 +79,16 @@ public class SourceBuilder {
   }
 
   private SourcePosition emit(Runnable codeEmitter) {
-    FilePosition startPosition = getCurrentPosition();
+    int startLine = currentLine;
+    int startColumn = currentColumn;
+    int startByteOffset = sb.length();
     codeEmitter.run();
-    FilePosition endPosition = getCurrentPosition();
-    if (endPosition.equals(startPosition)) {
+    if (currentLine == startLine && currentColumn == startColumn) {
       return SourcePosition.NONE;
     }
     return SourcePosition.newBuilder()
-        .setStartFilePosition(startPosition)
-        .setEndFilePosition(endPosition)
+        .setStartPosition(startLine, startColumn, startByteOffset)
+        .setEndPosition(currentLine, currentColumn, sb.length())
         .build();
   }
 
@@ -101,12 +101,7 @@ public class SourceBuilder {
     // Emit eof marker
     if (sb.length() != 0) {
       emitWithMapping(
-          SourcePosition.newBuilder()
-              .setStartFilePosition(
-                  FilePosition.newBuilder().setLine(0).setColumn(0).setByteOffset(0).build())
-              .setEndFilePosition(
-                  FilePosition.newBuilder().setLine(0).setColumn(0).setByteOffset(0).build())
-              .build(),
+          SourcePosition.newBuilder().setStartPosition(0, 0, 0).setEndPosition(0, 0, 0).build(),
           () -> {});
     }
     finished = true;
@@ -196,12 +191,4 @@ public class SourceBuilder {
     }
     append(")");
   }
-
-  private FilePosition getCurrentPosition() {
-    return FilePosition.newBuilder()
-        .setLine(currentLine)
-        .setColumn(currentColumn)
-        .setByteOffset(sb.length())
-        .build();
-  }
 }
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.backend.common;
+
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+
+/**
+ * Generates the outputs of a library one compilation unit at a time, as soon as each unit is ready,
+ * so that the AST of a unit can be released once its outputs are written.
+ */
+public interface StreamingOutputGenerator {
+  /** Generates the outputs of a fully normalized compilation unit. */
+  void generateOutputs(CompilationUnit compilationUnit);
+
+  /** Generates the outputs that depend on the whole library, after all units were handed in. */
+  void finish();
+}
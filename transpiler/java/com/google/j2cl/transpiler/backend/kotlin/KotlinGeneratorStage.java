@@ -22,12 +22,13 @@ import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Library;
 import com.google.j2cl.transpiler.ast.Type;
 import com.google.j2cl.transpiler.ast.TypeDeclaration;
+import com.google.j2cl.transpiler.backend.common.StreamingOutputGenerator;
 
 /**
  * The OutputGeneratorStage contains all necessary information for generating the Kotlin output
  * for the transpiler. It is responsible for generating implementation files for each Java file.
  */
-public class KotlinGeneratorStage {
+public class KotlinGeneratorStage implements StreamingOutputGenerator {
   private final Problems problems;
   private final Output output;
 
@@ -37,17 +38,26 @@ public class KotlinGeneratorStage {
   }
 
   public void generateOutputs(Library library) {
-      for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
-        for (Type type : compilationUnit.getTypes()) {
-          KotlinGenerator ktGenerator = new KotlinGenerator(problems, type);
-          String typeRelativePath = getPackageRelativePath(type.getDeclaration());
-          String kotlinSource = ktGenerator.renderOutput();
-          String relativePath = typeRelativePath + ktGenerator.getSuffix();
-        output.write(relativePath, kotlinSource);
-      }
+    for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+      generateOutputs(compilationUnit);
     }
+    finish();
   }
 
+  @Override
+  public void generateOutputs(CompilationUnit compilationUnit) {
+    for (Type type : compilationUnit.getTypes()) {
+      KotlinGenerator ktGenerator = new KotlinGenerator(problems, type);
+      String typeRelativePath = getPackageRelativePath(type.getDeclaration());
+      String kotlinSource = ktGenerator.renderOutput();
+      String relativePath = typeRelativePath + ktGenerator.getSuffix();
+      output.write(relativePath, kotlinSource);
+    }
+  }
+
+  @Override
+  public void finish() {}
+
   /** Returns the relative output path for a given type. */
   private static String getPackageRelativePath(TypeDeclaration typeDeclaration) {
     return OutputUtils.getPackageRelativePath(
@@ -33,6 +33,7 @@ import com.google.j2cl.transpiler.ast.MemberDescriptor;
 import com.google.j2cl.transpiler.ast.MethodDescriptor;
 import com.google.j2cl.transpiler.ast.Type;
 import com.google.j2cl.transpiler.ast.TypeDescriptors;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.util.JsonFormat;
 import java.io.IOException;
 import java.util.Arrays;
@@ -136,6 +137,54 @@ public final class LibraryInfoBuilder {
                 .collect(Collectors.toList())));
   }
 
+  /**
+   * Adds the types from a serialized library info that was built separately, e.g. for a single
+   * compilation unit.
+   */
+  public void addLibraryInfo(byte[] serializedLibraryInfo) {
+    LibraryInfo otherLibraryInfo;
+    try {
+      otherLibraryInfo = LibraryInfo.parseFrom(serializedLibraryInfo);
+    } catch (InvalidProtocolBufferException e) {
+      throw new IllegalStateException(e);
+    }
+
+    // Type ids are assigned in the order in which the types are first referenced, which is also the
+    // order of the type map of the other library info; registering the types in that order results
+    // in the same ids as if the types had been added to this builder directly.
+    int[] typeIdByOtherTypeId = new int[otherLibraryInfo.getTypeMapCount()];
+    for (int i = NULL_TYPE + 1; i < typeIdByOtherTypeId.length; i++) {
+      String typeName = otherLibraryInfo.getTypeMap(i);
+      typeIdByOtherTypeId[i] = types.computeIfAbsent(typeName, x -> types.size() + 1);
+    }
+
+    for (TypeInfo typeInfo : otherLibraryInfo.getTypeList()) {
+      TypeInfo.Builder typeInfoBuilder =
+          typeInfo.toBuilder()
+              .setTypeId(typeIdByOtherTypeId[typeInfo.getTypeId()])
+              .setExtendsType(typeIdByOtherTypeId[typeInfo.getExtendsType()])
+              .clearImplementsType()
+              .clearMember();
+      for (int implementsType : typeInfo.getImplementsTypeList()) {
+        typeInfoBuilder.addImplementsType(typeIdByOtherTypeId[implementsType]);
+      }
+      for (MemberInfo memberInfo : typeInfo.getMemberList()) {
+        MemberInfo.Builder memberInfoBuilder =
+            memberInfo.toBuilder().clearInvokedMethods().clearReferencedTypes();
+        for (MethodInvocation methodInvocation : memberInfo.getInvokedMethodsList()) {
+          memberInfoBuilder.addInvokedMethods(
+              methodInvocation.toBuilder()
+                  .setEnclosingType(typeIdByOtherTypeId[methodInvocation.getEnclosingType()]));
+        }
+        for (int referencedType : memberInfo.getReferencedTypesList()) {
+          memberInfoBuilder.addReferencedTypes(typeIdByOtherTypeId[referencedType]);
+        }
+        typeInfoBuilder.addMember(memberInfoBuilder);
+      }
+      libraryInfo.addType(typeInfoBuilder);
+    }
+  }
+
   private static MemberInfo.Builder createMemberInfo(
       MemberDescriptor memberDescriptor,
       Map<MemberDescriptor, SourcePosition> outputSourceInfoByMember) {
@@ -18,19 +18,38 @@ package com.google.j2cl.transpiler.frontend;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
 import com.google.j2cl.transpiler.frontend.common.PackageInfoCache;
 import com.google.j2cl.transpiler.frontend.javac.JavacParser;
 import com.google.j2cl.transpiler.frontend.jdt.CompilationUnitBuilder;
 import com.google.j2cl.transpiler.frontend.jdt.CompilationUnitsAndTypeBindings;
 import com.google.j2cl.transpiler.frontend.jdt.JdtParser;
 import java.util.List;
+import javax.annotation.Nullable;
 
 /** Drives the frontend to parse, type check and resolve Java source code. */
 public enum Frontend {
   JDT {
     @Override
-    public List<CompilationUnit> compile(FrontendOptions options, Problems problems) {
-      JdtParser parser = new JdtParser(options.getClasspaths(), problems);
+    public List<CompilationUnit> compile(
+        FrontendOptions options, @Nullable String classpathKey, Problems problems) {
+      // The classpath archives are kept open by the classpath cache, if any, which is what JDT
+      // benefits from when it opens them again.
+      JdtParser parser;
+      if (!options.getExperimentalShardedParsing()) {
+        parser = new JdtParser(options.getClasspaths(), problems);
+      } else if (options.getExperimentalParsingShardSize() > 0) {
+        parser =
+            new JdtParser(
+                options.getClasspaths(),
+                /* maxNumberOfShards= */ Integer.MAX_VALUE,
+                options.getExperimentalParsingShardSize(),
+                problems);
+      } else {
+        parser =
+            new JdtParser(
+                options.getClasspaths(), Runtime.getRuntime().availableProcessors(), problems);
+      }
       CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
           parser.parseFiles(
               options.getSources(),
@@ -41,8 +60,10 @@ public enum Frontend {
   },
   JAVAC {
     @Override
-    public List<CompilationUnit> compile(FrontendOptions options, Problems problems) {
-      return new JavacParser(options.getClasspaths(), problems)
+    public List<CompilationUnit> compile(
+        FrontendOptions options, @Nullable String classpathKey, Problems problems) {
+      return new JavacParser(
+              options.getClasspaths(), options.getClasspathCache(), classpathKey, problems)
           .parseFiles(
               options.getSources(),
               /* useTargetPath= */ options.getGenerateKytheIndexingMetadata());
@@ -50,10 +71,18 @@ public enum Frontend {
   };
 
   public Library getLibrary(FrontendOptions options, Problems problems) {
+    ClasspathCache classpathCache = options.getClasspathCache();
+    String classpathKey =
+        classpathCache == null
+            ? null
+            : classpathCache.open(options.getClasspaths(), options.getClasspathDigests());
     // Records information about package-info files supplied as byte code.
-    PackageInfoCache.init(options.getClasspaths(), problems);
-    return Library.newBuilder().setCompilationUnits(compile(options, problems)).build();
+    PackageInfoCache.init(options.getClasspaths(), classpathCache, problems);
+    return Library.newBuilder()
+        .setCompilationUnits(compile(options, classpathKey, problems))
+        .build();
   }
 
-  abstract List<CompilationUnit> compile(FrontendOptions options, Problems problems);
+  abstract List<CompilationUnit> compile(
+      FrontendOptions options, @Nullable String classpathKey, Problems problems);
 }
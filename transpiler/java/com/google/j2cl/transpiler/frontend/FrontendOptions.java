@@ -16,7 +16,10 @@
 package com.google.j2cl.transpiler.frontend;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
+import javax.annotation.Nullable;
 
 /** Configuration for frontend. */
 public interface FrontendOptions {
@@ -24,5 +27,24 @@ public interface FrontendOptions {
 
   ImmutableList<String> getClasspaths();
 
+  /** Digests of the contents of the classpath entries, for the ones that are known. */
+  ImmutableMap<String, String> getClasspathDigests();
+
+  /** The cache that keeps the classpath warm across transpilations, if any. */
+  @Nullable
+  ClasspathCache getClasspathCache();
+
   boolean getGenerateKytheIndexingMetadata();
+
+  /**
+   * Whether the sources are parsed and resolved in shards concurrently. Only supported by the JDT
+   * frontend.
+   */
+  boolean getExperimentalShardedParsing();
+
+  /**
+   * The minimum number of files per shard when the sources are parsed in shards, or 0 for the
+   * default. Allows forcing several shards on small inputs.
+   */
+  int getExperimentalParsingShardSize();
 }
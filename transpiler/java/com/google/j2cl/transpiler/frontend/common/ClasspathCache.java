@@ -0,0 +1,238 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.j2cl.common.ScopedThreadLocal;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+
+/**
+ * Keeps the classpath warm across the transpilations that run in the same persistent worker.
+ *
+ * <p>Classpath archives are kept open, keyed by their path and a digest of their contents. Since
+ * the JDK shares the index of an open zip file with any other {@link ZipFile} opened on the same
+ * file, the archives that a frontend opens while parsing are not read and indexed again.
+ *
+ * <p>Frontends can also park per classpath resources that are expensive to set up, like a file
+ * manager, so that they are picked up by the next transpilation with the same classpath. A resource
+ * is used by a single transpilation at a time; the ones taken during a transpilation are returned
+ * to the cache by {@link #releaseResources}, which first lets {@link ReusableResource}s know that
+ * the transpilation is done with them.
+ *
+ * <p>Each open archive also carries an index of its class files and package namespaces, which is
+ * built the first time it is needed and shared by all the transpilations that use the archive.
+ */
+public final class ClasspathCache {
+  private static final int MAX_OPEN_ARCHIVES = 1024;
+  private static final int MAX_IDLE_RESOURCES = 16;
+
+  private static final ClasspathCache instance = new ClasspathCache();
+
+  /** Returns the cache shared by all the transpilations in this process. */
+  public static ClasspathCache getInstance() {
+    return instance;
+  }
+
+  /** An open classpath archive and the fingerprint of the contents it was opened with. */
+  private static class OpenArchive {
+    private final String fingerprint;
+    private final ZipFile zipFile;
+    private final Supplier<ClasspathEntryIndex> index;
+
+    OpenArchive(String fingerprint, String path, ZipFile zipFile) {
+      this.fingerprint = fingerprint;
+      this.zipFile = zipFile;
+      this.index =
+          Suppliers.memoize(
+              () -> {
+                try {
+                  return ClasspathEntryIndex.create(zipFile);
+                } catch (IOException | IllegalStateException e) {
+                  // The archive was closed by the eviction, read it again on its own.
+                  return ClasspathEntryIndex.create(new File(path));
+                }
+              });
+    }
+  }
+
+  /** A resource that needs to be told when a transpilation is done with it. */
+  public interface ReusableResource extends Closeable {
+    /** Called when the transpilation that used the resource ends, before others can take it. */
+    void release();
+  }
+
+  /** A resource taken from the cache by a transpilation that is still running. */
+  private static class TakenResource {
+    private final String key;
+    private final Closeable resource;
+
+    TakenResource(String key, Closeable resource) {
+      this.key = key;
+      this.resource = resource;
+    }
+  }
+
+  private final Map<String, OpenArchive> openArchiveByPath =
+      new LinkedHashMap<String, OpenArchive>(16, 0.75f, /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OpenArchive> eldest) {
+          if (size() <= MAX_OPEN_ARCHIVES) {
+            return false;
+          }
+          close(eldest.getValue().zipFile);
+          return true;
+        }
+      };
+
+  private final Map<String, Closeable> idleResourceByKey =
+      new LinkedHashMap<String, Closeable>(16, 0.75f, /* accessOrder= */ true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Closeable> eldest) {
+          if (size() <= MAX_IDLE_RESOURCES) {
+            return false;
+          }
+          close(eldest.getValue());
+          return true;
+        }
+      };
+
+  private final ScopedThreadLocal<List<TakenResource>> takenResources =
+      ScopedThreadLocal.withInitial(ArrayList::new);
+
+  private ClasspathCache() {}
+
+  /**
+   * Makes sure the archives in {@code classpathEntries} are open and returns a key that identifies
+   * the contents of the whole classpath.
+   *
+   * <p>Archives are identified by the digests in {@code digestByPath}, which are provided by the
+   * build system for the inputs of the request. Archives without a digest fall back to their size
+   * and modification time.
+   */
+  public synchronized String open(List<String> classpathEntries, Map<String, String> digestByPath) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String entry : classpathEntries) {
+      File file = new File(entry);
+      if (!file.isFile()) {
+        // Directories are not cached, their contents are read by the frontends on every request.
+        hasher.putUnencodedChars(entry).putChar('\n');
+        continue;
+      }
+
+      String digest = digestByPath.get(entry);
+      String fingerprint =
+          digest != null ? digest : "size:" + file.length() + ":mtime:" + file.lastModified();
+      hasher.putUnencodedChars(entry).putChar(':').putUnencodedChars(fingerprint).putChar('\n');
+
+      OpenArchive openArchive = openArchiveByPath.get(entry);
+      if (openArchive != null && openArchive.fingerprint.equals(fingerprint)) {
+        continue;
+      }
+      if (openArchive != null) {
+        openArchiveByPath.remove(entry);
+        close(openArchive.zipFile);
+      }
+      try {
+        openArchiveByPath.put(entry, new OpenArchive(fingerprint, entry, new ZipFile(file)));
+      } catch (IOException e) {
+        // Not an archive, or not readable; the frontend will report it if it matters.
+      }
+    }
+    return hasher.hash().toString();
+  }
+
+  /**
+   * Returns the index of {@code classpathEntry}.
+   *
+   * <p>The index of an archive opened by {@link #open} is built once and reused for as long as its
+   * contents do not change. Directories, and archives that are not open, are indexed on every call.
+   */
+  ClasspathEntryIndex getIndex(String classpathEntry) {
+    OpenArchive openArchive;
+    synchronized (this) {
+      openArchive = openArchiveByPath.get(classpathEntry);
+    }
+    // Built outside of the lock so that archives can be indexed concurrently.
+    return openArchive != null
+        ? openArchive.index.get()
+        : ClasspathEntryIndex.create(new File(classpathEntry));
+  }
+
+  /**
+   * Takes the idle resource of type {@code type} that was set up for the classpath identified by
+   * {@code classpathKey}, if any.
+   */
+  @Nullable
+  public synchronized <T extends Closeable> T takeIdleResource(String classpathKey, Class<T> type) {
+    String key = type.getName() + ":" + classpathKey;
+    Closeable resource = idleResourceByKey.remove(key);
+    if (resource == null) {
+      return null;
+    }
+    takenResources.get().add(new TakenResource(key, resource));
+    return type.cast(resource);
+  }
+
+  /**
+   * Registers {@code resource}, which is set up for the classpath identified by {@code
+   * classpathKey}, to be made available to later transpilations once the current one is done.
+   */
+  public synchronized <T extends Closeable> void addResource(
+      String classpathKey, Class<T> type, T resource) {
+    takenResources.get().add(new TakenResource(type.getName() + ":" + classpathKey, resource));
+  }
+
+  /** Returns the resources used by the current transpilation to the cache. */
+  public void releaseResources() {
+    List<TakenResource> resources = takenResources.get();
+    takenResources.remove();
+    // Released outside of the lock since a resource might take a while to get ready for reuse.
+    for (TakenResource takenResource : resources) {
+      if (takenResource.resource instanceof ReusableResource) {
+        ((ReusableResource) takenResource.resource).release();
+      }
+    }
+    synchronized (this) {
+      for (TakenResource takenResource : resources) {
+        Closeable existingResource =
+            idleResourceByKey.put(takenResource.key, takenResource.resource);
+        if (existingResource != null) {
+          // Another transpilation with the same classpath already returned an equivalent resource.
+          close(existingResource);
+        }
+      }
+    }
+  }
+
+  private static void close(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException e) {
+      // The resource is dropped from the cache regardless.
+    }
+  }
+}
@@ -0,0 +1,334 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nullable;
+
+/**
+ * The class files in a classpath entry and the JavaScript namespaces of its packages.
+ *
+ * <p>The namespaces are read from the {@code @JsPackage} annotations in the package-info class
+ * files, without loading them.
+ */
+final class ClasspathEntryIndex {
+  private static final String PACKAGE_INFO_CLASS_FILE_NAME = "package-info.class";
+  private static final String JS_PACKAGE_DESCRIPTOR = "Ljsinterop/annotations/JsPackage;";
+
+  /** Paths of the class files, relative to the root of the entry. */
+  private final ImmutableSet<String> classFilePaths;
+  /** Namespaces of the packages whose package-info declares one, by package name. */
+  private final ImmutableMap<String, String> jsNamespaceByPackageName;
+  /** Names of the packages whose package-info could not be read. */
+  private final ImmutableSet<String> unreadablePackageInfoPackageNames;
+
+  private ClasspathEntryIndex(
+      ImmutableSet<String> classFilePaths,
+      ImmutableMap<String, String> jsNamespaceByPackageName,
+      ImmutableSet<String> unreadablePackageInfoPackageNames) {
+    this.classFilePaths = classFilePaths;
+    this.jsNamespaceByPackageName = jsNamespaceByPackageName;
+    this.unreadablePackageInfoPackageNames = unreadablePackageInfoPackageNames;
+  }
+
+  /** Whether the entry contains the class file, e.g. {@code "java/lang/Object.class"}. */
+  boolean containsClassFile(String classFilePath) {
+    return classFilePaths.contains(classFilePath);
+  }
+
+  /** Returns the paths of the class files in the entry, relative to its root. */
+  ImmutableSet<String> getClassFilePaths() {
+    return classFilePaths;
+  }
+
+  /** Returns the namespace declared by the package-info of the package, if any. */
+  @Nullable
+  String getJsNamespace(String packageName) {
+    return jsNamespaceByPackageName.get(packageName);
+  }
+
+  /** Whether the entry has a package-info for the package that could not be read. */
+  boolean hasUnreadablePackageInfo(String packageName) {
+    return unreadablePackageInfoPackageNames.contains(packageName);
+  }
+
+  /** Indexes a classpath entry, which might be an archive or a directory. */
+  static ClasspathEntryIndex create(File classpathEntry) {
+    if (classpathEntry.isDirectory()) {
+      return createForDirectory(classpathEntry.toPath());
+    }
+    try (ZipFile zipFile = new ZipFile(classpathEntry)) {
+      return create(zipFile);
+    } catch (IOException e) {
+      // Not an archive, or not readable; the frontend will report it if it matters.
+      return new Builder().build();
+    }
+  }
+
+  /** Indexes an archive. */
+  static ClasspathEntryIndex create(ZipFile zipFile) throws IOException {
+    Builder builder = new Builder();
+    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    while (entries.hasMoreElements()) {
+      ZipEntry entry = entries.nextElement();
+      if (entry.isDirectory() || !entry.getName().endsWith(".class")) {
+        continue;
+      }
+      builder.addClassFile(entry.getName());
+      if (isPackageInfo(entry.getName())) {
+        try (InputStream inputStream = zipFile.getInputStream(entry)) {
+          builder.addPackageInfo(entry.getName(), ByteStreams.toByteArray(inputStream));
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  private static ClasspathEntryIndex createForDirectory(Path directory) {
+    Builder builder = new Builder();
+    List<Path> classFiles;
+    try (Stream<Path> paths = Files.walk(directory)) {
+      classFiles =
+          paths
+              .filter(p -> p.toString().endsWith(".class") && Files.isRegularFile(p))
+              .collect(toImmutableList());
+    } catch (IOException e) {
+      return builder.build();
+    }
+    for (Path classFile : classFiles) {
+      String classFilePath =
+          directory.relativize(classFile).toString().replace(File.separatorChar, '/');
+      builder.addClassFile(classFilePath);
+      if (isPackageInfo(classFilePath)) {
+        byte[] bytes;
+        try {
+          bytes = Files.readAllBytes(classFile);
+        } catch (IOException e) {
+          bytes = new byte[0];
+        }
+        builder.addPackageInfo(classFilePath, bytes);
+      }
+    }
+    return builder.build();
+  }
+
+  private static boolean isPackageInfo(String classFilePath) {
+    return classFilePath.equals(PACKAGE_INFO_CLASS_FILE_NAME)
+        || classFilePath.endsWith("/" + PACKAGE_INFO_CLASS_FILE_NAME);
+  }
+
+  /** Accumulates the contents of a classpath entry. */
+  private static class Builder {
+    private final ImmutableSet.Builder<String> classFilePaths = ImmutableSet.builder();
+    private final Map<String, String> jsNamespaceByPackageName = new HashMap<>();
+    private final ImmutableSet.Builder<String> unreadablePackageInfoPackageNames =
+        ImmutableSet.builder();
+
+    void addClassFile(String classFilePath) {
+      classFilePaths.add(classFilePath);
+    }
+
+    void addPackageInfo(String classFilePath, byte[] classFile) {
+      String packageName =
+          classFilePath.equals(PACKAGE_INFO_CLASS_FILE_NAME)
+              ? ""
+              : classFilePath
+                  .substring(0, classFilePath.length() - PACKAGE_INFO_CLASS_FILE_NAME.length() - 1)
+                  .replace('/', '.');
+      try {
+        String jsNamespace = readJsPackageNamespace(classFile);
+        if (jsNamespace != null) {
+          jsNamespaceByPackageName.put(packageName, jsNamespace);
+        }
+      } catch (IOException | RuntimeException e) {
+        unreadablePackageInfoPackageNames.add(packageName);
+      }
+    }
+
+    ClasspathEntryIndex build() {
+      return new ClasspathEntryIndex(
+          classFilePaths.build(),
+          ImmutableMap.copyOf(jsNamespaceByPackageName),
+          unreadablePackageInfoPackageNames.build());
+    }
+  }
+
+  /**
+   * Returns the namespace in the {@code @JsPackage} annotation of the class, if any.
+   *
+   * <p>Only the annotations retained at runtime are considered, which are the ones that are visible
+   * when the class is loaded.
+   */
+  @Nullable
+  private static String readJsPackageNamespace(byte[] classFile) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(classFile));
+    if (in.readInt() != 0xCAFEBABE) {
+      throw new IOException("Not a class file");
+    }
+    in.readUnsignedShort(); // minor_version
+    in.readUnsignedShort(); // major_version
+
+    String[] utf8Constants = new String[in.readUnsignedShort()];
+    for (int i = 1; i < utf8Constants.length; i++) {
+      int tag = in.readUnsignedByte();
+      switch (tag) {
+        case 1: // Utf8
+          utf8Constants[i] = in.readUTF();
+          break;
+        case 3: // Integer
+        case 4: // Float
+        case 9: // Fieldref
+        case 10: // Methodref
+        case 11: // InterfaceMethodref
+        case 12: // NameAndType
+        case 17: // Dynamic
+        case 18: // InvokeDynamic
+          in.skipBytes(4);
+          break;
+        case 5: // Long
+        case 6: // Double
+          in.skipBytes(8);
+          // Takes two entries in the constant pool.
+          i++;
+          break;
+        case 7: // Class
+        case 8: // String
+        case 16: // MethodType
+        case 19: // Module
+        case 20: // Package
+          in.skipBytes(2);
+          break;
+        case 15: // MethodHandle
+          in.skipBytes(3);
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag);
+      }
+    }
+
+    in.readUnsignedShort(); // access_flags
+    in.readUnsignedShort(); // this_class
+    in.readUnsignedShort(); // super_class
+    in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+    // Fields and methods.
+    for (int i = 0; i < 2; i++) {
+      int memberCount = in.readUnsignedShort();
+      for (int j = 0; j < memberCount; j++) {
+        in.skipBytes(6); // access_flags, name_index, descriptor_index
+        skipAttributes(in);
+      }
+    }
+
+    int attributeCount = in.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      String attributeName = utf8Constants[in.readUnsignedShort()];
+      int attributeLength = in.readInt();
+      if (!"RuntimeVisibleAnnotations".equals(attributeName)) {
+        in.skipBytes(attributeLength);
+        continue;
+      }
+      int annotationCount = in.readUnsignedShort();
+      for (int j = 0; j < annotationCount; j++) {
+        String namespace = readJsPackageNamespace(in, utf8Constants);
+        if (namespace != null) {
+          return namespace;
+        }
+      }
+    }
+    return null;
+  }
+
+  /** Reads an annotation and returns its namespace if it is a {@code @JsPackage} annotation. */
+  @Nullable
+  private static String readJsPackageNamespace(DataInputStream in, String[] utf8Constants)
+      throws IOException {
+    boolean isJsPackage = JS_PACKAGE_DESCRIPTOR.equals(utf8Constants[in.readUnsignedShort()]);
+    String namespace = null;
+    int elementValuePairCount = in.readUnsignedShort();
+    for (int i = 0; i < elementValuePairCount; i++) {
+      String elementName = utf8Constants[in.readUnsignedShort()];
+      int tag = in.readUnsignedByte();
+      if (isJsPackage && elementName.equals("namespace") && tag == 's') {
+        namespace = utf8Constants[in.readUnsignedShort()];
+      } else {
+        skipElementValue(in, tag);
+      }
+    }
+    return namespace;
+  }
+
+  private static void skipAttributes(DataInputStream in) throws IOException {
+    int attributeCount = in.readUnsignedShort();
+    for (int i = 0; i < attributeCount; i++) {
+      in.skipBytes(2); // attribute_name_index
+      in.skipBytes(in.readInt());
+    }
+  }
+
+  private static void skipElementValue(DataInputStream in, int tag) throws IOException {
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        in.skipBytes(2);
+        break;
+      case 'e':
+        in.skipBytes(4);
+        break;
+      case '@':
+        in.skipBytes(2); // type_index
+        int elementValuePairCount = in.readUnsignedShort();
+        for (int i = 0; i < elementValuePairCount; i++) {
+          in.skipBytes(2); // element_name_index
+          skipElementValue(in, in.readUnsignedByte());
+        }
+        break;
+      case '[':
+        int valueCount = in.readUnsignedShort();
+        for (int i = 0; i < valueCount; i++) {
+          skipElementValue(in, in.readUnsignedByte());
+        }
+        break;
+      default:
+        throw new IOException("Unknown element value tag " + tag);
+    }
+  }
+}
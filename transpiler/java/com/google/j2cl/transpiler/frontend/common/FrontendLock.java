@@ -0,0 +1,63 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import com.google.j2cl.common.ScopedThreadLocal;
+import com.google.j2cl.transpiler.ast.DeclaredTypeDescriptor;
+import com.google.j2cl.transpiler.ast.DeclaredTypeDescriptor.DescriptorFactory;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes the lazy callbacks that descriptors make into the frontend.
+ *
+ * <p>Descriptors compute some of their properties on demand by querying the data structures of the
+ * frontend, which are not thread safe. When normalization passes run in parallel these queries can
+ * come from any of the worker threads, so all of them go through a single lock that is shared by
+ * the threads of the transpilation.
+ */
+public final class FrontendLock {
+  private static final ScopedThreadLocal<ReentrantLock> lock =
+      ScopedThreadLocal.withInitial(ReentrantLock::new);
+
+  /** Returns a supplier that evaluates {@code supplier} while holding the frontend lock. */
+  public static <T> Supplier<T> guard(Supplier<T> supplier) {
+    return () -> {
+      ReentrantLock frontendLock = lock.get();
+      frontendLock.lock();
+      try {
+        return supplier.get();
+      } finally {
+        frontendLock.unlock();
+      }
+    };
+  }
+
+  /** Returns a factory that evaluates {@code factory} while holding the frontend lock. */
+  public static <T> DescriptorFactory<T> guard(DescriptorFactory<T> factory) {
+    return (DeclaredTypeDescriptor typeDescriptor) -> {
+      ReentrantLock frontendLock = lock.get();
+      frontendLock.lock();
+      try {
+        return factory.get(typeDescriptor);
+      } finally {
+        frontendLock.unlock();
+      }
+    };
+  }
+
+  private FrontendLock() {}
+}
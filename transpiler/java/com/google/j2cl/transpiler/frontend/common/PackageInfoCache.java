@@ -20,10 +20,16 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.j2cl.common.ConcurrentTasks;
 import com.google.j2cl.common.OutputUtils;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
+import com.google.j2cl.common.ScopedThreadLocal;
+import java.io.File;
 import java.lang.annotation.Annotation;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -49,6 +55,11 @@ import jsinterop.annotations.JsPackage;
  * multiple class path entries contain the same packages but with different package info files,
  * depending on what arbitrary set of class path entries do or do not happen to be included in the
  * current compile.
+ *
+ * <p>When a {@link ClasspathCache} is available the class path entries are not searched through a
+ * class loader. Instead, the prebuilt indexes of the entries are consulted, and the namespaces are
+ * read straight from the package-info class files without loading them. The origin of a type is
+ * still the one the class loader would find, see {@link #findOriginClassPathEntry}.
  */
 public class PackageInfoCache {
 
@@ -85,7 +96,8 @@ public class PackageInfoCache {
   private static final PackageReport DEFAULT_PACKAGE_REPORT = PackageReport.newBuilder().build();
 
   /** Allows for the initialization/retrieval of one shared PackageInfoCache instance per thread. */
-  private static final ThreadLocal<PackageInfoCache> packageInfoCacheStorage = new ThreadLocal<>();
+  private static final ScopedThreadLocal<PackageInfoCache> packageInfoCacheStorage =
+      new ScopedThreadLocal<>();
 
   @VisibleForTesting
   public static void clear() {
@@ -97,10 +109,32 @@ public class PackageInfoCache {
   }
 
   public static void init(List<String> classPathEntries, Problems problems) {
+    init(classPathEntries, /* classpathCache= */ null, problems);
+  }
+
+  /**
+   * Initializes the cache for the current thread, using the class path entry indexes held by
+   * {@code classpathCache} if it is provided.
+   */
+  public static void init(
+      List<String> classPathEntries, @Nullable ClasspathCache classpathCache, Problems problems) {
     checkState(
         packageInfoCacheStorage.get() == null,
         "PackageInfoCache should only be initialized once per thread.");
 
+    if (classpathCache != null) {
+      // Entries that are not indexed yet are indexed in parallel; the map keeps class path order.
+      ImmutableList<String> distinctEntries = ImmutableSet.copyOf(classPathEntries).asList();
+      ImmutableList<ClasspathEntryIndex> indexes =
+          ConcurrentTasks.map(distinctEntries, classpathCache::getIndex);
+      ImmutableMap.Builder<String, ClasspathEntryIndex> indexByEntry = ImmutableMap.builder();
+      for (int i = 0; i < distinctEntries.size(); i++) {
+        indexByEntry.put(distinctEntries.get(i), indexes.get(i));
+      }
+      packageInfoCacheStorage.set(new PackageInfoCache(indexByEntry.build(), problems));
+      return;
+    }
+
     // Constructs a URLClassLoader to do the dirty work of finding package-info.class files in the
     // classpath of the compile.
     List<URL> classPathUrls = new ArrayList<>();
@@ -125,10 +159,22 @@ public class PackageInfoCache {
   private final Problems problems;
   private final Map<String, PackageReport> packageReportBySpecificPackagePath = new HashMap<>();
   private final Map<String, PackageReport> packageReportByTypeName = new HashMap<>();
-  private final ClassLoader resourcesClassLoader;
+  @Nullable private final ClassLoader resourcesClassLoader;
+  /** The index of each class path entry, in class path order, when running indexed. */
+  @Nullable private final ImmutableMap<String, ClasspathEntryIndex> indexByClassPathEntry;
+  /** The first class path entry that contains each class file, built on first use. */
+  @Nullable private Map<String, String> originClassPathEntryByClassFilePath;
 
   private PackageInfoCache(ClassLoader resourcesClassLoader, Problems problems) {
     this.resourcesClassLoader = resourcesClassLoader;
+    this.indexByClassPathEntry = null;
+    this.problems = problems;
+  }
+
+  private PackageInfoCache(
+      ImmutableMap<String, ClasspathEntryIndex> indexByClassPathEntry, Problems problems) {
+    this.resourcesClassLoader = null;
+    this.indexByClassPathEntry = indexByClassPathEntry;
     this.problems = problems;
   }
 
@@ -172,7 +218,11 @@ public class PackageInfoCache {
     Annotation[] annotations = {};
     try {
       URLClassLoader entryClassLoader =
-          new URLClassLoader(new URL[] {new URL(classPathEntry)}, resourcesClassLoader);
+          new URLClassLoader(
+              new URL[] {new URL(classPathEntry)},
+              resourcesClassLoader != null
+                  ? resourcesClassLoader
+                  : PackageInfoCache.class.getClassLoader());
 
       // This find does not recurse up the class loader parent chain. We want to know if *exactly*
       // this class path entry contains the package-info class.
@@ -194,30 +244,65 @@ public class PackageInfoCache {
     return annotations;
   }
 
-  /** Returns the first classpath entry that provides class file for the given type. */
+  /**
+   * Returns the first classpath entry that provides class file for the given type.
+   *
+   * <p>When running indexed the answer is the same as the one from the class loader used otherwise,
+   * which first looks in the class path of the transpiler itself, and then in the class path
+   * entries, in order, skipping directories since their URLs are taken as archives.
+   */
   private String findOriginClassPathEntry(String typeName) {
     String classFilePath = typeName.replace(".", "/") + ".class";
 
+    if (indexByClassPathEntry != null) {
+      URL typeResource = PackageInfoCache.class.getClassLoader().getResource(classFilePath);
+      if (typeResource != null) {
+        return getClassPathEntry(typeResource, classFilePath);
+      }
+      return getOriginClassPathEntryByClassFilePath().get(classFilePath);
+    }
+
     URL typeResource = resourcesClassLoader.getResource(classFilePath);
     if (typeResource == null) {
       return null;
-    } else {
-      if (typeResource.getProtocol().equals("jrt")) {
-        // Java 9 SDK url, ignore for now.
-        // TODO(rluble): revisit when compiling under -source 9.
-        return null;
-      }
-      String resourcePath = typeResource.getFile();
-      String originClassPathEntry =
-          resourcePath.substring(0, resourcePath.length() - classFilePath.length());
-      if (originClassPathEntry.endsWith("/")) {
-        originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
-      }
-      if (originClassPathEntry.endsWith("!")) {
-        originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
-      }
-      return originClassPathEntry;
     }
+    return getClassPathEntry(typeResource, classFilePath);
+  }
+
+  private Map<String, String> getOriginClassPathEntryByClassFilePath() {
+    if (originClassPathEntryByClassFilePath == null) {
+      originClassPathEntryByClassFilePath = new HashMap<>();
+      indexByClassPathEntry.forEach(
+          (classPathEntry, index) -> {
+            if (new File(classPathEntry).isDirectory()) {
+              return;
+            }
+            for (String classFilePath : index.getClassFilePaths()) {
+              originClassPathEntryByClassFilePath.putIfAbsent(classFilePath, classPathEntry);
+            }
+          });
+    }
+    return originClassPathEntryByClassFilePath;
+  }
+
+  /** Returns the class path entry of a class file resource found by a class loader. */
+  @Nullable
+  private static String getClassPathEntry(URL typeResource, String classFilePath) {
+    if (typeResource.getProtocol().equals("jrt")) {
+      // Java 9 SDK url, ignore for now.
+      // TODO(rluble): revisit when compiling under -source 9.
+      return null;
+    }
+    String resourcePath = typeResource.getFile();
+    String originClassPathEntry =
+        resourcePath.substring(0, resourcePath.length() - classFilePath.length());
+    if (originClassPathEntry.endsWith("/")) {
+      originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
+    }
+    if (originClassPathEntry.endsWith("!")) {
+      originClassPathEntry = originClassPathEntry.substring(0, originClassPathEntry.length() - 1);
+    }
+    return originClassPathEntry;
   }
 
   private String getPackage(String topLevelTypeSourceName) {
@@ -256,12 +341,27 @@ public class PackageInfoCache {
 
   private void parsePackageInfo(
       String classPathEntry, String packagePath, String topLevelTypeSourceName) {
-    Annotation[] packageAnnotations = findBytecodePackageAnnotations(classPathEntry, packagePath);
+    // Types found in the class path of the transpiler itself are not in an indexed entry.
+    String packageJsNamespace =
+        indexByClassPathEntry != null && indexByClassPathEntry.containsKey(classPathEntry)
+            ? getIndexedPackageJsNamespace(classPathEntry, packagePath)
+            : getPackageJsNamespace(findBytecodePackageAnnotations(classPathEntry, packagePath));
 
-    setPackageJsNamespace(classPathEntry, packagePath, getPackageJsNamespace(packageAnnotations));
+    setPackageJsNamespace(classPathEntry, packagePath, packageJsNamespace);
     propagateSpecificInfo(classPathEntry, topLevelTypeSourceName);
   }
 
+  @Nullable
+  private String getIndexedPackageJsNamespace(String classPathEntry, String packagePath) {
+    ClasspathEntryIndex index = indexByClassPathEntry.get(classPathEntry);
+    if (index.hasUnreadablePackageInfo(packagePath)) {
+      problems.fatal(
+          FatalError.PACKAGE_INFO_PARSE,
+          OutputUtils.getPackageRelativePath(packagePath, "package-info.class"));
+    }
+    return index.getJsNamespace(packagePath);
+  }
+
   private static String getPackageJsNamespace(Annotation[] packageAnnotations) {
     if (packageAnnotations == null) {
       return null;
@@ -22,7 +22,6 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import com.google.common.base.Predicates;
 import com.google.common.collect.ComparisonChain;
 import com.google.common.collect.ImmutableList;
-import com.google.j2cl.common.FilePosition;
 import com.google.j2cl.common.SourcePosition;
 import com.google.j2cl.transpiler.ast.ArrayAccess;
 import com.google.j2cl.transpiler.ast.ArrayLength;
@@ -680,19 +679,9 @@ public class CompilationUnitBuilder extends AbstractCompilationUnitBuilder {
         .setFilePath(javacUnit.getSourceFile().getName())
         .setPackageRelativePath(getCurrentCompilationUnit().getPackageRelativePath())
         .setName(name)
-        .setStartFilePosition(
-            FilePosition.newBuilder()
-                .setLine(startLine)
-                .setColumn(startColumn)
-                .setByteOffset(startCharacterPosition)
-                .build())
-        .setEndFilePosition(
-            FilePosition.newBuilder()
-                .setLine(endLine)
-                // TODO(b/92372836): Document which character this should point to
-                .setColumn(endColumn)
-                .setByteOffset(endCharacterPosition + 1)
-                .build())
+        .setStartPosition(startLine, startColumn, startCharacterPosition)
+        // TODO(b/92372836): Document which character the end column should point to
+        .setEndPosition(endLine, endColumn, endCharacterPosition + 1)
         .build();
   }
 
@@ -47,6 +47,7 @@ import com.google.j2cl.transpiler.ast.TypeVariable;
 import com.google.j2cl.transpiler.ast.UnionTypeDescriptor;
 import com.google.j2cl.transpiler.ast.Variable;
 import com.google.j2cl.transpiler.ast.Visibility;
+import com.google.j2cl.transpiler.frontend.common.FrontendLock;
 import com.google.j2cl.transpiler.frontend.common.PackageInfoCache;
 import com.sun.tools.javac.code.Attribute.TypeCompound;
 import com.sun.tools.javac.code.Flags;
@@ -1044,33 +1045,38 @@ class JavaEnvironment {
             .setTypeDeclaration(typeDeclaration)
             .setEnclosingTypeDescriptor(createDeclaredTypeDescriptor(classType.getEnclosingType()))
             .setSuperTypeDescriptorFactory(
-                () ->
-                    createDeclaredTypeDescriptor(
-                        javacTypes.directSupertypes(classType).stream()
-                            .filter(Predicates.not(Type::isInterface))
-                            .findFirst()
-                            .orElse(null)))
+                FrontendLock.guard(
+                    () ->
+                        createDeclaredTypeDescriptor(
+                            javacTypes.directSupertypes(classType).stream()
+                                .filter(Predicates.not(Type::isInterface))
+                                .findFirst()
+                                .orElse(null))))
             .setInterfaceTypeDescriptorsFactory(
-                td ->
-                    createTypeDescriptors(
-                        javacTypes.directSupertypes(classType).stream()
-                            .filter(Type::isInterface)
-                            .collect(toImmutableList()),
-                        DeclaredTypeDescriptor.class))
+                FrontendLock.guard(
+                    td ->
+                        createTypeDescriptors(
+                            javacTypes.directSupertypes(classType).stream()
+                                .filter(Type::isInterface)
+                                .collect(toImmutableList()),
+                            DeclaredTypeDescriptor.class)))
             .setSingleAbstractMethodDescriptorFactory(
-                td -> {
-                  MethodSymbol functionalInterfaceMethod = getFunctionalInterfaceMethod(classType);
-                  return createMethodDescriptor(
-                      td,
-                      (MethodSymbol)
-                          functionalInterfaceMethod.asMemberOf(
-                              ((ClassSymbol) classType.asElement()).asType(), internalTypes),
-                      getFunctionalInterfaceMethodDecl(classType));
-                })
-            .setJsFunctionMethodDescriptorFactory(() -> getJsFunctionMethodDescriptor(classType))
+                FrontendLock.guard(
+                    td -> {
+                      MethodSymbol functionalInterfaceMethod =
+                          getFunctionalInterfaceMethod(classType);
+                      return createMethodDescriptor(
+                          td,
+                          (MethodSymbol)
+                              functionalInterfaceMethod.asMemberOf(
+                                  ((ClassSymbol) classType.asElement()).asType(), internalTypes),
+                          getFunctionalInterfaceMethodDecl(classType));
+                    }))
+            .setJsFunctionMethodDescriptorFactory(
+                FrontendLock.guard(() -> getJsFunctionMethodDescriptor(classType)))
             .setTypeArgumentDescriptors(createTypeDescriptors(getTypeArguments(classType)))
-            .setDeclaredFieldDescriptorsFactory(declaredFields)
-            .setDeclaredMethodDescriptorsFactory(declaredMethods)
+            .setDeclaredFieldDescriptorsFactory(FrontendLock.guard(declaredFields))
+            .setDeclaredMethodDescriptorsFactory(FrontendLock.guard(declaredMethods))
             .build();
     cachedDeclaredTypeDescriptorByDeclaredType.put(classType, typeDescriptor);
     return typeDescriptor;
@@ -1175,11 +1181,25 @@ class JavaEnvironment {
     return null;
   }
 
+  private final Map<TypeElement, TypeDeclaration> cachedTypeDeclarationByTypeElement =
+      new HashMap<>();
+
   TypeDeclaration createDeclarationForType(final TypeElement typeElement) {
     if (typeElement == null) {
       return null;
     }
 
+    // Every parameterization of a type shares its declaration, which is only built once.
+    TypeDeclaration cachedTypeDeclaration = cachedTypeDeclarationByTypeElement.get(typeElement);
+    if (cachedTypeDeclaration != null) {
+      return cachedTypeDeclaration;
+    }
+    TypeDeclaration typeDeclaration = createDeclarationForTypeUncached(typeElement);
+    cachedTypeDeclarationByTypeElement.put(typeElement, typeDeclaration);
+    return typeDeclaration;
+  }
+
+  private TypeDeclaration createDeclarationForTypeUncached(final TypeElement typeElement) {
     PackageInfoCache packageInfoCache = PackageInfoCache.get();
 
     boolean isFromSource = ((ClassSymbol) typeElement).classfile == null;
@@ -1229,15 +1249,26 @@ class JavaEnvironment {
 
     List<TypeParameterElement> typeParameterElements = getTypeParameters(typeElement);
 
+    Supplier<String> customizedJsNamespace;
+    if (isFromSource) {
+      String jsNamespace = getJsNamespace(typeElement, packageInfoCache);
+      customizedJsNamespace = () -> jsNamespace;
+    } else {
+      // Types from the classpath only look up their package-info if the namespace is needed.
+      customizedJsNamespace =
+          FrontendLock.guard(() -> getJsNamespace(typeElement, packageInfoCache));
+    }
+
     return TypeDeclaration.newBuilder()
         .setClassComponents(getClassComponents(typeElement))
         .setEnclosingTypeDeclaration(createDeclarationForType(getEnclosingType(typeElement)))
         .setInterfaceTypeDescriptorsFactory(
-            () ->
-                createTypeDescriptors(
-                    typeElement.getInterfaces(), DeclaredTypeDescriptor.class, typeElement))
+            FrontendLock.guard(
+                () ->
+                    createTypeDescriptors(
+                        typeElement.getInterfaces(), DeclaredTypeDescriptor.class, typeElement)))
         .setUnparameterizedTypeDescriptorFactory(
-            () -> createDeclaredTypeDescriptor(typeElement.asType()))
+            FrontendLock.guard(() -> createDeclaredTypeDescriptor(typeElement.asType())))
         .setHasAbstractModifier(isAbstract)
         .setKind(getKindFromTypeBinding(typeElement))
         .setCapturingEnclosingInstance(capturesEnclosingInstance((ClassSymbol) typeElement))
@@ -1250,16 +1281,18 @@ class JavaEnvironment {
         .setAnonymous(isAnonymous(typeElement))
         .setLocal(isLocal(typeElement))
         .setSimpleJsName(getJsName(typeElement))
-        .setCustomizedJsNamespace(getJsNamespace(typeElement, packageInfoCache))
+        .setCustomizedJsNamespaceFactory(customizedJsNamespace)
         .setPackageName(packageName)
         .setSuperTypeDescriptorFactory(
-            () ->
-                (DeclaredTypeDescriptor)
-                    applyNullabilityAnnotations(
-                        createDeclaredTypeDescriptor(typeElement.getSuperclass()),
-                        typeElement,
-                        position ->
-                            position.type == TargetType.CLASS_EXTENDS && position.type_index == -1))
+            FrontendLock.guard(
+                () ->
+                    (DeclaredTypeDescriptor)
+                        applyNullabilityAnnotations(
+                            createDeclaredTypeDescriptor(typeElement.getSuperclass()),
+                            typeElement,
+                            position ->
+                                position.type == TargetType.CLASS_EXTENDS
+                                    && position.type_index == -1)))
         .setTypeParameterDescriptors(
             typeParameterElements.stream()
                 .map(TypeParameterElement::asType)
@@ -1267,8 +1300,8 @@ class JavaEnvironment {
                 .map(this::createTypeVariable)
                 .collect(Collectors.toList()))
         .setVisibility(getVisibility(typeElement))
-        .setDeclaredMethodDescriptorsFactory(declaredMethods)
-        .setDeclaredFieldDescriptorsFactory(declaredFields)
+        .setDeclaredMethodDescriptorsFactory(FrontendLock.guard(declaredMethods))
+        .setDeclaredFieldDescriptorsFactory(FrontendLock.guard(declaredFields))
         .setUnusableByJsSuppressed(JsInteropAnnotationUtils.isUnusableByJsSuppressed(typeElement))
         .setDeprecated(isDeprecated(typeElement))
         .build();
@@ -23,6 +23,7 @@ import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.SourceUtils.FileInfo;
 import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
 import com.google.j2cl.transpiler.frontend.common.FrontendConstants;
 import com.sun.source.tree.CompilationUnitTree;
 import com.sun.tools.javac.api.JavacTaskImpl;
@@ -35,6 +36,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import javax.tools.Diagnostic;
 import javax.tools.Diagnostic.Kind;
 import javax.tools.DiagnosticCollector;
@@ -50,11 +52,26 @@ import javax.tools.ToolProvider;
 public class JavacParser {
   private final Problems problems;
   private final List<String> classpathEntries;
+  @Nullable private final ClasspathCache classpathCache;
+  @Nullable private final String classpathKey;
 
   /** Create and initialize a JavacParser based on passed parameters. */
   public JavacParser(List<String> classpathEntries, Problems problems) {
+    this(classpathEntries, null, null, problems);
+  }
 
+  /**
+   * Create and initialize a JavacParser that reuses the javac state of previous transpilations with
+   * the classpath identified by {@code classpathKey}.
+   */
+  public JavacParser(
+      List<String> classpathEntries,
+      @Nullable ClasspathCache classpathCache,
+      @Nullable String classpathKey,
+      Problems problems) {
     this.classpathEntries = ImmutableList.copyOf(classpathEntries);
+    this.classpathCache = classpathCache;
+    this.classpathKey = classpathKey;
     this.problems = problems;
   }
 
@@ -70,31 +87,21 @@ public class JavacParser {
     final Map<String, String> targetPathBySourcePath =
         filePaths.stream().collect(Collectors.toMap(FileInfo::sourcePath, FileInfo::targetPath));
 
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    ReusableJavacContext javacContext = null;
+    boolean completed = false;
     try {
-      JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
       DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
-      JavacFileManager fileManager =
-          (JavacFileManager)
-              compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
-      List<File> searchpath = classpathEntries.stream().map(File::new).collect(toList());
-      fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, searchpath);
-      fileManager.setLocation(StandardLocation.CLASS_PATH, searchpath);
+      javacContext = getJavacContext(compiler, needsModulePatching(filePaths));
       JavacTaskImpl task =
-          (JavacTaskImpl)
-              compiler.getTask(
-                  null,
-                  fileManager,
-                  diagnostics,
-                  // TODO(b/143213486): Figure out how to make the pipeline work with the module
-                  // system.
-                  ImmutableList.of(
-                      "--patch-module",
-                      "java.base=.",
-                      // Allow JRE classes are allowed to depend on the jsinterop annotations
-                      "--add-reads",
-                      "java.base=ALL-UNNAMED"),
-                  null,
-                  fileManager.getJavaFileObjectsFromFiles(
+          javacContext.createTask(
+              compiler,
+              diagnostics,
+              // Allow JRE classes are allowed to depend on the jsinterop annotations
+              ImmutableList.of("--add-reads", "java.base=ALL-UNNAMED"),
+              javacContext
+                  .getFileManager()
+                  .getJavaFileObjectsFromFiles(
                       targetPathBySourcePath.keySet().stream().map(File::new).collect(toList())));
       List<CompilationUnitTree> javacCompilationUnits = Lists.newArrayList(task.parse());
       task.analyze();
@@ -107,11 +114,72 @@ public class JavacParser {
       List<CompilationUnit> compilationUnits =
           CompilationUnitBuilder.build(javacCompilationUnits, javaEnvironment);
 
+      completed = true;
       return compilationUnits;
     } catch (IOException e) {
       problems.fatal(FatalError.valueOf(e.getMessage()));
       return null;
+    } finally {
+      if (!completed && javacContext != null) {
+        // A context that saw errors might hold partially attributed symbols.
+        javacContext.discardContext();
+      }
+    }
+  }
+
+  /**
+   * Returns whether the sources are part of the JRE, in which case they need to be compiled as part
+   * of the java.base module.
+   */
+  private static boolean needsModulePatching(List<FileInfo> filePaths) {
+    return filePaths.stream()
+        .map(FileInfo::targetPath)
+        .anyMatch(path -> path.startsWith("java/") || path.contains("/java/"));
+  }
+
+  /**
+   * Returns the javac state for the classpath, which keeps the classpath archives it opens indexed
+   * and, in a worker, the symbol tables for as long as it lives.
+   *
+   * <p>The module patching is configured on the file manager rather than passed as a task option,
+   * since javac rejects a task that patches a module the file manager already patches, which is
+   * the case for any file manager reused from a previous transpilation.
+   */
+  private ReusableJavacContext getJavacContext(JavaCompiler compiler, boolean patchModule)
+      throws IOException {
+    if (classpathCache == null) {
+      // Outside of a worker the sources are always compiled as part of java.base, as they always
+      // have been.
+      return new ReusableJavacContext(compiler, createFileManager(compiler, true), false);
+    }
+
+    String key = patchModule ? classpathKey + ":patched" : classpathKey;
+    ReusableJavacContext javacContext =
+        classpathCache.takeIdleResource(key, ReusableJavacContext.class);
+    if (javacContext == null) {
+      // Contexts that had java.base patched cannot be reused, only their file managers.
+      javacContext =
+          new ReusableJavacContext(
+              compiler, createFileManager(compiler, patchModule), !patchModule);
+      classpathCache.addResource(key, ReusableJavacContext.class, javacContext);
+    }
+    return javacContext;
+  }
+
+  private JavacFileManager createFileManager(JavaCompiler compiler, boolean patchModule)
+      throws IOException {
+    // Diagnostics are reported to the listener of each task rather than to the file manager, which
+    // might outlive this transpilation.
+    JavacFileManager fileManager =
+        (JavacFileManager) compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    List<File> searchpath = classpathEntries.stream().map(File::new).collect(toList());
+    fileManager.setLocation(StandardLocation.PLATFORM_CLASS_PATH, searchpath);
+    fileManager.setLocation(StandardLocation.CLASS_PATH, searchpath);
+    if (patchModule) {
+      // TODO(b/143213486): Figure out how to make the pipeline work with the module system.
+      fileManager.handleOption("--patch-module", ImmutableList.of("java.base=.").iterator());
     }
+    return fileManager;
   }
 
   private boolean hasErrors(
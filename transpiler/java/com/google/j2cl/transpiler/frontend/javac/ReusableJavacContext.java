@@ -0,0 +1,215 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.javac;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.file.JavacFileManager;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import javax.tools.DiagnosticListener;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+
+/**
+ * The javac state set up for a classpath, which is reused by the transpilations with the same
+ * classpath that run in a persistent worker.
+ *
+ * <p>The file manager keeps the classpath archives open and indexed. The compiler context keeps the
+ * symbol tables, with the classpath symbols completed so far and the well-known types, and is
+ * reused through javac's task pool, which clears the symbols of the sources after each task.
+ * Contexts are not reused when the sources are compiled as part of java.base: javac cannot undo
+ * the changes that patching a module makes to the symbol tables, and the pool discards such
+ * contexts anyway.
+ *
+ * <p>The task pool is only available from JDK 10 on, while the transpiler is built against the
+ * javac 9 API, so it is accessed reflectively; on older JDKs contexts are just not reused.
+ *
+ * <p>The descriptors built from a context keep completing symbols on demand for the rest of the
+ * transpilation, so a task stays valid until {@link #release} is called when the transpilation
+ * ends. The pool clears the context as soon as the worker it runs returns, hence the worker runs in
+ * its own thread and waits for the release.
+ */
+final class ReusableJavacContext implements ClasspathCache.ReusableResource {
+  private final JavacFileManager fileManager;
+  @Nullable private final TaskPool taskPool;
+  @Nullable private Thread taskThread;
+  @Nullable private CountDownLatch taskReleased;
+  private volatile boolean discardContext;
+
+  ReusableJavacContext(
+      JavaCompiler compiler, JavacFileManager fileManager, boolean reuseContexts) {
+    this.fileManager = fileManager;
+    this.taskPool = reuseContexts ? TaskPool.create(compiler) : null;
+  }
+
+  JavacFileManager getFileManager() {
+    return fileManager;
+  }
+
+  /** Creates a task that compiles {@code sources}, in a context from previous tasks if possible. */
+  JavacTaskImpl createTask(
+      JavaCompiler compiler,
+      DiagnosticListener<? super JavaFileObject> diagnosticListener,
+      List<String> options,
+      Iterable<? extends JavaFileObject> sources) {
+    if (taskPool == null) {
+      return (JavacTaskImpl)
+          compiler.getTask(null, fileManager, diagnosticListener, options, null, sources);
+    }
+
+    checkState(taskThread == null, "The previous task has not been released.");
+    CompletableFuture<JavacTaskImpl> task = new CompletableFuture<>();
+    CountDownLatch released = new CountDownLatch(1);
+    discardContext = false;
+    taskThread =
+        new Thread(
+            () -> {
+              try {
+                taskPool.runTask(
+                    fileManager,
+                    diagnosticListener,
+                    options,
+                    sources,
+                    t -> {
+                      task.complete(t);
+                      Uninterruptibles.awaitUninterruptibly(released);
+                      if (discardContext) {
+                        // The pool does not return the context of a task that failed.
+                        throw new IllegalStateException("The task did not complete.");
+                      }
+                    });
+              } catch (RuntimeException e) {
+                task.completeExceptionally(e);
+              }
+            },
+            "j2cl-javac-task");
+    taskThread.setDaemon(true);
+    taskThread.start();
+    taskReleased = released;
+    return Futures.getUnchecked(task);
+  }
+
+  /** Makes sure the context of the current task is not reused, e.g. since the task crashed. */
+  void discardContext() {
+    discardContext = true;
+  }
+
+  @Override
+  public void release() {
+    if (taskThread == null) {
+      return;
+    }
+    taskReleased.countDown();
+    // Wait for the pool to clear the context so that it is ready for the next transpilation.
+    Uninterruptibles.joinUninterruptibly(taskThread);
+    taskThread = null;
+    taskReleased = null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    release();
+    fileManager.close();
+  }
+
+  /** Reflective access to {@code com.sun.tools.javac.api.JavacTaskPool}. */
+  private static final class TaskPool {
+    private static final String POOL_CLASS_NAME = "com.sun.tools.javac.api.JavacTaskPool";
+
+    private final Object pool;
+    private final Method getTaskMethod;
+    private final Class<?> workerInterface;
+
+    /** Creates a pool of one context, or returns null if the JDK does not provide task pools. */
+    @Nullable
+    static TaskPool create(JavaCompiler compiler) {
+      ClassLoader classLoader = compiler.getClass().getClassLoader();
+      try {
+        Class<?> poolClass = Class.forName(POOL_CLASS_NAME, true, classLoader);
+        Class<?> workerInterface = Class.forName(POOL_CLASS_NAME + "$Worker", true, classLoader);
+        Method getTaskMethod =
+            poolClass.getMethod(
+                "getTask",
+                Writer.class,
+                JavaFileManager.class,
+                DiagnosticListener.class,
+                Iterable.class,
+                Iterable.class,
+                Iterable.class,
+                workerInterface);
+        return new TaskPool(
+            poolClass.getConstructor(int.class).newInstance(1), getTaskMethod, workerInterface);
+      } catch (ReflectiveOperationException e) {
+        return null;
+      }
+    }
+
+    private TaskPool(Object pool, Method getTaskMethod, Class<?> workerInterface) {
+      this.pool = pool;
+      this.getTaskMethod = getTaskMethod;
+      this.workerInterface = workerInterface;
+    }
+
+    /**
+     * Runs {@code worker} with a task in a pooled context, which is returned to the pool when the
+     * worker returns normally.
+     */
+    void runTask(
+        JavacFileManager fileManager,
+        DiagnosticListener<? super JavaFileObject> diagnosticListener,
+        List<String> options,
+        Iterable<? extends JavaFileObject> sources,
+        Consumer<JavacTaskImpl> worker) {
+      InvocationHandler handler =
+          (proxy, method, args) -> {
+            // withTask is the only abstract method of the worker interface.
+            if (!method.getName().equals("withTask")) {
+              throw new UnsupportedOperationException(method.getName());
+            }
+            worker.accept((JavacTaskImpl) args[0]);
+            return null;
+          };
+      Object workerProxy =
+          Proxy.newProxyInstance(
+              workerInterface.getClassLoader(), new Class<?>[] {workerInterface}, handler);
+      try {
+        getTaskMethod.invoke(
+            pool, null, fileManager, diagnosticListener, options, null, sources, workerProxy);
+      } catch (InvocationTargetException e) {
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IllegalStateException(e.getCause());
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -15,23 +15,45 @@
  */
 package com.google.j2cl.transpiler.frontend.jdt;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.math.RoundingMode.CEILING;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.common.math.IntMath;
+import com.google.common.util.concurrent.Futures;
 import com.google.j2cl.common.Problems;
 import com.google.j2cl.common.Problems.FatalError;
 import com.google.j2cl.common.SourceUtils.FileInfo;
 import com.google.j2cl.transpiler.frontend.common.FrontendConstants;
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.eclipse.jdt.core.BindingKey;
 import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.ToolFactory;
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.compiler.IScanner;
+import org.eclipse.jdt.core.compiler.ITerminalSymbols;
+import org.eclipse.jdt.core.compiler.InvalidInputException;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
@@ -47,26 +69,148 @@ public class JdtParser {
   private static final String JAVA_VERSION = JavaCore.VERSION_11;
   private static final int AST_JLS_VERSION = AST.JLS11;
 
+  /** The minimum number of files worth parsing in a shard of their own. */
+  private static final int MIN_FILES_PER_SHARD = 100;
+
   private final Problems problems;
   private final Map<String, String> compilerOptions = new HashMap<>();
   private final List<String> classpathEntries;
+  private final int maxNumberOfShards;
+  private final int minFilesPerShard;
 
   /** Create and initialize a JdtParser based on passed parameters. */
   public JdtParser(List<String> classpathEntries, Problems problems) {
+    this(classpathEntries, /* maxNumberOfShards= */ 1, problems);
+  }
+
+  /**
+   * Create and initialize a JdtParser that parses and resolves the files in up to {@code
+   * maxNumberOfShards} shards concurrently.
+   */
+  public JdtParser(List<String> classpathEntries, int maxNumberOfShards, Problems problems) {
+    this(classpathEntries, maxNumberOfShards, MIN_FILES_PER_SHARD, problems);
+  }
+
+  /**
+   * Create and initialize a JdtParser that parses and resolves the files in up to {@code
+   * maxNumberOfShards} shards of at least {@code minFilesPerShard} files concurrently.
+   */
+  public JdtParser(
+      List<String> classpathEntries,
+      int maxNumberOfShards,
+      int minFilesPerShard,
+      Problems problems) {
     compilerOptions.put(JavaCore.COMPILER_SOURCE, JAVA_VERSION);
     compilerOptions.put(JavaCore.COMPILER_CODEGEN_TARGET_PLATFORM, JAVA_VERSION);
     compilerOptions.put(JavaCore.COMPILER_COMPLIANCE, JAVA_VERSION);
 
+    checkArgument(maxNumberOfShards > 0);
+    checkArgument(minFilesPerShard > 0);
     this.classpathEntries = ImmutableList.copyOf(classpathEntries);
+    this.maxNumberOfShards = maxNumberOfShards;
+    this.minFilesPerShard = minFilesPerShard;
     this.problems = problems;
   }
 
   /** Returns a map from file paths to compilation units after JDT parsing. */
   public CompilationUnitsAndTypeBindings parseFiles(
       List<FileInfo> filePaths, boolean useTargetPath) {
+    int numberOfShards = Math.min(maxNumberOfShards, filePaths.size() / minFilesPerShard);
+    if (numberOfShards > 1) {
+      CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
+          parseFilesInShards(filePaths, useTargetPath, numberOfShards);
+      if (compilationUnitsAndTypeBindings != null) {
+        return compilationUnitsAndTypeBindings;
+      }
+      // Parse all the files together, which reports the problems exactly as usual.
+    }
+    return parseFiles(
+        filePaths,
+        useTargetPath,
+        /* sourcepathEntries= */ new String[0],
+        /* resolveWellKnownTypes= */ true,
+        problems);
+  }
+
+  /**
+   * Parses and resolves the files in shards concurrently, or returns null if any of the shards
+   * could not be resolved on its own.
+   *
+   * <p>Each shard only resolves the bodies of its own files and finds the types declared in the
+   * files of the other shards through a sourcepath that mirrors the package structure of the
+   * sources. Types that can not be found that way, like the secondary top level types of a file,
+   * result in errors in which case the caller parses all the files together instead.
+   *
+   * <p>Shards are contiguous slices of the sources, so merging them in order yields the
+   * compilation units in the same order as parsing all the files together.
+   */
+  @Nullable
+  private CompilationUnitsAndTypeBindings parseFilesInShards(
+      List<FileInfo> filePaths, boolean useTargetPath, int numberOfShards) {
+    Path sourcepath = createSourcepath(filePaths);
+    if (sourcepath == null) {
+      return null;
+    }
+
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(
+            Math.min(numberOfShards, Runtime.getRuntime().availableProcessors()));
+    try {
+      List<Future<CompilationUnitsAndTypeBindings>> results = new ArrayList<>();
+      for (List<FileInfo> shard :
+          Lists.partition(filePaths, IntMath.divide(filePaths.size(), numberOfShards, CEILING))) {
+        boolean isFirstShard = results.isEmpty();
+        results.add(
+            executorService.submit(
+                () -> {
+                  // Problems are only reported if the files are parsed together.
+                  Problems shardProblems = new Problems();
+                  try {
+                    CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
+                        parseFiles(
+                            shard,
+                            useTargetPath,
+                            new String[] {sourcepath.toString()},
+                            /* resolveWellKnownTypes= */ isFirstShard,
+                            shardProblems);
+                    return shardProblems.hasErrors() ? null : compilationUnitsAndTypeBindings;
+                  } catch (Problems.Exit e) {
+                    return null;
+                  }
+                }));
+      }
+
+      Map<String, CompilationUnit> compilationUnitsByFilePath = new LinkedHashMap<>();
+      Iterable<ITypeBinding> wellKnownTypeBindings = null;
+      for (Future<CompilationUnitsAndTypeBindings> result : results) {
+        CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings =
+            Futures.getUnchecked(result);
+        if (compilationUnitsAndTypeBindings == null) {
+          return null;
+        }
+        compilationUnitsByFilePath.putAll(
+            compilationUnitsAndTypeBindings.getCompilationUnitsByFilePath());
+        if (wellKnownTypeBindings == null) {
+          wellKnownTypeBindings = compilationUnitsAndTypeBindings.getTypeBindings();
+        }
+      }
+      return new CompilationUnitsAndTypeBindings(
+          compilationUnitsByFilePath, wellKnownTypeBindings);
+    } finally {
+      executorService.shutdownNow();
+      deleteSourcepath(sourcepath);
+    }
+  }
+
+  private CompilationUnitsAndTypeBindings parseFiles(
+      List<FileInfo> filePaths,
+      boolean useTargetPath,
+      String[] sourcepathEntries,
+      boolean resolveWellKnownTypes,
+      Problems problems) {
 
     // Parse and create a compilation unit for every file.
-    ASTParser parser = newASTParser(true);
+    ASTParser parser = newASTParser(true, sourcepathEntries);
 
     // The map must be ordered because it will be iterated over later and if it was not ordered then
     // our output would be unstable
@@ -79,7 +223,7 @@ public class JdtParser {
         new FileASTRequestor() {
           @Override
           public void acceptAST(String filePath, CompilationUnit compilationUnit) {
-            if (compilationHasErrors(filePath, compilationUnit)) {
+            if (compilationHasErrors(filePath, compilationUnit, problems)) {
               return;
             }
             String filePathKey = filePath;
@@ -101,32 +245,122 @@ public class JdtParser {
             .filter(f -> !f.endsWith("module-info.java"))
             .toArray(String[]::new),
         getEncodings(filePaths.size()),
-        FrontendConstants.REQUIRED_QUALIFIED_BINARY_NAMES.stream()
-            .map(BindingKey::createTypeBindingKey)
-            .toArray(String[]::new),
+        resolveWellKnownTypes
+            ? FrontendConstants.REQUIRED_QUALIFIED_BINARY_NAMES.stream()
+                .map(BindingKey::createTypeBindingKey)
+                .toArray(String[]::new)
+            : new String[0],
         astRequestor,
         null);
     return new CompilationUnitsAndTypeBindings(compilationUnitsByFilePath, wellKnownTypeBindings);
   }
 
-  private ASTParser newASTParser(boolean resolveBinding) {
+  /**
+   * Creates a directory that links to each source file from the path that corresponds to its
+   * package, or returns null if that is not possible.
+   */
+  @Nullable
+  private static Path createSourcepath(List<FileInfo> filePaths) {
+    Path sourcepath = null;
+    try {
+      sourcepath = Files.createTempDirectory("j2cl_sourcepath");
+      for (FileInfo fileInfo : filePaths) {
+        Path sourcePath = Paths.get(fileInfo.sourcePath()).toAbsolutePath();
+        String packageName = getPackageName(sourcePath);
+        if (packageName == null) {
+          deleteSourcepath(sourcepath);
+          return null;
+        }
+        Path linkPath =
+            sourcepath
+                .resolve(packageName.replace('.', File.separatorChar))
+                .resolve(sourcePath.getFileName().toString());
+        Files.createDirectories(linkPath.getParent());
+        // Fails if two files would end up in the same path.
+        Files.createSymbolicLink(linkPath, sourcePath);
+      }
+      return sourcepath;
+    } catch (IOException | UnsupportedOperationException e) {
+      if (sourcepath != null) {
+        deleteSourcepath(sourcepath);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Returns the package declared by the file, the empty string for the default package or null if
+   * the file can not be scanned.
+   */
+  @Nullable
+  private static String getPackageName(Path path) throws IOException {
+    IScanner scanner =
+        ToolFactory.createScanner(
+            /* tokenizeComments= */ false,
+            /* tokenizeWhiteSpace= */ false,
+            /* recordLineSeparator= */ false,
+            JAVA_VERSION);
+    scanner.setSource(new String(Files.readAllBytes(path), UTF_8).toCharArray());
+    try {
+      while (true) {
+        switch (scanner.getNextToken()) {
+          case ITerminalSymbols.TokenNamepackage:
+            StringBuilder packageName = new StringBuilder();
+            for (int token = scanner.getNextToken();
+                token != ITerminalSymbols.TokenNameSEMICOLON;
+                token = scanner.getNextToken()) {
+              if (token == ITerminalSymbols.TokenNameEOF) {
+                return null;
+              }
+              packageName.append(scanner.getCurrentTokenSource());
+            }
+            return packageName.toString();
+          case ITerminalSymbols.TokenNameimport:
+          case ITerminalSymbols.TokenNameclass:
+          case ITerminalSymbols.TokenNameinterface:
+          case ITerminalSymbols.TokenNameenum:
+          case ITerminalSymbols.TokenNameEOF:
+            return "";
+          default:
+            // Annotations and modifiers might precede the declaration.
+            break;
+        }
+      }
+    } catch (InvalidInputException e) {
+      return null;
+    }
+  }
+
+  private static void deleteSourcepath(Path sourcepath) {
+    try {
+      MoreFiles.deleteRecursively(sourcepath, RecursiveDeleteOption.ALLOW_INSECURE);
+    } catch (IOException e) {
+      // The directory only holds links and is in the temporary directory, no need to fail.
+    }
+  }
+
+  private ASTParser newASTParser(boolean resolveBinding, String[] sourcepathEntries) {
     ASTParser parser = ASTParser.newParser(AST_JLS_VERSION);
 
     parser.setCompilerOptions(compilerOptions);
     parser.setResolveBindings(resolveBinding);
     parser.setBindingsRecovery(true);
     parser.setEnvironment(
-        Iterables.toArray(classpathEntries, String.class), new String[0], new String[0], false);
+        Iterables.toArray(classpathEntries, String.class),
+        sourcepathEntries,
+        getEncodings(sourcepathEntries.length),
+        false);
     return parser;
   }
 
-  private String[] getEncodings(int length) {
+  private static String[] getEncodings(int length) {
     String[] encodings = new String[length];
     Arrays.fill(encodings, StandardCharsets.UTF_8.name());
     return encodings;
   }
 
-  private boolean compilationHasErrors(String filename, CompilationUnit unit) {
+  private static boolean compilationHasErrors(
+      String filename, CompilationUnit unit, Problems problems) {
     boolean hasErrors = false;
     // Here we check for instances of @GwtIncompatible in the ast. If that is the case, we throw an
     // error since these should have been stripped by the build system already.
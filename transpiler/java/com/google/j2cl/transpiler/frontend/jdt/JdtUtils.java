@@ -23,6 +23,7 @@ import com.google.common.collect.FluentIterable;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.j2cl.common.InternalCompilerError;
+import com.google.j2cl.common.ScopedThreadLocal;
 import com.google.j2cl.common.SourcePosition;
 import com.google.j2cl.transpiler.ast.ArrayLength;
 import com.google.j2cl.transpiler.ast.ArrayTypeDescriptor;
@@ -48,6 +49,7 @@ import com.google.j2cl.transpiler.ast.TypeDescriptors;
 import com.google.j2cl.transpiler.ast.TypeVariable;
 import com.google.j2cl.transpiler.ast.Variable;
 import com.google.j2cl.transpiler.ast.Visibility;
+import com.google.j2cl.transpiler.frontend.common.FrontendLock;
 import com.google.j2cl.transpiler.frontend.common.PackageInfoCache;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
@@ -836,14 +838,17 @@ class JdtUtils {
       overriddenMethods.addAll(getOverriddenMethodsInType(methodBinding, interfaceBinding));
     }
 
+    // Note that java.lang.Object is resolved in the environment of the last unit converted, which
+    // is not necessarily the one of the method when the sources are parsed in shards; hence types
+    // are compared by name instead of by identity.
     ITypeBinding javaLangObjectTypeBinding = JdtUtils.javaLangObjectTypeBinding.get();
-    if (typeBinding != javaLangObjectTypeBinding) {
+    if (!typeBinding.getQualifiedName().equals(javaLangObjectTypeBinding.getQualifiedName())) {
       for (IMethodBinding objectMethodBinding : javaLangObjectTypeBinding.getDeclaredMethods()) {
         if (!isPolymorphic(objectMethodBinding)) {
           continue;
         }
         checkState(!getVisibility(objectMethodBinding).isPackagePrivate());
-        if (methodBinding.isSubsignature(objectMethodBinding)) {
+        if (isSubsignatureOfObjectMethod(methodBinding, objectMethodBinding)) {
           overriddenMethods.add(objectMethodBinding);
         }
       }
@@ -852,6 +857,32 @@ class JdtUtils {
     return overriddenMethods;
   }
 
+  /**
+   * Returns whether {@code methodBinding} is a subsignature of the method of java.lang.Object
+   * {@code objectMethodBinding}, possibly from a different environment.
+   *
+   * <p>Since the methods of java.lang.Object are not generic, that is the case iff both methods
+   * have the same signature, which is checked comparing the types by key.
+   */
+  private static boolean isSubsignatureOfObjectMethod(
+      IMethodBinding methodBinding, IMethodBinding objectMethodBinding) {
+    if (!methodBinding.getName().equals(objectMethodBinding.getName())
+        || methodBinding.getTypeParameters().length != 0) {
+      return false;
+    }
+    ITypeBinding[] parameterTypes = methodBinding.getParameterTypes();
+    ITypeBinding[] objectMethodParameterTypes = objectMethodBinding.getParameterTypes();
+    if (parameterTypes.length != objectMethodParameterTypes.length) {
+      return false;
+    }
+    for (int i = 0; i < parameterTypes.length; i++) {
+      if (!parameterTypes[i].getKey().equals(objectMethodParameterTypes[i].getKey())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static boolean isPolymorphic(IMethodBinding methodBinding) {
     return !methodBinding.isConstructor()
         && !isStatic(methodBinding)
@@ -911,7 +942,8 @@ class JdtUtils {
     return createTypeDescriptors(Arrays.asList(typeBindings), clazz);
   }
 
-  private static ThreadLocal<ITypeBinding> javaLangObjectTypeBinding = new ThreadLocal<>();
+  private static final ScopedThreadLocal<ITypeBinding> javaLangObjectTypeBinding =
+      new ScopedThreadLocal<>();
 
   public static void initWellKnownTypes(AST ast, Iterable<ITypeBinding> typeBindings) {
     javaLangObjectTypeBinding.set(ast.resolveWellKnownType("java.lang.Object"));
@@ -976,32 +1008,38 @@ class JdtUtils {
             .setEnclosingTypeDescriptor(
                 createDeclaredTypeDescriptor(typeBinding.getDeclaringClass()))
             .setInterfaceTypeDescriptorsFactory(
-                () ->
-                    createTypeDescriptors(
-                        typeBinding.getInterfaces(), DeclaredTypeDescriptor.class))
+                FrontendLock.guard(
+                    () ->
+                        createTypeDescriptors(
+                            typeBinding.getInterfaces(), DeclaredTypeDescriptor.class)))
             .setSingleAbstractMethodDescriptorFactory(
-                () -> createMethodDescriptor(typeBinding.getFunctionalInterfaceMethod()))
-            .setJsFunctionMethodDescriptorFactory(() -> getJsFunctionMethodDescriptor(typeBinding))
+                FrontendLock.guard(
+                    () -> createMethodDescriptor(typeBinding.getFunctionalInterfaceMethod())))
+            .setJsFunctionMethodDescriptorFactory(
+                FrontendLock.guard(() -> getJsFunctionMethodDescriptor(typeBinding)))
             .setSuperTypeDescriptorFactory(
-                () -> createDeclaredTypeDescriptor(typeBinding.getSuperclass()))
+                FrontendLock.guard(
+                    () -> createDeclaredTypeDescriptor(typeBinding.getSuperclass())))
             .setTypeArgumentDescriptors(getTypeArgumentTypeDescriptors(typeBinding))
-            .setDeclaredFieldDescriptorsFactory(declaredFields)
-            .setDeclaredMethodDescriptorsFactory(declaredMethods)
+            .setDeclaredFieldDescriptorsFactory(FrontendLock.guard(declaredFields))
+            .setDeclaredMethodDescriptorsFactory(FrontendLock.guard(declaredMethods))
             .build();
     putTypeDescriptorInCache(typeBinding, typeDescriptor);
     return typeDescriptor;
   }
 
-  private static final ThreadLocal<Map<ITypeBinding, DeclaredTypeDescriptor>>
-      cachedDeclaredTypeDescriptorByTypeBinding = ThreadLocal.withInitial(HashMap::new);
+  // The caches of descriptors and declarations are keyed by binding key rather than by binding
+  // since, when the sources are parsed in shards, each shard has its own bindings for the types.
+  private static final ScopedThreadLocal<Map<String, DeclaredTypeDescriptor>>
+      cachedDeclaredTypeDescriptorByTypeBindingKey = ScopedThreadLocal.withInitial(HashMap::new);
 
   private static DeclaredTypeDescriptor getCachedTypeDescriptor(ITypeBinding typeBinding) {
-    return cachedDeclaredTypeDescriptorByTypeBinding.get().get(typeBinding);
+    return cachedDeclaredTypeDescriptorByTypeBindingKey.get().get(typeBinding.getKey());
   }
 
   private static void putTypeDescriptorInCache(
       ITypeBinding typeBinding, DeclaredTypeDescriptor typeDescriptor) {
-    cachedDeclaredTypeDescriptorByTypeBinding.get().put(typeBinding, typeDescriptor);
+    cachedDeclaredTypeDescriptorByTypeBindingKey.get().put(typeBinding.getKey(), typeDescriptor);
   }
 
   private static Kind getKindFromTypeBinding(ITypeBinding typeBinding) {
@@ -1039,11 +1077,26 @@ class JdtUtils {
     return null;
   }
 
+  private static final ScopedThreadLocal<Map<String, TypeDeclaration>>
+      cachedTypeDeclarationByTypeBindingKey = ScopedThreadLocal.withInitial(HashMap::new);
+
   public static TypeDeclaration createDeclarationForType(final ITypeBinding typeBinding) {
     if (typeBinding == null) {
       return null;
     }
 
+    // Every parameterization of a type shares its declaration, which is only built once.
+    TypeDeclaration cachedTypeDeclaration =
+        cachedTypeDeclarationByTypeBindingKey.get().get(typeBinding.getKey());
+    if (cachedTypeDeclaration != null) {
+      return cachedTypeDeclaration;
+    }
+    TypeDeclaration typeDeclaration = createDeclarationForTypeUncached(typeBinding);
+    cachedTypeDeclarationByTypeBindingKey.get().put(typeBinding.getKey(), typeDeclaration);
+    return typeDeclaration;
+  }
+
+  private static TypeDeclaration createDeclarationForTypeUncached(final ITypeBinding typeBinding) {
     checkArgument(typeBinding.getTypeDeclaration() == typeBinding);
     checkArgument(!typeBinding.isArray());
     checkArgument(!typeBinding.isParameterizedType());
@@ -1054,7 +1107,8 @@ class JdtUtils {
     PackageInfoCache packageInfoCache = PackageInfoCache.get();
 
     ITypeBinding topLevelTypeBinding = toTopLevelTypeBinding(typeBinding);
-    if (topLevelTypeBinding.isFromSource()) {
+    boolean isFromSource = topLevelTypeBinding.isFromSource();
+    if (isFromSource) {
       // Let the PackageInfoCache know that this class is Source, otherwise it would have to rummage
       // around in the class path to figure it out and it might even come up with the wrong answer
       // for example if this class has also been globbed into some other library that is a
@@ -1083,12 +1137,26 @@ class JdtUtils {
 
     JsEnumInfo jsEnumInfo = JsInteropUtils.getJsEnumInfo(typeBinding);
 
+    Supplier<String> customizedJsNamespace;
+    if (isFromSource) {
+      String jsNamespace = getJsNamespace(typeBinding, packageInfoCache);
+      customizedJsNamespace = () -> jsNamespace;
+    } else {
+      // Types from the classpath only look up their package-info if the namespace is needed.
+      customizedJsNamespace =
+          FrontendLock.guard(() -> getJsNamespace(typeBinding, packageInfoCache));
+    }
+
     return TypeDeclaration.newBuilder()
         .setClassComponents(getClassComponents(typeBinding))
         .setEnclosingTypeDeclaration(createDeclarationForType(typeBinding.getDeclaringClass()))
         .setInterfaceTypeDescriptorsFactory(
-            () -> createTypeDescriptors(typeBinding.getInterfaces(), DeclaredTypeDescriptor.class))
-        .setUnparameterizedTypeDescriptorFactory(() -> createDeclaredTypeDescriptor(typeBinding))
+            FrontendLock.guard(
+                () ->
+                    createTypeDescriptors(
+                        typeBinding.getInterfaces(), DeclaredTypeDescriptor.class)))
+        .setUnparameterizedTypeDescriptorFactory(
+            FrontendLock.guard(() -> createDeclaredTypeDescriptor(typeBinding)))
         .setHasAbstractModifier(isAbstract)
         .setKind(getKindFromTypeBinding(typeBinding))
         .setCapturingEnclosingInstance(capturesEnclosingInstance(typeBinding))
@@ -1105,15 +1173,15 @@ class JdtUtils {
         .setAnonymous(typeBinding.isAnonymous())
         .setLocal(isLocal(typeBinding))
         .setSimpleJsName(getJsName(typeBinding))
-        .setCustomizedJsNamespace(getJsNamespace(typeBinding, packageInfoCache))
+        .setCustomizedJsNamespaceFactory(customizedJsNamespace)
         .setPackageName(packageName)
         .setSuperTypeDescriptorFactory(
-            () -> createDeclaredTypeDescriptor(typeBinding.getSuperclass()))
+            FrontendLock.guard(() -> createDeclaredTypeDescriptor(typeBinding.getSuperclass())))
         .setTypeParameterDescriptors(
             getTypeArgumentTypeDescriptors(typeBinding, TypeVariable.class))
         .setVisibility(getVisibility(typeBinding))
-        .setDeclaredMethodDescriptorsFactory(declaredMethods)
-        .setDeclaredFieldDescriptorsFactory(declaredFields)
+        .setDeclaredMethodDescriptorsFactory(FrontendLock.guard(declaredMethods))
+        .setDeclaredFieldDescriptorsFactory(FrontendLock.guard(declaredFields))
         .setUnusableByJsSuppressed(JsInteropAnnotationUtils.isUnusableByJsSuppressed(typeBinding))
         .setDeprecated(isDeprecated(typeBinding))
         .build();
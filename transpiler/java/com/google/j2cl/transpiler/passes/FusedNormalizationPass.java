@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.passes;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Sets;
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.ast.CompositeVisitor;
+import com.google.j2cl.transpiler.ast.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs several adjacent passes in a single traversal of the compilation unit.
+ *
+ * <p>Passes that do not modify the AST, like the verification passes, are composed so that each of
+ * their visitors observes the AST as if its pass was run on its own.
+ *
+ * <p>Rewriting passes whose rewriters only rebuild the node being rewritten from its members, like
+ * the conversion passes, are instead run node by node: once the members of a node have been
+ * rewritten by all the passes, each pass in turn rewrites the node, and the nodes introduced by the
+ * previous passes around it, as it would when run on its own. The difference is that the passes
+ * see the members of the node as left by all of them rather than by the passes that precede them,
+ * hence no pass can depend on how a later one rewrites a member.
+ */
+public final class FusedNormalizationPass extends NormalizationPass {
+
+  /** Returns a factory for the pass that fuses the passes created by {@code passFactories}. */
+  @SafeVarargs
+  public static Supplier<NormalizationPass> fuse(
+      Supplier<? extends VisitorNormalizationPass>... passFactories) {
+    return () -> {
+      ImmutableList<VisitorNormalizationPass> passes = createPasses(passFactories);
+      return new FusedNormalizationPass(
+          compilationUnit -> {
+            List<AbstractVisitor> visitors = new ArrayList<>();
+            passes.forEach(pass -> pass.applyVisitor(visitors::add));
+            compilationUnit.accept(new CompositeVisitor(visitors));
+          });
+    };
+  }
+
+  /**
+   * Returns a factory for the pass that runs the rewriting passes created by {@code passFactories}
+   * node by node.
+   */
+  @SafeVarargs
+  public static Supplier<NormalizationPass> fuseRewriters(
+      Supplier<? extends RewriterNormalizationPass>... passFactories) {
+    return () -> {
+      ImmutableList<RewriterNormalizationPass> passes = createPasses(passFactories);
+      return new FusedNormalizationPass(
+          compilationUnit ->
+              compilationUnit.accept(
+                  new NodeByNodeRewriter(
+                      passes.stream()
+                          .map(RewriterNormalizationPass::createRewriter)
+                          .collect(toImmutableList()))));
+    };
+  }
+
+  @SafeVarargs
+  private static <T extends NormalizationPass> ImmutableList<T> createPasses(
+      Supplier<? extends T>... passFactories) {
+    return Arrays.stream(passFactories).map(Supplier::get).collect(toImmutableList());
+  }
+
+  private final Consumer<CompilationUnit> traversal;
+
+  private FusedNormalizationPass(Consumer<CompilationUnit> traversal) {
+    this.traversal = traversal;
+  }
+
+  @Override
+  public void applyTo(CompilationUnit compilationUnit) {
+    traversal.accept(compilationUnit);
+  }
+
+  /** Applies all the rewriters to each node as it is exited. */
+  private static final class NodeByNodeRewriter extends AbstractRewriter {
+    private final ImmutableList<AbstractRewriter> rewriters;
+    // The nodes that all the rewriters are done with.
+    private final Set<Node> rewrittenNodes = Sets.newIdentityHashSet();
+
+    NodeByNodeRewriter(ImmutableList<AbstractRewriter> rewriters) {
+      this.rewriters = rewriters;
+      rewriters.forEach(rewriter -> rewriter.setNodesToSkip(rewrittenNodes));
+    }
+
+    @Override
+    public Node rewriteNode(Node node) {
+      Node result = node;
+      for (AbstractRewriter rewriter : rewriters) {
+        if (result == null || rewrittenNodes.contains(result)) {
+          // The node was removed or replaced by one of its members, which were already rewritten.
+          return result;
+        }
+        result = result.accept(rewriter);
+      }
+      rewrittenNodes.add(result);
+      return result;
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.RuntimeMethods;
 import com.google.j2cl.transpiler.ast.Statement;
 import com.google.j2cl.transpiler.ast.SynchronizedStatement;
+import java.util.List;
 
 /** Replaces synchronized statements with the corresponding method call to the runtime. */
 public class ImplementSynchronizedStatements extends NormalizationPass {
@@ -31,6 +32,11 @@ public class ImplementSynchronizedStatements extends NormalizationPass {
   public void applyTo(CompilationUnit compilationUnit) {
     compilationUnit.accept(
         new AbstractRewriter() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(SynchronizedStatement.class);
+          }
+
           @Override
           public Statement rewriteSynchronizedStatement(
               SynchronizedStatement synchronizedStatement) {
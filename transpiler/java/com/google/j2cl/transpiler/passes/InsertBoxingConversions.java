@@ -16,8 +16,8 @@
 package com.google.j2cl.transpiler.passes;
 
 
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
 import com.google.j2cl.transpiler.ast.CastExpression;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Expression;
 import com.google.j2cl.transpiler.ast.MethodCall;
 import com.google.j2cl.transpiler.ast.MethodDescriptor;
@@ -31,7 +31,7 @@ import com.google.j2cl.transpiler.ast.TypeDescriptors;
  * Inserts a boxing operation when a primitive type is being put into a reference type slot in
  * assignment or method invocation conversion contexts.
  */
-public class InsertBoxingConversions extends NormalizationPass {
+public class InsertBoxingConversions extends RewriterNormalizationPass {
   private final boolean areBooleanAndDoubleBoxed;
 
   public InsertBoxingConversions() {
@@ -43,8 +43,8 @@ public class InsertBoxingConversions extends NormalizationPass {
   }
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
+  protected AbstractRewriter createRewriter() {
+    return new ConversionContextVisitor(getContextRewriter());
   }
 
   private ConversionContextVisitor.ContextRewriter getContextRewriter() {
@@ -15,8 +15,8 @@
  */
 package com.google.j2cl.transpiler.passes;
 
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
 import com.google.j2cl.transpiler.ast.CastExpression;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Expression;
 import com.google.j2cl.transpiler.ast.TypeDescriptor;
 import com.google.j2cl.transpiler.ast.TypeDescriptors;
@@ -25,10 +25,10 @@ import com.google.j2cl.transpiler.ast.TypeDescriptors;
  * Inserts a narrowing operation when a non-boxed reference type is being put into a primitive type
  * slot in cast conversion contexts.
  */
-public class InsertNarrowingReferenceConversions extends NormalizationPass {
+public class InsertNarrowingReferenceConversions extends RewriterNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
+  protected AbstractRewriter createRewriter() {
+    return new ConversionContextVisitor(getContextRewriter());
   }
 
   private ConversionContextVisitor.ContextRewriter getContextRewriter() {
@@ -15,9 +15,9 @@
  */
 package com.google.j2cl.transpiler.passes;
 
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
 import com.google.j2cl.transpiler.ast.AstUtils;
 import com.google.j2cl.transpiler.ast.BinaryExpression;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Expression;
 import com.google.j2cl.transpiler.ast.MethodCall;
 import com.google.j2cl.transpiler.ast.MethodDescriptor;
@@ -30,10 +30,10 @@ import com.google.j2cl.transpiler.ast.TypeDescriptors;
  * Inserts a Strings.valueOf() operation when a non-string type is part of a "+" operation along
  * with the string type in a string conversion context.
  */
-public class InsertStringConversions extends NormalizationPass {
+public class InsertStringConversions extends RewriterNormalizationPass {
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
+  protected AbstractRewriter createRewriter() {
+    return new ConversionContextVisitor(getContextRewriter());
   }
 
   private ConversionContextVisitor.ContextRewriter getContextRewriter() {
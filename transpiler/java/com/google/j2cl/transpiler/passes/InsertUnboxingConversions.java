@@ -18,9 +18,9 @@ package com.google.j2cl.transpiler.passes;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
 import com.google.j2cl.transpiler.ast.AstUtils;
 import com.google.j2cl.transpiler.ast.CastExpression;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.DeclaredTypeDescriptor;
 import com.google.j2cl.transpiler.ast.Expression;
 import com.google.j2cl.transpiler.ast.MethodCall;
@@ -35,7 +35,7 @@ import java.util.Optional;
  * contexts) when a boxed type is being put into a primitive type slot in casting, assignment,
  * method invocation, unary numeric promotion or binary numeric promotion conversion contexts.
  */
-public class InsertUnboxingConversions extends NormalizationPass {
+public class InsertUnboxingConversions extends RewriterNormalizationPass {
   private final boolean areBooleanAndDoubleBoxed;
 
   public InsertUnboxingConversions() {
@@ -47,8 +47,8 @@ public class InsertUnboxingConversions extends NormalizationPass {
   }
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(new ConversionContextVisitor(getContextRewriter()));
+  protected AbstractRewriter createRewriter() {
+    return new ConversionContextVisitor(getContextRewriter());
   }
 
   private ConversionContextVisitor.ContextRewriter getContextRewriter() {
@@ -15,6 +15,7 @@
  */
 package com.google.j2cl.transpiler.passes;
 
+import com.google.common.collect.ImmutableList;
 import com.google.j2cl.transpiler.ast.AbstractRewriter;
 import com.google.j2cl.transpiler.ast.BinaryExpression;
 import com.google.j2cl.transpiler.ast.CastExpression;
@@ -22,6 +23,7 @@ import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Expression;
 import com.google.j2cl.transpiler.ast.PrimitiveTypes;
 import com.google.j2cl.transpiler.ast.TypeDescriptor;
+import java.util.List;
 
 /** Normalize shift arithmetic operations to have correct type of operands. */
 public class NormalizeShifts extends NormalizationPass {
@@ -40,6 +42,11 @@ public class NormalizeShifts extends NormalizationPass {
   public void applyTo(CompilationUnit compilationUnit) {
     compilationUnit.accept(
         new AbstractRewriter() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(BinaryExpression.class);
+          }
+
           @Override
           public Expression rewriteBinaryExpression(BinaryExpression binaryExpression) {
             if (!binaryExpression.getOperator().isShiftOperator()) {
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.passes;
+
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+
+/**
+ * The base class for passes that consist of a single rewriter traversal of the compilation unit.
+ *
+ * <p>Adjacent passes of this kind whose rewriters only rebuild the node being rewritten from its
+ * members, like the conversion passes, can be run node by node in a single traversal by {@link
+ * FusedNormalizationPass}.
+ */
+public abstract class RewriterNormalizationPass extends NormalizationPass {
+  @Override
+  public final void applyTo(CompilationUnit compilationUnit) {
+    compilationUnit.accept(createRewriter());
+  }
+
+  /** Returns the rewriter that performs the pass on a compilation unit. */
+  protected abstract AbstractRewriter createRewriter();
+}
@@ -46,9 +46,10 @@ import com.google.j2cl.transpiler.ast.UnaryExpression;
 import com.google.j2cl.transpiler.ast.VariableDeclarationExpression;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /** Verifies that the AST satisfies the normalization invariants. */
-public class VerifyNormalizedUnits extends NormalizationPass {
+public class VerifyNormalizedUnits extends VisitorNormalizationPass {
 
   private final boolean verifyForWasm;
 
@@ -61,9 +62,17 @@ public class VerifyNormalizedUnits extends NormalizationPass {
   }
 
   @Override
-  public void applyTo(Type type) {
-    type.accept(
+  protected void applyVisitor(Consumer<AbstractVisitor> traversal) {
+    traversal.accept(
         new AbstractVisitor() {
+          @Override
+          public boolean enterType(Type type) {
+            // Members only need to be unique within their type.
+            instanceMembersByMangledName.clear();
+            staticMembersByMangledName.clear();
+            return true;
+          }
+
           @Override
           public void exitType(Type type) {
             if (!verifyForWasm) {
@@ -18,20 +18,20 @@ package com.google.j2cl.transpiler.passes;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.j2cl.transpiler.ast.AbstractVisitor;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Invocation;
 import com.google.j2cl.transpiler.ast.Method;
 import com.google.j2cl.transpiler.ast.MethodDescriptor;
+import java.util.function.Consumer;
 
 /**
  * Verifies that the method call argument counts match the method descriptor parameter counts and
  * method declaration parameter counts match the method descriptor.
  */
-public class VerifyParamAndArgCounts extends NormalizationPass {
+public class VerifyParamAndArgCounts extends VisitorNormalizationPass {
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
-    compilationUnit.accept(
+  protected void applyVisitor(Consumer<AbstractVisitor> traversal) {
+    traversal.accept(
         new AbstractVisitor() {
           @Override
           public void exitMethod(Method method) {
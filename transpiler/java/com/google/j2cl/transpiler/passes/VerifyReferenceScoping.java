@@ -21,7 +21,6 @@ import com.google.common.collect.ImmutableSet;
 import com.google.j2cl.transpiler.ast.AbstractVisitor;
 import com.google.j2cl.transpiler.ast.Block;
 import com.google.j2cl.transpiler.ast.CatchClause;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.ForStatement;
 import com.google.j2cl.transpiler.ast.FunctionExpression;
 import com.google.j2cl.transpiler.ast.LabelReference;
@@ -37,9 +36,10 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Consumer;
 
 /** Verifies that variables and labels are referenced within their scopes. */
-public class VerifyReferenceScoping extends NormalizationPass {
+public class VerifyReferenceScoping extends VisitorNormalizationPass {
 
   private static class Scope {
     Scope() {}
@@ -54,13 +54,13 @@ public class VerifyReferenceScoping extends NormalizationPass {
   }
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
+  protected void applyVisitor(Consumer<AbstractVisitor> traversal) {
     // Keep track of current statement for nicer error messages.
     Deque<Statement> statementStack = new ArrayDeque<>();
     // Keep track of scopes.
     Deque<Scope> scopeStack = new ArrayDeque<>(ImmutableSet.of(new Scope()));
 
-    compilationUnit.accept(
+    traversal.accept(
         new AbstractVisitor() {
 
           @Override
@@ -19,7 +19,6 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.j2cl.transpiler.ast.AbstractVisitor;
 import com.google.j2cl.transpiler.ast.BooleanLiteral;
-import com.google.j2cl.transpiler.ast.CompilationUnit;
 import com.google.j2cl.transpiler.ast.Node;
 import com.google.j2cl.transpiler.ast.NullLiteral;
 import com.google.j2cl.transpiler.ast.NumberLiteral;
@@ -30,6 +29,7 @@ import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Verifies that nodes only appear once in the AST. AST nodes with mutable state need to appear only
@@ -41,17 +41,17 @@ import java.util.Map;
  * <p>The other special situation are VariableReferences which are allowed to point to the same
  * Variable.
  */
-public class VerifySingleAstReference extends NormalizationPass {
+public class VerifySingleAstReference extends VisitorNormalizationPass {
 
   @Override
-  public void applyTo(CompilationUnit compilationUnit) {
+  protected void applyVisitor(Consumer<AbstractVisitor> traversal) {
     // This map keeps track of the nodes that have been found so far in the AST as well as the
     // context of their first appearance for better error reporting.
     Map<Node, Node> contextByNode = new HashMap<>();
 
     Deque<Statement> statementStack = new ArrayDeque<>();
 
-    compilationUnit.accept(
+    traversal.accept(
         new AbstractVisitor() {
 
           @Override
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.passes;
+
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import java.util.function.Consumer;
+
+/**
+ * The base class for passes that consist of a single visitor traversal of the compilation unit.
+ *
+ * <p>Adjacent passes of this kind that only inspect the AST, like the verification passes, can be
+ * run in a single traversal by {@link FusedNormalizationPass}.
+ */
+public abstract class VisitorNormalizationPass extends NormalizationPass {
+  @Override
+  public final void applyTo(CompilationUnit compilationUnit) {
+    applyVisitor(compilationUnit::accept);
+  }
+
+  /** Hands the visitor that performs the pass on a compilation unit to {@code traversal}. */
+  protected abstract void applyVisitor(Consumer<AbstractVisitor> traversal);
+}
@@ -0,0 +1,447 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.benchmarks;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.OutputUtils.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourceUtils;
+import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.backend.BackendOptions;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import com.google.j2cl.transpiler.frontend.FrontendOptions;
+import com.google.j2cl.transpiler.frontend.common.ClasspathCache;
+import com.google.j2cl.transpiler.passes.LibraryNormalizationPass;
+import com.google.j2cl.transpiler.passes.NormalizationPass;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+/**
+ * The Java sources the benchmarks transpile, and the helpers that take them through the stages
+ * that precede the one being measured.
+ *
+ * <p>A corpus is selected by name:
+ *
+ * <ul>
+ *   <li>{@code synthetic}: a large generated library that exercises common language features.
+ *   <li>{@code jre}: the sources of the J2CL JRE.
+ *   <li>Any other name is the path of a source jar or directory, e.g. the Guava GWT sources that
+ *       samples/guava depends on, compiled against the JRE and the entries of the {@code
+ *       j2cl.benchmarks.classpath} system property.
+ * </ul>
+ */
+public final class Corpus {
+  public static final String SYNTHETIC = "synthetic";
+  public static final String JRE = "jre";
+
+  private static final int SYNTHETIC_PACKAGE_COUNT = 40;
+  private static final int SYNTHETIC_CLASSES_PER_PACKAGE = 50;
+
+  /** Loads the corpus named {@code name}. */
+  public static Corpus load(String name) {
+    Problems problems = new Problems();
+    List<String> classpath = new ArrayList<>();
+    classpath.add(getRequiredProperty("j2cl.benchmarks.jre"));
+    List<String> sources;
+    List<String> nativeSources = new ArrayList<>();
+    switch (name) {
+      case SYNTHETIC:
+        sources = generateSyntheticSources();
+        break;
+      case JRE:
+        sources = ImmutableList.of(getRequiredProperty("j2cl.benchmarks.jre_sources"));
+        nativeSources.add(getRequiredProperty("j2cl.benchmarks.jre_native_sources"));
+        break;
+      default:
+        sources = ImmutableList.of(name);
+        nativeSources.add(name);
+        Splitter.on(File.pathSeparatorChar)
+            .omitEmptyStrings()
+            .split(System.getProperty("j2cl.benchmarks.classpath", ""))
+            .forEach(classpath::add);
+    }
+
+    return new Corpus(
+        SourceUtils.getAllSources(sources, problems)
+            .filter(f -> f.sourcePath().endsWith(".java"))
+            .collect(toImmutableList()),
+        SourceUtils.getAllSources(nativeSources, problems)
+            .filter(f -> f.sourcePath().endsWith(".native.js"))
+            .collect(toImmutableList()),
+        ImmutableList.copyOf(classpath));
+  }
+
+  private final ImmutableList<FileInfo> sources;
+  private final ImmutableList<FileInfo> nativeSources;
+  private final ImmutableList<String> classpath;
+
+  private Corpus(
+      ImmutableList<FileInfo> sources,
+      ImmutableList<FileInfo> nativeSources,
+      ImmutableList<String> classpath) {
+    this.sources = sources;
+    this.nativeSources = nativeSources;
+    this.classpath = classpath;
+  }
+
+  public ImmutableList<FileInfo> getSources() {
+    return sources;
+  }
+
+  public ImmutableList<String> getClasspath() {
+    return classpath;
+  }
+
+  /** Parses and resolves the corpus into a J2CL AST. */
+  public Library compile(Frontend frontend) {
+    Problems problems = new Problems();
+    Library library = frontend.getLibrary(new Options(null, null), problems);
+    checkNoErrors(problems);
+    return library;
+  }
+
+  /** Returns the corpus, desugared and ready for the passes of {@code backend}. */
+  public Library desugar(Frontend frontend, Backend backend) {
+    Library library = compile(frontend);
+    runPasses(library, backend.getDesugaringPassFactories());
+    return library;
+  }
+
+  /** Returns the corpus, fully normalized for {@code backend}. */
+  public Library normalize(Frontend frontend, Backend backend) {
+    Library library = desugar(frontend, backend);
+    runPasses(library, getPassFactories(backend));
+    return library;
+  }
+
+  /**
+   * Transpiles the corpus to Closure and returns the directory with the outputs, which has the
+   * library info in a file named {@code library_info}.
+   */
+  public Path transpileToClosure(Frontend frontend) {
+    Library library = normalize(frontend, Backend.CLOSURE);
+    Path outputDirectory;
+    try {
+      outputDirectory = Files.createTempDirectory("j2cl_benchmarks");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    Problems problems = new Problems();
+    try (Output output = OutputUtils.initOutput(outputDirectory, problems)) {
+      Backend.CLOSURE.generateOutputs(
+          new Options(output, outputDirectory.resolve("library_info")), library, problems);
+    }
+    checkNoErrors(problems);
+    return outputDirectory;
+  }
+
+  /** Returns the normalization passes of {@code backend}. */
+  public ImmutableList<Supplier<NormalizationPass>> getPassFactories(Backend backend) {
+    return backend.getPassFactories(new Options(null, null));
+  }
+
+  /** Runs the passes on the library, in the same way as the transpiler does. */
+  public static void runPasses(Library library, List<Supplier<NormalizationPass>> passFactories) {
+    for (Supplier<NormalizationPass> passFactory : passFactories) {
+      NormalizationPass pass = passFactory.get();
+      if (pass instanceof LibraryNormalizationPass) {
+        ((LibraryNormalizationPass) pass).execute(library);
+        continue;
+      }
+      for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+        passFactory.get().execute(compilationUnit);
+      }
+    }
+  }
+
+  private static void checkNoErrors(Problems problems) {
+    if (problems.hasErrors()) {
+      throw new IllegalStateException(
+          "The corpus does not transpile:\n" + String.join("\n", problems.getErrors()));
+    }
+  }
+
+  private static String getRequiredProperty(String name) {
+    String value = System.getProperty(name);
+    if (value == null) {
+      throw new IllegalStateException("Missing system property " + name);
+    }
+    return value;
+  }
+
+  /** Writes the sources of the synthetic corpus to a temporary directory. */
+  private static List<String> generateSyntheticSources() {
+    int classCount = SYNTHETIC_PACKAGE_COUNT * SYNTHETIC_CLASSES_PER_PACKAGE;
+    List<String> sources = new ArrayList<>();
+    try {
+      Path root = Files.createTempDirectory("j2cl_synthetic").resolve("java");
+      for (int p = 0; p < SYNTHETIC_PACKAGE_COUNT; p++) {
+        Path packageDirectory =
+            Files.createDirectories(root.resolve("com/google/j2cl/benchmarks/synthetic/p" + p));
+        Path shape = packageDirectory.resolve("Shape.java");
+        Files.write(shape, generateShape(p).getBytes(UTF_8));
+        sources.add(shape.toString());
+        for (int c = 0; c < SYNTHETIC_CLASSES_PER_PACKAGE; c++) {
+          int index = p * SYNTHETIC_CLASSES_PER_PACKAGE + c;
+          Path source = packageDirectory.resolve("C" + index + ".java");
+          Files.write(
+              source, generateClass(p, index, (index * 31 + 7) % classCount).getBytes(UTF_8));
+          sources.add(source.toString());
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return sources;
+  }
+
+  private static String generateShape(int packageIndex) {
+    return String.join(
+        "\n",
+        "package com.google.j2cl.benchmarks.synthetic.p" + packageIndex + ";",
+        "",
+        "public interface Shape {",
+        "  int area();",
+        "",
+        "  default boolean isLarger(Shape other) {",
+        "    return area() > other.area();",
+        "  }",
+        "}",
+        "");
+  }
+
+  private static String generateClass(int packageIndex, int index, int referencedIndex) {
+    String referencedClass =
+        String.format(
+            "com.google.j2cl.benchmarks.synthetic.p%d.C%d",
+            referencedIndex / SYNTHETIC_CLASSES_PER_PACKAGE, referencedIndex);
+    return String.join(
+        "\n",
+        "package com.google.j2cl.benchmarks.synthetic.p" + packageIndex + ";",
+        "",
+        "import java.util.ArrayList;",
+        "import java.util.HashMap;",
+        "import java.util.List;",
+        "import java.util.Map;",
+        "import java.util.function.Function;",
+        "",
+        "public class C" + index + " implements Shape, Comparable<C" + index + "> {",
+        "  public static final String NAME = \"C" + index + "\";",
+        "",
+        "  private final List<String> names = new ArrayList<>();",
+        "  private final Map<String, Integer> counts = new HashMap<>();",
+        "  private long total;",
+        "  private int value;",
+        "",
+        "  public C" + index + "(int value) {",
+        "    this.value = value;",
+        "  }",
+        "",
+        "  public int compute(int n) {",
+        "    int result = value;",
+        "    for (int i = 0; i < n; i++) {",
+        "      result += i * " + index + " % 7;",
+        "      if (result > 1000) {",
+        "        result -= 1000;",
+        "      }",
+        "    }",
+        "    return result;",
+        "  }",
+        "",
+        "  public String describe() {",
+        "    StringBuilder sb = new StringBuilder(NAME);",
+        "    for (String name : names) {",
+        "      sb.append(',').append(name);",
+        "    }",
+        "    return sb.toString() + \":\" + total + \":\" + value;",
+        "  }",
+        "",
+        "  public void add(String name) {",
+        "    names.add(name);",
+        "    counts.put(name, counts.containsKey(name) ? counts.get(name) + 1 : 1);",
+        "    total += name.length();",
+        "  }",
+        "",
+        "  public List<Integer> lengths() {",
+        "    List<Integer> lengths = new ArrayList<>();",
+        "    names.forEach(n -> lengths.add(n.length()));",
+        "    return lengths;",
+        "  }",
+        "",
+        "  public Function<Integer, Long> scaler() {",
+        "    return x -> x * total;",
+        "  }",
+        "",
+        "  public double ratio(double d) {",
+        "    switch (value % 3) {",
+        "      case 0:",
+        "        return d / 2;",
+        "      case 1:",
+        "        return d * 2;",
+        "      default:",
+        "        return d;",
+        "    }",
+        "  }",
+        "",
+        "  public int delegate() {",
+        "    return new " + referencedClass + "(value + 1).compute(3);",
+        "  }",
+        "",
+        "  public int inner() {",
+        "    return new Inner().twice();",
+        "  }",
+        "",
+        "  @Override",
+        "  public int area() {",
+        "    return value * value;",
+        "  }",
+        "",
+        "  @Override",
+        "  public int compareTo(C" + index + " other) {",
+        "    return Integer.compare(value, other.value);",
+        "  }",
+        "",
+        "  @Override",
+        "  public String toString() {",
+        "    return describe();",
+        "  }",
+        "",
+        "  private class Inner {",
+        "    int twice() {",
+        "      return value * 2;",
+        "    }",
+        "  }",
+        "}",
+        "");
+  }
+
+  /** The options of the stages of the transpiler that the benchmarks run. */
+  private class Options implements FrontendOptions, BackendOptions {
+    @Nullable private final Output output;
+    @Nullable private final Path libraryInfoOutput;
+
+    Options(@Nullable Output output, @Nullable Path libraryInfoOutput) {
+      this.output = output;
+      this.libraryInfoOutput = libraryInfoOutput;
+    }
+
+    @Override
+    public ImmutableList<FileInfo> getSources() {
+      return sources;
+    }
+
+    @Override
+    public ImmutableList<String> getClasspaths() {
+      return classpath;
+    }
+
+    @Override
+    public ImmutableMap<String, String> getClasspathDigests() {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    @Nullable
+    public ClasspathCache getClasspathCache() {
+      return null;
+    }
+
+    @Override
+    public boolean getExperimentalShardedParsing() {
+      return false;
+    }
+
+    @Override
+    public int getExperimentalParsingShardSize() {
+      return 0;
+    }
+
+    @Override
+    public Output getOutput() {
+      return output;
+    }
+
+    @Override
+    @Nullable
+    public Path getLibraryInfoOutput() {
+      return libraryInfoOutput;
+    }
+
+    @Override
+    public ImmutableList<FileInfo> getNativeSources() {
+      return nativeSources;
+    }
+
+    @Override
+    public ImmutableMap<String, String> getDefinesForWasm() {
+      return ImmutableMap.of();
+    }
+
+    @Override
+    public ImmutableSet<String> getWasmEntryPoints() {
+      return ImmutableSet.of();
+    }
+
+    @Override
+    public boolean getWasmRemoveAssertStatement() {
+      return false;
+    }
+
+    @Override
+    public boolean getExperimentalOptimizeAutovalue() {
+      return false;
+    }
+
+    @Override
+    public boolean getEmitReadableLibraryInfo() {
+      return false;
+    }
+
+    @Override
+    public boolean getEmitReadableSourceMap() {
+      return false;
+    }
+
+    @Override
+    public boolean getGenerateKytheIndexingMetadata() {
+      return false;
+    }
+
+    @Override
+    @Nullable
+    public OutputCache getOutputCache() {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.benchmarks;
+
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.ScopedThreadLocal;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.frontend.common.PackageInfoCache;
+import com.google.j2cl.transpiler.frontend.javac.JavacParser;
+import com.google.j2cl.transpiler.frontend.jdt.CompilationUnitBuilder;
+import com.google.j2cl.transpiler.frontend.jdt.CompilationUnitsAndTypeBindings;
+import com.google.j2cl.transpiler.frontend.jdt.JdtParser;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the frontends, which parse and resolve the sources into the J2CL AST. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FrontendBenchmark {
+
+  @Param({Corpus.SYNTHETIC, Corpus.JRE})
+  public String corpusName;
+
+  private Corpus corpus;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() {
+    corpus = Corpus.load(corpusName);
+  }
+
+  @Setup(Level.Invocation)
+  public void resetState() {
+    // Descriptors are interned in the current scope, start each invocation from a clean one so that
+    // invocations do not observe the work done by previous ones.
+    ScopedThreadLocal.setCurrentScope(ScopedThreadLocal.newScope());
+    PackageInfoCache.init(corpus.getClasspath(), new Problems());
+  }
+
+  @Benchmark
+  public CompilationUnitsAndTypeBindings jdtParse() {
+    return new JdtParser(corpus.getClasspath(), new Problems())
+        .parseFiles(corpus.getSources(), /* useTargetPath= */ false);
+  }
+
+  @Benchmark
+  public CompilationUnitsAndTypeBindings jdtParseSharded() {
+    return new JdtParser(
+            corpus.getClasspath(), Runtime.getRuntime().availableProcessors(), new Problems())
+        .parseFiles(corpus.getSources(), /* useTargetPath= */ false);
+  }
+
+  @Benchmark
+  public List<CompilationUnit> javacParseAndBuild() {
+    return new JavacParser(corpus.getClasspath(), new Problems())
+        .parseFiles(corpus.getSources(), /* useTargetPath= */ false);
+  }
+
+  /** Measures only the construction of the J2CL AST from the JDT AST. */
+  @State(Scope.Thread)
+  public static class JdtAst {
+    private CompilationUnitsAndTypeBindings compilationUnitsAndTypeBindings;
+
+    @Setup(Level.Invocation)
+    public void parse(FrontendBenchmark benchmark) {
+      compilationUnitsAndTypeBindings = benchmark.jdtParse();
+    }
+  }
+
+  @Benchmark
+  public List<CompilationUnit> jdtBuildCompilationUnits(JdtAst jdtAst) {
+    return CompilationUnitBuilder.build(jdtAst.compilationUnitsAndTypeBindings);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.benchmarks;
+
+import com.google.j2cl.common.ScopedThreadLocal;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the normalization pass pipeline of each backend, from the desugared AST to the AST
+ * that is handed to output generation.
+ *
+ * <p>The Wasm backend is not included since it needs the Wasm variant of the JRE as its classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PassesBenchmark {
+
+  @Param({Corpus.SYNTHETIC, Corpus.JRE})
+  public String corpusName;
+
+  @Param({"CLOSURE", "KOTLIN"})
+  public Backend backend;
+
+  private Corpus corpus;
+  private Library library;
+
+  @Setup(Level.Trial)
+  public void loadCorpus() {
+    corpus = Corpus.load(corpusName);
+  }
+
+  @Setup(Level.Invocation)
+  public void desugar() {
+    // Passes mutate the AST, so each invocation needs its own, built in a clean scope.
+    ScopedThreadLocal.setCurrentScope(ScopedThreadLocal.newScope());
+    library = corpus.desugar(Frontend.JDT, backend);
+  }
+
+  @Benchmark
+  public Library normalize() {
+    Corpus.runPasses(library, corpus.getPassFactories(backend));
+    return library;
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.j2cl.common.OutputUtils.Output;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class OutputUtilsTest {
+  private static final FileTime OLD_TIME = FileTime.fromMillis(1_000_000);
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path outputDirectory;
+  private Path writtenFile;
+  private Path copiedFile;
+  private Path source;
+
+  @Before
+  public void setUp() throws IOException {
+    outputDirectory = temporaryFolder.newFolder("output").toPath();
+    writtenFile = outputDirectory.resolve("a/Foo.js");
+    copiedFile = outputDirectory.resolve("a/Bar.js");
+    source = temporaryFolder.newFile("Bar.js").toPath();
+    Files.write(source, "bar".getBytes(UTF_8));
+
+    write(/* writeIfChanged= */ false, "foo");
+    Files.setLastModifiedTime(writtenFile, OLD_TIME);
+    Files.setLastModifiedTime(copiedFile, OLD_TIME);
+  }
+
+  @Test
+  public void testWriteIfChanged_unchangedFilesKeepTheirModificationTime() throws IOException {
+    Problems problems = write(/* writeIfChanged= */ true, "foo");
+
+    assertThat(Files.getLastModifiedTime(writtenFile)).isEqualTo(OLD_TIME);
+    assertThat(Files.getLastModifiedTime(copiedFile)).isEqualTo(OLD_TIME);
+    assertThat(problems.getInfoMessages())
+        .containsExactly("Wrote 0 file(s), skipped 2 unchanged file(s).");
+  }
+
+  @Test
+  public void testWriteIfChanged_changedFilesAreRewritten() throws IOException {
+    Files.write(source, "baz".getBytes(UTF_8));
+
+    Problems problems = write(/* writeIfChanged= */ true, "qux");
+
+    assertThat(Files.readAllLines(writtenFile, UTF_8)).containsExactly("qux");
+    assertThat(Files.readAllLines(copiedFile, UTF_8)).containsExactly("baz");
+    assertThat(Files.getLastModifiedTime(writtenFile)).isNotEqualTo(OLD_TIME);
+    assertThat(Files.getLastModifiedTime(copiedFile)).isNotEqualTo(OLD_TIME);
+    assertThat(problems.getInfoMessages())
+        .containsExactly("Wrote 2 file(s), skipped 0 unchanged file(s).");
+  }
+
+  @Test
+  public void testWrite_rewritesUnchangedFiles() throws IOException {
+    Problems problems = write(/* writeIfChanged= */ false, "foo");
+
+    assertThat(Files.getLastModifiedTime(writtenFile)).isNotEqualTo(OLD_TIME);
+    assertThat(problems.getInfoMessages()).isEmpty();
+  }
+
+  private Problems write(boolean writeIfChanged, String content) {
+    Problems problems = new Problems();
+    try (Output output = OutputUtils.initOutput(outputDirectory, problems, writeIfChanged)) {
+      output.write("a/Foo.js", content);
+      output.copyFile(source.toString(), "a/Bar.js");
+    }
+    return problems;
+  }
+}
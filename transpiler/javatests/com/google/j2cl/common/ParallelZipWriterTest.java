@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ParallelZipWriterTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void testClose_writesSortedEntriesWithDirectories() throws IOException {
+    Path output = temporaryFolder.getRoot().toPath().resolve("output.zip");
+    try (ParallelZipWriter writer = new ParallelZipWriter(output)) {
+      writer.addEntry("b/c/Foo.js", "foo".getBytes(UTF_8));
+      writer.addEntry("a/Bar.js", "bar".getBytes(UTF_8));
+    }
+
+    try (ZipFile zipFile = new ZipFile(output.toFile())) {
+      assertThat(Collections.list(zipFile.entries()).stream().map(ZipEntry::getName))
+          .containsExactly("a/", "a/Bar.js", "b/", "b/c/", "b/c/Foo.js")
+          .inOrder();
+      ZipEntry entry = zipFile.getEntry("b/c/Foo.js");
+      assertThat(new String(zipFile.getInputStream(entry).readAllBytes(), UTF_8)).isEqualTo("foo");
+    }
+    // The temporary file with the compressed entries is deleted.
+    assertThat(temporaryFolder.getRoot().list()).asList().containsExactly("output.zip");
+  }
+
+  @Test
+  public void testClose_outputDoesNotDependOnTheOrderOfTheEntries() throws IOException {
+    Path first = temporaryFolder.getRoot().toPath().resolve("first.zip");
+    try (ParallelZipWriter writer = new ParallelZipWriter(first)) {
+      writer.addEntry("a/Foo.js", "foo".getBytes(UTF_8));
+      writer.addEntry("a/Bar.js", "bar".getBytes(UTF_8));
+    }
+    Path second = temporaryFolder.getRoot().toPath().resolve("second.zip");
+    try (ParallelZipWriter writer = new ParallelZipWriter(second)) {
+      writer.addEntry("a/Bar.js", "bar".getBytes(UTF_8));
+      writer.addEntry("a/Foo.js", "foo".getBytes(UTF_8));
+    }
+
+    assertThat(Files.readAllBytes(second)).isEqualTo(Files.readAllBytes(first));
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ScopedInternerTest {
+
+  private final ScopedInterner<String> interner = new ScopedInterner<>();
+
+  @Test
+  public void testIntern_returnsCanonicalInstance() {
+    String first = new String("foo");
+    String second = new String("foo");
+
+    assertThat(interner.intern(first)).isSameInstanceAs(first);
+    assertThat(interner.intern(second)).isSameInstanceAs(first);
+    assertThat(interner.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void testIntern_sharedByThreadsInTheSameScope() throws Exception {
+    String canonical = interner.intern(new String("foo"));
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      String internedInSameScope =
+          executorService
+              .submit(
+                  () -> {
+                    ScopedThreadLocal.setCurrentScope(scope);
+                    return interner.intern(new String("foo"));
+                  })
+              .get();
+      assertThat(internedInSameScope).isSameInstanceAs(canonical);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void testIntern_isolatedBetweenScopes() throws Exception {
+    String canonical = interner.intern(new String("foo"));
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      String internedInOtherScope =
+          executorService.submit(() -> interner.intern(new String("foo"))).get();
+      assertThat(internedInOtherScope).isNotSameInstanceAs(canonical);
+    } finally {
+      executorService.shutdown();
+    }
+  }
+}
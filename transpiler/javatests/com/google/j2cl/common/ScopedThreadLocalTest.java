@@ -0,0 +1,121 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ScopedThreadLocalTest {
+
+  private final AtomicInteger initialValueCount = new AtomicInteger();
+  private final ScopedThreadLocal<List<String>> values =
+      ScopedThreadLocal.withInitial(
+          () -> {
+            initialValueCount.incrementAndGet();
+            return new ArrayList<>();
+          });
+
+  @Test
+  public void testGet_poolThreadsAdoptingTheScopeSeeTheSameValues() throws Exception {
+    List<String> value = values.get();
+    value.add("foo");
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+
+    List<Callable<List<String>>> tasks = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      tasks.add(
+          () -> {
+            ScopedThreadLocal.setCurrentScope(scope);
+            return values.get();
+          });
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      for (Future<List<String>> result : executorService.invokeAll(tasks)) {
+        assertThat(result.get()).isSameInstanceAs(value);
+      }
+      // Values set by a pool thread are seen by the thread that created the scope.
+      List<String> otherValue = new ArrayList<>();
+      executorService
+          .submit(
+              () -> {
+                ScopedThreadLocal.setCurrentScope(scope);
+                values.set(otherValue);
+              })
+          .get();
+      assertThat(values.get()).isSameInstanceAs(otherValue);
+    } finally {
+      executorService.shutdown();
+    }
+    assertThat(initialValueCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void testGet_separateScopesAreIsolated() throws Exception {
+    List<String> value = values.get();
+    value.add("foo");
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      // A thread that does not adopt the scope has its own.
+      List<String> valueInOtherThread = executorService.submit(values::get).get();
+      assertThat(valueInOtherThread).isNotSameInstanceAs(value);
+      assertThat(valueInOtherThread).isEmpty();
+
+      // So does a thread that starts a new scope, even if it used the scope before.
+      List<String> valueInNewScope =
+          executorService
+              .submit(
+                  () -> {
+                    ScopedThreadLocal.setCurrentScope(ScopedThreadLocal.newScope());
+                    values.get().add("bar");
+                    return values.get();
+                  })
+              .get();
+      assertThat(valueInNewScope).containsExactly("bar");
+    } finally {
+      executorService.shutdown();
+    }
+    assertThat(values.get()).containsExactly("foo");
+    assertThat(initialValueCount.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testRemove_resetsToInitialValueInTheScopeOnly() throws Exception {
+    List<String> value = values.get();
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+
+    ScopedThreadLocal.setCurrentScope(ScopedThreadLocal.newScope());
+    values.remove();
+    assertThat(values.get()).isNotSameInstanceAs(value);
+
+    ScopedThreadLocal.setCurrentScope(scope);
+    assertThat(values.get()).isSameInstanceAs(value);
+    values.set(null);
+    assertThat(values.get()).isNotSameInstanceAs(value);
+  }
+}
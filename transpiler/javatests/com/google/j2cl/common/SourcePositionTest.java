@@ -0,0 +1,64 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SourcePositionTest {
+
+  @Test
+  public void testEquals_samePosition() {
+    SourcePosition position = createPosition(/* startByteOffset= */ 12, /* endByteOffset= */ 20);
+    SourcePosition samePosition =
+        createPosition(/* startByteOffset= */ 12, /* endByteOffset= */ 20);
+
+    assertThat(samePosition).isEqualTo(position);
+    assertThat(samePosition.hashCode()).isEqualTo(position.hashCode());
+  }
+
+  @Test
+  public void testEquals_differentByteOffsets() {
+    SourcePosition position = createPosition(/* startByteOffset= */ 12, /* endByteOffset= */ 20);
+
+    assertThat(createPosition(/* startByteOffset= */ 13, /* endByteOffset= */ 20))
+        .isNotEqualTo(position);
+    assertThat(createPosition(/* startByteOffset= */ 12, /* endByteOffset= */ 21))
+        .isNotEqualTo(position);
+  }
+
+  @Test
+  public void testFilePositions_keepByteOffsets() {
+    SourcePosition position = createPosition(/* startByteOffset= */ 12, /* endByteOffset= */ 20);
+
+    assertThat(position.getStartFilePosition().getByteOffset()).isEqualTo(12);
+    assertThat(position.getEndFilePosition().getByteOffset()).isEqualTo(20);
+    assertThat(SourcePosition.Builder.from(position).build()).isEqualTo(position);
+  }
+
+  private static SourcePosition createPosition(int startByteOffset, int endByteOffset) {
+    return SourcePosition.newBuilder()
+        .setFilePath("com/google/Foo.java")
+        .setPackageRelativePath("Foo.java")
+        .setStartPosition(1, 2, startByteOffset)
+        .setEndPosition(1, 10, endByteOffset)
+        .build();
+  }
+}
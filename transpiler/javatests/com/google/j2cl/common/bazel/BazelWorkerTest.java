@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.common.bazel;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.collect.ImmutableList;
+import com.google.devtools.build.lib.worker.WorkerProtocol.WorkRequest;
+import com.google.devtools.build.lib.worker.WorkerProtocol.WorkResponse;
+import com.google.j2cl.common.ConcurrentTasks;
+import com.google.j2cl.common.Problems;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CyclicBarrier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+import org.kohsuke.args4j.Option;
+
+@RunWith(JUnit4.class)
+public final class BazelWorkerTest {
+
+  private static final int CONCURRENT_REQUESTS =
+      Math.min(4, Runtime.getRuntime().availableProcessors());
+
+  /** Holds the requests until enough of them are in flight, so that they run at the same time. */
+  private static final CyclicBarrier requestsInFlight = new CyclicBarrier(CONCURRENT_REQUESTS);
+
+  /** Writes its name to the output, from its own thread and from the tasks it starts. */
+  static final class EchoWorker extends BazelWorker {
+    @Option(name = "-name")
+    String name;
+
+    @Option(name = "-fail")
+    boolean fail = false;
+
+    @Override
+    protected void run(Problems problems) {
+      try {
+        requestsInFlight.await(30, SECONDS);
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+      System.out.println("stdout of " + name);
+      System.err.println("stderr of " + name);
+      ConcurrentTasks.forEach(
+          ImmutableList.of(1, 2, 3), i -> System.err.println("task " + i + " of " + name));
+      if (fail) {
+        problems.error("Request %s failed.", name);
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentRequests_getTheirOwnOutputAndExitCode() throws Exception {
+    int requestCount = 2 * CONCURRENT_REQUESTS;
+    ByteArrayOutputStream requests = new ByteArrayOutputStream();
+    for (int id = 1; id <= requestCount; id++) {
+      List<String> arguments = new ArrayList<>(ImmutableList.of("-name", getName(id)));
+      if (isFailing(id)) {
+        arguments.add("-fail");
+      }
+      WorkRequest.newBuilder()
+          .addAllArguments(arguments)
+          .setRequestId(id)
+          .build()
+          .writeDelimitedTo(requests);
+    }
+
+    ByteArrayOutputStream responses = new ByteArrayOutputStream();
+    BazelWorker.runPersistentWorker(
+        EchoWorker::new,
+        new ByteArrayInputStream(requests.toByteArray()),
+        new PrintStream(responses, true));
+
+    Map<Integer, WorkResponse> responseById = new HashMap<>();
+    InputStream responsesInput = new ByteArrayInputStream(responses.toByteArray());
+    WorkResponse response;
+    while ((response = WorkResponse.parseDelimitedFrom(responsesInput)) != null) {
+      assertThat(responseById.put(response.getRequestId(), response)).isNull();
+    }
+    assertThat(responseById).hasSize(requestCount);
+
+    for (int id = 1; id <= requestCount; id++) {
+      String name = getName(id);
+      WorkResponse requestResponse = responseById.get(id);
+      assertThat(requestResponse.getExitCode()).isEqualTo(isFailing(id) ? 1 : 0);
+
+      String output = requestResponse.getOutput();
+      assertThat(output).contains("stdout of " + name);
+      assertThat(output).contains("stderr of " + name);
+      for (int i = 1; i <= 3; i++) {
+        assertThat(output).contains("task " + i + " of " + name);
+      }
+      if (isFailing(id)) {
+        assertThat(output).contains("Request " + name + " failed.");
+      }
+      for (int otherId = 1; otherId <= requestCount; otherId++) {
+        if (otherId != id) {
+          assertThat(output).doesNotContain(getName(otherId));
+        }
+      }
+    }
+  }
+
+  private static String getName(int id) {
+    return "<request " + id + ">";
+  }
+
+  private static boolean isFailing(int id) {
+    return id % 2 == 0;
+  }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.OutputUtils.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourceUtils;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the heap footprint report of a transpilation. */
+@RunWith(JUnit4.class)
+public final class HeapFootprintReportTest {
+
+  private static final String JRE_PATH =
+      "transpiler/javatests/com/google/j2cl/transpiler/jre_bundle_deploy.jar";
+
+  /** The smallest instance on a 64-bit JVM: an object header, aligned. */
+  private static final long MIN_INSTANCE_BYTES = 16;
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path sourceDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = temporaryFolder.newFolder("java").toPath();
+    writeSource(
+        "test/Foo.java",
+        "package test;",
+        "public class Foo {",
+        "  static final String NAME = \"foo\";",
+        "  private int count;",
+        "  public int getCount() {",
+        "    return count;",
+        "  }",
+        "  static class Nested {",
+        "    long value;",
+        "  }",
+        "}");
+    writeSource(
+        "test/Bar.java",
+        "package test;",
+        "public class Bar {",
+        "  public static int twice(int x) {",
+        "    return 2 * x;",
+        "  }",
+        "}");
+  }
+
+  @Test
+  public void testReport_recordsEachStage() throws IOException {
+    ImmutableList<JsonObject> stages = transpile();
+
+    assertThat(stages.stream().map(s -> s.get("stage").getAsString()).collect(toImmutableList()))
+        .containsExactly("frontend", "desugarLibrary", "normalizeLibrary", "generateOutputs")
+        .inOrder();
+    for (JsonObject stage : stages) {
+      assertThat(stage.get("usedHeapBytes").getAsLong()).isGreaterThan(0L);
+    }
+  }
+
+  @Test
+  public void testReport_countsTheNodesOfEachClass() throws IOException {
+    Map<String, Footprint> nodes = getFootprints(transpile().get(0), "nodes");
+
+    assertThat(nodes.get("Library").count).isEqualTo(1L);
+    assertThat(nodes.get("CompilationUnit").count).isEqualTo(2L);
+    // Foo, Foo.Nested and Bar.
+    assertThat(nodes.get("Type").count).isEqualTo(3L);
+    assertThat(nodes.get("Field").count).isEqualTo(3L);
+    // Implicit constructors are only created by the normalization passes.
+    assertThat(nodes.get("Method").count).isEqualTo(2L);
+    assertThat(nodes.get("ReturnStatement").count).isEqualTo(2L);
+  }
+
+  @Test
+  public void testReport_tracksTheGrowthOfTheAst() throws IOException {
+    ImmutableList<JsonObject> stages = transpile();
+    Map<String, Footprint> frontendNodes = getFootprints(stages.get(0), "nodes");
+    Map<String, Footprint> normalizedNodes = getFootprints(stages.get(2), "nodes");
+
+    assertThat(normalizedNodes.get("CompilationUnit").count).isEqualTo(2L);
+    assertThat(normalizedNodes.get("Type").count).isEqualTo(3L);
+    assertThat(normalizedNodes.get("Method").count)
+        .isGreaterThan(frontendNodes.get("Method").count);
+  }
+
+  @Test
+  public void testReport_estimatesTheBytesOfEachClass() throws IOException {
+    for (JsonObject stage : transpile()) {
+      for (String kind : ImmutableList.of("nodes", "descriptors")) {
+        ImmutableList<Footprint> footprints =
+            ImmutableList.copyOf(getFootprints(stage, kind).values());
+        assertThat(footprints).isNotEmpty();
+        for (Footprint footprint : footprints) {
+          assertThat(footprint.estimatedBytes).isAtLeast(footprint.count * MIN_INSTANCE_BYTES);
+        }
+        // The worst offenders come first.
+        for (int i = 1; i < footprints.size(); i++) {
+          assertThat(footprints.get(i).estimatedBytes)
+              .isAtMost(footprints.get(i - 1).estimatedBytes);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testReport_countsTheInternedDescriptors() throws IOException {
+    Map<String, Footprint> descriptors = getFootprints(transpile().get(0), "descriptors");
+
+    assertThat(descriptors.keySet())
+        .containsExactly("DeclaredTypeDescriptor", "MethodDescriptor", "FieldDescriptor");
+    // The descriptors of the library and of the JRE types it references.
+    assertThat(descriptors.get("DeclaredTypeDescriptor").count).isAtLeast(3L);
+    assertThat(descriptors.get("MethodDescriptor").count).isAtLeast(2L);
+    assertThat(descriptors.get("FieldDescriptor").count).isAtLeast(3L);
+  }
+
+  /** The footprint of the instances of a class in a stage. */
+  private static final class Footprint {
+    private long count;
+    private long estimatedBytes;
+  }
+
+  private static ImmutableMap<String, Footprint> getFootprints(JsonObject stage, String kind) {
+    Gson gson = new Gson();
+    ImmutableMap.Builder<String, Footprint> footprintByClassName = ImmutableMap.builder();
+    for (Map.Entry<String, JsonElement> entry : stage.getAsJsonObject(kind).entrySet()) {
+      footprintByClassName.put(entry.getKey(), gson.fromJson(entry.getValue(), Footprint.class));
+    }
+    return footprintByClassName.build();
+  }
+
+  /** Transpiles the library and returns the footprints of its stages. */
+  private ImmutableList<JsonObject> transpile() throws IOException {
+    Path runDirectory = temporaryFolder.newFolder().toPath();
+    Path outputDirectory = runDirectory.resolve("output");
+    Path reportOutput = runDirectory.resolve("output.heap.json");
+    Files.createDirectories(outputDirectory);
+    Problems problems = new Problems();
+    try (Output output = OutputUtils.initOutput(outputDirectory, problems)) {
+      J2clTranspiler.transpile(
+          J2clTranspilerOptions.newBuilder()
+              .setSources(getSources(problems))
+              .setNativeSources(ImmutableList.of())
+              .setClasspaths(ImmutableList.of(JRE_PATH))
+              .setOutput(output)
+              .setEmitReadableLibraryInfo(false)
+              .setEmitReadableSourceMap(false)
+              .setGenerateKytheIndexingMetadata(false)
+              .setHeapFootprintReportOutput(reportOutput)
+              .setFrontend(Frontend.JDT)
+              .setBackend(Backend.CLOSURE)
+              .build(),
+          problems);
+    }
+    assertThat(problems.hasErrors()).isFalse();
+
+    String json = new String(Files.readAllBytes(reportOutput), UTF_8);
+    JsonObject report = new Gson().fromJson(json, JsonElement.class).getAsJsonObject();
+    return StreamSupport.stream(report.getAsJsonArray("stages").spliterator(), false)
+        .map(JsonElement::getAsJsonObject)
+        .collect(toImmutableList());
+  }
+
+  private List<SourceUtils.FileInfo> getSources(Problems problems) throws IOException {
+    try (Stream<Path> files = Files.walk(sourceDirectory)) {
+      List<String> paths =
+          files
+              .map(Path::toString)
+              .filter(f -> f.endsWith(".java"))
+              .sorted()
+              .collect(toImmutableList());
+      return SourceUtils.getAllSources(paths, problems).collect(toImmutableList());
+    }
+  }
+
+  private void writeSource(String relativePath, String... lines) throws IOException {
+    Path path = sourceDirectory.resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("\n", lines).getBytes(UTF_8));
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.j2cl.transpiler.TranspilerTester.newTesterWithDefaults;
+
+import com.google.j2cl.transpiler.TranspilerTester.TranspileResult;
+import junit.framework.TestCase;
+
+/**
+ * Tests that the javac frontend produces the same outputs when it reuses its state across
+ * transpilations.
+ */
+public class JavacContextReuseTest extends TestCase {
+
+  public void testReusedContextsProduceTheSameOutputs() throws Exception {
+    // Without the classpath cache the sources are compiled as part of java.base. With it they are
+    // compiled in the unnamed module, in a context that is reused by the following transpilations.
+    TranspileResult expected = transpile();
+    transpile("-experimentalclasspathcache").assertOutputFilesAreSame(expected);
+    transpile("-experimentalclasspathcache").assertOutputFilesAreSame(expected);
+  }
+
+  private static TranspileResult transpile(String... args) {
+    return newTesterWithDefaults()
+        .addArgs("-frontend", "javac")
+        .addArgs(args)
+        .addCompilationUnit(
+            "test.Foo",
+            "import java.util.ArrayList;",
+            "import java.util.List;",
+            "import java.util.function.Function;",
+            "public class Foo<T extends Comparable<T>> implements Comparable<Foo<T>> {",
+            "  enum Color { RED, GREEN }",
+            "  private final List<T> values = new ArrayList<>();",
+            "  public void add(T value) {",
+            "    values.add(value);",
+            "  }",
+            "  public <R> List<R> map(Function<? super T, ? extends R> function) {",
+            "    List<R> result = new ArrayList<>();",
+            "    for (T value : values) {",
+            "      result.add(function.apply(value));",
+            "    }",
+            "    return result;",
+            "  }",
+            "  @Override",
+            "  public int compareTo(Foo<T> other) {",
+            "    return Integer.compare(values.size(), other.values.size());",
+            "  }",
+            "  public static int sum(List<Integer> values) {",
+            "    int sum = 0;",
+            "    for (int value : values) {",
+            "      sum += value;",
+            "    }",
+            "    return sum;",
+            "  }",
+            "  public String describe(Color color) {",
+            "    switch (color) {",
+            "      case RED:",
+            "        return \"red\";",
+            "      default:",
+            "        return \"not red: \" + color;",
+            "    }",
+            "  }",
+            "  class Inner {",
+            "    T first() {",
+            "      return values.get(0);",
+            "    }",
+            "  }",
+            "}")
+        .addCompilationUnit(
+            "test.Bar",
+            "import java.util.List;",
+            "public class Bar {",
+            "  public static List<String> exclaim(Foo<String> foo) {",
+            "    return foo.map(s -> s + \"!\");",
+            "  }",
+            "  public static Runnable doNothing() {",
+            "    return new Runnable() {",
+            "      @Override",
+            "      public void run() {}",
+            "    };",
+            "  }",
+            "}")
+        .assertTranspileSucceeds()
+        .assertNoWarnings();
+  }
+}
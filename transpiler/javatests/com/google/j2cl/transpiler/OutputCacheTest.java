@@ -0,0 +1,314 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.OutputUtils.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourceUtils;
+import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.backend.common.OutputCache;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.tools.ToolProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that the output cache is reused, invalidated and bounded as expected. */
+@RunWith(JUnit4.class)
+public final class OutputCacheTest {
+
+  private static final String JRE_PATH =
+      "transpiler/javatests/com/google/j2cl/transpiler/jre_bundle_deploy.jar";
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path cacheDirectory;
+  private Path sourceDirectory;
+  private Path dependencyDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    cacheDirectory = temporaryFolder.newFolder("cache").toPath();
+    // A Java root, so that the sources have package relative paths.
+    sourceDirectory = temporaryFolder.newFolder("java").toPath();
+    compileDependency("Hello", "String");
+    // Foo inlines a constant of the dependency, Bar calls one of its methods and Baz does not
+    // reference it at all.
+    writeSource(
+        "test/Foo.java",
+        "package test;",
+        "import dep.Dep;",
+        "public class Foo {",
+        "  public static String greeting() {",
+        "    return Dep.GREETING;",
+        "  }",
+        "}");
+    writeSource(
+        "test/Bar.java",
+        "package test;",
+        "import dep.Dep;",
+        "public class Bar {",
+        "  public static String greet() {",
+        "    return Dep.greet(\"Bar\");",
+        "  }",
+        "}");
+    writeSource(
+        "test/Baz.java",
+        "package test;",
+        "public class Baz {",
+        "  public static native int answer();",
+        "}");
+    writeSource("test/Baz.native.js", "Baz.answer = function() { return 42; };");
+  }
+
+  @Test
+  public void identicalInputsHitTheCacheAndProduceTheSameOutputs() throws IOException {
+    Transpilation uncached = transpile();
+    ImmutableSet<String> entries = getCacheEntries();
+    assertThat(entries).hasSize(3);
+
+    Transpilation cached = transpile();
+    assertThat(getCacheEntries()).isEqualTo(entries);
+    assertThat(cached.contentByRelativePath).isEqualTo(uncached.contentByRelativePath);
+    assertThat(cached.libraryInfo).isEqualTo(uncached.libraryInfo);
+  }
+
+  @Test
+  public void changingAnInlinedConstantOnlyMissesTheUnitsThatInlineIt() throws IOException {
+    transpile();
+    ImmutableSet<String> entries = getCacheEntries();
+
+    compileDependency("Hi", "String");
+    Transpilation transpilation = transpile();
+    // Only Foo is transpiled again.
+    assertThat(Sets.difference(getCacheEntries(), entries)).hasSize(1);
+    assertThat(transpilation.contentByRelativePath.get("test/Foo.impl.java.js")).contains("Hi");
+  }
+
+  @Test
+  public void changingTheSignatureOfADependencyMissesAllTheUnits() throws IOException {
+    Transpilation before = transpile();
+    ImmutableSet<String> entries = getCacheEntries();
+
+    compileDependency("Hello", "Object");
+    Transpilation after = transpile();
+    assertThat(Sets.difference(getCacheEntries(), entries)).hasSize(3);
+    assertThat(after.contentByRelativePath.get("test/Bar.impl.java.js"))
+        .isNotEqualTo(before.contentByRelativePath.get("test/Bar.impl.java.js"));
+  }
+
+  @Test
+  public void changingANativeSourceMissesAllTheUnits() throws IOException {
+    transpile();
+    ImmutableSet<String> entries = getCacheEntries();
+
+    writeSource("test/Baz.native.js", "Baz.answer = function() { return 43; };");
+    Transpilation transpilation = transpile();
+    assertThat(Sets.difference(getCacheEntries(), entries)).hasSize(3);
+    assertThat(transpilation.contentByRelativePath.get("test/Baz.impl.java.js")).contains("43");
+  }
+
+  @Test
+  public void evictsTheLeastRecentlyUsedEntries() throws IOException {
+    transpile();
+    ImmutableList<String> oldEntries = getCacheEntries().asList();
+    for (int i = 0; i < oldEntries.size(); i++) {
+      setLastUse(oldEntries.get(i), i + 1);
+    }
+    String newestOldEntry = oldEntries.get(oldEntries.size() - 1);
+
+    writeSource("test/Baz.native.js", "Baz.answer = function() { return 43; };");
+    transpile();
+    ImmutableSet<String> newEntries =
+        ImmutableSet.copyOf(Sets.difference(getCacheEntries(), ImmutableSet.copyOf(oldEntries)));
+    for (String entry : newEntries) {
+      setLastUse(entry, oldEntries.size() + 1);
+    }
+
+    // Room for the entries in use and for one more.
+    long maxSizeBytes = getSize(newEntries) + getSize(ImmutableSet.of(newestOldEntry));
+    transpile(maxSizeBytes);
+    assertThat(getCacheEntries())
+        .isEqualTo(Sets.union(newEntries, ImmutableSet.of(newestOldEntry)));
+  }
+
+  @Test
+  public void librariesWithErrorsAreNotCached() throws IOException {
+    writeSource("test/Unused.native.js", "");
+    Transpilation transpilation = transpile();
+    assertThat(transpilation.problems.getErrors().toString()).contains("Unused native file");
+    assertThat(getCacheEntries()).isEmpty();
+  }
+
+  /** The outputs of a transpilation. */
+  private static final class Transpilation {
+    private final Problems problems;
+    private final ImmutableMap<String, String> contentByRelativePath;
+    private final byte[] libraryInfo;
+
+    Transpilation(
+        Problems problems, ImmutableMap<String, String> contentByRelativePath, byte[] libraryInfo) {
+      this.problems = problems;
+      this.contentByRelativePath = contentByRelativePath;
+      this.libraryInfo = libraryInfo;
+    }
+  }
+
+  private Transpilation transpile() throws IOException {
+    return transpile(Long.MAX_VALUE);
+  }
+
+  private Transpilation transpile(long maxCacheSizeBytes) throws IOException {
+    Path runDirectory = temporaryFolder.newFolder().toPath();
+    Path outputDirectory = runDirectory.resolve("output");
+    Path libraryInfoOutput = runDirectory.resolve("library_info.pb");
+    Files.createDirectories(outputDirectory);
+    Problems problems = new Problems();
+    try (Output output = OutputUtils.initOutput(outputDirectory, problems)) {
+      J2clTranspiler.transpile(
+          J2clTranspilerOptions.newBuilder()
+              .setSources(getSources(problems, ".java"))
+              .setNativeSources(getSources(problems, ".native.js"))
+              .setClasspaths(ImmutableList.of(JRE_PATH, dependencyDirectory.toString()))
+              .setOutput(output)
+              .setLibraryInfoOutput(libraryInfoOutput)
+              .setEmitReadableLibraryInfo(false)
+              .setEmitReadableSourceMap(false)
+              .setGenerateKytheIndexingMetadata(false)
+              .setFrontend(Frontend.JDT)
+              .setBackend(Backend.CLOSURE)
+              .setOutputCache(new OutputCache(cacheDirectory, maxCacheSizeBytes))
+              .build(),
+          problems);
+    } catch (Problems.Exit e) {
+      // The errors are checked by the tests.
+    }
+    if (problems.hasErrors()) {
+      return new Transpilation(problems, ImmutableMap.of(), new byte[0]);
+    }
+
+    try (Stream<Path> files = Files.walk(outputDirectory)) {
+      return new Transpilation(
+          problems,
+          files
+              .filter(Files::isRegularFile)
+              .sorted()
+              .collect(
+                  toImmutableMap(
+                      f -> outputDirectory.relativize(f).toString(), OutputCacheTest::readString)),
+          Files.readAllBytes(libraryInfoOutput));
+    }
+  }
+
+  private List<FileInfo> getSources(Problems problems, String extension) throws IOException {
+    try (Stream<Path> files = Files.walk(sourceDirectory)) {
+      List<String> paths =
+          files
+              .map(Path::toString)
+              .filter(f -> f.endsWith(extension))
+              .sorted()
+              .collect(ImmutableList.toImmutableList());
+      return SourceUtils.getAllSources(paths, problems).collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  private ImmutableSet<String> getCacheEntries() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      return files
+          .map(f -> f.getFileName().toString())
+          .filter(f -> f.endsWith(".entry"))
+          .sorted()
+          .collect(toImmutableSet());
+    }
+  }
+
+  private void setLastUse(String entry, long seconds) throws IOException {
+    Files.setLastModifiedTime(cacheDirectory.resolve(entry), FileTime.fromMillis(seconds * 1000));
+  }
+
+  private long getSize(ImmutableSet<String> entries) throws IOException {
+    long size = 0;
+    for (String entry : entries) {
+      size += Files.size(cacheDirectory.resolve(entry));
+    }
+    return size;
+  }
+
+  /** Compiles a new version of the dependency onto a class path entry of its own. */
+  private void compileDependency(String greeting, String parameterType) throws IOException {
+    Path dependencySourceDirectory = temporaryFolder.newFolder().toPath();
+    Path dependencySource = dependencySourceDirectory.resolve("Dep.java");
+    Files.write(
+        dependencySource,
+        String.join(
+                "\n",
+                "package dep;",
+                "public class Dep {",
+                "  public static final String GREETING = \"" + greeting + "\";",
+                "  public static String greet(" + parameterType + " name) {",
+                "    return GREETING + name;",
+                "  }",
+                "}")
+            .getBytes(UTF_8));
+    dependencyDirectory = temporaryFolder.newFolder().toPath();
+    int result =
+        ToolProvider.getSystemJavaCompiler()
+            .run(
+                null,
+                null,
+                null,
+                "--release",
+                "11",
+                "-d",
+                dependencyDirectory.toString(),
+                dependencySource.toString());
+    assertThat(result).isEqualTo(0);
+  }
+
+  private void writeSource(String relativePath, String... lines) throws IOException {
+    Path path = sourceDirectory.resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("\n", lines).getBytes(UTF_8));
+  }
+
+  private static String readString(Path path) {
+    try {
+      return new String(Files.readAllBytes(path), UTF_8);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
@@ -25,11 +25,22 @@ public class RerunningJ2clTranspilerTest extends TestCase {
     compileJre().assertOutputFilesAreSame(compileJre());
   }
 
-  private static TranspileResult compileJre() throws Exception {
+  public void testCompileJreWithParallelPasses() throws Exception {
+    compileJre("-experimentalparallelpasses").assertOutputFilesAreSame(compileJre());
+  }
+
+  public void testCompileJreWithShardedParsing() throws Exception {
+    // Small shards so that the types of a shard refer to the types of many other shards.
+    compileJre("-experimentalshardedparsing", "-experimentalparsingshardsize", "20")
+        .assertOutputFilesAreSame(compileJre());
+  }
+
+  private static TranspileResult compileJre(String... args) throws Exception {
     return newTesterWithDefaults()
         .setNativeSourcePathArg("transpiler/javatests/com/google/j2cl/transpiler/libjre_native.jar")
         .addSourcePathArg(
             "transpiler/javatests/com/google/j2cl/transpiler/jre_bundle_deploy-src.jar")
+        .addArgs(args)
         .assertTranspileSucceeds()
         .assertNoWarnings();
   }
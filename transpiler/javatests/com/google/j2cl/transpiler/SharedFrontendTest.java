@@ -0,0 +1,281 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.joining;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.OutputUtils.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourceUtils;
+import com.google.j2cl.common.SourceUtils.FileInfo;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.ast.Library;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import com.google.j2cl.transpiler.passes.LibraryNormalizationPass;
+import com.google.j2cl.transpiler.passes.NormalizationPass;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that backends sharing the frontend produce the same outputs as separate transpilations. */
+@RunWith(JUnit4.class)
+public final class SharedFrontendTest {
+
+  private static final String JRE_PATH =
+      "transpiler/javatests/com/google/j2cl/transpiler/jre_bundle_deploy.jar";
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path sourceDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = temporaryFolder.newFolder("java").toPath();
+    // Declares local variables in loops, lambdas and nested classes, which are the parts of the
+    // AST that are shared by default when statements are cloned.
+    writeSource(
+        "test/Foo.java",
+        "package test;",
+        "import java.util.function.Supplier;",
+        "public class Foo {",
+        "  private int total;",
+        "  public int sum(int[] values) {",
+        "    int sum = 0;",
+        "    for (int value : values) {",
+        "      sum += value;",
+        "    }",
+        "    total += sum;",
+        "    return sum;",
+        "  }",
+        "  public Supplier<String> describe(String name) {",
+        "    String prefix = \"Hello \";",
+        "    return () -> prefix + name + total;",
+        "  }",
+        "  public int count(Object o) {",
+        "    class Counter {",
+        "      int count() {",
+        "        return o instanceof String ? ((String) o).length() : total;",
+        "      }",
+        "    }",
+        "    return new Counter().count();",
+        "  }",
+        "  enum Color {",
+        "    RED,",
+        "    GREEN",
+        "  }",
+        "}");
+  }
+
+  @Test
+  public void normalizingACloneLeavesTheOriginalLibraryUnchanged() throws Exception {
+    // The descriptors are interned in the scope of the thread, which needs to be a fresh one.
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try (Output output = newOutput()) {
+      J2clTranspilerOptions options = newOptions(Backend.CLOSURE, output, new Problems());
+      executorService
+          .submit(
+              () -> {
+                Problems problems = new Problems();
+                Library library = Frontend.JDT.getLibrary(options, problems);
+                assertThat(problems.hasErrors()).isFalse();
+                runPasses(library, Backend.CLOSURE.getDesugaringPassFactories());
+                String desugaredLibrary = render(library);
+
+                Library clonedLibrary = library.clone();
+                assertThat(render(clonedLibrary)).isEqualTo(desugaredLibrary);
+
+                runPasses(clonedLibrary, Backend.CLOSURE.getPassFactories(options));
+                assertThat(render(clonedLibrary)).isNotEqualTo(desugaredLibrary);
+                assertThat(render(library)).isEqualTo(desugaredLibrary);
+
+                // And the original library is normalized exactly as its copy was.
+                runPasses(library, Backend.CLOSURE.getPassFactories(options));
+                assertThat(render(library)).isEqualTo(render(clonedLibrary));
+                return null;
+              })
+          .get();
+    } finally {
+      executorService.shutdown();
+    }
+  }
+
+  @Test
+  public void sharedFrontendProducesTheSameOutputsAsSeparateTranspilations() throws IOException {
+    ImmutableList<ImmutableMap<String, String>> sharedOutputs =
+        transpile(Backend.CLOSURE, Backend.KOTLIN);
+
+    assertThat(sharedOutputs.get(0)).isNotEmpty();
+    assertThat(sharedOutputs.get(0)).isEqualTo(transpile(Backend.CLOSURE).get(0));
+    assertThat(sharedOutputs.get(1)).isNotEmpty();
+    assertThat(sharedOutputs.get(1)).isEqualTo(transpile(Backend.KOTLIN).get(0));
+  }
+
+  @Test
+  public void copiesOfTheLibraryForTheSameBackendProduceTheSameOutputs() throws IOException {
+    ImmutableList<ImmutableMap<String, String>> sharedOutputs =
+        transpile(Backend.CLOSURE, Backend.CLOSURE, Backend.CLOSURE);
+
+    ImmutableMap<String, String> separateOutput = transpile(Backend.CLOSURE).get(0);
+    assertThat(sharedOutputs).containsExactly(separateOutput, separateOutput, separateOutput);
+  }
+
+  @Test
+  public void wasmCannotShareTheFrontendWithTheOtherBackends() throws IOException {
+    Problems problems = new Problems();
+    try (Output output = newOutput();
+        Output wasmOutput = newOutput()) {
+      J2clTranspilerOptions options = newOptions(Backend.CLOSURE, output, problems);
+      J2clTranspilerOptions wasmOptions = newOptions(Backend.WASM, wasmOutput, problems);
+
+      assertThrows(
+          IllegalStateException.class,
+          () ->
+              options.toBuilder()
+                  .setAdditionalBackendOptions(ImmutableList.of(wasmOptions))
+                  .build());
+    }
+  }
+
+  /**
+   * Transpiles the sources with all the {@code backends} at once, the first one being the primary
+   * backend, and returns the contents of their outputs.
+   */
+  private ImmutableList<ImmutableMap<String, String>> transpile(Backend... backends)
+      throws IOException {
+    Problems problems = new Problems();
+    List<Path> outputDirectories = new ArrayList<>();
+    List<Output> outputs = new ArrayList<>();
+    try {
+      List<J2clTranspilerOptions> optionsByBackend = new ArrayList<>();
+      for (Backend backend : backends) {
+        Path outputDirectory = temporaryFolder.newFolder().toPath();
+        Output output = OutputUtils.initOutput(outputDirectory, problems);
+        outputDirectories.add(outputDirectory);
+        outputs.add(output);
+        optionsByBackend.add(newOptions(backend, output, problems));
+      }
+      J2clTranspiler.transpile(
+          optionsByBackend.get(0).toBuilder()
+              .setAdditionalBackendOptions(optionsByBackend.subList(1, optionsByBackend.size()))
+              .build(),
+          problems);
+    } finally {
+      outputs.forEach(Output::close);
+    }
+    assertThat(problems.hasErrors()).isFalse();
+
+    ImmutableList.Builder<ImmutableMap<String, String>> contents = ImmutableList.builder();
+    for (Path outputDirectory : outputDirectories) {
+      contents.add(readOutput(outputDirectory));
+    }
+    return contents.build();
+  }
+
+  private Output newOutput() throws IOException {
+    return OutputUtils.initOutput(temporaryFolder.newFolder().toPath(), new Problems());
+  }
+
+  private J2clTranspilerOptions newOptions(Backend backend, Output output, Problems problems)
+      throws IOException {
+    return J2clTranspilerOptions.newBuilder()
+        .setSources(getSources(problems))
+        .setNativeSources(ImmutableList.of())
+        .setClasspaths(ImmutableList.of(JRE_PATH))
+        .setOutput(output)
+        .setEmitReadableLibraryInfo(false)
+        .setEmitReadableSourceMap(false)
+        .setGenerateKytheIndexingMetadata(false)
+        .setFrontend(Frontend.JDT)
+        .setBackend(backend)
+        .build();
+  }
+
+  private static void runPasses(Library library, List<Supplier<NormalizationPass>> passFactories) {
+    for (Supplier<NormalizationPass> passFactory : passFactories) {
+      NormalizationPass pass = passFactory.get();
+      if (pass instanceof LibraryNormalizationPass) {
+        ((LibraryNormalizationPass) pass).execute(library);
+        continue;
+      }
+      for (CompilationUnit compilationUnit : library.getCompilationUnits()) {
+        passFactory.get().execute(compilationUnit);
+      }
+    }
+  }
+
+  private static String render(Library library) {
+    return library.getCompilationUnits().stream()
+        .map(CompilationUnit::toString)
+        .collect(joining("\n"));
+  }
+
+  private List<FileInfo> getSources(Problems problems) throws IOException {
+    try (Stream<Path> files = Files.walk(sourceDirectory)) {
+      List<String> paths =
+          files
+              .map(Path::toString)
+              .filter(f -> f.endsWith(".java"))
+              .sorted()
+              .collect(ImmutableList.toImmutableList());
+      return SourceUtils.getAllSources(paths, problems).collect(ImmutableList.toImmutableList());
+    }
+  }
+
+  private static ImmutableMap<String, String> readOutput(Path outputDirectory) throws IOException {
+    try (Stream<Path> files = Files.walk(outputDirectory)) {
+      return files
+          .filter(Files::isRegularFile)
+          .sorted()
+          .collect(
+              toImmutableMap(
+                  f -> outputDirectory.relativize(f).toString(), SharedFrontendTest::readString));
+    }
+  }
+
+  private void writeSource(String relativePath, String... lines) throws IOException {
+    Path path = sourceDirectory.resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("\n", lines).getBytes(UTF_8));
+  }
+
+  private static String readString(Path path) {
+    try {
+      return new String(Files.readAllBytes(path), UTF_8);
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
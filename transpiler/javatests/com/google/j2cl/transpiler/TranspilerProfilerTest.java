@@ -0,0 +1,258 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.j2cl.common.OutputUtils;
+import com.google.j2cl.common.OutputUtils.Output;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourceUtils;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the trace written by the profiler of a transpilation. */
+@RunWith(JUnit4.class)
+public final class TranspilerProfilerTest {
+
+  private static final String JRE_PATH =
+      "transpiler/javatests/com/google/j2cl/transpiler/jre_bundle_deploy.jar";
+
+  /** The timestamps and durations are truncated to microseconds independently of each other. */
+  private static final long TRUNCATION_MICROS = 1;
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path sourceDirectory;
+
+  @Before
+  public void setUp() throws IOException {
+    sourceDirectory = temporaryFolder.newFolder("java").toPath();
+    writeSource(
+        "test/Foo.java",
+        "package test;",
+        "public class Foo {",
+        "  public int sum(int[] values) {",
+        "    int sum = 0;",
+        "    for (int value : values) {",
+        "      sum += value;",
+        "    }",
+        "    return sum;",
+        "  }",
+        "}");
+    writeSource(
+        "test/Bar.java",
+        "package test;",
+        "public class Bar {",
+        "  public String describe(Object o) {",
+        "    return \"Bar \" + o;",
+        "  }",
+        "}");
+  }
+
+  @Test
+  public void testTrace_eventsAreWellFormed() throws IOException {
+    JsonObject trace = transpile(/* parallelPasses= */ false, /* streamOutputs= */ false);
+
+    assertThat(trace.get("displayTimeUnit").getAsString()).isEqualTo("ms");
+    ImmutableList<TraceEvent> events = getEvents(trace);
+    assertThat(events).isNotEmpty();
+    for (TraceEvent event : events) {
+      assertThat(event.name).isNotEmpty();
+      assertThat(event.pid).isEqualTo(1L);
+      assertThat(event.ts).isAtLeast(0L);
+      if (event.cat.equals("ast")) {
+        assertThat(event.ph).isEqualTo("C");
+        assertThat(event.args.get("nodes").getAsLong()).isGreaterThan(0L);
+      } else {
+        assertThat(event.cat).isAnyOf("stage", "pass");
+        assertThat(event.ph).isEqualTo("X");
+        assertThat(event.dur).isAtLeast(0L);
+        if (event.args.has("allocatedBytes")) {
+          assertThat(event.args.get("allocatedBytes").getAsLong()).isAtLeast(0L);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testTrace_stagesRunInSequenceAndContainTheirPasses() throws IOException {
+    ImmutableList<TraceEvent> events =
+        getEvents(transpile(/* parallelPasses= */ false, /* streamOutputs= */ false));
+
+    ImmutableList<TraceEvent> stages = getEvents(events, "stage");
+    assertThat(getNames(stages))
+        .containsExactly(
+            "frontend", "desugarLibrary", "checkLibrary", "normalizeLibrary", "generateOutputs")
+        .inOrder();
+    for (int i = 1; i < stages.size(); i++) {
+      assertThat(stages.get(i).ts).isAtLeast(stages.get(i - 1).getEnd() - TRUNCATION_MICROS);
+    }
+
+    // Passes run on the transpiler thread, within their stage.
+    ImmutableList<TraceEvent> passes = getEvents(events, "pass");
+    assertThat(passes).isNotEmpty();
+    for (TraceEvent pass : passes) {
+      TraceEvent stage = getEnclosingStage(stages, pass);
+      assertThat(stage.tid).isEqualTo(pass.tid);
+      if (pass.name.equals("NormalizeForEachStatement")) {
+        assertThat(stage.name).isEqualTo("desugarLibrary");
+      }
+    }
+    assertThat(getNames(passes)).contains("NormalizeForEachStatement");
+    assertThat(
+            passes.stream()
+                .filter(e -> getEnclosingStage(stages, e).name.equals("normalizeLibrary"))
+                .count())
+        .isGreaterThan(0L);
+
+    // The AST is measured between stages, never while one is recorded.
+    ImmutableList<TraceEvent> astSizes = getEvents(events, "ast");
+    assertThat(astSizes).isNotEmpty();
+    for (TraceEvent astSize : astSizes) {
+      for (TraceEvent stage : stages) {
+        assertThat(astSize.ts <= stage.ts || astSize.ts >= stage.getEnd()).isTrue();
+      }
+    }
+  }
+
+  @Test
+  public void testTrace_passesRunInParallelAreWithinTheirStage() throws IOException {
+    ImmutableList<TraceEvent> events =
+        getEvents(transpile(/* parallelPasses= */ true, /* streamOutputs= */ true));
+
+    ImmutableList<TraceEvent> stages = getEvents(events, "stage");
+    assertThat(getNames(stages))
+        .containsAtLeast("frontend", "normalizeLibraryAndGenerateOutputs", "generateOutputs")
+        .inOrder();
+    ImmutableList<TraceEvent> passes = getEvents(events, "pass");
+    assertThat(passes).isNotEmpty();
+    for (TraceEvent pass : passes) {
+      // Passes run on the pass executor threads are attributed to the stage by time only.
+      getEnclosingStage(stages, pass);
+    }
+  }
+
+  /** An event of the trace. */
+  private static final class TraceEvent {
+    private String name;
+    private String cat;
+    private String ph;
+    private long ts;
+    private long dur;
+    private long pid;
+    private long tid;
+    private JsonObject args;
+
+    private long getEnd() {
+      return ts + dur;
+    }
+
+    private boolean contains(TraceEvent other) {
+      return ts <= other.ts && other.getEnd() <= getEnd() + TRUNCATION_MICROS;
+    }
+  }
+
+  private static TraceEvent getEnclosingStage(List<TraceEvent> stages, TraceEvent event) {
+    ImmutableList<TraceEvent> enclosingStages =
+        stages.stream().filter(stage -> stage.contains(event)).collect(toImmutableList());
+    assertThat(enclosingStages).hasSize(1);
+    return enclosingStages.get(0);
+  }
+
+  private static ImmutableList<TraceEvent> getEvents(JsonObject trace) {
+    Gson gson = new Gson();
+    return StreamSupport.stream(trace.getAsJsonArray("traceEvents").spliterator(), false)
+        .map(e -> gson.fromJson(e, TraceEvent.class))
+        .sorted(comparingLong(e -> e.ts))
+        .collect(toImmutableList());
+  }
+
+  private static ImmutableList<String> getNames(List<TraceEvent> events) {
+    return events.stream().map(e -> e.name).collect(toImmutableList());
+  }
+
+  private static ImmutableList<TraceEvent> getEvents(List<TraceEvent> events, String category) {
+    return events.stream().filter(e -> e.cat.equals(category)).collect(toImmutableList());
+  }
+
+  private JsonObject transpile(boolean parallelPasses, boolean streamOutputs) throws IOException {
+    Path runDirectory = temporaryFolder.newFolder().toPath();
+    Path outputDirectory = runDirectory.resolve("output");
+    Path profileOutput = runDirectory.resolve("output.trace.json");
+    Files.createDirectories(outputDirectory);
+    Problems problems = new Problems();
+    try (Output output = OutputUtils.initOutput(outputDirectory, problems)) {
+      J2clTranspiler.transpile(
+          J2clTranspilerOptions.newBuilder()
+              .setSources(getSources(problems))
+              .setNativeSources(ImmutableList.of())
+              .setClasspaths(ImmutableList.of(JRE_PATH))
+              .setOutput(output)
+              .setEmitReadableLibraryInfo(false)
+              .setEmitReadableSourceMap(false)
+              .setGenerateKytheIndexingMetadata(false)
+              .setExperimentalParallelPasses(parallelPasses)
+              .setExperimentalStreamOutputs(streamOutputs)
+              .setProfileOutput(profileOutput)
+              .setFrontend(Frontend.JDT)
+              .setBackend(Backend.CLOSURE)
+              .build(),
+          problems);
+    }
+    assertThat(problems.hasErrors()).isFalse();
+
+    String json = new String(Files.readAllBytes(profileOutput), UTF_8);
+    return new Gson().fromJson(json, JsonElement.class).getAsJsonObject();
+  }
+
+  private List<SourceUtils.FileInfo> getSources(Problems problems) throws IOException {
+    try (Stream<Path> files = Files.walk(sourceDirectory)) {
+      List<String> paths =
+          files
+              .map(Path::toString)
+              .filter(f -> f.endsWith(".java"))
+              .sorted()
+              .collect(toImmutableList());
+      return SourceUtils.getAllSources(paths, problems).collect(toImmutableList());
+    }
+  }
+
+  private void writeSource(String relativePath, String... lines) throws IOException {
+    Path path = sourceDirectory.resolve(relativePath);
+    Files.createDirectories(path.getParent());
+    Files.write(path, String.join("\n", lines).getBytes(UTF_8));
+  }
+}
@@ -374,6 +374,8 @@ public class TranspilerTester {
           assertThat(Files.readAllLines(actualPath))
               .containsExactlyElementsIn(Files.readAllLines(expectedPath))
               .inOrder();
+          // Also catch the differences that do not show as lines, e.g. in line terminators.
+          assertThat(Files.readAllBytes(actualPath)).isEqualTo(Files.readAllBytes(expectedPath));
         }
       }
 
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.common.SourcePosition;
+import com.google.j2cl.common.visitor.ProcessorError;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that the visitors driven by a composite visitor behave as in their own traversals. */
+@RunWith(JUnit4.class)
+public class CompositeVisitorTest {
+
+  @Test
+  public void visitorsObserveTheContextsAndParentsOfTheirOwnTraversal() {
+    CompilationUnit compilationUnit = createCompilationUnit();
+
+    List<List<Object>> events = recordEvents(compilationUnit, /* enterMembers= */ true);
+    List<List<Object>> eventsSkippingMembers =
+        recordEvents(compilationUnit, /* enterMembers= */ false);
+    assertThat(eventsSkippingMembers.size()).isLessThan(events.size());
+
+    List<List<Object>> compositeEvents = new ArrayList<>();
+    List<List<Object>> compositeEventsSkippingMembers = new ArrayList<>();
+    compilationUnit.accept(
+        new CompositeVisitor(
+            ImmutableList.of(
+                createRecordingVisitor(compositeEvents, /* enterMembers= */ true),
+                createRecordingVisitor(
+                    compositeEventsSkippingMembers, /* enterMembers= */ false))));
+
+    assertThat(compositeEvents).isEqualTo(events);
+    assertThat(compositeEventsSkippingMembers).isEqualTo(eventsSkippingMembers);
+  }
+
+  @Test
+  public void rethrowsTheErrorOfTheFirstFailingVisitor() {
+    CompilationUnit compilationUnit = createCompilationUnit();
+
+    // The load time statement is visited after the literals in the initializer block.
+    ProcessorError lateError =
+        assertThrows(ProcessorError.class, () -> compilationUnit.accept(failOnLiteral(4)));
+    ProcessorError earlyError =
+        assertThrows(ProcessorError.class, () -> compilationUnit.accept(failOnLiteral(1)));
+
+    assertSameError(
+        assertThrows(
+            ProcessorError.class,
+            () ->
+                compilationUnit.accept(
+                    new CompositeVisitor(ImmutableList.of(failOnLiteral(4), failOnLiteral(1))))),
+        lateError);
+    assertSameError(
+        assertThrows(
+            ProcessorError.class,
+            () ->
+                compilationUnit.accept(
+                    new CompositeVisitor(ImmutableList.of(failOnLiteral(1), failOnLiteral(4))))),
+        earlyError);
+  }
+
+  @Test
+  public void keepsDrivingTheOtherVisitorsAfterAFailure() {
+    CompilationUnit compilationUnit = createCompilationUnit();
+    List<List<Object>> events = recordEvents(compilationUnit, /* enterMembers= */ true);
+
+    List<List<Object>> compositeEvents = new ArrayList<>();
+    assertThrows(
+        ProcessorError.class,
+        () ->
+            compilationUnit.accept(
+                new CompositeVisitor(
+                    ImmutableList.of(
+                        failOnLiteral(1),
+                        createRecordingVisitor(compositeEvents, /* enterMembers= */ true)))));
+
+    assertThat(compositeEvents).isEqualTo(events);
+  }
+
+  /**
+   * Creates a compilation unit with a class whose static initializer is {@code 1 + 2; -3;} and
+   * whose load time statement is {@code 4;}.
+   */
+  private static CompilationUnit createCompilationUnit() {
+    Type type =
+        new Type(
+            SourcePosition.NONE,
+            Visibility.PUBLIC,
+            TypeDeclaration.newBuilder()
+                .setClassComponents(ImmutableList.of("Foo"))
+                .setPackageName("test")
+                .setKind(Kind.CLASS)
+                .build());
+    type.addStaticInitializerBlock(
+        Block.newBuilder()
+            .setSourcePosition(SourcePosition.NONE)
+            .setStatements(
+                BinaryExpression.newBuilder()
+                    .setLeftOperand(NumberLiteral.fromInt(1))
+                    .setOperator(BinaryOperator.PLUS)
+                    .setRightOperand(NumberLiteral.fromInt(2))
+                    .build()
+                    .makeStatement(SourcePosition.NONE),
+                PrefixExpression.newBuilder()
+                    .setOperand(NumberLiteral.fromInt(3))
+                    .setOperator(PrefixOperator.MINUS)
+                    .build()
+                    .makeStatement(SourcePosition.NONE))
+            .build());
+    type.addLoadTimeStatement(NumberLiteral.fromInt(4).makeStatement(SourcePosition.NONE));
+
+    CompilationUnit compilationUnit = new CompilationUnit("test/Foo.java", "test");
+    compilationUnit.addType(type);
+    return compilationUnit;
+  }
+
+  private static List<List<Object>> recordEvents(Node root, boolean enterMembers) {
+    List<List<Object>> events = new ArrayList<>();
+    root.accept(createRecordingVisitor(events, enterMembers));
+    return events;
+  }
+
+  /**
+   * Creates a visitor that records the contexts and the parent of every node it enters and exits,
+   * without entering the members of the types unless {@code enterMembers}.
+   */
+  private static AbstractVisitor createRecordingVisitor(
+      List<List<Object>> events, boolean enterMembers) {
+    return new AbstractVisitor() {
+      @Override
+      public boolean enterNode(Node node) {
+        record("enter", node);
+        return true;
+      }
+
+      @Override
+      public boolean enterMember(Member member) {
+        enterNode(member);
+        return enterMembers;
+      }
+
+      @Override
+      public void exitNode(Node node) {
+        record("exit", node);
+      }
+
+      private void record(String event, Node node) {
+        events.add(
+            Arrays.asList(
+                event,
+                node,
+                getParent(),
+                getCurrentCompilationUnit(),
+                getCurrentType(),
+                getCurrentMember()));
+      }
+    };
+  }
+
+  private static AbstractVisitor failOnLiteral(int value) {
+    return new AbstractVisitor() {
+      @Override
+      public void exitNumberLiteral(NumberLiteral numberLiteral) {
+        if (numberLiteral.getValue().intValue() == value) {
+          throw new IllegalStateException("Found " + value);
+        }
+      }
+    };
+  }
+
+  private static void assertSameError(Throwable actual, Throwable expected) {
+    while (expected != null) {
+      assertThat(actual).isNotNull();
+      assertThat(actual.getClass()).isEqualTo(expected.getClass());
+      assertThat(actual.getMessage()).isEqualTo(expected.getMessage());
+      actual = actual.getCause();
+      expected = expected.getCause();
+    }
+    assertThat(actual).isNull();
+  }
+}
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.ast;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.common.ScopedThreadLocal;
+import com.google.j2cl.common.SourcePosition;
+import com.google.j2cl.common.visitor.ProcessorError;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that the visitors that declare their classes of interest skip only irrelevant subtrees. */
+@RunWith(JUnit4.class)
+public class SkippedSubtreesTest {
+
+  @Test
+  public void skipsSubtreesWithoutNodesOfInterest() {
+    Block block = createBlock();
+    ExpressionStatement negation = (ExpressionStatement) block.getStatements().get(1);
+
+    assertThat(enterNodesOfInterest(block, PrefixExpression.class))
+        .containsExactly(block, negation, negation.getExpression())
+        .inOrder();
+    assertThat(enterNodesOfInterest(block, SynchronizedStatement.class)).containsExactly(block);
+  }
+
+  @Test
+  public void seesNodesIntroducedByRewritersWithClassesOfInterest() {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    block.accept(
+        new AbstractRewriter() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(NumberLiteral.class);
+          }
+
+          @Override
+          public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+            return numberLiteral.getValue().intValue() == 4 ? negate(numberLiteral) : numberLiteral;
+          }
+        });
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(2);
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+  }
+
+  @Test
+  public void seesNodesIntroducedByRewritersOfSubtrees() {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    // Rewrite only the subtree of the first statement, the summaries of its ancestors are not
+    // updated by the traversal.
+    ((ExpressionStatement) block.getStatements().get(0))
+        .getExpression()
+        .accept(
+            new AbstractRewriter() {
+              @Override
+              protected List<Class<?>> getNodeClassesOfInterest() {
+                return ImmutableList.of(NumberLiteral.class);
+              }
+
+              @Override
+              public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+                return negate(numberLiteral);
+              }
+            });
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(3);
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+  }
+
+  @Test
+  public void seesNodesIntroducedByRewritersWithoutClassesOfInterest() {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    block.accept(
+        new AbstractRewriter() {
+          @Override
+          public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+            return numberLiteral.getValue().intValue() == 1 ? negate(numberLiteral) : numberLiteral;
+          }
+        });
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(2);
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+  }
+
+  @Test
+  public void seesNodesIntroducedWhenExitingNodesOfInterest() {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    block.accept(
+        new AbstractVisitor() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(BinaryExpression.class);
+          }
+
+          @Override
+          public void exitBinaryExpression(BinaryExpression binaryExpression) {
+            binaryExpression.rightOperand = negate(binaryExpression.getRightOperand());
+          }
+        });
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(2);
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+  }
+
+  @Test
+  public void seesNodesIntroducedByRewritersOnOtherThreadsSharingTheScope() throws Exception {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    // Consecutive passes might run on different threads of the pool used by the transpilation,
+    // which adopt the scope of the thread that started it.
+    ScopedThreadLocal.Scope scope = ScopedThreadLocal.getCurrentScope();
+    Thread thread =
+        new Thread(
+            () -> {
+              ScopedThreadLocal.setCurrentScope(scope);
+              block.accept(
+                  new AbstractRewriter() {
+                    @Override
+                    public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+                      return numberLiteral.getValue().intValue() == 4
+                          ? negate(numberLiteral)
+                          : numberLiteral;
+                    }
+                  });
+            });
+    thread.start();
+    thread.join();
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(2);
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+  }
+
+  @Test
+  public void rejectsModificationsOfNodesOtherThanTheOneBeingExited() {
+    Block block = createBlock();
+    BinaryExpression binaryExpression =
+        (BinaryExpression) ((ExpressionStatement) block.getStatements().get(0)).getExpression();
+
+    ProcessorError error =
+        assertThrows(
+            ProcessorError.class,
+            () ->
+                block.accept(
+                    new AbstractVisitor() {
+                      @Override
+                      protected List<Class<?>> getNodeClassesOfInterest() {
+                        return ImmutableList.of(NumberLiteral.class);
+                      }
+
+                      @Override
+                      public void exitNumberLiteral(NumberLiteral numberLiteral) {
+                        if (numberLiteral.getValue().intValue() == 4) {
+                          // Modifies a node that was already exited.
+                          Expression rightOperand = binaryExpression.getRightOperand();
+                          binaryExpression.rightOperand = negate(rightOperand);
+                        }
+                      }
+                    }));
+    assertThat(error).hasCauseThat().isInstanceOf(IllegalStateException.class);
+  }
+
+  @Test
+  public void ignoresKindsRemovedByRewriters() {
+    Block block = createBlock();
+    assertVisitsAllNodesOfInterest(block, PrefixExpression.class);
+
+    block.accept(
+        new AbstractRewriter() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(PrefixExpression.class);
+          }
+
+          @Override
+          public Expression rewritePrefixExpression(PrefixExpression prefixExpression) {
+            return prefixExpression.getOperand();
+          }
+        });
+
+    assertThat(countNodes(block, PrefixExpression.class)).isEqualTo(0);
+    assertThat(enterNodesOfInterest(block, PrefixExpression.class)).containsExactly(block);
+  }
+
+  /** Creates a block with the statements {@code 1 + 2; -3; 4;}. */
+  private static Block createBlock() {
+    return Block.newBuilder()
+        .setStatements(
+            BinaryExpression.newBuilder()
+                .setLeftOperand(NumberLiteral.fromInt(1))
+                .setOperator(BinaryOperator.PLUS)
+                .setRightOperand(NumberLiteral.fromInt(2))
+                .build()
+                .makeStatement(SourcePosition.NONE),
+            negate(NumberLiteral.fromInt(3)).makeStatement(SourcePosition.NONE),
+            NumberLiteral.fromInt(4).makeStatement(SourcePosition.NONE))
+        .build();
+  }
+
+  private static Expression negate(Expression expression) {
+    return PrefixExpression.newBuilder()
+        .setOperand(expression)
+        .setOperator(PrefixOperator.MINUS)
+        .build();
+  }
+
+  /**
+   * Asserts that a visitor interested in {@code nodeClass} enters all the nodes of that class, and
+   * hence that the subtrees it skips contain none of them.
+   */
+  private static void assertVisitsAllNodesOfInterest(Node root, Class<?> nodeClass) {
+    List<Node> enteredNodes = enterNodesOfInterest(root, nodeClass);
+    List<Node> enteredNodesOfInterest = new ArrayList<>();
+    for (Node node : enteredNodes) {
+      if (nodeClass.isInstance(node)) {
+        enteredNodesOfInterest.add(node);
+      }
+    }
+    assertThat(enteredNodesOfInterest).isEqualTo(collectNodes(root, nodeClass));
+    assertThat(enteredNodes.size()).isLessThan(countNodes(root, Node.class));
+  }
+
+  private static List<Node> enterNodesOfInterest(Node root, Class<?> nodeClass) {
+    List<Node> enteredNodes = new ArrayList<>();
+    root.accept(
+        new AbstractVisitor() {
+          @Override
+          protected List<Class<?>> getNodeClassesOfInterest() {
+            return ImmutableList.of(nodeClass);
+          }
+
+          @Override
+          public boolean enterNode(Node node) {
+            enteredNodes.add(node);
+            return true;
+          }
+        });
+    return enteredNodes;
+  }
+
+  private static List<Node> collectNodes(Node root, Class<?> nodeClass) {
+    List<Node> nodes = new ArrayList<>();
+    root.accept(
+        new AbstractVisitor() {
+          @Override
+          public boolean enterNode(Node node) {
+            if (nodeClass.isInstance(node)) {
+              nodes.add(node);
+            }
+            return true;
+          }
+        });
+    return nodes;
+  }
+
+  private static int countNodes(Node root, Class<?> nodeClass) {
+    return collectNodes(root, nodeClass).size();
+  }
+}
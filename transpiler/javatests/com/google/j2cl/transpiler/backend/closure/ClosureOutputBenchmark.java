@@ -0,0 +1,95 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.backend.closure;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.benchmarks.Corpus;
+import com.google.j2cl.common.Problems;
+import com.google.j2cl.common.SourcePosition;
+import com.google.j2cl.transpiler.ast.Type;
+import com.google.j2cl.transpiler.backend.Backend;
+import com.google.j2cl.transpiler.frontend.Frontend;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Benchmarks the rendering of JavaScript and source maps from the normalized AST. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClosureOutputBenchmark {
+
+  @Param({Corpus.SYNTHETIC, Corpus.JRE})
+  public String corpusName;
+
+  private ImmutableList<Type> types;
+  private final List<List<Import>> importsByType = new ArrayList<>();
+  private final List<Map<SourcePosition, SourcePosition>> sourceMappingsByType = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void normalize() {
+    types =
+        Corpus.load(corpusName)
+            .normalize(Frontend.JDT, Backend.CLOSURE)
+            .streamTypes()
+            .collect(toImmutableList());
+    for (Type type : types) {
+      List<Import> imports = ImportGatherer.gatherImports(type);
+      JavaScriptImplGenerator generator =
+          new JavaScriptImplGenerator(new Problems(), type, imports);
+      generator.renderOutput();
+      importsByType.add(imports);
+      sourceMappingsByType.add(generator.getSourceMappings());
+    }
+  }
+
+  @Benchmark
+  public void renderImplementation(Blackhole blackhole) {
+    for (int i = 0; i < types.size(); i++) {
+      blackhole.consume(
+          new JavaScriptImplGenerator(new Problems(), types.get(i), importsByType.get(i))
+              .renderOutput());
+    }
+  }
+
+  @Benchmark
+  public void generateSourceMaps(Blackhole blackhole) throws IOException {
+    for (int i = 0; i < types.size(); i++) {
+      blackhole.consume(
+          SourceMapGeneratorStage.generateSourceMaps(types.get(i), sourceMappingsByType.get(i)));
+    }
+  }
+}
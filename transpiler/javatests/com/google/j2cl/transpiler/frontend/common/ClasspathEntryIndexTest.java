@@ -0,0 +1,160 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ClasspathEntryIndexTest {
+
+  /** Annotations with elements of every kind, to exercise how they are skipped. */
+  private static final ImmutableMap<String, String> ANNOTATION_SOURCES =
+      ImmutableMap.of(
+          "test/annotations/Nested.java",
+          String.join(
+              "\n",
+              "package test.annotations;",
+              "public @interface Nested {",
+              "  String value();",
+              "  int[] numbers() default {1, 2};",
+              "}"),
+          "test/annotations/Other.java",
+          String.join(
+              "\n",
+              "package test.annotations;",
+              "import java.lang.annotation.*;",
+              "@Retention(RetentionPolicy.RUNTIME)",
+              "public @interface Other {",
+              "  String[] names();",
+              "  Nested nested();",
+              "  Nested[] nesteds();",
+              "  ElementType kind();",
+              "  Class<?> type();",
+              "  long number();",
+              "  double fraction();",
+              "  char character();",
+              "  boolean flag();",
+              "}"),
+          "test/annotations/Invisible.java",
+          String.join(
+              "\n",
+              "package test.annotations;",
+              "import java.lang.annotation.*;",
+              "@Retention(RetentionPolicy.CLASS)",
+              "public @interface Invisible {",
+              "  String namespace();",
+              "}"));
+
+  private static final String OTHER_ANNOTATION =
+      String.join(
+          "\n",
+          "@test.annotations.Other(",
+          "    names = {\"a\", \"namespace\"},",
+          "    nested = @test.annotations.Nested(\"namespace\"),",
+          "    nesteds = {@test.annotations.Nested(\"x\"), @test.annotations.Nested(\"y\")},",
+          "    kind = java.lang.annotation.ElementType.PACKAGE,",
+          "    type = String[].class,",
+          "    number = 1L << 40,",
+          "    fraction = 0.5,",
+          "    character = 'c',",
+          "    flag = true)");
+
+  private static final ImmutableMap<String, String> PACKAGE_INFO_SOURCES =
+      ImmutableMap.of(
+          "test/namespace/package-info.java",
+          "@jsinterop.annotations.JsPackage(namespace = \"foo.bar\") package test.namespace;",
+          "test/nonamespace/package-info.java",
+          OTHER_ANNOTATION + " package test.nonamespace;",
+          "test/noannotations/package-info.java",
+          "package test.noannotations;",
+          "test/others/package-info.java",
+          OTHER_ANNOTATION
+              + " @test.annotations.Invisible(namespace = \"invisible\")"
+              + " @jsinterop.annotations.JsPackage(namespace = \"others\")"
+              + " package test.others;",
+          "test/others/Foo.java",
+          "package test.others; public class Foo {}");
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path classesDirectory;
+  private Path jar;
+
+  @Before
+  public void setUp() throws IOException {
+    classesDirectory = temporaryFolder.newFolder("classes").toPath();
+    TestClassFiles.compile(
+        classesDirectory,
+        ImmutableMap.<String, String>builder()
+            .putAll(ANNOTATION_SOURCES)
+            .putAll(PACKAGE_INFO_SOURCES)
+            .buildOrThrow());
+    Files.createDirectories(classesDirectory.resolve("test/unreadable"));
+    Files.write(
+        classesDirectory.resolve("test/unreadable/package-info.class"),
+        new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0});
+    jar = temporaryFolder.getRoot().toPath().resolve("classes.jar");
+    TestClassFiles.jar(classesDirectory, jar);
+  }
+
+  @Test
+  public void testCreate_directory() {
+    assertIndex(ClasspathEntryIndex.create(classesDirectory.toFile()));
+  }
+
+  @Test
+  public void testCreate_jar() {
+    assertIndex(ClasspathEntryIndex.create(jar.toFile()));
+  }
+
+  @Test
+  public void testCreate_notAnArchive() throws IOException {
+    Path notAnArchive = temporaryFolder.newFile("notAnArchive.jar").toPath();
+    Files.write(notAnArchive, new byte[] {1, 2, 3});
+
+    ClasspathEntryIndex index = ClasspathEntryIndex.create(notAnArchive.toFile());
+
+    assertThat(index.getClassFilePaths()).isEmpty();
+  }
+
+  private static void assertIndex(ClasspathEntryIndex index) {
+    assertThat(index.containsClassFile("test/others/Foo.class")).isTrue();
+    assertThat(index.containsClassFile("test/others/Bar.class")).isFalse();
+    assertThat(index.containsClassFile("jsinterop/annotations/JsPackage.class")).isFalse();
+
+    assertThat(index.getJsNamespace("test.namespace")).isEqualTo("foo.bar");
+    // Namespaces in other annotations, visible or not, are not mistaken for the one of JsPackage.
+    assertThat(index.getJsNamespace("test.nonamespace")).isNull();
+    assertThat(index.getJsNamespace("test.noannotations")).isNull();
+    assertThat(index.getJsNamespace("test.others")).isEqualTo("others");
+
+    assertThat(index.getJsNamespace("test.unreadable")).isNull();
+    assertThat(index.hasUnreadablePackageInfo("test.unreadable")).isTrue();
+    assertThat(index.hasUnreadablePackageInfo("test.others")).isFalse();
+    assertThat(index.hasUnreadablePackageInfo("test.noannotations")).isFalse();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.j2cl.common.Problems;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class PackageInfoCacheTest {
+
+  @Rule public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private String directory;
+  private String firstJar;
+  private String secondJar;
+
+  @Before
+  public void setUp() throws IOException {
+    // The same split package, with a different namespace, in a directory and in two archives.
+    directory = compile("directory", "directory.ns", "test.split", "Foo").toString();
+    firstJar = createJar("first", "first.ns", "test.split", "Foo");
+    secondJar = createJar("second", "second.ns", "test.split", "Foo");
+  }
+
+  @After
+  public void tearDown() {
+    PackageInfoCache.clear();
+  }
+
+  @Test
+  public void testGetJsNamespace_firstArchiveWins() {
+    assertJsNamespace(ImmutableList.of(firstJar, secondJar), "first.ns");
+    assertJsNamespace(ImmutableList.of(secondJar, firstJar), "second.ns");
+  }
+
+  @Test
+  public void testGetJsNamespace_directoriesAreSkipped() {
+    // The class loader takes the URL of a directory without a trailing slash as an archive.
+    assertJsNamespace(ImmutableList.of(directory, secondJar, firstJar), "second.ns");
+    assertJsNamespace(ImmutableList.of(directory), null);
+  }
+
+  @Test
+  public void testGetJsNamespace_transpilerClassPathWins() throws IOException {
+    // Types that the transpiler itself can load are never taken from the class path entries.
+    String shadowingJar =
+        createJar("shadowing", "shadowing.ns", "com.google.common.collect", "ImmutableList");
+    assertJsNamespace(ImmutableList.of(shadowingJar), ImmutableList.class.getName(), null);
+  }
+
+  /** Checks that the namespace is the same with and without the indexes. */
+  private static void assertJsNamespace(List<String> classPath, String expectedJsNamespace) {
+    assertJsNamespace(classPath, "test.split.Foo", expectedJsNamespace);
+  }
+
+  private static void assertJsNamespace(
+      List<String> classPath, String typeName, String expectedJsNamespace) {
+    assertThat(getJsNamespace(classPath, typeName, null)).isEqualTo(expectedJsNamespace);
+    assertThat(getJsNamespace(classPath, typeName, ClasspathCache.getInstance()))
+        .isEqualTo(expectedJsNamespace);
+  }
+
+  private static String getJsNamespace(
+      List<String> classPath, String typeName, ClasspathCache classpathCache) {
+    PackageInfoCache.clear();
+    PackageInfoCache.init(classPath, classpathCache, new Problems());
+    return PackageInfoCache.get().getJsNamespace(typeName);
+  }
+
+  private Path compile(String name, String jsNamespace, String packageName, String typeName)
+      throws IOException {
+    Path classesDirectory = temporaryFolder.newFolder(name).toPath();
+    String packagePath = packageName.replace('.', '/');
+    TestClassFiles.compile(
+        classesDirectory,
+        ImmutableMap.of(
+            packagePath + "/package-info.java",
+            String.format(
+                "@jsinterop.annotations.JsPackage(namespace = \"%s\") package %s;",
+                jsNamespace, packageName),
+            packagePath + "/" + typeName + ".java",
+            String.format("package %s; public class %s {}", packageName, typeName)));
+    return classesDirectory;
+  }
+
+  private String createJar(String name, String jsNamespace, String packageName, String typeName)
+      throws IOException {
+    Path jar = temporaryFolder.getRoot().toPath().resolve(name + ".jar");
+    TestClassFiles.jar(compile(name, jsNamespace, packageName, typeName), jar);
+    return jar.toString();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.common;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+/** Compiles sources into class path entries for the tests. */
+final class TestClassFiles {
+
+  /**
+   * A copy of {@code @JsPackage} that is compiled along with the sources, so that the tests do not
+   * depend on how the annotations are provided to them. It is not left in the outputs.
+   */
+  private static final String JS_PACKAGE_SOURCE =
+      String.join(
+          "\n",
+          "package jsinterop.annotations;",
+          "import java.lang.annotation.*;",
+          "@Retention(RetentionPolicy.RUNTIME)",
+          "@Target(ElementType.PACKAGE)",
+          "public @interface JsPackage {",
+          "  String namespace();",
+          "}");
+
+  /** Compiles {@code sourceByPath} into {@code outputDirectory}. */
+  static void compile(Path outputDirectory, ImmutableMap<String, String> sourceByPath)
+      throws IOException {
+    ImmutableList<JavaFileObject> sources =
+        ImmutableMap.<String, String>builder()
+            .put("jsinterop/annotations/JsPackage.java", JS_PACKAGE_SOURCE)
+            .putAll(sourceByPath)
+            .buildOrThrow()
+            .entrySet()
+            .stream()
+            .map(e -> new Source(e.getKey(), e.getValue()))
+            .collect(toImmutableList());
+    Files.createDirectories(outputDirectory);
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    boolean success =
+        compiler
+            .getTask(
+                null,
+                null,
+                null,
+                ImmutableList.of(
+                    "-d", outputDirectory.toString(), "-Xpkginfo:always", "-proc:none"),
+                null,
+                sources)
+            .call();
+    checkState(success, "Compilation failed");
+
+    Path jsPackageDirectory = outputDirectory.resolve("jsinterop");
+    try (Stream<Path> paths = Files.walk(jsPackageDirectory)) {
+      for (Path path : paths.sorted((a, b) -> b.compareTo(a)).collect(toImmutableList())) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /** Archives the contents of {@code directory} into {@code jar}. */
+  static void jar(Path directory, Path jar) throws IOException {
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar));
+        Stream<Path> paths = Files.walk(directory)) {
+      for (Path path : paths.filter(Files::isRegularFile).sorted().collect(toImmutableList())) {
+        out.putNextEntry(new ZipEntry(directory.relativize(path).toString().replace('\\', '/')));
+        Files.copy(path, out);
+        out.closeEntry();
+      }
+    }
+  }
+
+  private static final class Source extends SimpleJavaFileObject {
+    private final String content;
+
+    Source(String path, String content) {
+      super(URI.create("string:///" + path), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+
+  private TestClassFiles() {}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.frontend.javac;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.sun.tools.javac.api.JavacTaskImpl;
+import com.sun.tools.javac.file.JavacFileManager;
+import com.sun.tools.javac.util.Context;
+import java.io.IOException;
+import java.net.URI;
+import javax.lang.model.element.TypeElement;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class ReusableJavacContextTest {
+
+  private final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+  private ReusableJavacContext javacContext;
+
+  @After
+  public void tearDown() throws IOException {
+    if (javacContext != null) {
+      javacContext.close();
+    }
+  }
+
+  @Test
+  public void keepsTheTaskUsableUntilReleased() {
+    javacContext = createJavacContext(/* reuseContexts= */ true);
+    JavacTaskImpl task = createTask(new DiagnosticCollector<>(), "class Foo {}");
+    task.analyze();
+
+    // The descriptors complete classpath symbols on demand after the analysis.
+    TypeElement typeElement = task.getElements().getTypeElement("java.util.concurrent.Executors");
+    assertThat(typeElement.getEnclosedElements()).isNotEmpty();
+    assertThat(task.getContext()).isNotNull();
+
+    // The pool has cleaned up the task by the time the release returns.
+    javacContext.release();
+    assertThat(task.getContext()).isNull();
+  }
+
+  @Test
+  public void rejectsANewTaskBeforeTheCurrentOneIsReleased() {
+    javacContext = createJavacContext(/* reuseContexts= */ true);
+    createTask(new DiagnosticCollector<>(), "class Foo {}").analyze();
+
+    assertThrows(
+        IllegalStateException.class, () -> createTask(new DiagnosticCollector<>(), "class Bar {}"));
+
+    javacContext.release();
+    createTask(new DiagnosticCollector<>(), "class Bar {}").analyze();
+  }
+
+  @Test
+  public void reusesTheContextWithoutTheSymbolsOfThePreviousSources() {
+    javacContext = createJavacContext(/* reuseContexts= */ true);
+    JavacTaskImpl task = createTask(new DiagnosticCollector<>(), "class Foo {}");
+    task.analyze();
+    Context context = task.getContext();
+    javacContext.release();
+
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    task = createTask(diagnostics, "class Bar { Foo foo; }");
+    task.analyze();
+    assertThat(task.getContext()).isSameInstanceAs(context);
+    assertThat(diagnostics.getDiagnostics()).hasSize(1);
+    assertThat(diagnostics.getDiagnostics().get(0).getCode())
+        .isEqualTo("compiler.err.cant.resolve.location");
+  }
+
+  @Test
+  public void discardsTheContextOfATaskThatDidNotComplete() {
+    javacContext = createJavacContext(/* reuseContexts= */ true);
+    JavacTaskImpl task = createTask(new DiagnosticCollector<>(), "class Foo {}");
+    Context context = task.getContext();
+    javacContext.discardContext();
+    javacContext.release();
+
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    task = createTask(diagnostics, "class Foo {}");
+    task.analyze();
+    assertThat(task.getContext()).isNotSameInstanceAs(context);
+    assertThat(diagnostics.getDiagnostics()).isEmpty();
+  }
+
+  @Test
+  public void createsIndependentTasksWhenContextsAreNotReused() {
+    javacContext = createJavacContext(/* reuseContexts= */ false);
+    JavacTaskImpl first = createTask(new DiagnosticCollector<>(), "class Foo {}");
+    JavacTaskImpl second = createTask(new DiagnosticCollector<>(), "class Foo {}");
+
+    assertThat(second.getContext()).isNotSameInstanceAs(first.getContext());
+    // There is no task to wait for.
+    javacContext.release();
+    assertThat(first.getContext()).isNotNull();
+  }
+
+  private ReusableJavacContext createJavacContext(boolean reuseContexts) {
+    return new ReusableJavacContext(
+        compiler,
+        (JavacFileManager) compiler.getStandardFileManager(null, null, UTF_8),
+        reuseContexts);
+  }
+
+  private JavacTaskImpl createTask(DiagnosticCollector<JavaFileObject> diagnostics, String source) {
+    return javacContext.createTask(
+        compiler, diagnostics, ImmutableList.of(), ImmutableList.of(new Source(source)));
+  }
+
+  private static final class Source extends SimpleJavaFileObject {
+    private final String content;
+
+    Source(String content) {
+      super(URI.create("string:///Test.java"), Kind.SOURCE);
+      this.content = content;
+    }
+
+    @Override
+    public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+      return content;
+    }
+  }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2021 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.j2cl.transpiler.passes;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.j2cl.common.SourcePosition;
+import com.google.j2cl.common.visitor.ProcessorError;
+import com.google.j2cl.transpiler.ast.AbstractRewriter;
+import com.google.j2cl.transpiler.ast.AbstractVisitor;
+import com.google.j2cl.transpiler.ast.BinaryExpression;
+import com.google.j2cl.transpiler.ast.BinaryOperator;
+import com.google.j2cl.transpiler.ast.Block;
+import com.google.j2cl.transpiler.ast.CompilationUnit;
+import com.google.j2cl.transpiler.ast.Expression;
+import com.google.j2cl.transpiler.ast.Kind;
+import com.google.j2cl.transpiler.ast.Node;
+import com.google.j2cl.transpiler.ast.NumberLiteral;
+import com.google.j2cl.transpiler.ast.PrefixExpression;
+import com.google.j2cl.transpiler.ast.PrefixOperator;
+import com.google.j2cl.transpiler.ast.PrimitiveTypes;
+import com.google.j2cl.transpiler.ast.Statement;
+import com.google.j2cl.transpiler.ast.Type;
+import com.google.j2cl.transpiler.ast.TypeDeclaration;
+import com.google.j2cl.transpiler.ast.Variable;
+import com.google.j2cl.transpiler.ast.Visibility;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that fused passes have the same outcome as running the passes one after another. */
+@RunWith(JUnit4.class)
+public class FusedNormalizationPassTest {
+
+  @Test
+  public void fusedVerifiersReportTheErrorOfTheFirstFailingPass() {
+    // The reference to an undeclared variable comes before the repeated statement.
+    Statement repeatedStatement = NumberLiteral.fromInt(1).makeStatement(SourcePosition.NONE);
+    Variable undeclaredVariable =
+        Variable.newBuilder().setName("x").setTypeDescriptor(PrimitiveTypes.INT).build();
+    Supplier<CompilationUnit> compilationUnitFactory =
+        () ->
+            createCompilationUnit(
+                undeclaredVariable.createReference().makeStatement(SourcePosition.NONE),
+                repeatedStatement,
+                repeatedStatement);
+
+    ProcessorError singleAstReferenceError =
+        assertThrows(
+            ProcessorError.class,
+            () -> new VerifySingleAstReference().execute(compilationUnitFactory.get()));
+    ProcessorError referenceScopingError =
+        assertThrows(
+            ProcessorError.class,
+            () -> new VerifyReferenceScoping().execute(compilationUnitFactory.get()));
+
+    assertSameError(
+        assertThrows(
+            ProcessorError.class,
+            () ->
+                FusedNormalizationPass.fuse(
+                        VerifySingleAstReference::new, VerifyReferenceScoping::new)
+                    .get()
+                    .execute(compilationUnitFactory.get())),
+        singleAstReferenceError);
+    assertSameError(
+        assertThrows(
+            ProcessorError.class,
+            () ->
+                FusedNormalizationPass.fuse(
+                        VerifyReferenceScoping::new, VerifySingleAstReference::new)
+                    .get()
+                    .execute(compilationUnitFactory.get())),
+        referenceScopingError);
+  }
+
+  @Test
+  public void fusedRewritersProduceTheSameTreeAsThePassesRunOneAfterAnother() {
+    Supplier<CompilationUnit> compilationUnitFactory =
+        () ->
+            createCompilationUnit(
+                add(NumberLiteral.fromInt(1), negate(NumberLiteral.fromInt(2)))
+                    .makeStatement(SourcePosition.NONE),
+                negate(negate(NumberLiteral.fromInt(3))).makeStatement(SourcePosition.NONE),
+                NumberLiteral.fromInt(4).makeStatement(SourcePosition.NONE));
+
+    CompilationUnit expected = compilationUnitFactory.get();
+    new NegateOddLiterals().execute(expected);
+    new RewriteNegationsAsSubtractions().execute(expected);
+
+    CompilationUnit actual = compilationUnitFactory.get();
+    FusedNormalizationPass.fuseRewriters(
+            NegateOddLiterals::new, RewriteNegationsAsSubtractions::new)
+        .get()
+        .execute(actual);
+
+    assertThat(describe(actual)).isEqualTo(describe(expected));
+    // The negations introduced by the first pass were rewritten by the second one.
+    assertThat(describe(actual)).doesNotContain("PrefixExpression");
+  }
+
+  private static class NegateOddLiterals extends RewriterNormalizationPass {
+    @Override
+    protected AbstractRewriter createRewriter() {
+      return new AbstractRewriter() {
+        @Override
+        public Expression rewriteNumberLiteral(NumberLiteral numberLiteral) {
+          return numberLiteral.getValue().intValue() % 2 == 1
+              ? negate(numberLiteral)
+              : numberLiteral;
+        }
+      };
+    }
+  }
+
+  private static class RewriteNegationsAsSubtractions extends RewriterNormalizationPass {
+    @Override
+    protected AbstractRewriter createRewriter() {
+      return new AbstractRewriter() {
+        @Override
+        public Expression rewritePrefixExpression(PrefixExpression prefixExpression) {
+          return BinaryExpression.newBuilder()
+              .setLeftOperand(NumberLiteral.fromInt(0))
+              .setOperator(BinaryOperator.MINUS)
+              .setRightOperand(prefixExpression.getOperand())
+              .build();
+        }
+      };
+    }
+  }
+
+  /** Creates a compilation unit with a class whose static initializer is {@code statements}. */
+  private static CompilationUnit createCompilationUnit(Statement... statements) {
+    Type type =
+        new Type(
+            SourcePosition.NONE,
+            Visibility.PUBLIC,
+            TypeDeclaration.newBuilder()
+                .setClassComponents(ImmutableList.of("Foo"))
+                .setPackageName("test")
+                .setKind(Kind.CLASS)
+                .build());
+    type.addStaticInitializerBlock(
+        Block.newBuilder()
+            .setSourcePosition(SourcePosition.NONE)
+            .setStatements(statements)
+            .build());
+
+    CompilationUnit compilationUnit = new CompilationUnit("test/Foo.java", "test");
+    compilationUnit.addType(type);
+    return compilationUnit;
+  }
+
+  private static Expression add(Expression leftOperand, Expression rightOperand) {
+    return BinaryExpression.newBuilder()
+        .setLeftOperand(leftOperand)
+        .setOperator(BinaryOperator.PLUS)
+        .setRightOperand(rightOperand)
+        .build();
+  }
+
+  private static Expression negate(Expression expression) {
+    return PrefixExpression.newBuilder()
+        .setOperand(expression)
+        .setOperator(PrefixOperator.MINUS)
+        .build();
+  }
+
+  /** Returns the classes of the nodes in the tree, and the values of the literals, in pre-order. */
+  private static List<String> describe(Node root) {
+    List<String> description = new ArrayList<>();
+    root.accept(
+        new AbstractVisitor() {
+          @Override
+          public boolean enterNode(Node node) {
+            description.add(node.getClass().getSimpleName());
+            return true;
+          }
+
+          @Override
+          public boolean enterNumberLiteral(NumberLiteral numberLiteral) {
+            description.add(String.valueOf(numberLiteral.getValue()));
+            return true;
+          }
+        });
+    return description;
+  }
+
+  private static void assertSameError(Throwable actual, Throwable expected) {
+    while (expected != null) {
+      assertThat(actual).isNotNull();
+      assertThat(actual.getClass()).isEqualTo(expected.getClass());
+      assertThat(actual.getMessage()).isEqualTo(expected.getMessage());
+      actual = actual.getCause();
+      expected = expected.getCause();
+    }
+    assertThat(actual).isNull();
+  }
+}